@@ -5,20 +5,33 @@ import com.yugabyte.simulation.service.WorkloadInvoker;
 import com.yugabyte.simulation.service.WorkloadSimulation;
 import com.yugabyte.simulation.services.ServiceManager;
 import com.yugabyte.simulation.services.SystemPreferencesService;
+import com.yugabyte.simulation.workload.LoadProfile;
+import com.yugabyte.simulation.workload.ParameterSweep;
+import com.yugabyte.simulation.workload.ThroughputSearch;
+import com.yugabyte.simulation.workload.ThroughputWorkloadType;
+import com.yugabyte.simulation.workload.ThroughputWorkloadType.ThroughputWorkloadInstance;
 import com.yugabyte.simulation.workload.WorkloadManager;
 import com.yugabyte.simulation.workload.WorkloadTypeInstance;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import javax.sql.DataSource;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api")
@@ -44,6 +57,19 @@ public class WorkloadSimulationController {
     private static final String WORKLOAD_TYPE = "workloadType";
     private static final String WORKLOAD_PARAMS = "params";
     private static final String LOGGING_DIR_PARAM = "loggingDir";
+    private static final String SWEEP_PARAM = "sweep";
+    private static final String SWEEP_HOLD_SECS_PARAM = "sweep-hold-secs";
+    private static final String SWEEP_SETTLE_SECS_PARAM = "sweep-settle-secs";
+    private static final String SWEEP_KNEE_LATENCY_PARAM = "sweep-knee-latency";
+    private static final String SEARCH_PARAM = "throughput-search";
+    private static final String SEARCH_MAX_ERROR_RATE_PARAM = "throughput-search-max-error-rate";
+    private static final String SEARCH_MIN_RATE_PARAM = "throughput-search-min-rate";
+    private static final String SEARCH_MAX_RATE_PARAM = "throughput-search-max-rate";
+    private static final String SEARCH_WARMUP_SECS_PARAM = "throughput-search-warmup-secs";
+    private static final String SEARCH_MEASURE_SECS_PARAM = "throughput-search-measure-secs";
+    private static final String SEARCH_PRECISION_PARAM = "throughput-search-precision";
+    // The sweep dimension which varies the size of the connection pool rather than a workload parameter
+    private static final String SWEEP_POOL_SIZE = "pool";
 
     private List<WorkloadDesc> workloads = null;
 
@@ -97,12 +123,30 @@ public class WorkloadSimulationController {
     			System.out.printf("% 4d: %s = %s\n", i+1, neededParams.get(i).getName(), paramsToUse[i].toString());
     		}
 
-    		if (workload.getInvoker() != null) {
-    			WorkloadInvoker invoker = new WorkloadInvoker(serviceManager, workload, paramsToUse);
-    			workload.getInvoker().invoke(invoker, new ParamHolder(paramsToUse));
+    		String sweepSpec = System.getProperty(SWEEP_PARAM);
+    		if (sweepSpec != null) {
+    			runSweep(sweepSpec);
+    			return;
+    		}
+    		String objective = System.getProperty(SEARCH_PARAM);
+    		if (objective != null) {
+    			runThroughputSearch(objective);
+    			return;
+    		}
+    		String profileSpec = System.getProperty(ThroughputWorkloadType.LOAD_PROFILE_PROPERTY);
+    		if (profileSpec != null && !profileSpec.trim().isEmpty()) {
+    			LoadProfile profile = null;
+    			try {
+    				profile = LoadProfile.parse(profileSpec);
+    			}
+    			catch (IllegalArgumentException e) {
+    				System.err.printf("Invalid load profile '%s': %s\n", profileSpec, e.getMessage());
+    				exit(-4);
+    			}
+    			ThroughputWorkloadType.withLoadProfile(profile, () -> invoke(paramsToUse));
     		}
     		else {
-    			workloadSimulation.invokeWorkload(workload.getWorkloadId(), paramsToUse);
+    			invoke(paramsToUse);
     		}
 			
 	    	// Autoterminate the spring boot process
@@ -110,6 +154,8 @@ public class WorkloadSimulationController {
 		    	do {
 		    		Thread.sleep(1000);
 		    	} while (workloadManager.getActiveWorkloads().size() > 1); // Note aggregation workload will be running
+		    	// Allow the final partial interval of each workload to be collated and logged
+		    	Thread.sleep(2L * serviceManager.getTimerService().getIntervalMs());
 	    	}
 	    	catch (Exception e) {
 	    		e.printStackTrace();
@@ -138,23 +184,212 @@ public class WorkloadSimulationController {
     			}
     			else {
     				// value specified, use it.
-    				switch(thisNeededParam.getType()) {
-    				case BOOLEAN:
-    					values[paramIndex] = new ParamValue(Boolean.parseBoolean(params[paramIndex]));
-    					break;
-    				case NUMBER:
-    					values[paramIndex] = new ParamValue(Integer.parseInt(params[paramIndex]));
-    					break;
-    				case STRING:
-    					values[paramIndex] = new ParamValue(params[paramIndex]);
-    					break;
-    				}
+    				values[paramIndex] = parseParamValue(thisNeededParam, params[paramIndex]);
     				paramIndex++;
     			}
     		}
     		return values;
     	}
     	
+    	private ParamValue parseParamValue(WorkloadParamDesc param, String value) {
+    		switch(param.getType()) {
+    		case BOOLEAN:
+    			return new ParamValue(Boolean.parseBoolean(value));
+    		case NUMBER:
+    			return new ParamValue(Integer.parseInt(value));
+    		default:
+    			return new ParamValue(value);
+    		}
+    	}
+    	
+    	/**
+    	 * Run the workload once for each step of the sweep, varying the parameters given by
+    	 * -Dsweep, then write the results and exit.
+    	 */
+    	private void runSweep(String sweepSpec) {
+    		ParameterSweep sweep = null;
+    		Map<String, Integer> paramIndexes = new HashMap<String, Integer>();
+    		try {
+    			sweep = new ParameterSweep(serviceManager, workload.getName(), ParameterSweep.parse(sweepSpec))
+    					.setHoldMs(Long.getLong(SWEEP_HOLD_SECS_PARAM, 60) * 1000)
+    					.setSettleMs(Long.getLong(SWEEP_SETTLE_SECS_PARAM, 10) * 1000)
+    					.setKneeLatency(System.getProperty(SWEEP_KNEE_LATENCY_PARAM, ParameterSweep.DEFAULT_KNEE_LATENCY));
+    			for (ParameterSweep.Dimension dimension : sweep.getDimensions()) {
+    				if (!SWEEP_POOL_SIZE.equalsIgnoreCase(dimension.getName())) {
+    					paramIndexes.put(dimension.getName(), getParamIndex(dimension.getName()));
+    				}
+    			}
+    		}
+    		catch (IllegalArgumentException e) {
+    			System.err.printf("Invalid sweep '%s': %s\nParams are: %s\n", sweepSpec, e.getMessage(), getParamDesc(neededParams));
+    			exit(-4);
+    		}
+    		
+    		// The steps resize the pool, so put it back as it was once the sweep is done
+    		int[] originalPoolSize = paramIndexes.size() < sweep.getDimensions().size() ? getPoolSize() : null;
+    		try {
+    			sweep.run(values -> {
+    				ParamValue[] stepParams = paramsToUse.clone();
+    				for (Map.Entry<String, String> value : values.entrySet()) {
+    					Integer index = paramIndexes.get(value.getKey());
+    					if (index == null) {
+    						setPoolSize(Integer.parseInt(value.getValue()));
+    					}
+    					else {
+    						stepParams[index] = parseParamValue(neededParams.get(index), value.getValue());
+    					}
+    				}
+    				return invokeAndFindInstance(stepParams);
+    			});
+    			restorePoolSize(originalPoolSize);
+    			String loggingPath = serviceManager.getLoggingFileManager().getLoggingPath();
+    			String resultsFile = sweep.writeResults(loggingPath == null ? System.getProperty("java.io.tmpdir") : loggingPath);
+    			ParameterSweep.SweepPoint knee = sweep.getKnee();
+    			System.out.printf("Sweep complete, results written to %s\n", resultsFile);
+    			if (knee != null) {
+    				System.out.printf("Knee at step %d %s: %,.1f ops/s, %s\n", knee.getStep(), knee.getParameters(),
+    						knee.getThroughput(), knee.getLatency().toString());
+    			}
+    		}
+    		catch (Exception e) {
+    			e.printStackTrace();
+    			restorePoolSize(originalPoolSize);
+    		}
+    		finally {
+    			exit(0);
+    		}
+    	}
+    	
+    	/**
+    	 * Start the workload, which must be a throughput workload, then search for the highest
+    	 * rate it sustains within the latency objective given by -Dthroughput-search, write
+    	 * the results and exit.
+    	 */
+    	private void runThroughputSearch(String objective) {
+    		WorkloadTypeInstance instance = invokeAndFindInstance(paramsToUse);
+    		if (!(instance instanceof ThroughputWorkloadInstance)) {
+    			System.err.printf("Workload %s (%s) is not a throughput workload, so its maximum sustainable throughput cannot be searched for\n",
+    					workload.getName(), workload.getWorkloadId());
+    			if (instance != null) {
+    				instance.terminate();
+    			}
+    			exit(-5);
+    		}
+    		try {
+    			ThroughputSearch search;
+    			try {
+    				search = ThroughputSearch.forObjective((ThroughputWorkloadInstance)instance, serviceManager.getTimerService(), objective)
+    						.setMaxErrorRate(Double.parseDouble(System.getProperty(SEARCH_MAX_ERROR_RATE_PARAM, "0.01")))
+    						.setMinRate(Integer.getInteger(SEARCH_MIN_RATE_PARAM, 1))
+    						.setMaxRate(Integer.getInteger(SEARCH_MAX_RATE_PARAM, 0))
+    						.setWarmupMs(Long.getLong(SEARCH_WARMUP_SECS_PARAM, 20) * 1000)
+    						.setMeasureMs(Long.getLong(SEARCH_MEASURE_SECS_PARAM, 60) * 1000)
+    						.setPrecision(Double.parseDouble(System.getProperty(SEARCH_PRECISION_PARAM, "0.02")));
+    			}
+    			catch (IllegalArgumentException e) {
+    				System.err.printf("Invalid throughput search: %s\n", e.getMessage());
+    				instance.terminate();
+    				exit(-4);
+    				return;
+    			}
+    			int rate = search.run();
+    			String loggingPath = serviceManager.getLoggingFileManager().getLoggingPath();
+    			String resultsFile = search.writeResults(loggingPath == null ? System.getProperty("java.io.tmpdir") : loggingPath, workload.getName());
+    			System.out.printf("Throughput search complete, results written to %s\n", resultsFile);
+    			System.out.printf("Maximum sustainable throughput within %s: %,d ops/s\n", objective, rate);
+    		}
+    		catch (Exception e) {
+    			e.printStackTrace();
+    		}
+    		finally {
+    			instance.terminate();
+    			exit(0);
+    		}
+    	}
+    	
+    	/**
+    	 * Get the index of a parameter from either its 1-based position or its name
+    	 */
+    	private int getParamIndex(String nameOrPosition) {
+    		try {
+    			int position = Integer.parseInt(nameOrPosition);
+    			if (position >= 1 && position <= neededParams.size()) {
+    				return position - 1;
+    			}
+    		}
+    		catch (NumberFormatException nfe) {
+    			for (int i = 0; i < neededParams.size(); i++) {
+    				if (neededParams.get(i).getName().equalsIgnoreCase(nameOrPosition)) {
+    					return i;
+    				}
+    			}
+    		}
+    		throw new IllegalArgumentException("Workload " + workload.getName() + " has no parameter '" + nameOrPosition + "'");
+    	}
+    	
+    	private HikariConfigMXBean getPoolConfig() {
+    		DataSource dataSource = appContext.getBean(DataSource.class);
+    		if (!(dataSource instanceof HikariDataSource)) {
+    			throw new IllegalStateException("The pool size can only be swept on a Hikari data source");
+    		}
+    		return ((HikariDataSource)dataSource).getHikariConfigMXBean();
+    	}
+    	
+    	private void setPoolSize(int poolSize) {
+    		HikariConfigMXBean config = getPoolConfig();
+    		if (config.getMinimumIdle() > poolSize) {
+    			config.setMinimumIdle(poolSize);
+    		}
+    		config.setMaximumPoolSize(poolSize);
+    	}
+    	
+    	/**
+    	 * Get the minimum idle and maximum size of the pool, to restore with {@link #restorePoolSize(int[])},
+    	 * or null if the pool cannot be resized.
+    	 */
+    	private int[] getPoolSize() {
+    		if (!(appContext.getBean(DataSource.class) instanceof HikariDataSource)) {
+    			return null;
+    		}
+    		HikariConfigMXBean config = getPoolConfig();
+    		return new int[] {config.getMinimumIdle(), config.getMaximumPoolSize()};
+    	}
+    	
+    	private void restorePoolSize(int[] poolSize) {
+    		if (poolSize != null) {
+    			HikariConfigMXBean config = getPoolConfig();
+    			config.setMaximumPoolSize(poolSize[1]);
+    			config.setMinimumIdle(poolSize[0]);
+    		}
+    	}
+    	
+    	/**
+    	 * Invoke the workload and return the instance it started, if any.
+    	 */
+    	private WorkloadTypeInstance invokeAndFindInstance(ParamValue[] params) {
+    		Set<String> existingIds = new HashSet<String>();
+    		for (WorkloadTypeInstance instance : new ArrayList<WorkloadTypeInstance>(workloadManager.getActiveWorkloads())) {
+    			existingIds.add(instance.getWorkloadId());
+    		}
+    		invoke(params);
+    		for (WorkloadTypeInstance instance : new ArrayList<WorkloadTypeInstance>(workloadManager.getActiveWorkloads())) {
+    			if (!existingIds.contains(instance.getWorkloadId())) {
+    				return instance;
+    			}
+    		}
+    		return null;
+    	}
+    	
+    	private void invoke(ParamValue[] params) {
+    		if (workload.getInvoker() != null) {
+    			WorkloadInvoker invoker = new WorkloadInvoker(serviceManager, workload, params);
+    			workload.getInvoker().invoke(invoker, new ParamHolder(params));
+    		}
+    		else {
+    			workloadSimulation.invokeWorkload(workload.getWorkloadId(), params);
+    		}
+    	}
+    	
     	private String getParamDesc(List<WorkloadParamDesc> params) {
     		StringBuffer sb = new StringBuffer();
     		for (int i= 0; i < params.size(); i++) {
@@ -275,12 +510,59 @@ public class WorkloadSimulationController {
     	return new InvocationResult("Ok");
     }
     
+    @GetMapping("set-workload-rate/{workloadId}/{rate}")
+    public InvocationResult setWorkloadRate(@PathVariable String workloadId, @PathVariable int rate) {
+    	try {
+    		workloadManager.setWorkloadRate(workloadId, rate);
+    		return new InvocationResult("Ok");
+    	}
+    	catch (Exception e) {
+    		return new InvocationResult(e);
+    	}
+    }
+    
+    @GetMapping("get-workload-mix/{workloadId}")
+    public Map<String, Integer> getWorkloadMix(@PathVariable String workloadId) {
+    	try {
+    		return workloadManager.getWorkloadMix(workloadId);
+    	}
+    	catch (IllegalArgumentException e) {
+    		throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+    	}
+    }
+    
+    /**
+     * Change the weights of the operations of a running workload, for example
+     * <code>{"point read": 50, "insert": 30, "update": 20}</code>. Operations not
+     * given keep their weight.
+     */
+    @PostMapping("set-workload-mix/{workloadId}")
+    @ResponseBody
+    public InvocationResult setWorkloadMix(@PathVariable String workloadId, @RequestBody Map<String, Integer> weights) {
+    	try {
+    		workloadManager.setWorkloadMix(workloadId, weights);
+    		return new InvocationResult("Ok");
+    	}
+    	catch (Exception e) {
+    		return new InvocationResult(e);
+    	}
+    }
+    
     @GetMapping("/getResults/{afterTime}")
     @ResponseBody
     public Map<String, WorkloadResult> getResults(
-    		@PathVariable(name = "afterTime") long afterTime) {
+    		@PathVariable(name = "afterTime") long afterTime,
+    		@RequestParam(name = "resolution", required = false) String resolution) {
     	
-    	return workloadManager.getResults(afterTime);
+    	ResultResolution resultResolution;
+    	try {
+    		resultResolution = ResultResolution.parse(resolution);
+    	}
+    	catch (IllegalArgumentException e) {
+    		// A bad resolution is the caller's mistake, not a server error
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+    	}
+    	return workloadManager.getResults(afterTime, resultResolution);
     }
 }
 
@@ -0,0 +1,133 @@
+package com.yugabyte.simulation.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.yugabyte.simulation.services.LatencyHistogram;
+
+/**
+ * The summary statistics of a latency distribution over one interval: the
+ * number of samples, min, average, max and the configured percentiles.
+ */
+public class LatencySummary {
+	private final long count;
+	private final long minUs;
+	private final long avgUs;
+	private final long maxUs;
+	private final Percentiles percentiles;
+	private final long[] percentileValuesUs;
+
+	public LatencySummary(LatencyHistogram histogram, Percentiles percentiles) {
+		this.count = histogram.getTotalCount();
+		this.percentiles = percentiles;
+		this.percentileValuesUs = new long[percentiles.size()];
+		if (count > 0) {
+			this.minUs = histogram.getMinValue();
+			this.maxUs = histogram.getMaxValue();
+			this.avgUs = histogram.getMean();
+			histogram.getValuesAtPercentiles(percentiles.getValues(), percentileValuesUs);
+		}
+		else {
+			this.minUs = 0;
+			this.maxUs = 0;
+			this.avgUs = 0;
+		}
+	}
+
+	/**
+	 * Re-create a summary from previously computed values, for example when reading a stored result.
+	 */
+	public LatencySummary(long count, long minUs, long avgUs, long maxUs, Percentiles percentiles, long[] percentileValuesUs) {
+		this.count = count;
+		this.minUs = minUs;
+		this.avgUs = avgUs;
+		this.maxUs = maxUs;
+		this.percentiles = percentiles;
+		this.percentileValuesUs = percentileValuesUs;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMinUs() {
+		return minUs;
+	}
+
+	public long getAvgUs() {
+		return avgUs;
+	}
+
+	public long getMaxUs() {
+		return maxUs;
+	}
+
+	/**
+	 * Get the latency at the index'th configured percentile.
+	 */
+	public long getPercentileUs(int index) {
+		return percentileValuesUs[index];
+	}
+
+	@JsonIgnore
+	public Percentiles getPercentiles() {
+		return percentiles;
+	}
+
+	/**
+	 * The latency at each configured percentile, keyed by the percentile name, eg "p99.9"
+	 */
+	public Map<String, Long> getPercentilesUs() {
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < percentileValuesUs.length; i++) {
+			result.put(percentiles.getLabel(i), percentileValuesUs[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Format the percentile latencies as CSV columns, including a leading comma. The
+	 * columns match those returned by {@link Percentiles#getCsvHeader()}
+	 */
+	public String formatPercentilesToCsv() {
+		StringBuilder sb = new StringBuilder();
+		for (long value : percentileValuesUs) {
+			sb.append(',').append(value);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Get the CSV headings for a summary, including a leading comma. Each heading
+	 * is prefixed with the passed prefix, eg "Corrected"
+	 */
+	public static String getCsvHeader(String prefix, Percentiles percentiles) {
+		return "," + prefix + " Count," + prefix + " Average Time Us," + prefix + " Max Time Us"
+				+ percentiles.getCsvHeader(prefix + " ");
+	}
+
+	/**
+	 * Format the summary as CSV columns matching {@link #getCsvHeader(String, Percentiles)}.
+	 * A null summary produces empty columns.
+	 */
+	public static String formatToCsv(LatencySummary summary, Percentiles percentiles) {
+		if (summary == null) {
+			StringBuilder sb = new StringBuilder(",,,");
+			for (int i = 0; i < percentiles.size(); i++) {
+				sb.append(',');
+			}
+			return sb.toString();
+		}
+		return "," + summary.count + "," + summary.avgUs + "," + summary.maxUs + summary.formatPercentilesToCsv();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < percentileValuesUs.length; i++) {
+			sb.append(String.format(", %s: %,dus", percentiles.getLabel(i), percentileValuesUs[i]));
+		}
+		return String.format("min: %,dus, avg: %,dus%s, max: %,dus", minUs, avgUs, sb.toString(), maxUs);
+	}
+}
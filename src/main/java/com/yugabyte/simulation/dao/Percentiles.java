@@ -0,0 +1,79 @@
+package com.yugabyte.simulation.dao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * The set of latency percentiles which are computed for each interval. The
+ * percentiles are held in ascending order so they can all be computed in a
+ * single pass over a histogram.
+ */
+public class Percentiles {
+	private final double[] values;
+	private final String[] labels;
+
+	public Percentiles(double ... percentiles) {
+		this.values = percentiles.clone();
+		Arrays.sort(this.values);
+		this.labels = new String[values.length];
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] <= 0.0 || values[i] > 100.0) {
+				throw new IllegalArgumentException("Percentile must be > 0 and <= 100, not " + values[i]);
+			}
+			labels[i] = "p" + new BigDecimal(Double.toString(values[i])).stripTrailingZeros().toPlainString();
+		}
+	}
+
+	/**
+	 * Parse a comma separated list of percentiles, for example "50,90,99,99.9"
+	 */
+	public static Percentiles parse(String percentiles) {
+		if (percentiles == null || percentiles.trim().length() == 0) {
+			return new Percentiles();
+		}
+		String[] parts = percentiles.split(",");
+		double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Double.parseDouble(parts[i].trim());
+		}
+		return new Percentiles(values);
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	public double getValue(int index) {
+		return values[index];
+	}
+
+	public String getLabel(int index) {
+		return labels[index];
+	}
+
+	/**
+	 * Return the percentile values, in ascending order. This array must not be modified.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Get the extra CSV column headings for these percentiles, including a leading comma.
+	 */
+	public String getCsvHeader() {
+		return getCsvHeader("");
+	}
+
+	/**
+	 * Get the extra CSV column headings for these percentiles, with each heading
+	 * prefixed by the passed prefix, including a leading comma.
+	 */
+	public String getCsvHeader(String prefix) {
+		StringBuilder sb = new StringBuilder();
+		for (String label : labels) {
+			sb.append(',').append(prefix).append('P').append(label.substring(1)).append(" Us");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,65 @@
+package com.yugabyte.simulation.dao;
+
+/**
+ * The resolutions the per-interval results of a workload are kept at. The finest
+ * resolution holds the results of each collated interval; the coarser ones are rolled
+ * up from them as the intervals close, by merging the interval histograms. The coarser
+ * resolutions are kept for longer so long running workloads can be charted cheaply.
+ * Resolutions no coarser than the collation interval are served from the collated intervals.
+ */
+public enum ResultResolution {
+	/** Each collated interval, of the length configured by timer.interval-ms */
+	INTERVAL("interval", 0, 86400),
+	SECOND("1s", 1000, 86400),
+	TEN_SECONDS("10s", 10 * 1000, 7 * 8640),
+	MINUTE("1m", 60 * 1000, 30 * 1440),
+	TEN_MINUTES("10m", 10 * 60 * 1000, 90 * 144);
+	
+	private final String label;
+	private final long intervalMs;
+	private final int maxResults;
+	
+	private ResultResolution(String label, long intervalMs, int maxResults) {
+		this.label = label;
+		this.intervalMs = intervalMs;
+		this.maxResults = maxResults;
+	}
+	
+	public String getLabel() {
+		return label;
+	}
+	
+	public long getIntervalMs() {
+		return intervalMs;
+	}
+	
+	/**
+	 * The number of results retained at this resolution, after which the oldest are discarded.
+	 */
+	public int getMaxResults() {
+		return maxResults;
+	}
+	
+	/**
+	 * Get the start time of the bucket at this resolution which contains the passed time.
+	 */
+	public long getBucketStartMs(long timeMs) {
+		return intervalMs == 0 ? timeMs : timeMs - (timeMs % intervalMs);
+	}
+	
+	/**
+	 * Parse a resolution from either its label, eg "10s", or its name, eg "TEN_SECONDS".
+	 * A null or empty value returns the collated intervals.
+	 */
+	public static ResultResolution parse(String value) {
+		if (value == null || value.trim().length() == 0) {
+			return INTERVAL;
+		}
+		for (ResultResolution resolution : values()) {
+			if (resolution.label.equalsIgnoreCase(value.trim()) || resolution.name().equalsIgnoreCase(value.trim())) {
+				return resolution;
+			}
+		}
+		throw new IllegalArgumentException("Unknown result resolution '" + value + "', expected one of interval, 1s, 10s, 1m or 10m");
+	}
+}
@@ -1,58 +1,81 @@
 package com.yugabyte.simulation.dao;
 
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.yugabyte.simulation.services.LatencyHistogram;
+import com.yugabyte.simulation.services.Outcome;
+
 public class TimerResult {
 	private final long numSucceeded;
 	private final long numFailed;
-	private final long minUs;
-	private final long maxUs;
-	private final long avgUs;
 	private final long startTimeMs;
-	
-	public TimerResult(long[] succeededTimes, int succeededCounts,
-				long[] failedTimes, int failedCounts, long startTimeMs) {
-		
+	private final long endTimeMs;
+	private final LatencySummary latency;
+	private final LatencySummary correctedLatency;
+	private final LatencySummary schedulingLag;
+	private final Map<Outcome, LatencySummary> outcomeLatencies;
+	private final Map<String, LatencySummary> phaseLatencies;
+	private final Map<String, TimerResult> operationResults;
+
+	public TimerResult(LatencyHistogram histogram, Percentiles percentiles, long succeededCounts, long failedCounts, long startTimeMs) {
+		this(new LatencySummary(histogram, percentiles), null, null, null, null, null, succeededCounts, failedCounts, startTimeMs, startTimeMs);
+	}
+
+	/**
+	 * Create a timer result
+	 * @param latency - the latencies measured from when each operation actually started
+	 * @param correctedLatency - the latencies measured from when each operation was intended
+	 * to start, correcting for coordinated omission. May be null if the workload does not do this.
+	 * @param schedulingLag - how late each operation started compared to when it was intended to
+	 * start. May be null if the workload does not schedule its operations.
+	 * @param outcomeLatencies - the latencies of the operations with each outcome. May be null
+	 * or empty if the outcomes were not broken down.
+	 * @param phaseLatencies - the latencies of each phase the operations were broken into, keyed
+	 * by the phase name. May be null or empty if the operations were not broken into phases.
+	 * @param operationResults - the results of each operation of a mix, keyed by the operation
+	 * name. May be null or empty if the workload does not run a mix.
+	 * @param startTimeMs - the wall clock time the interval started
+	 * @param endTimeMs - the wall clock time the interval ended
+	 */
+	public TimerResult(LatencySummary latency, LatencySummary correctedLatency, LatencySummary schedulingLag,
+				Map<Outcome, LatencySummary> outcomeLatencies, Map<String, LatencySummary> phaseLatencies,
+				Map<String, TimerResult> operationResults, long succeededCounts, long failedCounts, long startTimeMs, long endTimeMs) {
+
 		this.numFailed = failedCounts;
 		this.numSucceeded = succeededCounts;
 		this.startTimeMs = startTimeMs;
-		
-		long minUs = Long.MAX_VALUE;
-		long maxUs = Long.MIN_VALUE;
-		long totalTime = 0;
-		for (int j = 0; j < 2; j++) {
-			long[] data = (j == 0 ? succeededTimes : failedTimes);
-			int count = (j == 0 ? succeededCounts : failedCounts);
-			for (int i = 0; i < count; i++) {
-				long time = data[i];
-				if (time < minUs) {
-					minUs = time;
-				}
-				if (time > maxUs) {
-					maxUs = time;
-				}
-				totalTime += time;
-			}
-		}
-		if (minUs < Long.MAX_VALUE) {
-			this.minUs = minUs;
-			this.maxUs = maxUs;
-			this.avgUs = totalTime / (failedCounts + succeededCounts);
-
-			// If StdDev is required see https://www.programiz.com/java-programming/examples/standard-deviation
-		}
-		else {
-			this.minUs = 0;
-			this.maxUs = 0;
-			this.avgUs = 0;
-		}
+		this.endTimeMs = endTimeMs;
+		this.latency = latency;
+		this.correctedLatency = correctedLatency;
+		this.schedulingLag = schedulingLag;
+		this.outcomeLatencies = outcomeLatencies == null ? Collections.<Outcome, LatencySummary>emptyMap() : outcomeLatencies;
+		this.phaseLatencies = phaseLatencies == null ? Collections.<String, LatencySummary>emptyMap() : phaseLatencies;
+		this.operationResults = operationResults == null ? Collections.<String, TimerResult>emptyMap() : operationResults;
+		// If StdDev is required see https://www.programiz.com/java-programming/examples/standard-deviation
 	}
-	
+
 	protected TimerResult(TimerResult original) {
 		this.numFailed = original.numFailed;
 		this.numSucceeded = original.numSucceeded;
-		this.avgUs = original.avgUs;
-		this.maxUs = original.maxUs;
-		this.minUs = original.minUs;
 		this.startTimeMs = original.startTimeMs;
+		this.endTimeMs = original.endTimeMs;
+		this.latency = original.latency;
+		this.correctedLatency = original.correctedLatency;
+		this.schedulingLag = original.schedulingLag;
+		this.outcomeLatencies = original.outcomeLatencies;
+		this.phaseLatencies = original.phaseLatencies;
+		this.operationResults = original.operationResults;
+	}
+
+	/**
+	 * The latency distribution of all the operations in this interval.
+	 */
+	@JsonIgnore
+	public LatencySummary getLatency() {
+		return latency;
 	}
 
 	public long getNumSucceeded() {
@@ -64,29 +87,158 @@ public class TimerResult {
 	}
 
 	public long getMinUs() {
-		return minUs;
+		return latency.getMinUs();
 	}
 
 	public long getMaxUs() {
-		return maxUs;
+		return latency.getMaxUs();
 	}
 
 	public long getAvgUs() {
-		return avgUs;
+		return latency.getAvgUs();
 	}
 
 	public long getStartTimeMs() {
 		return startTimeMs;
 	}
-	
+
+	public long getEndTimeMs() {
+		return endTimeMs;
+	}
+
+	/**
+	 * Get the latency at the index'th configured percentile.
+	 */
+	public long getPercentileUs(int index) {
+		return latency.getPercentileUs(index);
+	}
+
+	@JsonIgnore
+	public Percentiles getPercentiles() {
+		return latency.getPercentiles();
+	}
+
+	/**
+	 * The latency at each configured percentile, keyed by the percentile name, eg "p99.9"
+	 */
+	public Map<String, Long> getPercentilesUs() {
+		return latency.getPercentilesUs();
+	}
+
+	/**
+	 * The latency distribution measured from the time each operation was scheduled
+	 * to start rather than when it actually started. This is only present for
+	 * workloads which correct for coordinated omission.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public LatencySummary getCorrectedLatency() {
+		return correctedLatency;
+	}
+
+	/**
+	 * The distribution of how late operations started compared to when they were scheduled
+	 * to start. A growing lag means the workload cannot keep up with its target rate. This is
+	 * only present for workloads which schedule their operations.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public LatencySummary getSchedulingLag() {
+		return schedulingLag;
+	}
+
+	/**
+	 * The number of operations and their latency distribution for each outcome which
+	 * occurred in this interval, for example {@link Outcome#SERIALIZATION_FAILURE}
+	 */
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	public Map<Outcome, LatencySummary> getOutcomes() {
+		return outcomeLatencies;
+	}
+
+	/**
+	 * Get the number of operations with the passed outcome in this interval.
+	 */
+	public long getOutcomeCount(Outcome outcome) {
+		LatencySummary summary = outcomeLatencies.get(outcome);
+		return summary == null ? 0 : summary.getCount();
+	}
+
+	/**
+	 * Get the CSV headings for the count of each class of error, including a leading comma.
+	 */
+	public static String getOutcomesCsvHeader() {
+		StringBuilder sb = new StringBuilder();
+		for (Outcome outcome : Outcome.values()) {
+			if (outcome != Outcome.SUCCESS) {
+				sb.append(',').append(outcome.getDescription());
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Format the count of each class of error as CSV columns matching {@link #getOutcomesCsvHeader()}
+	 */
+	public String formatOutcomesToCsv() {
+		StringBuilder sb = new StringBuilder();
+		for (Outcome outcome : Outcome.values()) {
+			if (outcome != Outcome.SUCCESS) {
+				sb.append(',').append(getOutcomeCount(outcome));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The latency distribution of each phase the operations were broken into with
+	 * {@code Timer.timeSubPortion}, in the order the phases were registered.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	public Map<String, LatencySummary> getPhaseLatencies() {
+		return phaseLatencies;
+	}
+
+	/**
+	 * The results of each operation of a mix, keyed by the operation name, in the order
+	 * the operations were registered.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	public Map<String, TimerResult> getOperations() {
+		return operationResults;
+	}
+
+	/**
+	 * Format the percentile latencies as extra CSV columns, including a leading comma. The
+	 * columns match those returned by {@link Percentiles#getCsvHeader()}
+	 */
+	public String formatPercentilesToCsv() {
+		return latency.formatPercentilesToCsv();
+	}
+
 	@Override
 	public String toString() {
-		return String.format("Ops/s: %,d (%,d, %,d), min: %,dus, avg: %,dus, max: %,dus\n",
-				(numSucceeded + numFailed),
+		StringBuilder phases = new StringBuilder();
+		for (Map.Entry<Outcome, LatencySummary> outcome : outcomeLatencies.entrySet()) {
+			if (outcome.getKey() != Outcome.SUCCESS) {
+				phases.append("\n\t").append(outcome.getKey().getDescription()).append(": ")
+						.append(String.format("%,d, ", outcome.getValue().getCount())).append(outcome.getValue().toString());
+			}
+		}
+		for (Map.Entry<String, LatencySummary> phase : phaseLatencies.entrySet()) {
+			phases.append("\n\t").append(phase.getKey()).append(": ").append(phase.getValue().toString());
+		}
+		for (Map.Entry<String, TimerResult> operation : operationResults.entrySet()) {
+			phases.append("\n\t").append(operation.getKey()).append(": ").append(operation.getValue().toString().trim());
+		}
+		// The succeeded and failed counts are for the whole interval, which may not be a second long
+		long durationMs = endTimeMs - startTimeMs;
+		long opsPerSecond = durationMs > 0 ? (numSucceeded + numFailed) * 1000 / durationMs : (numSucceeded + numFailed);
+		return String.format("Ops/s: %,d (%,d, %,d), %s%s%s%s\n",
+				opsPerSecond,
 				numSucceeded,
 				numFailed,
-				minUs,
-				avgUs,
-				maxUs);
+				latency.toString(),
+				correctedLatency == null ? "" : ", corrected " + correctedLatency.toString(),
+				schedulingLag == null ? "" : "\n\tscheduling lag: " + schedulingLag.toString(),
+				phases.toString());
 	}
 }
@@ -1,10 +1,13 @@
 package com.yugabyte.simulation.dao;
 
+import java.util.function.IntSupplier;
+
 public class WorkloadParamDesc {
 	private final String name;
 	private final ParamType type;
 	private final int minValue;
 	private final int maxValue;
+	private final IntSupplier maxValueSupplier;
 	private final ParamValue defaultValue;
 	private final String[] choices;
 	private final String sliderLabel;
@@ -15,6 +18,7 @@ public class WorkloadParamDesc {
 		this.type = type;
 		this.minValue = minValue;
 		this.maxValue = maxValue;
+		this.maxValueSupplier = null;
 		this.defaultValue = defaultValue;
 		this.choices = null;
 		this.sliderLabel = sliderLabel;
@@ -35,6 +39,7 @@ public class WorkloadParamDesc {
 		this.choices = choices;
 		this.minValue = 0;
 		this.maxValue = 0;
+		this.maxValueSupplier = null;
 		this.sliderLabel = null;
 		if (defaultChoiceIndex >= 0 && defaultChoiceIndex < choices.length) {
 			defaultValue = new ParamValue(choices[defaultChoiceIndex]);
@@ -72,6 +77,21 @@ public class WorkloadParamDesc {
 		this(name, ParamType.NUMBER, minValue, maxValue, new ParamValue(defaultValue), null);
 	}
 
+	/**
+	 * Create a numeric parameter whose maximum depends on the configuration, such as the
+	 * number of threads. The maximum is looked up each time the parameter is described.
+	 */
+	public WorkloadParamDesc(String name, int minValue, IntSupplier maxValue, int defaultValue) {
+		this.name = name;
+		this.type = ParamType.NUMBER;
+		this.minValue = minValue;
+		this.maxValue = 0;
+		this.maxValueSupplier = maxValue;
+		this.defaultValue = new ParamValue(defaultValue);
+		this.choices = null;
+		this.sliderLabel = null;
+	}
+
 	public WorkloadParamDesc(String name, int minValue, int maxValue, int defaultValue, String sliderLabel) {
 		// NB: For now the value of the slider label is ignored, it's non-falsy precense is enough to trigger the scroll bar.
 		this(name, ParamType.NUMBER, minValue, maxValue, new ParamValue(defaultValue), sliderLabel);
@@ -90,7 +110,7 @@ public class WorkloadParamDesc {
 	}
 
 	public int getMaxValue() {
-		return maxValue;
+		return maxValueSupplier == null ? maxValue : maxValueSupplier.getAsInt();
 	}
 	
 	public ParamValue getDefaultValue() {
@@ -3,6 +3,8 @@ package com.yugabyte.simulation.dao;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import com.yugabyte.simulation.workload.WorkloadTypeInstance;
 
 public class WorkloadResult {
@@ -11,12 +13,19 @@ public class WorkloadResult {
 	private final boolean canBeTerminated;
 	private final boolean isTerminated;
 	private final List<TimerResult> results;
+	private final List<TimerResult> warmupResults;
+	private final long warmupEndTime;
 	private final long startTime;
 	private final long endTime;
 	private final String status;
 	private final String description;
+	private final ResultResolution resolution;
 	
 	public WorkloadResult(long fromTime, WorkloadTypeInstance instance) {
+		this(fromTime, ResultResolution.INTERVAL, instance);
+	}
+	
+	public WorkloadResult(long fromTime, ResultResolution resolution, WorkloadTypeInstance instance) {
 		this.workloadId = instance.getWorkloadId();
 		this.workloadTypeName = instance.getType().getTypeName();
 		this.canBeTerminated = instance.getType().canBeTerminated();
@@ -25,12 +34,16 @@ public class WorkloadResult {
 		this.endTime = instance.getEndTime();
 		this.status = instance.getStatus().toString();
 		if (fromTime < Long.MAX_VALUE) {
-			this.results = instance.getResults(fromTime);
+			this.results = instance.getResults(fromTime, resolution);
+			this.warmupResults = instance.getWarmupResults(fromTime);
 		}
 		else {
 			this.results = new ArrayList<TimerResult>();
+			this.warmupResults = new ArrayList<TimerResult>();
 		}
+		this.warmupEndTime = instance.getWarmupEndTime();
 		this.description = instance.getDescription();
+		this.resolution = instance.getStoredResolution(resolution);
 	}
 
 	public String getWorkloadId() {
@@ -65,7 +78,30 @@ public class WorkloadResult {
 		return results;
 	}
 	
+	/**
+	 * The results of the intervals collated while the workload was warming up, which are
+	 * not included in {@link #getResults()}
+	 */
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	public List<TimerResult> getWarmupResults() {
+		return warmupResults;
+	}
+	
+	/**
+	 * The time the workload finished warming up, or -1 if it is still warming up.
+	 */
+	public long getWarmupEndTime() {
+		return warmupEndTime;
+	}
+	
 	public String getDescription() {
 		return description;
 	}
+	
+	/**
+	 * The resolution of the results, eg "10s", or "interval" if the results are the collated intervals.
+	 */
+	public String getResolution() {
+		return resolution.getLabel();
+	}
 }
@@ -0,0 +1,414 @@
+package com.yugabyte.simulation.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.yugabyte.PGConnection;
+import com.yugabyte.copy.CopyIn;
+import com.yugabyte.simulation.workload.FixedTargetWorkloadType.FixedTargetWorkloadInstance;
+
+/**
+ * Bulk load generated rows by streaming them into {@code COPY ... FROM STDIN}, which is
+ * much faster than inserting them for an initial load. The rows are written in COPY's
+ * text format straight into a byte buffer owned by each worker, which is passed to the
+ * server through the driver's {@code CopyManager} whenever it fills, so no intermediate
+ * strings or files are built:
+ * <pre>
+ * new CopyLoader(jdbcTemplate, "copy words(id, word_name) from stdin", (sequence, row) -&gt; {
+ *     row.append(sequence);
+ *     row.append(LoadGeneratorUtils.getName());
+ * }).load(instance, threads, numberOfRows, rowsPerCommit);
+ * </pre>
+ * Each worker of the fixed target workload streams one COPY at a time, which is committed
+ * every {@code rowsPerCommit} rows and timed as one operation. The workload's results report
+ * the rows/s and MB/s loaded, and its progress is counted in rows.
+ */
+public class CopyLoader {
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	public interface RowWriter {
+		/**
+		 * Append the columns of the row with the passed sequence number, in the order they are
+		 * listed in the COPY statement.
+		 */
+		public void writeRow(long sequence, CopyRow row) throws SQLException;
+	}
+
+	/**
+	 * The reusable buffer a worker writes its rows into, in COPY's text format. Numbers, UUIDs
+	 * and dates are formatted straight into the buffer rather than through strings.
+	 */
+	public static class CopyRow {
+		private static final byte[] NULL = {'\\', 'N'};
+		private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+		private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		// Holds the digits of a number, which are produced in reverse
+		private final byte[] digits = new byte[20];
+		// Dates are written in the local time of the JVM, as JDBC writes timestamps, with its offset
+		private final TimeZone timeZone = TimeZone.getDefault();
+		private int position = 0;
+		private boolean firstColumn = true;
+		private CopyIn copyIn = null;
+		private long bytesWritten = 0;
+
+		private void put(byte value) throws SQLException {
+			if (position == buffer.length) {
+				flush();
+			}
+			buffer[position++] = value;
+		}
+
+		private void startColumn() throws SQLException {
+			if (!firstColumn) {
+				put((byte)'\t');
+			}
+			firstColumn = false;
+		}
+
+		private void putAscii(CharSequence value) throws SQLException {
+			for (int i = 0; i < value.length(); i++) {
+				put((byte)value.charAt(i));
+			}
+		}
+
+		public CopyRow appendNull() throws SQLException {
+			startColumn();
+			put(NULL[0]);
+			put(NULL[1]);
+			return this;
+		}
+
+		public CopyRow append(long value) throws SQLException {
+			startColumn();
+			if (value == Long.MIN_VALUE) {
+				putAscii(Long.toString(value));
+				return this;
+			}
+			if (value < 0) {
+				put((byte)'-');
+				value = -value;
+			}
+			putDigits(value);
+			return this;
+		}
+
+		/**
+		 * Write a non-negative number in decimal.
+		 */
+		private void putDigits(long value) throws SQLException {
+			int count = 0;
+			do {
+				digits[count++] = (byte)('0' + value % 10);
+				value /= 10;
+			} while (value > 0);
+			while (count > 0) {
+				put(digits[--count]);
+			}
+		}
+
+		/**
+		 * Write a non-negative number in decimal, padded with leading zeros to at least {@code width} digits.
+		 */
+		private void putDigits(long value, int width) throws SQLException {
+			for (long limit = 10; width > 1; width--, limit *= 10) {
+				if (value < limit) {
+					put((byte)'0');
+				}
+			}
+			putDigits(value);
+		}
+
+		/**
+		 * Append a double as the shortest decimal which reads back as the same value. Values
+		 * too large or too small to format exactly in 64 bit arithmetic, which generated data
+		 * rarely has, fall back to {@link Double#toString(double)}.
+		 */
+		public CopyRow append(double value) throws SQLException {
+			startColumn();
+			if (Double.isNaN(value)) {
+				putAscii("NaN");
+			}
+			else if (Double.isInfinite(value)) {
+				putAscii(value > 0 ? "Infinity" : "-Infinity");
+			}
+			else if (!putDecimal(value)) {
+				putAscii(Double.toString(value));
+			}
+			return this;
+		}
+
+		/**
+		 * Write a finite double in plain decimal notation, generating the digits of its fraction
+		 * until they identify it (Steele and White's free-format algorithm). The fraction and the
+		 * distances to the halfway points to the neighbouring doubles are held as multiples of
+		 * 2^-bits, so this needs the binary exponent of the value to be at least -57.
+		 * @return false if the value is out of this range and nothing was written
+		 */
+		private boolean putDecimal(double value) throws SQLException {
+			long raw = Double.doubleToRawLongBits(value);
+			int biasedExponent = (int)(raw >>> 52) & 0x7ff;
+			long fraction = raw & ((1L << 52) - 1);
+			long mantissa = biasedExponent == 0 ? fraction : fraction | (1L << 52);
+			int exponent = biasedExponent == 0 ? -1074 : biasedExponent - 1075;
+			if (mantissa != 0 && (exponent < -57 || (exponent > 0 && Long.numberOfLeadingZeros(mantissa) <= exponent))) {
+				return false;
+			}
+			if (raw < 0) {
+				put((byte)'-');
+			}
+			if (exponent >= 0 || mantissa == 0) {
+				putDigits(mantissa << Math.max(0, exponent));
+				return true;
+			}
+			int bits = 2 - exponent;
+			long scale = 1L << bits;
+			long remainder = (mantissa << 2) & (scale - 1);
+			long integer = mantissa >>> -exponent;
+			// The halfway points are half a unit of the mantissa away, or a quarter below a power of two
+			long high = 2;
+			long low = fraction == 0 && biasedExponent > 1 ? 1 : 2;
+			boolean roundDown = remainder < low;
+			boolean roundUp = remainder > scale - high;
+			if (roundDown || roundUp) {
+				putDigits(roundUp && (!roundDown || 2 * remainder >= scale) ? integer + 1 : integer);
+				return true;
+			}
+			putDigits(integer);
+			put((byte)'.');
+			do {
+				remainder *= 10;
+				high *= 10;
+				low *= 10;
+				int digit = (int)(remainder >>> bits);
+				remainder &= scale - 1;
+				roundDown = remainder < low;
+				roundUp = remainder > scale - high;
+				// The previous digit did not round up, so this one cannot carry into it
+				if (roundUp && (!roundDown || 2 * remainder >= scale)) {
+					digit++;
+				}
+				put((byte)('0' + digit));
+			} while (!roundDown && !roundUp);
+			return true;
+		}
+
+		public CopyRow append(boolean value) throws SQLException {
+			startColumn();
+			put(value ? (byte)'t' : (byte)'f');
+			return this;
+		}
+
+		public CopyRow append(UUID value) throws SQLException {
+			if (value == null) {
+				return appendNull();
+			}
+			startColumn();
+			putHex(value.getMostSignificantBits() >>> 32, 8);
+			put((byte)'-');
+			putHex(value.getMostSignificantBits() >>> 16, 4);
+			put((byte)'-');
+			putHex(value.getMostSignificantBits(), 4);
+			put((byte)'-');
+			putHex(value.getLeastSignificantBits() >>> 48, 4);
+			put((byte)'-');
+			putHex(value.getLeastSignificantBits(), 12);
+			return this;
+		}
+
+		private void putHex(long value, int length) throws SQLException {
+			for (int shift = (length - 1) * 4; shift >= 0; shift -= 4) {
+				put(HEX[(int)(value >>> shift) & 0xf]);
+			}
+		}
+
+		/**
+		 * Append a date as a timestamp in the local time of the JVM with an explicit offset
+		 * from UTC, for example {@code 2023-11-15 07:13:20.123+09}, so it denotes the same
+		 * instant in a {@code timestamptz} column whatever the time zone of the session.
+		 */
+		public CopyRow append(Date value) throws SQLException {
+			if (value == null) {
+				return appendNull();
+			}
+			startColumn();
+			long millis = value.getTime();
+			int offsetMs = timeZone.getOffset(millis);
+			long localMillis = millis + offsetMs;
+			long days = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+			long millisOfDay = Math.floorMod(localMillis, MILLIS_PER_DAY);
+
+			// Convert days since 1970-01-01 to a proleptic Gregorian date, as PostgreSQL uses,
+			// counting years from March so the leap day falls at the end of the year
+			long shifted = days + 719468;
+			long era = Math.floorDiv(shifted, 146097);
+			long dayOfEra = shifted - era * 146097;
+			long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+			long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+			long monthFromMarch = (5 * dayOfYear + 2) / 153;
+			long day = dayOfYear - (153 * monthFromMarch + 2) / 5 + 1;
+			long month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+			long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+			// Year 0 is 1 BC
+			putDigits(year > 0 ? year : 1 - year, 4);
+			put((byte)'-');
+			putDigits(month, 2);
+			put((byte)'-');
+			putDigits(day, 2);
+			put((byte)' ');
+			putDigits(millisOfDay / 3_600_000, 2);
+			put((byte)':');
+			putDigits(millisOfDay / 60_000 % 60, 2);
+			put((byte)':');
+			putDigits(millisOfDay / 1000 % 60, 2);
+			put((byte)'.');
+			putDigits(millisOfDay % 1000, 3);
+			put(offsetMs < 0 ? (byte)'-' : (byte)'+');
+			int offsetMinutes = Math.abs(offsetMs) / 60_000;
+			putDigits(offsetMinutes / 60, 2);
+			if (offsetMinutes % 60 != 0) {
+				put((byte)':');
+				putDigits(offsetMinutes % 60, 2);
+			}
+			if (year <= 0) {
+				putAscii(" BC");
+			}
+			return this;
+		}
+
+		/**
+		 * Append a text column, escaping the characters COPY treats specially and encoding it as UTF-8.
+		 */
+		public CopyRow append(CharSequence value) throws SQLException {
+			if (value == null) {
+				return appendNull();
+			}
+			startColumn();
+			for (int i = 0; i < value.length(); i++) {
+				char ch = value.charAt(i);
+				switch (ch) {
+				case '\\': put((byte)'\\'); put((byte)'\\'); break;
+				case '\t': put((byte)'\\'); put((byte)'t'); break;
+				case '\n': put((byte)'\\'); put((byte)'n'); break;
+				case '\r': put((byte)'\\'); put((byte)'r'); break;
+				default:
+					if (ch < 0x80) {
+						put((byte)ch);
+					}
+					else if (ch < 0x800) {
+						put((byte)(0xc0 | (ch >> 6)));
+						put((byte)(0x80 | (ch & 0x3f)));
+					}
+					else if (Character.isHighSurrogate(ch) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+						int codePoint = Character.toCodePoint(ch, value.charAt(++i));
+						put((byte)(0xf0 | (codePoint >> 18)));
+						put((byte)(0x80 | ((codePoint >> 12) & 0x3f)));
+						put((byte)(0x80 | ((codePoint >> 6) & 0x3f)));
+						put((byte)(0x80 | (codePoint & 0x3f)));
+					}
+					else {
+						put((byte)(0xe0 | (ch >> 12)));
+						put((byte)(0x80 | ((ch >> 6) & 0x3f)));
+						put((byte)(0x80 | (ch & 0x3f)));
+					}
+				}
+			}
+			return this;
+		}
+
+		private void endRow() throws SQLException {
+			put((byte)'\n');
+			firstColumn = true;
+		}
+
+		private void flush() throws SQLException {
+			if (position > 0) {
+				copyIn.writeToCopy(buffer, 0, position);
+				bytesWritten += position;
+				position = 0;
+			}
+		}
+
+		private void start(CopyIn copyIn) {
+			this.copyIn = copyIn;
+			this.position = 0;
+			this.firstColumn = true;
+			this.bytesWritten = 0;
+		}
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+	private final String copySql;
+	private final RowWriter writer;
+
+	/**
+	 * @param copySql - the COPY statement, eg {@code copy words(id, word_name) from stdin}
+	 * @param writer - appends the columns of each row
+	 */
+	public CopyLoader(JdbcTemplate jdbcTemplate, String copySql, RowWriter writer) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.copySql = copySql;
+		this.writer = writer;
+	}
+
+	/**
+	 * Load {@code rows} rows across {@code threads} workers of the passed fixed target workload,
+	 * committing every {@code rowsPerCommit} rows.
+	 */
+	public FixedTargetWorkloadInstance load(FixedTargetWorkloadInstance instance, int threads, long rows, int rowsPerCommit) {
+		instance.setBatchSize(rowsPerCommit)
+			.executeBatched(threads, rows, (firstSequence, count, customData, threadData) -> {
+				// The thread data keeps each worker's buffer for reuse by its next COPY
+				CopyRow row = threadData instanceof CopyRow ? (CopyRow)threadData : new CopyRow();
+				instance.addBytesWritten(copy(row, firstSequence, count));
+				return row;
+			});
+		return instance;
+	}
+
+	/**
+	 * Stream the rows with sequence numbers from {@code firstSequence} for {@code count} rows through
+	 * one COPY, which commits when it ends.
+	 * @return the number of bytes sent
+	 */
+	public long copy(CopyRow row, long firstSequence, int count) {
+		return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+			CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+			row.start(copyIn);
+			try {
+				for (long sequence = firstSequence; sequence < firstSequence + count; sequence++) {
+					writer.writeRow(sequence, row);
+					row.endRow();
+				}
+				row.flush();
+				copyIn.endCopy();
+				commitIfNeeded(connection);
+				return row.bytesWritten;
+			}
+			catch (SQLException | RuntimeException e) {
+				if (copyIn.isActive()) {
+					copyIn.cancelCopy();
+				}
+				throw e;
+			}
+			finally {
+				row.copyIn = null;
+			}
+		});
+	}
+
+	private static void commitIfNeeded(Connection connection) throws SQLException {
+		// A COPY in auto-commit mode commits itself
+		if (!connection.getAutoCommit()) {
+			connection.commit();
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.yugabyte.simulation.service;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
@@ -18,6 +19,7 @@ import org.springframework.stereotype.Repository;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Repository
@@ -126,7 +128,7 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
             "シードデータ",
             "Populate new data into the table",
             new WorkloadParamDesc("生成するレコード数", 1, Integer.MAX_VALUE, 1000),
-            new WorkloadParamDesc("スレッド", 1, 500, 32)
+            new WorkloadParamDesc("スレッド", 1, this::getMaxThreads, 32)
     );
 
     private WorkloadDesc runningWorkload = new WorkloadDesc(
@@ -134,8 +136,10 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
             "シミュレーション - TPS",
             "Run a simulation of point reads and inserts",
             new WorkloadParamDesc("スループット (tps)", 1, 1000000, 500),
-            new WorkloadParamDesc("最大スレッド数", 1, 500, 64),
-            new WorkloadParamDesc("Include new Inserts", false)
+            new WorkloadParamDesc("最大スレッド数", 1, this::getMaxThreads, 64),
+            new WorkloadParamDesc("Include new Inserts", false),
+            new WorkloadParamDesc("Pipelined (async)", false),
+            new WorkloadParamDesc("最大インフライト数", 1, 100000, ThroughputWorkloadType.DEFAULT_MAX_IN_FLIGHT)
     );
 
     private WorkloadDesc simulationFixedWorkload = new WorkloadDesc(
@@ -143,7 +147,7 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
             "シミュレーション",
             "Run a simulation of point reads and inserts",
             new WorkloadParamDesc("呼び出し回数", 1, 10000000, 1000000),
-            new WorkloadParamDesc("最大スレッド数", 1, 500, 64),
+            new WorkloadParamDesc("最大スレッド数", 1, this::getMaxThreads, 64),
             new WorkloadParamDesc("Include new inserts", false)
     );
 
@@ -173,7 +177,7 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
                     return new InvocationResult("Ok");
 
                 case RUN_SIMULATION:
-                    this.runSimulation(values[0].getIntValue(), values[1].getIntValue(), values[2].getBoolValue());
+                    this.runSimulation(values);
                     return new InvocationResult("Ok");
                 case RUN_SIMULATION_FIXED_WORKLOAD:
                     this.runSimulationFixedWorkload(values);
@@ -247,7 +251,12 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
                 });
     }
 
-    private void runSimulation(int tps, int maxThreads, boolean runInserts) {
+    private void runSimulation(ParamValue[] values) {
+        int tps = values[0].getIntValue();
+        int maxThreads = values[1].getIntValue();
+        boolean runInserts = values[2].getBoolValue();
+        boolean pipelined = values[3].getBoolValue();
+        int maxInFlight = values[4].getIntValue();
         System.out.println("**** Preloading data...");
         final List<UUID> uuids = getQueryList();
         System.out.println("**** Preloading complete...");
@@ -255,18 +264,44 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
         Random random = ThreadLocalRandom.current();
 //        jdbcTemplate.setFetchSize(1000);
 
+        if (!pipelined) {
+            runInstanceType
+                    .createInstance(serviceManager)
+                    .setMaxThreads(maxThreads)
+                    .execute(tps, (customData, threadData) -> {
+                        UUID id = uuids.get(random.nextInt(uuids.size()));
+                        runPointReadgeneric1(id);
+                        runPointReadgeneric2(id);
+                        runPointReadgeneric3(id);
+
+                        if(runInserts){
+                            runInserts();
+                        }
+                    });
+            return;
+        }
+
+        // Prepare the statements up front: the pipeline's continuations run on the driver's
+        // I/O threads, which must never make a blocking call such as session.prepare()
+        CqlSession session = this.getCassandraClient();
+        PreparedStatement pointRead = session.prepare(POINT_SELECT_QUERY_GENERIC1);
+        PreparedStatement insert = runInserts ? session.prepare(INSERT_RECORD_GENERIC1) : null;
+
+        // The driver is non-blocking, so pipeline the operations from a single thread with
+        // up to maxInFlight of them in flight rather than blocking a thread on each.
         runInstanceType
                 .createInstance(serviceManager)
-                .setMaxThreads(maxThreads)
-                .execute(tps, (customData, threadData) -> {
+                .setMaxInFlight(maxInFlight)
+                .executeAsync(tps, (customData, threadData) -> {
                     UUID id = uuids.get(random.nextInt(uuids.size()));
-                    runPointReadgeneric1(id);
+                    CompletionStage<?> reads = runPointReadgeneric1Async(session, pointRead, id);
                     runPointReadgeneric2(id);
                     runPointReadgeneric3(id);
 
                     if(runInserts){
-                        runInserts();
+                        return reads.thenCompose(rs -> runInsertsAsync(session, insert));
                     }
+                    return reads;
                 });
     }
 
@@ -283,6 +318,10 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
         }
     }
 
+    private CompletionStage<AsyncResultSet> runPointReadgeneric1Async(CqlSession session, PreparedStatement ps, UUID id){
+        return session.executeAsync(ps.bind(id));
+    }
+
     private void runPointReadgeneric2(UUID id){
         String query = POINT_SELECT_QUERY_GENERIC2;
         //TODO
@@ -301,6 +340,11 @@ public class GenericCassandraWorkload extends WorkloadSimulationBase implements
         session.execute(ps.bind(uuid,LoadGeneratorUtils.getName()));
     }
 
+    private CompletionStage<AsyncResultSet> runInsertsAsync(CqlSession session, PreparedStatement ps){
+        UUID uuid = LoadGeneratorUtils.getUUID();
+        return session.executeAsync(ps.bind(uuid,LoadGeneratorUtils.getName()));
+    }
+
 
 
 
@@ -2,6 +2,7 @@ package com.yugabyte.simulation.service;
 
 import com.yugabyte.simulation.dao.*;
 import com.yugabyte.simulation.services.ServiceManager;
+import com.yugabyte.simulation.services.TimerService;
 import com.yugabyte.simulation.workload.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -72,6 +73,7 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
     private static final String INSERT_RECORD_GENERIC1 = "insert into generic1(pkid, col1, col2, col3, col4, col5, col6, col7) values(?,?,?,?,?,?,?,?);";
     private static final String INSERT_RECORD_GENERIC2 = "insert into generic2(pkid, rawdatacol) values(?,?);";
     private static final String INSERT_RECORD_GENERIC3 = "insert into generic3(pkid, col1, rawdatacol) values(?,?,?);";
+    private static final String UPDATE_RECORD_GENERIC1 = "update generic1 set col1 = ?, col2 = ?, col5 = ?, col9 = now() where pkid = ?;";
 
     private final String POINT_SELECT_QUERY_GENERIC1 = "select pkid,col1,col2,col3,col4,col5,col6,col7,col8,col9 from generic1 where pkid = ?::uuid;";
     private final String POINT_SELECT_QUERY_GENERIC2 = "select pkid,rawdatacol from generic2 where pkid = ?::uuid;";
@@ -98,6 +100,15 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
     private final ThroughputWorkloadType runInstanceType;
     private final FixedTargetWorkloadType simulationFixedWorkloadType;
 
+    // Phase ids for breaking down the latency of each simulation operation by statement
+    private int selectGeneric1Phase;
+    private int selectGeneric2Phase;
+    private int selectGeneric3Phase;
+    private int insertGeneric1Phase;
+    private int insertGeneric2Phase;
+    private int insertGeneric3Phase;
+    private int updateGeneric1Phase;
+
     public GenericWorkload() {
         this.createTablesWorkloadType = new FixedStepsWorkloadType(
                 new Step("Drop generic1", (a,b) -> jdbcTemplate.execute(DROP_GENERIC1)),
@@ -124,24 +135,24 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
             "シードデータ",
             "3つのテーブルにデータをロードする（チャートのレイテンシは3回のインサートの累積値を表示する）",
             new WorkloadParamDesc("生成するレコード数", 1, Integer.MAX_VALUE, 1000),
-            new WorkloadParamDesc("スレッド", 1, 500, 32)
+            new WorkloadParamDesc("スレッド", 1, this::getMaxThreads, 32)
     );
 
     private WorkloadDesc runningWorkload = new WorkloadDesc(
             GenericWorkload.WorkloadType.RUN_SIMULATION.toString(),
             "シミュレーション - old",
-            "3つのテーブルからのリードのシミュレーションを実行する（チャート上のレイテンシは、3つのセレクトと3つのインサートの累積値を表示します）。",
+            "3つのテーブルに対するポイントリード、インサート、アップデートを70:20:10の割合で混ぜたシミュレーションを実行する（インサートを含めない場合はリードのみ）。割合は実行中に /api/set-workload-mix で変更できる。",
             new WorkloadParamDesc("スループット (tps)", 1, 1000000, 500),
-            new WorkloadParamDesc("最大スレッド数", 1, 500, 64),
+            new WorkloadParamDesc("最大スレッド数", 1, this::getMaxThreads, 64),
             new WorkloadParamDesc("Include new Inserts (to 3 tables)", false)
     );
 
     private WorkloadDesc simulationFixedWorkload = new WorkloadDesc(
             GenericWorkload.WorkloadType.RUN_SIMULATION_FIXED_WORKLOAD.toString(),
             "シミュレーション",
-            "3つのテーブルからのリードのシミュレーションを実行する（チャート上のレイテンシは、3つのセレクトと3つのインサートの累積値を表示します）。",
+            "3つのテーブルに対するポイントリード、インサート、アップデートを70:20:10の割合で混ぜたシミュレーションを実行する（インサートを含めない場合はリードのみ）。割合は実行中に /api/set-workload-mix で変更できる。",
             new WorkloadParamDesc("呼び出し回数", 1, 10000000, 1000000),
-            new WorkloadParamDesc("最大スレッド数", 1, 500, 64),
+            new WorkloadParamDesc("最大スレッド数", 1, this::getMaxThreads, 64),
             new WorkloadParamDesc("Include new Inserts (to 3 tables)", false)
     );
 
@@ -192,30 +203,29 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
     }
 
     private void seedData(int numberToGenerate, int threads) {
+        // Each batch of records is inserted into all three tables in one transaction
         seedingWorkloadType
                 .createInstance(serviceManager)
-                .execute(threads, numberToGenerate, (customData, threadData) -> {
-                    runInserts();
-//                    UUID uuid = LoadGeneratorUtils.getUUID();
-//                    jdbcTemplate.update(INSERT_RECORD_GENERIC1,
-//                            uuid,
-//                            LoadGeneratorUtils.getInt(0, 100),
-//                            LoadGeneratorUtils.getInt(20, 300),
-//                            LoadGeneratorUtils.getInt(100, 1000),
-//                            LoadGeneratorUtils.getInt(0, 1000),
-//                            LoadGeneratorUtils.getDouble(),
-//                            LoadGeneratorUtils.getDouble(),
-//                            LoadGeneratorUtils.getDouble()
-//                    );
-//                    jdbcTemplate.update(INSERT_RECORD_GENERIC2,
-//                            uuid,
-//                            LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30))
-//                    );
-//                    jdbcTemplate.update(INSERT_RECORD_GENERIC3,
-//                            uuid,
-//                            LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,255)),
-//                            LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30))
-//                    );
+                .executeBatched(threads, numberToGenerate, (firstSequence, count, customData, threadData) -> {
+                    JdbcBatchInserter.insert(jdbcTemplate, firstSequence, count, (sequence, statements) -> {
+                        UUID uuid = LoadGeneratorUtils.getUUID();
+                        statements[0].setObject(1, uuid);
+                        statements[0].setInt(2, LoadGeneratorUtils.getInt(0, 100));
+                        statements[0].setInt(3, LoadGeneratorUtils.getInt(20, 300));
+                        statements[0].setInt(4, LoadGeneratorUtils.getInt(100, 1000));
+                        statements[0].setInt(5, LoadGeneratorUtils.getInt(0, 1000));
+                        statements[0].setDouble(6, LoadGeneratorUtils.getDouble());
+                        statements[0].setDouble(7, LoadGeneratorUtils.getDouble());
+                        statements[0].setDouble(8, LoadGeneratorUtils.getDouble());
+                        statements[0].addBatch();
+                        statements[1].setObject(1, uuid);
+                        statements[1].setString(2, LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30)));
+                        statements[1].addBatch();
+                        statements[2].setObject(1, uuid);
+                        statements[2].setString(2, LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,255)));
+                        statements[2].setString(3, LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30)));
+                        statements[2].addBatch();
+                    }, INSERT_RECORD_GENERIC1, INSERT_RECORD_GENERIC2, INSERT_RECORD_GENERIC3);
                     return threadData;
                 });
     }
@@ -273,53 +283,71 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
         return results;
     }
 
+    private void registerPhases() {
+        TimerService timerService = serviceManager.getTimerService();
+        selectGeneric1Phase = timerService.registerPhase("select generic1");
+        selectGeneric2Phase = timerService.registerPhase("select generic2");
+        selectGeneric3Phase = timerService.registerPhase("select generic3");
+        insertGeneric1Phase = timerService.registerPhase("insert generic1");
+        insertGeneric2Phase = timerService.registerPhase("insert generic2");
+        insertGeneric3Phase = timerService.registerPhase("insert generic3");
+        updateGeneric1Phase = timerService.registerPhase("update generic1");
+    }
+
     private void runSimulationFixedWorkload(ParamValue[] values) {
         int numOfInvocations = values[0].getIntValue();
         int maxThreads = values[1].getIntValue();
         boolean runInserts = values[2].getBoolValue();
+        registerPhases();
         System.out.println("**** Preloading data...");
         final List<UUID> uuids = getQueryList();
         System.out.println("**** Preloading complete...");
-        Random random = ThreadLocalRandom.current();
-        seedingWorkloadType
-                .createInstance(serviceManager)
-                .execute(maxThreads, numOfInvocations, (customData, threadData) -> {
-                    UUID id = uuids.get(random.nextInt(uuids.size()));
+        OperationMix mix = createSimulationMix(uuids, runInserts);
+        FixedTargetWorkloadType.FixedTargetWorkloadInstance instance = seedingWorkloadType.createInstance(serviceManager);
+        instance.setOperationMix(mix);
+        instance.execute(maxThreads, numOfInvocations, (customData, threadData) -> {
+                    mix.run(customData, threadData);
+                    return threadData;
+                });
+    }
+
+    /**
+     * A point read reads a preloaded row from each of the 3 tables, an insert adds a new row
+     * to all 3 and an update changes a preloaded row of generic1. They are mixed 70:20:10,
+     * or only reads are run if inserts are not included, and the weights of a running
+     * workload can be changed through {@link WorkloadManager#setWorkloadMix}.
+     */
+    private OperationMix createSimulationMix(List<UUID> uuids, boolean runInserts) {
+        return new OperationMix(serviceManager.getTimerService())
+                .addOperation("point read", runInserts ? 70 : 1, (customData, threadData) -> {
+                    UUID id = uuids.get(ThreadLocalRandom.current().nextInt(uuids.size()));
                     runPointReadgeneric1(id);
                     runPointReadgeneric2(id);
                     runPointReadgeneric3(id);
-                    if(runInserts){
-                        runInserts();
-                    }
-                    return threadData;
-                });
+                })
+                .addOperation("insert", runInserts ? 20 : 0, (customData, threadData) -> runInserts())
+                .addOperation("update", runInserts ? 10 : 0, (customData, threadData) ->
+                        runUpdategeneric1(uuids.get(ThreadLocalRandom.current().nextInt(uuids.size()))));
     }
 
     private void runSimulation(ParamValue[] values) {
     	int tps = values[0].getIntValue();
     	int maxThreads = values[1].getIntValue();
     	boolean runInserts = values[2].getBoolValue();
+    	registerPhases();
 
     		System.out.println("**** Preloading data...");
         final List<UUID> uuids = getQueryList();
         System.out.println("**** Preloading complete...");
 
-        Random random = ThreadLocalRandom.current();
         jdbcTemplate.setFetchSize(1000);
 
+        OperationMix mix = createSimulationMix(uuids, runInserts);
+
         runInstanceType
                 .createInstance(serviceManager, this.runningWorkload, values)
                 .setMaxThreads(maxThreads)
-                .execute(tps, (customData, threadData) -> {
-                    UUID id = uuids.get(random.nextInt(uuids.size()));
-                    runPointReadgeneric1(id);
-                    runPointReadgeneric2(id);
-                    runPointReadgeneric3(id);
-
-                    if(runInserts){
-                        runInserts();
-                    }
-                });
+                .execute(tps, mix);
     }
 
     private void runPointReadgeneric1(UUID id){
@@ -343,6 +371,7 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
                                     );*/
                     }
                 });
+        serviceManager.getTimerService().markPhase(selectGeneric1Phase);
     }
 
     private void runPointReadgeneric2(UUID id){
@@ -357,6 +386,7 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
                                     );*/
                     }
                 });
+        serviceManager.getTimerService().markPhase(selectGeneric2Phase);
     }
 
     private void runPointReadgeneric3(UUID id){
@@ -372,6 +402,17 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
                         );*/
                     }
                 });
+        serviceManager.getTimerService().markPhase(selectGeneric3Phase);
+    }
+
+    private void runUpdategeneric1(UUID id){
+        jdbcTemplate.update(UPDATE_RECORD_GENERIC1,
+                LoadGeneratorUtils.getInt(0, 100),
+                LoadGeneratorUtils.getInt(20, 300),
+                LoadGeneratorUtils.getDouble(),
+                id
+        );
+        serviceManager.getTimerService().markPhase(updateGeneric1Phase);
     }
 
     private void runInserts(){
@@ -386,15 +427,18 @@ public class GenericWorkload extends WorkloadSimulationBase implements WorkloadS
                 LoadGeneratorUtils.getDouble(),
                 LoadGeneratorUtils.getDouble()
         );
+        serviceManager.getTimerService().markPhase(insertGeneric1Phase);
         jdbcTemplate.update(INSERT_RECORD_GENERIC2,
                 uuid,
                 LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30))
         );
+        serviceManager.getTimerService().markPhase(insertGeneric2Phase);
         jdbcTemplate.update(INSERT_RECORD_GENERIC3,
                 uuid,
                 LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,255)),
                 LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30))
         );
+        serviceManager.getTimerService().markPhase(insertGeneric3Phase);
     }
 
 
@@ -0,0 +1,85 @@
+package com.yugabyte.simulation.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Insert a batch of generated rows in one round trip and one transaction, for seeding data
+ * with {@code FixedTargetWorkloadInstance.executeBatched}. Each row may insert into several
+ * tables, so the writer is passed one statement per SQL string and adds the row's values to
+ * whichever of them it needs:
+ * <pre>
+ * instance.executeBatched(threads, numberOfRows, (firstSequence, count, customData, threadData) -&gt; {
+ *     JdbcBatchInserter.insert(jdbcTemplate, firstSequence, count, (sequence, statements) -&gt; {
+ *         statements[0].setLong(1, sequence);
+ *         statements[0].setString(2, LoadGeneratorUtils.getName());
+ *         statements[0].addBatch();
+ *     }, INSERT_SQL);
+ *     return threadData;
+ * });
+ * </pre>
+ * The statements are executed as JDBC batches, which the driver rewrites into multi-row
+ * inserts when the data source has {@code reWriteBatchedInserts} set, and the whole batch is
+ * committed once.
+ */
+public class JdbcBatchInserter {
+	public interface RowWriter {
+		/**
+		 * Set the values of the row with the passed sequence number on the statements and add
+		 * them to their batches with {@link PreparedStatement#addBatch()}
+		 */
+		public void writeRow(long sequence, PreparedStatement[] statements) throws SQLException;
+	}
+
+	/**
+	 * Insert the rows with sequence numbers from {@code firstSequence} for {@code count} rows.
+	 * The statements are executed in the order given, so parent tables should come first.
+	 * If any insert fails the whole batch is rolled back and the exception rethrown.
+	 * @return the number of rows written
+	 */
+	public static int insert(JdbcTemplate jdbcTemplate, long firstSequence, int count, RowWriter writer, String ... sql) {
+		return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+			boolean autoCommit = connection.getAutoCommit();
+			PreparedStatement[] statements = new PreparedStatement[sql.length];
+			try {
+				connection.setAutoCommit(false);
+				for (int i = 0; i < sql.length; i++) {
+					statements[i] = connection.prepareStatement(sql[i]);
+				}
+				for (long sequence = firstSequence; sequence < firstSequence + count; sequence++) {
+					writer.writeRow(sequence, statements);
+				}
+				for (PreparedStatement statement : statements) {
+					statement.executeBatch();
+				}
+				connection.commit();
+				return count;
+			}
+			catch (SQLException | RuntimeException e) {
+				rollback(connection);
+				throw e;
+			}
+			finally {
+				for (PreparedStatement statement : statements) {
+					if (statement != null) {
+						statement.close();
+					}
+				}
+				connection.setAutoCommit(autoCommit);
+			}
+		});
+	}
+
+	private static void rollback(Connection connection) {
+		try {
+			connection.rollback();
+		}
+		catch (SQLException e) {
+			// The original exception is more useful than this one
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package com.yugabyte.simulation.service;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.Date;
@@ -19,7 +21,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.yugabyte.simulation.dao.WorkloadDesc;
 import com.yugabyte.simulation.dao.WorkloadParamDesc;
+import com.yugabyte.simulation.workload.FixedTargetWorkloadType.FixedTargetWorkloadInstance;
 import com.yugabyte.simulation.workload.Step;
+import com.yugabyte.simulation.workload.WorkloadManager;
 import com.yugabyte.simulation.workload.WorkloadSimulationBase;
 
 @Repository
@@ -27,6 +31,9 @@ public class NewFormatWorkload extends WorkloadSimulationBase implements Workloa
 
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	private WorkloadManager workloadManager;
 
 	@Value("${SPRING_APPLICATION_NAME:}")
 	private String applicationName;
@@ -62,6 +69,12 @@ public class NewFormatWorkload extends WorkloadSimulationBase implements Workloa
 
 	private final String QUERY = "select SUBSCRIPTION_ID, CUST_ID, MCODE, MPID, SUBSCRIBED_IND, OPT_IN_DATE, OPT_OUT_DATE, OPT_IN_SOURCE from SUBSCRIPTIONS where CUST_ID = ? and SUBSCRIBED_IND = 1 /** SportyApi **/";
 	
+	private final String COPY = 
+			"copy subscriptions ("
+			+ "subscription_id, cust_id, mpid, json_type, mcode, subscribed_ind,"
+			+ "opt_in_date, opt_out_date, opt_in_source)"
+			+ " from stdin";
+	
 	private final String INSERT = 
 			"insert into subscriptions ("
 			+ "subscription_id, cust_id, mpid, json_type, mcode, subscribed_ind,"
@@ -98,20 +111,34 @@ public class NewFormatWorkload extends WorkloadSimulationBase implements Workloa
 						"Seed the data",
 						"Create sample data",
 						new WorkloadParamDesc("Number of records", 1, Integer.MAX_VALUE, 1000),
-						new WorkloadParamDesc("スレッド", 1, 500, 32)
+						new WorkloadParamDesc("スレッド", 1, this::getMaxThreads, 32),
+						new WorkloadParamDesc("Max Rate", 0, Integer.MAX_VALUE, 0)
 					)
 					.onInvoke((runner, params) -> {
 						jdbcTemplate.setFetchSize(1000);
 	
-						final AtomicLong currentValue = new AtomicLong();
-						jdbcTemplate.query("select max(subscription_id) from subscriptions",
-								(rs) -> { currentValue.set(rs.getLong(1)+1); } );
+						FixedTargetWorkloadInstance instance = runner.newFixedTargetInstance()
+							.setRateCap(params.asInt(2))
+							// Only the number of records decides which rows are written
+							.setResumable(0);
 
-						runner.newFixedTargetInstance()
-							.setCustomData(currentValue)
-							.execute(params.asInt(1), params.asInt(0),
-									(customData, threadData) -> {
-								insertRecord((AtomicLong)customData);
+						// Each record's id is offset from the maximum when the seeding first started
+						// by its sequence number, so the workers never share a counter and a resumed
+						// run inserts exactly the records which are missing
+						final long firstId = instance.getResumableValue("firstSubscriptionId", () -> {
+							final AtomicLong currentValue = new AtomicLong();
+							jdbcTemplate.query("select max(subscription_id) from subscriptions",
+									(rs) -> { currentValue.set(rs.getLong(1)+1); } );
+							return currentValue.get();
+						});
+						if (workloadManager.isSeedWithCopy()) {
+							copyRecords(instance, params.asInt(1), params.asInt(0), firstId);
+							return;
+						}
+						instance
+							.executeBatched(params.asInt(1), (long)params.asInt(0),
+									(firstSequence, count, customData, threadData) -> {
+								insertRecords(firstId, firstSequence, count);
 								return null;
 							});
 					}),
@@ -122,7 +149,7 @@ public class NewFormatWorkload extends WorkloadSimulationBase implements Workloa
 						"Run a simulation of a simple table with finie bounds",
 						new WorkloadParamDesc("呼び出し回数", 1, Integer.MAX_VALUE, 1000),
 						new WorkloadParamDesc("Delay", 0, 1000000, 0),
-						new WorkloadParamDesc("スレッド", 1, 500, 32)
+						new WorkloadParamDesc("スレッド", 1, this::getMaxThreads, 32)
 					)
 					.onInvoke((runner, params) -> {
 						jdbcTemplate.setFetchSize(1000);
@@ -141,7 +168,7 @@ public class NewFormatWorkload extends WorkloadSimulationBase implements Workloa
 						"Unbounded Simulation",
 						"シンプルなテーブルのシミュレーションを実行する",
 						new WorkloadParamDesc("TPS", 1, Integer.MAX_VALUE, 1000),
-						new WorkloadParamDesc("MaxThreads", 1, 500, 32)
+						new WorkloadParamDesc("MaxThreads", 1, this::getMaxThreads, 32)
 					)
 					.onInvoke((runner, params) -> {
 						jdbcTemplate.setFetchSize(1000);
@@ -158,7 +185,7 @@ public class NewFormatWorkload extends WorkloadSimulationBase implements Workloa
 						"Transactional Updates", 
 						"Run a workload using transactional semantics on updates",
 						new WorkloadParamDesc("TPS", 1, Integer.MAX_VALUE, 1000),
-						new WorkloadParamDesc("MaxThreads", 1, 500, 32)
+						new WorkloadParamDesc("MaxThreads", 1, this::getMaxThreads, 32)
 					)
 					.onInvoke((runner, params) -> {
 						final AtomicLong currentValue = new AtomicLong();
@@ -189,23 +216,40 @@ public class NewFormatWorkload extends WorkloadSimulationBase implements Workloa
 		jdbcTemplate.update("update subscriptions set mpid = mpid-1 where subscription_id = ?", custNum2);
 	}
 	
-	private void insertRecord(AtomicLong currentCounter) {
+	private void insertRecords(long firstId, long firstSequence, int count) {
+		String json = "{\"key1\":\"value1\",\"key2\":\"value2\",\"key3\":\"value3\"}";
+		
+		JdbcBatchInserter.insert(jdbcTemplate, firstSequence, count, (sequence, statements) -> {
+			Timestamp now = new Timestamp(System.currentTimeMillis());
+			PreparedStatement statement = statements[0];
+			statement.setLong(1, firstId + sequence);
+			statement.setLong(2, LoadGeneratorUtils.getLong(1000, 30_000_00));
+			statement.setLong(3, LoadGeneratorUtils.getLong(10, 500));
+			statement.setString(4, json);
+			statement.setString(5, LoadGeneratorUtils.getHexString(7));
+			statement.setObject(6, LoadGeneratorUtils.getInt(0, 2), Types.SMALLINT);
+			statement.setTimestamp(7, now);
+			statement.setTimestamp(8, now);
+			statement.setNull(9, Types.VARCHAR);
+			statement.addBatch();
+		}, INSERT);
+	}
+	
+	private void copyRecords(FixedTargetWorkloadInstance instance, int threads, long numberOfRecords, long firstId) {
 		String json = "{\"key1\":\"value1\",\"key2\":\"value2\",\"key3\":\"value3\"}";
 		
-		jdbcTemplate.update(INSERT, new Object[] {
-			currentCounter.getAndIncrement(),
-			LoadGeneratorUtils.getLong(1000, 30_000_00),
-			LoadGeneratorUtils.getLong(10, 500),
-			json,
-			LoadGeneratorUtils.getHexString(7),
-			LoadGeneratorUtils.getInt(0, 2),
-			new Date(),
-			new Date(),
-			null
-		}, new int[] {
-			Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR ,Types.VARCHAR, 
-			Types.SMALLINT, Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR
-		});
+		new CopyLoader(jdbcTemplate, COPY, (sequence, row) -> {
+			Date now = new Date();
+			row.append(firstId + sequence);
+			row.append(LoadGeneratorUtils.getLong(1000, 30_000_00));
+			row.append(LoadGeneratorUtils.getLong(10, 500));
+			row.append(json);
+			row.append(LoadGeneratorUtils.getHexString(7));
+			row.append(LoadGeneratorUtils.getInt(0, 2));
+			row.append(now);
+			row.append(now);
+			row.appendNull();
+		}).load(instance, threads, numberOfRecords, workloadManager.getCopyRowsPerCommit());
 	}
 	
 	private void runQueryNoTxn() {
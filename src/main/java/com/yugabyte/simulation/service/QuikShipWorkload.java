@@ -64,6 +64,7 @@ public class QuikShipWorkload extends WorkloadSimulationBase implements Workload
     private static final String TRUNCATE_ORDERS = "truncate table orders;";
 
     private static final String INSERT_RECORD_ORDERS = "insert into orders(total,products) values(?,?);";
+    private static final String COPY_RECORDS_ORDERS = "copy orders(total,products) from stdin";
 
     private final String POINT_SELECT_QUERY_ORDERS = "select id, total, products from orders where id = ?;";
 
@@ -180,30 +181,21 @@ public class QuikShipWorkload extends WorkloadSimulationBase implements Workload
     }
 
     private void seedData(int numberToGenerate, int threads) {
-        seedingWorkloadType
-                .createInstance(serviceManager)
-                .execute(threads, numberToGenerate, (customData, threadData) -> {
-                    runInserts();
-//                    UUID uuid = LoadGeneratorUtils.getUUID();
-//                    jdbcTemplate.update(INSERT_RECORD_GENERIC1,
-//                            uuid,
-//                            LoadGeneratorUtils.getInt(0, 100),
-//                            LoadGeneratorUtils.getInt(20, 300),
-//                            LoadGeneratorUtils.getInt(100, 1000),
-//                            LoadGeneratorUtils.getInt(0, 1000),
-//                            LoadGeneratorUtils.getDouble(),
-//                            LoadGeneratorUtils.getDouble(),
-//                            LoadGeneratorUtils.getDouble()
-//                    );
-//                    jdbcTemplate.update(INSERT_RECORD_GENERIC2,
-//                            uuid,
-//                            LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30))
-//                    );
-//                    jdbcTemplate.update(INSERT_RECORD_GENERIC3,
-//                            uuid,
-//                            LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,255)),
-//                            LoadGeneratorUtils.getAlphaString(LoadGeneratorUtils.getInt(1,30))
-//                    );
+        FixedTargetWorkloadType.FixedTargetWorkloadInstance instance = seedingWorkloadType.createInstance(serviceManager);
+        if (serviceManager.getWorkloadManager().isSeedWithCopy()) {
+            new CopyLoader(jdbcTemplate, COPY_RECORDS_ORDERS, (sequence, row) -> {
+                row.append(LoadGeneratorUtils.getDouble(1.00, 1000.00));
+                row.append(LoadGeneratorUtils.getText(10, 40));
+            }).load(instance, threads, numberToGenerate, serviceManager.getWorkloadManager().getCopyRowsPerCommit());
+            return;
+        }
+        instance
+                .executeBatched(threads, numberToGenerate, (firstSequence, count, customData, threadData) -> {
+                    JdbcBatchInserter.insert(jdbcTemplate, firstSequence, count, (sequence, statements) -> {
+                        statements[0].setDouble(1, LoadGeneratorUtils.getDouble(1.00, 1000.00));
+                        statements[0].setString(2, LoadGeneratorUtils.getText(10, 40));
+                        statements[0].addBatch();
+                    }, INSERT_RECORD_ORDERS);
                     return threadData;
                 });
     }
@@ -19,6 +19,7 @@ import com.yugabyte.simulation.dao.WorkloadParamDesc;
 import com.yugabyte.simulation.services.ServiceManager;
 import com.yugabyte.simulation.workload.FixedStepsWorkloadType;
 import com.yugabyte.simulation.workload.FixedTargetWorkloadType;
+import com.yugabyte.simulation.workload.FixedTargetWorkloadType.FixedTargetWorkloadInstance;
 import com.yugabyte.simulation.workload.Step;
 import com.yugabyte.simulation.workload.ThroughputWorkloadType;
 import com.yugabyte.simulation.workload.WorkloadSimulationBase;
@@ -58,6 +59,8 @@ public class SimpleSelectWorkload extends WorkloadSimulationBase implements Work
 			+ "id, word_name, active_ind)"
 			+ " values (?, ?, ?);";
 	
+	private final String COPY_RECORDS = "copy vulgar_words(id, word_name, active_ind) from stdin";
+	
 	private final String QUERY = "select word_name from vulgar_words where active_ind = true;";
 	
 	private enum WorkloadType {
@@ -102,7 +105,7 @@ public class SimpleSelectWorkload extends WorkloadSimulationBase implements Work
 			"シードデータ",
 			"Load data into the table",
 			new WorkloadParamDesc("生成するレコード数", 1, Integer.MAX_VALUE, 1000),
-			new WorkloadParamDesc("スレッド", 1, 500, 32)
+			new WorkloadParamDesc("スレッド", 1, this::getMaxThreads, 32)
 		);
 			
 	private WorkloadDesc runningWorkload = new WorkloadDesc(
@@ -110,7 +113,7 @@ public class SimpleSelectWorkload extends WorkloadSimulationBase implements Work
 			"シミュレーション",
 			"シンプルなテーブルのシミュレーションを実行する",
 			new WorkloadParamDesc("スループット (tps)", 1, 1000000, 500),
-			new WorkloadParamDesc("最大スレッド数", 1, 500, 64)
+			new WorkloadParamDesc("最大スレッド数", 1, this::getMaxThreads, 64)
 		);
 	
 	@Override
@@ -164,14 +167,27 @@ public class SimpleSelectWorkload extends WorkloadSimulationBase implements Work
 	}
 	
 	private void seedData(int numberToGenerate, int threads) {
-		seedingWorkloadType
-			.createInstance(serviceManager)
-			.execute(threads, numberToGenerate, (customData, threadData) -> {
-				UUID uuid = LoadGeneratorUtils.getUUID();
-				String name = LoadGeneratorUtils.getName();
-				boolean active = LoadGeneratorUtils.getInt(0, 100000) == 0;
-				
-				jdbcTemplate.update(INSERT_RECORD, uuid, name, active);
+		FixedTargetWorkloadInstance instance = seedingWorkloadType.createInstance(serviceManager);
+		if (serviceManager.getWorkloadManager().isSeedWithCopy()) {
+			new CopyLoader(jdbcTemplate, COPY_RECORDS, (sequence, row) -> {
+				row.append(LoadGeneratorUtils.getUUID());
+				row.append(LoadGeneratorUtils.getName());
+				row.append(LoadGeneratorUtils.getInt(0, 100000) == 0);
+			}).load(instance, threads, numberToGenerate, serviceManager.getWorkloadManager().getCopyRowsPerCommit());
+			return;
+		}
+		instance
+			.executeBatched(threads, numberToGenerate, (firstSequence, count, customData, threadData) -> {
+				JdbcBatchInserter.insert(jdbcTemplate, firstSequence, count, (sequence, statements) -> {
+					UUID uuid = LoadGeneratorUtils.getUUID();
+					String name = LoadGeneratorUtils.getName();
+					boolean active = LoadGeneratorUtils.getInt(0, 100000) == 0;
+					
+					statements[0].setObject(1, uuid);
+					statements[0].setString(2, name);
+					statements[0].setBoolean(3, active);
+					statements[0].addBatch();
+				}, INSERT_RECORD);
 				return threadData;
 			});
 	}
@@ -0,0 +1,69 @@
+package com.yugabyte.simulation.services;
+
+import com.yugabyte.simulation.dao.ResultResolution;
+
+/**
+ * Rolls the timings of consecutive intervals up into a coarser resolution bucket.
+ * The histograms are merged rather than the summary statistics, so the percentiles
+ * of the bucket are as accurate as those of the intervals it was built from.
+ */
+class IntervalRollup {
+	private final ResultResolution resolution;
+	private final IntervalTimings bucket;
+	private long bucketStartMs = -1;
+	private long bucketEndMs = -1;
+
+	public IntervalRollup(ResultResolution resolution, LatencyHistogram template) {
+		this.resolution = resolution;
+		this.bucket = new IntervalTimings(template.copyConfiguration());
+	}
+
+	public ResultResolution getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * Determine whether the bucket currently being accumulated must be closed before
+	 * the interval starting at the passed time can be added.
+	 */
+	public boolean isBucketClosedBy(long intervalStartMs) {
+		return bucketStartMs >= 0 && resolution.getBucketStartMs(intervalStartMs) != bucketStartMs;
+	}
+
+	public boolean isOpen() {
+		return bucketStartMs >= 0;
+	}
+
+	public void add(IntervalTimings interval, long intervalStartMs, long intervalEndMs) {
+		if (bucketStartMs < 0) {
+			bucketStartMs = resolution.getBucketStartMs(intervalStartMs);
+		}
+		bucketEndMs = intervalEndMs;
+		interval.addInto(bucket);
+	}
+
+	/**
+	 * The timings of the open bucket. Only valid until {@link #reset()} is called.
+	 */
+	public IntervalTimings getBucket() {
+		return bucket;
+	}
+
+	public long getBucketStartMs() {
+		return bucketStartMs;
+	}
+
+	/**
+	 * The end of the last interval added to the bucket. This is the end of the bucket unless
+	 * the bucket was closed early because the workload finished.
+	 */
+	public long getBucketEndMs() {
+		return bucketEndMs;
+	}
+
+	public void reset() {
+		bucket.reset();
+		bucketStartMs = -1;
+		bucketEndMs = -1;
+	}
+}
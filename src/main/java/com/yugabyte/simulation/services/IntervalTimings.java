@@ -0,0 +1,322 @@
+package com.yugabyte.simulation.services;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free accumulator of the timings recorded during a single interval.
+ * Multiple threads may record into the same instance concurrently, all updates
+ * are done with atomic operations so no monitors are ever taken.
+ */
+class IntervalTimings {
+	public static final int MAX_PHASES = 64;
+	public static final int MAX_OPERATIONS = 64;
+	
+	// The histogram of every operation, which is only built from the outcome histograms when it is read
+	private final LatencyHistogram histogram;
+	// Indexed by outcome ordinal, each outcome histogram is only allocated once that outcome is recorded.
+	// Each time is only recorded here, the counts of each outcome and the overall histogram are derived from these
+	private final AtomicReferenceArray<LatencyHistogram> outcomeHistograms = new AtomicReferenceArray<LatencyHistogram>(Outcome.count());
+	// Only allocated once a coordinated omission corrected time is recorded
+	private final AtomicReference<LatencyHistogram> correctedHistogram = new AtomicReference<LatencyHistogram>();
+	// The time operations started after they were scheduled to, allocated along with the corrected histogram
+	private final AtomicReference<LatencyHistogram> schedulingLagHistogram = new AtomicReference<LatencyHistogram>();
+	// Indexed by phase id, each phase histogram is only allocated once that phase is recorded
+	private final AtomicReferenceArray<LatencyHistogram> phaseHistograms = new AtomicReferenceArray<LatencyHistogram>(MAX_PHASES);
+	// Indexed by operation id, the timings of each operation of a mix, only allocated once that operation is recorded
+	private final AtomicReferenceArray<IntervalTimings> operationTimings = new AtomicReferenceArray<IntervalTimings>(MAX_OPERATIONS);
+
+	public IntervalTimings(LatencyHistogram histogram) {
+		this.histogram = histogram;
+	}
+
+	private LatencyHistogram getOrCreateCorrectedHistogram() {
+		LatencyHistogram corrected = correctedHistogram.get();
+		if (corrected == null) {
+			correctedHistogram.compareAndSet(null, histogram.copyConfiguration());
+			corrected = correctedHistogram.get();
+		}
+		return corrected;
+	}
+
+	private LatencyHistogram getOrCreateSchedulingLagHistogram() {
+		LatencyHistogram lag = schedulingLagHistogram.get();
+		if (lag == null) {
+			schedulingLagHistogram.compareAndSet(null, histogram.copyConfiguration());
+			lag = schedulingLagHistogram.get();
+		}
+		return lag;
+	}
+
+	private LatencyHistogram getOrCreatePhaseHistogram(int phaseId) {
+		LatencyHistogram phase = phaseHistograms.get(phaseId);
+		if (phase == null) {
+			phaseHistograms.compareAndSet(phaseId, null, histogram.copyConfiguration());
+			phase = phaseHistograms.get(phaseId);
+		}
+		return phase;
+	}
+
+	private LatencyHistogram getOrCreateOutcomeHistogram(int outcomeOrdinal) {
+		LatencyHistogram outcomeHistogram = outcomeHistograms.get(outcomeOrdinal);
+		if (outcomeHistogram == null) {
+			outcomeHistograms.compareAndSet(outcomeOrdinal, null, histogram.copyConfiguration());
+			outcomeHistogram = outcomeHistograms.get(outcomeOrdinal);
+		}
+		return outcomeHistogram;
+	}
+
+	private IntervalTimings getOrCreateOperationTimings(int operationId) {
+		IntervalTimings operation = operationTimings.get(operationId);
+		if (operation == null) {
+			operationTimings.compareAndSet(operationId, null, new IntervalTimings(histogram.copyConfiguration()));
+			operation = operationTimings.get(operationId);
+		}
+		return operation;
+	}
+
+	public void recordPhase(int phaseId, long timeInUs) {
+		getOrCreatePhaseHistogram(phaseId).recordValue(timeInUs);
+	}
+
+	/**
+	 * Record a time.
+	 * @param timeInUs - the time from when the operation actually started
+	 * @param correctedTimeInUs - the time from when the operation was intended to start, or
+	 * a negative number if this operation is not corrected for coordinated omission. The difference
+	 * between this and the actual time is recorded as the scheduling lag of the operation.
+	 * @param outcome - the outcome of the operation
+	 */
+	public void record(long timeInUs, long correctedTimeInUs, Outcome outcome) {
+		if (correctedTimeInUs >= 0) {
+			getOrCreateCorrectedHistogram().recordValue(correctedTimeInUs);
+			getOrCreateSchedulingLagHistogram().recordValue(Math.max(0, correctedTimeInUs - timeInUs));
+		}
+		record(timeInUs, outcome);
+	}
+
+	/**
+	 * Record a time against both this interval and the passed operation of a mix.
+	 * @param operationId - the operation, as returned from {@link TimerService#registerOperation(String)},
+	 * or a negative number if the time is not for an operation of a mix.
+	 */
+	public void record(long timeInUs, long correctedTimeInUs, Outcome outcome, int operationId) {
+		if (operationId >= 0) {
+			getOrCreateOperationTimings(operationId).record(timeInUs, correctedTimeInUs, outcome);
+		}
+		record(timeInUs, correctedTimeInUs, outcome);
+	}
+
+	public void record(long timeInUs, Outcome outcome) {
+		getOrCreateOutcomeHistogram(outcome.ordinal()).recordValue(timeInUs);
+	}
+
+	/**
+	 * Add the contents of this interval into the target and reset this interval
+	 * so it can be re-used.
+	 */
+	public void drainInto(IntervalTimings target) {
+		for (int i = 0; i < outcomeHistograms.length(); i++) {
+			LatencyHistogram outcomeHistogram = outcomeHistograms.get(i);
+			if (outcomeHistogram != null && outcomeHistogram.getTotalCount() > 0) {
+				outcomeHistogram.drainInto(target.getOrCreateOutcomeHistogram(i));
+			}
+		}
+		LatencyHistogram corrected = correctedHistogram.get();
+		if (corrected != null && corrected.getTotalCount() > 0) {
+			corrected.drainInto(target.getOrCreateCorrectedHistogram());
+		}
+		LatencyHistogram lag = schedulingLagHistogram.get();
+		if (lag != null && lag.getTotalCount() > 0) {
+			lag.drainInto(target.getOrCreateSchedulingLagHistogram());
+		}
+		for (int i = 0; i < MAX_PHASES; i++) {
+			LatencyHistogram phase = phaseHistograms.get(i);
+			if (phase != null && phase.getTotalCount() > 0) {
+				phase.drainInto(target.getOrCreatePhaseHistogram(i));
+			}
+		}
+		for (int i = 0; i < MAX_OPERATIONS; i++) {
+			IntervalTimings operation = operationTimings.get(i);
+			if (operation != null && operation.getTotalCount() > 0) {
+				operation.drainInto(target.getOrCreateOperationTimings(i));
+			}
+		}
+	}
+
+	/**
+	 * Add the contents of this interval into the target, leaving this interval unchanged.
+	 */
+	public void addInto(IntervalTimings target) {
+		for (int i = 0; i < outcomeHistograms.length(); i++) {
+			LatencyHistogram outcomeHistogram = outcomeHistograms.get(i);
+			if (outcomeHistogram != null && outcomeHistogram.getTotalCount() > 0) {
+				outcomeHistogram.addInto(target.getOrCreateOutcomeHistogram(i));
+			}
+		}
+		LatencyHistogram corrected = correctedHistogram.get();
+		if (corrected != null && corrected.getTotalCount() > 0) {
+			corrected.addInto(target.getOrCreateCorrectedHistogram());
+		}
+		LatencyHistogram lag = schedulingLagHistogram.get();
+		if (lag != null && lag.getTotalCount() > 0) {
+			lag.addInto(target.getOrCreateSchedulingLagHistogram());
+		}
+		for (int i = 0; i < MAX_PHASES; i++) {
+			LatencyHistogram phase = phaseHistograms.get(i);
+			if (phase != null && phase.getTotalCount() > 0) {
+				phase.addInto(target.getOrCreatePhaseHistogram(i));
+			}
+		}
+		for (int i = 0; i < MAX_OPERATIONS; i++) {
+			IntervalTimings operation = operationTimings.get(i);
+			if (operation != null && operation.getTotalCount() > 0) {
+				operation.addInto(target.getOrCreateOperationTimings(i));
+			}
+		}
+	}
+
+	public void reset() {
+		for (int i = 0; i < outcomeHistograms.length(); i++) {
+			LatencyHistogram outcomeHistogram = outcomeHistograms.get(i);
+			if (outcomeHistogram != null) {
+				outcomeHistogram.reset();
+			}
+		}
+		histogram.reset();
+		LatencyHistogram corrected = correctedHistogram.get();
+		if (corrected != null) {
+			corrected.reset();
+		}
+		LatencyHistogram lag = schedulingLagHistogram.get();
+		if (lag != null) {
+			lag.reset();
+		}
+		for (int i = 0; i < MAX_PHASES; i++) {
+			LatencyHistogram phase = phaseHistograms.get(i);
+			if (phase != null) {
+				phase.reset();
+			}
+		}
+		for (int i = 0; i < MAX_OPERATIONS; i++) {
+			IntervalTimings operation = operationTimings.get(i);
+			if (operation != null) {
+				operation.reset();
+			}
+		}
+	}
+
+	public long getSuccessCount() {
+		return getOutcomeCount(Outcome.SUCCESS);
+	}
+
+	public long getFailureCount() {
+		return getTotalCount() - getSuccessCount();
+	}
+
+	public long getTotalCount() {
+		long count = 0;
+		for (int i = 0; i < outcomeHistograms.length(); i++) {
+			LatencyHistogram outcomeHistogram = outcomeHistograms.get(i);
+			if (outcomeHistogram != null) {
+				count += outcomeHistogram.getTotalCount();
+			}
+		}
+		return count;
+	}
+
+	public long getOutcomeCount(Outcome outcome) {
+		LatencyHistogram outcomeHistogram = outcomeHistograms.get(outcome.ordinal());
+		return outcomeHistogram == null ? 0 : outcomeHistogram.getTotalCount();
+	}
+
+	/**
+	 * Get the histogram of the operations with the passed outcome, or null if that outcome has not been recorded.
+	 */
+	public LatencyHistogram getOutcomeHistogram(Outcome outcome) {
+		return outcomeHistograms.get(outcome.ordinal());
+	}
+
+	/**
+	 * Get the histogram of every operation, whatever its outcome. If more than one outcome was
+	 * recorded this is merged from their histograms when it is called, so should only be read once
+	 * nothing is recording into these timings, such as after they have been collated.
+	 */
+	public LatencyHistogram getHistogram() {
+		LatencyHistogram onlyOutcome = null;
+		int outcomesRecorded = 0;
+		for (int i = 0; i < outcomeHistograms.length(); i++) {
+			LatencyHistogram outcomeHistogram = outcomeHistograms.get(i);
+			if (outcomeHistogram != null && outcomeHistogram.getTotalCount() > 0) {
+				onlyOutcome = outcomeHistogram;
+				outcomesRecorded++;
+			}
+		}
+		if (outcomesRecorded == 1) {
+			// Usually every operation succeeded, so there is nothing to merge
+			return onlyOutcome;
+		}
+		histogram.reset();
+		for (int i = 0; i < outcomeHistograms.length(); i++) {
+			LatencyHistogram outcomeHistogram = outcomeHistograms.get(i);
+			if (outcomeHistogram != null && outcomeHistogram.getTotalCount() > 0) {
+				outcomeHistogram.addInto(histogram);
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Get the coordinated omission corrected histogram, or null if no corrected times have been recorded.
+	 */
+	public LatencyHistogram getCorrectedHistogram() {
+		return correctedHistogram.get();
+	}
+
+	/**
+	 * Get the histogram of how late operations started compared to their intended start time,
+	 * or null if no operations with an intended start time have been recorded.
+	 */
+	public LatencyHistogram getSchedulingLagHistogram() {
+		return schedulingLagHistogram.get();
+	}
+
+	/**
+	 * Get the histogram of the passed phase, or null if that phase has not been recorded.
+	 */
+	public LatencyHistogram getPhaseHistogram(int phaseId) {
+		return phaseHistograms.get(phaseId);
+	}
+
+	/**
+	 * Get the timings of the passed operation of a mix, or null if that operation has not been recorded.
+	 */
+	public IntervalTimings getOperationTimings(int operationId) {
+		return operationTimings.get(operationId);
+	}
+
+	private static int getFootprint(LatencyHistogram histogram) {
+		return histogram == null ? 0 : histogram.getEstimatedFootprintInBytes();
+	}
+
+	/**
+	 * Estimate the memory used by the histograms of these timings, other than the histogram the
+	 * outcomes are merged into, which may be shared.
+	 */
+	public int getEstimatedFootprintInBytes() {
+		int footprint = getFootprint(correctedHistogram.get()) + getFootprint(schedulingLagHistogram.get());
+		for (int i = 0; i < outcomeHistograms.length(); i++) {
+			footprint += getFootprint(outcomeHistograms.get(i));
+		}
+		for (int i = 0; i < MAX_PHASES; i++) {
+			footprint += getFootprint(phaseHistograms.get(i));
+		}
+		for (int i = 0; i < MAX_OPERATIONS; i++) {
+			IntervalTimings operation = operationTimings.get(i);
+			if (operation != null) {
+				footprint += operation.getEstimatedFootprintInBytes();
+			}
+		}
+		return footprint;
+	}
+}
@@ -0,0 +1,333 @@
+package com.yugabyte.simulation.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed memory, log-linear histogram of latency values in the style of
+ * HdrHistogram. Values are bucketed so that every recorded value is accurate to
+ * the configured number of significant digits, from 1 up to the highest
+ * trackable value. Values above the highest trackable value are counted in the
+ * top bucket rather than being dropped, the exact maximum is still reported.
+ * <p/>
+ * Recording is lock-free and may be done from multiple threads at once.
+ * <p/>
+ * The memory used is bounded by the configuration: a count is kept for each of
+ * {@code 2^ceil(log2(2 * 10^digits)) / 2} sub-buckets in each power of two up to
+ * the highest trackable value. The defaults of 2 significant digits up to 60s
+ * need 2,560 counts, about 20KB. The counts of each power of two are only allocated
+ * once a value falls in it, about 1KB each at the defaults, so a histogram only pays
+ * for the range of latencies it has seen: one of latencies from 200us to 50ms holds
+ * 9 of the 20 and uses about 9KB, and one which is never recorded into uses almost
+ * nothing.
+ */
+public class LatencyHistogram {
+	private final long highestTrackableValue;
+	private final int significantDigits;
+	private final int subBucketHalfCountMagnitude;
+	private final int subBucketHalfCount;
+	private final int subBucketCount;
+	private final long subBucketMask;
+	private final int leadingZeroCountBase;
+	// The counts in chunks of subBucketHalfCount, each only allocated once a value falls in it.
+	// The first two chunks hold the values below subBucketCount, each later one the next power of two.
+	private final AtomicReferenceArray<AtomicLongArray> chunks;
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalValue = new AtomicLong();
+	private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong maxValue = new AtomicLong(0);
+
+	/**
+	 * Create a new histogram
+	 * @param highestTrackableValue - the highest value which can be tracked to the requested precision.
+	 * @param significantDigits - the number of significant decimal digits to keep, between 1 and 5.
+	 */
+	public LatencyHistogram(long highestTrackableValue, int significantDigits) {
+		if (significantDigits < 1 || significantDigits > 5) {
+			throw new IllegalArgumentException("Significant digits must be between 1 and 5, not " + significantDigits);
+		}
+		if (highestTrackableValue < 2) {
+			throw new IllegalArgumentException("Highest trackable value must be >= 2, not " + highestTrackableValue);
+		}
+		this.highestTrackableValue = highestTrackableValue;
+		this.significantDigits = significantDigits;
+
+		long largestValueWithSingleUnitResolution = 2 * (long)Math.pow(10, significantDigits);
+		int subBucketCountMagnitude = (int)Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+		this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+		this.subBucketCount = 1 << subBucketCountMagnitude;
+		this.subBucketHalfCount = subBucketCount / 2;
+		this.subBucketMask = subBucketCount - 1;
+		this.leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+		this.chunks = new AtomicReferenceArray<AtomicLongArray>(getBucketsNeeded(highestTrackableValue) + 1);
+	}
+
+	/**
+	 * Create a new, empty histogram with the same configuration as this one.
+	 */
+	public LatencyHistogram copyConfiguration() {
+		return new LatencyHistogram(highestTrackableValue, significantDigits);
+	}
+
+	private int getBucketsNeeded(long value) {
+		long smallestUntrackableValue = subBucketCount;
+		int bucketsNeeded = 1;
+		while (smallestUntrackableValue <= value) {
+			if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+				return bucketsNeeded + 1;
+			}
+			smallestUntrackableValue <<= 1;
+			bucketsNeeded++;
+		}
+		return bucketsNeeded;
+	}
+
+	private int getBucketIndex(long value) {
+		return leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+	}
+
+	private int getCountsIndex(long value) {
+		int bucketIndex = getBucketIndex(value);
+		int subBucketIndex = (int)(value >>> bucketIndex);
+		int bucketBaseIndex = (bucketIndex + 1) << subBucketHalfCountMagnitude;
+		return bucketBaseIndex + subBucketIndex - subBucketHalfCount;
+	}
+
+	private long getValueFromIndex(int index) {
+		int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+		int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+		if (bucketIndex < 0) {
+			subBucketIndex -= subBucketHalfCount;
+			bucketIndex = 0;
+		}
+		return ((long)subBucketIndex) << bucketIndex;
+	}
+
+	private long getHighestEquivalentValue(long value) {
+		int bucketIndex = getBucketIndex(value);
+		int subBucketIndex = (int)(value >>> bucketIndex);
+		long lowestEquivalentValue = ((long)subBucketIndex) << bucketIndex;
+		int adjustedBucket = (subBucketIndex >= subBucketCount) ? (bucketIndex + 1) : bucketIndex;
+		return lowestEquivalentValue + (1L << adjustedBucket) - 1;
+	}
+
+	private AtomicLongArray getOrCreateChunk(int chunkIndex) {
+		AtomicLongArray chunk = chunks.get(chunkIndex);
+		if (chunk == null) {
+			chunks.compareAndSet(chunkIndex, null, new AtomicLongArray(subBucketHalfCount));
+			chunk = chunks.get(chunkIndex);
+		}
+		return chunk;
+	}
+
+	private static void updateMin(AtomicLong min, long value) {
+		long current;
+		while (value < (current = min.get()) && !min.compareAndSet(current, value));
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current;
+		while (value > (current = max.get()) && !max.compareAndSet(current, value));
+	}
+
+	public void recordValue(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		int index = getCountsIndex(Math.min(value, highestTrackableValue));
+		AtomicLongArray chunk = chunks.get(index >> subBucketHalfCountMagnitude);
+		if (chunk == null) {
+			chunk = getOrCreateChunk(index >> subBucketHalfCountMagnitude);
+		}
+		chunk.incrementAndGet(index & (subBucketHalfCount - 1));
+		totalCount.incrementAndGet();
+		totalValue.addAndGet(value);
+		updateMin(minValue, value);
+		updateMax(maxValue, value);
+	}
+
+	private void checkCompatible(LatencyHistogram other) {
+		if (other.chunks.length() != chunks.length() || other.subBucketCount != subBucketCount) {
+			throw new IllegalArgumentException("Histograms must have the same configuration to be merged");
+		}
+	}
+
+	/**
+	 * Add the contents of this histogram into the target, leaving this histogram unchanged.
+	 */
+	public void addInto(LatencyHistogram target) {
+		checkCompatible(target);
+		for (int i = 0; i < chunks.length(); i++) {
+			AtomicLongArray chunk = chunks.get(i);
+			if (chunk != null) {
+				AtomicLongArray targetChunk = null;
+				for (int j = 0; j < chunk.length(); j++) {
+					long count = chunk.get(j);
+					if (count != 0) {
+						if (targetChunk == null) {
+							targetChunk = target.getOrCreateChunk(i);
+						}
+						targetChunk.addAndGet(j, count);
+					}
+				}
+			}
+		}
+		target.totalCount.addAndGet(totalCount.get());
+		target.totalValue.addAndGet(totalValue.get());
+		updateMin(target.minValue, minValue.get());
+		updateMax(target.maxValue, maxValue.get());
+	}
+
+	/**
+	 * Add the contents of this histogram into the target and reset this histogram
+	 * so it can be re-used.
+	 */
+	public void drainInto(LatencyHistogram target) {
+		checkCompatible(target);
+		for (int i = 0; i < chunks.length(); i++) {
+			AtomicLongArray chunk = chunks.get(i);
+			if (chunk != null) {
+				AtomicLongArray targetChunk = null;
+				for (int j = 0; j < chunk.length(); j++) {
+					if (chunk.get(j) != 0) {
+						if (targetChunk == null) {
+							targetChunk = target.getOrCreateChunk(i);
+						}
+						targetChunk.addAndGet(j, chunk.getAndSet(j, 0));
+					}
+				}
+			}
+		}
+		target.totalCount.addAndGet(totalCount.getAndSet(0));
+		target.totalValue.addAndGet(totalValue.getAndSet(0));
+		updateMin(target.minValue, minValue.getAndSet(Long.MAX_VALUE));
+		updateMax(target.maxValue, maxValue.getAndSet(0));
+	}
+
+	/**
+	 * Clear the histogram. The counts already allocated are kept for re-use.
+	 */
+	public void reset() {
+		for (int i = 0; i < chunks.length(); i++) {
+			AtomicLongArray chunk = chunks.get(i);
+			if (chunk != null) {
+				for (int j = 0; j < chunk.length(); j++) {
+					if (chunk.get(j) != 0) {
+						chunk.set(j, 0);
+					}
+				}
+			}
+		}
+		totalCount.set(0);
+		totalValue.set(0);
+		minValue.set(Long.MAX_VALUE);
+		maxValue.set(0);
+	}
+
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	public long getTotalValue() {
+		return totalValue.get();
+	}
+
+	public long getMinValue() {
+		return totalCount.get() == 0 ? 0 : minValue.get();
+	}
+
+	public long getMaxValue() {
+		return maxValue.get();
+	}
+
+	public long getMean() {
+		long count = totalCount.get();
+		return count == 0 ? 0 : totalValue.get() / count;
+	}
+
+	/**
+	 * Get the value at the given percentile (0.0 - 100.0). The value returned is
+	 * the highest value which is equivalent to the bucket the percentile falls in,
+	 * capped at the maximum value recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = totalCount.get();
+		if (count == 0) {
+			return 0;
+		}
+		double requestedPercentile = Math.min(Math.max(percentile, 0.0), 100.0);
+		if (requestedPercentile == 100.0) {
+			return getMaxValue();
+		}
+		long countAtPercentile = Math.max(1, (long)(((requestedPercentile / 100.0) * count) + 0.5));
+		long runningCount = 0;
+		for (int i = 0; i < chunks.length(); i++) {
+			AtomicLongArray chunk = chunks.get(i);
+			if (chunk == null) {
+				continue;
+			}
+			for (int j = 0; j < chunk.length(); j++) {
+				runningCount += chunk.get(j);
+				if (runningCount >= countAtPercentile) {
+					int index = (i << subBucketHalfCountMagnitude) + j;
+					return Math.min(getHighestEquivalentValue(getValueFromIndex(index)), getMaxValue());
+				}
+			}
+		}
+		return getMaxValue();
+	}
+
+	/**
+	 * Compute the values at a number of percentiles with a single pass over the
+	 * histogram. The percentiles must be in ascending order.
+	 * @param percentiles - the percentiles to compute, in ascending order
+	 * @param results - receives the value for each percentile, must be at least as long as percentiles
+	 */
+	public void getValuesAtPercentiles(double[] percentiles, long[] results) {
+		long count = totalCount.get();
+		long max = getMaxValue();
+		int current = 0;
+		if (count > 0) {
+			long runningCount = 0;
+			for (int i = 0; i < chunks.length() && current < percentiles.length; i++) {
+				AtomicLongArray chunk = chunks.get(i);
+				if (chunk == null) {
+					continue;
+				}
+				for (int j = 0; j < chunk.length() && current < percentiles.length; j++) {
+					runningCount += chunk.get(j);
+					while (current < percentiles.length && percentiles[current] < 100.0 &&
+							runningCount >= Math.max(1, (long)(((Math.max(percentiles[current], 0.0) / 100.0) * count) + 0.5))) {
+						int index = (i << subBucketHalfCountMagnitude) + j;
+						results[current++] = Math.min(getHighestEquivalentValue(getValueFromIndex(index)), max);
+					}
+				}
+			}
+		}
+		while (current < percentiles.length) {
+			results[current++] = count > 0 ? max : 0;
+		}
+	}
+
+	public long getHighestTrackableValue() {
+		return highestTrackableValue;
+	}
+
+	public int getSignificantDigits() {
+		return significantDigits;
+	}
+
+	/**
+	 * Estimate the memory used by this histogram, which grows as values fall in new powers of two.
+	 */
+	public int getEstimatedFootprintInBytes() {
+		int footprint = 128 + 16 + chunks.length() * 4;
+		for (int i = 0; i < chunks.length(); i++) {
+			if (chunks.get(i) != null) {
+				footprint += 16 + subBucketHalfCount * 8;
+			}
+		}
+		return footprint;
+	}
+}
@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.PreDestroy;
@@ -21,6 +22,7 @@ public class LoggingFileManager {
 
 	private String loggingPath = null;
 	private Map<String, BufferedWriter> openFiles = new HashMap<String, BufferedWriter>();
+	private Map<String, String> fileHeadings = new ConcurrentHashMap<String, String>();
 	private final Thread loggingThread;
 	private final BlockingQueue<LoggingAction> queue;
 	private int counter = 0;
@@ -129,6 +131,7 @@ public class LoggingFileManager {
 	}
 	
 	public synchronized void createFile(String id, String heading) {
+		fileHeadings.put(id, heading);
 		if (loggingPath != null) {
 			try {
 				queue.put(new CreateFileClass(id, heading));
@@ -170,7 +173,9 @@ public class LoggingFileManager {
 			// We need to move the aggregation log to the new directory, all other
 			// logs will continue where they were originally opened.
 			closeFile(AggregationWorkloadType.AGGREGATION_WORKLOAD_NAME);
-			createFile(AggregationWorkloadType.AGGREGATION_WORKLOAD_NAME, AggregationWorkloadType.csvHeader);
+			// Re-use the heading the aggregation workload registered with, as this includes the percentile columns
+			createFile(AggregationWorkloadType.AGGREGATION_WORKLOAD_NAME, fileHeadings.getOrDefault(
+					AggregationWorkloadType.AGGREGATION_WORKLOAD_NAME, AggregationWorkloadType.csvHeader + "\n"));
 		}
 		else {
 			this.loggingPath = null;
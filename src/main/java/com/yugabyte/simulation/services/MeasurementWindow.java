@@ -0,0 +1,105 @@
+package com.yugabyte.simulation.services;
+
+/**
+ * Accumulates the timings of one workload over a window spanning many intervals, such
+ * as a step of a parameter sweep. The interval histograms are merged rather than their
+ * summary statistics, so the percentiles over the whole window are exact. Only intervals
+ * which start after the window was opened are included, so nothing recorded before the
+ * window leaks into it.
+ * <p/>
+ * Windows are opened with {@link TimerService#openMeasurementWindow} and are filled in as
+ * the intervals are collated.
+ */
+public class MeasurementWindow {
+	private final String workloadId;
+	private final long openedAtMs;
+	private final IntervalTimings timings;
+	private long startTimeMs = -1;
+	private long endTimeMs = -1;
+	private int intervalCount = 0;
+	private boolean closed = false;
+	private boolean workloadFinished = false;
+
+	MeasurementWindow(String workloadId, long openedAtMs, LatencyHistogram template) {
+		this.workloadId = workloadId;
+		this.openedAtMs = openedAtMs;
+		this.timings = new IntervalTimings(template);
+	}
+
+	String getWorkloadId() {
+		return workloadId;
+	}
+
+	/**
+	 * Add a collated interval to this window, returning false if the window is no longer
+	 * accepting intervals.
+	 */
+	synchronized boolean add(IntervalTimings interval, long intervalStartMs, long intervalEndMs, boolean isFinalInterval) {
+		if (closed) {
+			return false;
+		}
+		if (intervalStartMs >= openedAtMs) {
+			if (startTimeMs < 0) {
+				startTimeMs = intervalStartMs;
+			}
+			endTimeMs = intervalEndMs;
+			intervalCount++;
+			interval.addInto(timings);
+		}
+		if (isFinalInterval) {
+			workloadFinished = true;
+		}
+		return true;
+	}
+
+	synchronized IntervalTimings close() {
+		closed = true;
+		return timings;
+	}
+
+	synchronized long getStartTimeMs() {
+		return startTimeMs < 0 ? openedAtMs : startTimeMs;
+	}
+
+	synchronized long getEndTimeMs() {
+		return endTimeMs < 0 ? openedAtMs : endTimeMs;
+	}
+
+	/**
+	 * The number of intervals accumulated into the window so far.
+	 */
+	public synchronized int getIntervalCount() {
+		return intervalCount;
+	}
+
+	/**
+	 * The number of operations accumulated into the window so far.
+	 */
+	public synchronized long getOperationCount() {
+		return timings.getTotalCount();
+	}
+
+	/**
+	 * Has the final interval of the workload been collated? No more timings will be added
+	 * to the window once this is true.
+	 */
+	public synchronized boolean isWorkloadFinished() {
+		return workloadFinished;
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Get the elapsed time covered by the intervals accumulated so far.
+	 */
+	public synchronized long getDurationMs() {
+		return startTimeMs < 0 ? 0 : endTimeMs - startTimeMs;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("MeasurementWindow[%s, %d intervals]", workloadId, getIntervalCount());
+	}
+}
@@ -0,0 +1,109 @@
+package com.yugabyte.simulation.services;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+/**
+ * The class of outcome of a timed operation. Errors are split by their cause so
+ * that, for example, retriable conflicts can be told apart from broken connections
+ * when a node fails.
+ */
+public enum Outcome {
+	SUCCESS("Succeeded"),
+	/** Retriable transaction conflicts, SQLState 40001 (serialization failure) or 40P01 (deadlock) */
+	SERIALIZATION_FAILURE("Serialization Failures"),
+	/** The connection to the database was lost, SQLState class 08 or 57P01-57P03 */
+	CONNECTION_FAILURE("Connection Failures"),
+	/** The statement was cancelled by a statement timeout, SQLState 57014 */
+	STATEMENT_TIMEOUT("Statement Timeouts"),
+	/** A connection could not be obtained from the connection pool in time */
+	POOL_TIMEOUT("Pool Timeouts"),
+	OTHER_ERROR("Other Errors");
+
+	private static final Outcome[] VALUES = values();
+	private static final int MAX_CAUSE_DEPTH = 10;
+	
+	private final String description;
+	
+	private Outcome(String description) {
+		this.description = description;
+	}
+	
+	public String getDescription() {
+		return description;
+	}
+	
+	public ExecutionStatus getStatus() {
+		return this == SUCCESS ? ExecutionStatus.SUCCESS : ExecutionStatus.ERROR;
+	}
+	
+	/**
+	 * Get the number of outcome classes. The outcomes have ordinals 0 to count-1.
+	 */
+	public static int count() {
+		return VALUES.length;
+	}
+	
+	public static Outcome fromOrdinal(int ordinal) {
+		return VALUES[ordinal];
+	}
+	
+	public static Outcome of(ExecutionStatus status) {
+		return status == ExecutionStatus.SUCCESS ? SUCCESS : OTHER_ERROR;
+	}
+	
+	/**
+	 * Classify an exception thrown by an operation. The exception and its causes are
+	 * searched for a SQLState or exception type which identifies the outcome. This does
+	 * not allocate, so can be called for every failed operation.
+	 */
+	public static Outcome classify(Throwable exception) {
+		boolean cannotGetConnection = false;
+		Throwable current = exception;
+		for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+			if (current instanceof SQLTransientConnectionException) {
+				// Thrown by the connection pool when no connection becomes available in time
+				return POOL_TIMEOUT;
+			}
+			if (current instanceof SQLTimeoutException) {
+				return STATEMENT_TIMEOUT;
+			}
+			if (current instanceof SQLException) {
+				Outcome outcome = classifySqlState(((SQLException)current).getSQLState());
+				if (outcome != null) {
+					return outcome;
+				}
+			}
+			if (current instanceof CannotGetJdbcConnectionException) {
+				cannotGetConnection = true;
+			}
+			if (current.getCause() == current) {
+				break;
+			}
+			current = current.getCause();
+		}
+		return cannotGetConnection ? CONNECTION_FAILURE : OTHER_ERROR;
+	}
+	
+	private static Outcome classifySqlState(String sqlState) {
+		if (sqlState == null) {
+			return null;
+		}
+		switch (sqlState) {
+		case "40001":
+		case "40P01":
+			return SERIALIZATION_FAILURE;
+		case "57014":
+			return STATEMENT_TIMEOUT;
+		case "57P01":
+		case "57P02":
+		case "57P03":
+			return CONNECTION_FAILURE;
+		default:
+			return sqlState.startsWith("08") ? CONNECTION_FAILURE : null;
+		}
+	}
+}
@@ -23,6 +23,9 @@ public class ServiceManager {
 	@Autowired
 	private LoggingFileManager loggingFileManager;
 	
+	@Autowired
+	private WorkerThreadService workerThreadService;
+	
 	private boolean headless = false;
 	
 	@PostConstruct
@@ -44,6 +47,10 @@ public class ServiceManager {
 		return loggingFileManager;
 	}
 	
+	public WorkerThreadService getWorkerThreadService() {
+		return workerThreadService;
+	}
+	
 	public void setHeadless(boolean headless) {
 		this.headless = headless;
 	}
@@ -0,0 +1,258 @@
+package com.yugabyte.simulation.services;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the timings for a single workload. To avoid every worker thread
+ * contending on the same data, the timings are spread over a number of stripes.
+ * Each stripe is double buffered so the results collator can read one buffer while
+ * the workers record into the other, with a {@link WriterReaderPhaser} per stripe
+ * making sure the collator only reads a buffer once every recording into it has completed.
+ * <p/>
+ * As with {@link java.util.concurrent.atomic.LongAdder}, a workload starts with a single
+ * stripe and each thread picks its stripe with a probe of its own. A thread which finds
+ * another still recording into its stripe moves its probe on to try another stripe, and
+ * doubles the number of stripes if they have not yet reached one per processor (at most
+ * {@value #MAX_STRIPES}). Only threads which are actually recording at the same time
+ * spread out, so however many worker threads there are, including virtual threads, the
+ * writers to any one stripe are bounded by the threads running at once on the processors,
+ * and a workload which never records concurrently keeps a single stripe.
+ * <p/>
+ * This trades memory for contention-free recording, which is kept to a few tens of KB
+ * for a workload. A {@link LatencyHistogram} only allocates counts for the powers of two
+ * it has seen, about 1KB each at the default precision, so one of latencies from 200us to
+ * 50ms is about 9KB. A buffer holds one histogram per outcome recorded, plus the corrected
+ * and scheduling lag histograms for coordinated omission correction; phases and the
+ * operations of a mix add more, each only once recorded. The overall histogram is merged
+ * from the outcomes when read, into one histogram shared by the buffers, and with a single
+ * stripe the retired buffer is returned without being copied. So a workload recording
+ * such latencies from one thread at a time holds about 47KB, either with 1% of its
+ * operations failing or with every operation succeeding and corrected, and each stripe
+ * added under contention costs about the same again. Lowering
+ * timer.histogram.significant-digits to 1 cuts each power of two to about 128 bytes at
+ * the cost of 10% rather than 1% precision.
+ */
+class StripedTimingRecorder {
+	private static final int MAX_STRIPES = 64;
+	private static final int DEFAULT_STRIPE_LIMIT = stripeCountFor(Runtime.getRuntime().availableProcessors());
+
+	private static class Stripe {
+		final WriterReaderPhaser phaser = new WriterReaderPhaser();
+		final IntervalTimings[] buffers;
+
+		Stripe(IntervalTimings buffer0, IntervalTimings buffer1) {
+			this.buffers = new IntervalTimings[] { buffer0, buffer1 };
+		}
+	}
+
+	/**
+	 * The per-thread hash used to pick a stripe, shared by every recorder.
+	 */
+	private static class Probe {
+		int value;
+
+		Probe(long threadId) {
+			// Spread consecutive thread ids over the stripes, never zero so the xorshift keeps moving
+			this.value = (int)((threadId * 0x9E3779B97F4A7C15L) >>> 32) | 1;
+		}
+
+		void advance() {
+			int probe = value;
+			probe ^= probe << 13;
+			probe ^= probe >>> 17;
+			probe ^= probe << 5;
+			value = probe;
+		}
+	}
+
+	private static final ThreadLocal<Probe> probes = ThreadLocal.withInitial(() -> new Probe(Thread.currentThread().getId()));
+
+	private final LatencyHistogram template;
+	// Every buffer merges its outcomes into this when read, as only one buffer is read at a time
+	private final LatencyHistogram merged;
+	private final int stripeLimit;
+	// Only replaced, by a copy with twice as many slots, and only filled in, while holding the monitor
+	// of this recorder, so a stripe once created is never lost
+	private volatile AtomicReferenceArray<Stripe> stripes;
+	private final IntervalTimings collated;
+
+	private static int stripeCountFor(int processors) {
+		int count = 1;
+		while (count < processors && count < MAX_STRIPES) {
+			count <<= 1;
+		}
+		return count;
+	}
+
+	public StripedTimingRecorder(LatencyHistogram template) {
+		this(template, DEFAULT_STRIPE_LIMIT);
+	}
+
+	StripedTimingRecorder(LatencyHistogram template, int stripeLimit) {
+		this.template = template;
+		this.merged = template.copyConfiguration();
+		this.stripeLimit = stripeCountFor(stripeLimit);
+		this.stripes = new AtomicReferenceArray<Stripe>(1);
+		this.collated = newIntervalTimings();
+	}
+
+	private IntervalTimings newIntervalTimings() {
+		return new IntervalTimings(merged);
+	}
+
+	private Stripe getStripe(Probe probe) {
+		AtomicReferenceArray<Stripe> current = this.stripes;
+		Stripe stripe = current.get(probe.value & (current.length() - 1));
+		return stripe != null ? stripe : createStripe(probe);
+	}
+
+	private synchronized Stripe createStripe(Probe probe) {
+		AtomicReferenceArray<Stripe> current = this.stripes;
+		int index = probe.value & (current.length() - 1);
+		Stripe stripe = current.get(index);
+		if (stripe == null) {
+			stripe = new Stripe(newIntervalTimings(), newIntervalTimings());
+			current.set(index, stripe);
+		}
+		return stripe;
+	}
+
+	/**
+	 * Called after a thread found another recording into its stripe: move it on to another stripe,
+	 * adding more stripes first if there are fewer than the limit.
+	 */
+	private void contended(Probe probe) {
+		if (stripes.length() < stripeLimit) {
+			synchronized (this) {
+				AtomicReferenceArray<Stripe> current = this.stripes;
+				if (current.length() < stripeLimit) {
+					AtomicReferenceArray<Stripe> expanded = new AtomicReferenceArray<Stripe>(current.length() * 2);
+					for (int i = 0; i < current.length(); i++) {
+						expanded.set(i, current.get(i));
+					}
+					this.stripes = expanded;
+				}
+			}
+		}
+		probe.advance();
+	}
+
+	/**
+	 * The number of stripes the threads recording into this workload are currently spread over.
+	 */
+	int getStripeCount() {
+		return stripes.length();
+	}
+
+	public void record(long timeInUs, long correctedTimeInUs, Outcome outcome) {
+		Probe probe = probes.get();
+		Stripe stripe = getStripe(probe);
+		long criticalValue = stripe.phaser.writerCriticalSectionEnter();
+		boolean contended;
+		try {
+			contended = stripe.phaser.isContended(criticalValue);
+			stripe.buffers[WriterReaderPhaser.getBufferIndex(criticalValue)].record(timeInUs, correctedTimeInUs, outcome);
+		}
+		finally {
+			stripe.phaser.writerCriticalSectionExit(criticalValue);
+		}
+		if (contended) {
+			contended(probe);
+		}
+	}
+
+	/**
+	 * Record an operation along with the times of the phases it was broken into.
+	 * @param phaseIds - the ids of the phases, as returned from {@link TimerService#registerPhase(String)}
+	 * @param phaseTimesInUs - the time spent in each phase
+	 * @param phaseCount - the number of valid entries in the phase arrays
+	 * @param operationId - the operation of a mix, as returned from {@link TimerService#registerOperation(String)},
+	 * or -1 if none
+	 */
+	public void record(long timeInUs, long correctedTimeInUs, Outcome outcome, int operationId,
+			int[] phaseIds, long[] phaseTimesInUs, int phaseCount) {
+		Probe probe = probes.get();
+		Stripe stripe = getStripe(probe);
+		long criticalValue = stripe.phaser.writerCriticalSectionEnter();
+		boolean contended;
+		try {
+			contended = stripe.phaser.isContended(criticalValue);
+			IntervalTimings timings = stripe.buffers[WriterReaderPhaser.getBufferIndex(criticalValue)];
+			for (int i = 0; i < phaseCount; i++) {
+				timings.recordPhase(phaseIds[i], phaseTimesInUs[i]);
+			}
+			timings.record(timeInUs, correctedTimeInUs, outcome, operationId);
+		}
+		finally {
+			stripe.phaser.writerCriticalSectionExit(criticalValue);
+		}
+		if (contended) {
+			contended(probe);
+		}
+	}
+
+	/**
+	 * Estimate the memory used by the histograms of every stripe and the collated timings.
+	 */
+	int getEstimatedFootprintInBytes() {
+		int footprint = merged.getEstimatedFootprintInBytes() + collated.getEstimatedFootprintInBytes();
+		AtomicReferenceArray<Stripe> current = this.stripes;
+		for (int i = 0; i < current.length(); i++) {
+			Stripe stripe = current.get(i);
+			if (stripe != null) {
+				footprint += stripe.buffers[0].getEstimatedFootprintInBytes() + stripe.buffers[1].getEstimatedFootprintInBytes();
+			}
+		}
+		return footprint;
+	}
+
+	private static void clearRetiredBuffer(Stripe stripe) {
+		// Writers only use the active buffer, so the other can be cleared before it becomes active
+		stripe.buffers[1 - stripe.phaser.getActiveBufferIndex()].reset();
+	}
+
+	/**
+	 * Close the current interval: switch every stripe over to its other buffer, wait
+	 * for in-flight recordings into the retired buffers to finish, then merge the
+	 * retired buffers together, resetting them ready to be re-used. With a single stripe
+	 * its retired buffer is returned as it is, and only reset at the next collation. The
+	 * returned timings are owned by this recorder and are only valid until the next call
+	 * to this method.
+	 */
+	public IntervalTimings collate() {
+		// A stripe added after this is read is collated with the next interval
+		AtomicReferenceArray<Stripe> current = this.stripes;
+		if (current.length() == 1) {
+			Stripe stripe = current.get(0);
+			if (stripe == null) {
+				collated.reset();
+				return collated;
+			}
+			stripe.phaser.readerLock();
+			try {
+				clearRetiredBuffer(stripe);
+				return stripe.buffers[stripe.phaser.flipPhase()];
+			}
+			finally {
+				stripe.phaser.readerUnlock();
+			}
+		}
+		collated.reset();
+		for (int i = 0; i < current.length(); i++) {
+			Stripe stripe = current.get(i);
+			if (stripe != null) {
+				stripe.phaser.readerLock();
+				try {
+					// The buffer may still hold the interval it was returned with when there was one stripe
+					clearRetiredBuffer(stripe);
+					int retiredIndex = stripe.phaser.flipPhase();
+					stripe.buffers[retiredIndex].drainInto(collated);
+				}
+				finally {
+					stripe.phaser.readerUnlock();
+				}
+			}
+		}
+		return collated;
+	}
+}
@@ -2,6 +2,41 @@ package com.yugabyte.simulation.services;
 
 public interface Timer {
 	public Timer start();
+	/**
+	 * Start timing an operation which was scheduled to start at the passed time, as
+	 * returned from <code>System.nanoTime()</code>. The actual latency from now is
+	 * recorded as normal, and the latency from the intended start time is recorded
+	 * as well to correct for coordinated omission.
+	 */
+	public Timer start(long intendedStartTimeNs);
+	/**
+	 * Mark the end of a phase of the operation being timed, for example "select generic1".
+	 * The time since the previous phase ended (or the timer started) is recorded against
+	 * the phase when the timer ends. Phases should be registered up front with
+	 * {@link TimerService#registerPhase(String)}, the same phase id can then be used with
+	 * {@link #timeSubPortion(int)} which does not allocate or do any lookups.
+	 */
 	public Timer timeSubPortion(String description);
+	public Timer timeSubPortion(int phaseId);
+	/**
+	 * Record the operation being timed against an operation of a mix, registered with
+	 * {@link TimerService#registerOperation(String)}, as well as against the workload.
+	 * This is cleared when the timer is next started.
+	 */
+	public Timer forOperation(int operationId);
+	/**
+	 * Stop phases marked with {@link TimerService#markPhase(int)} on this thread being recorded
+	 * against this timer. A timer is attached to the thread which starts it, and stays attached
+	 * after it ends so that retries of the operation record their phases, until it is started
+	 * again. An operation which completes asynchronously should be detached once the thread has
+	 * handed it off, as it will end on another thread.
+	 */
+	public Timer detach();
 	public long end(ExecutionStatus status, int workloadOrdinal);
+	/**
+	 * End the timing of the operation, recording it against the passed outcome. Failed
+	 * operations should pass the outcome returned from {@link Outcome#classify(Throwable)}
+	 * so the different classes of error can be told apart.
+	 */
+	public long end(Outcome outcome, int workloadOrdinal);
 }
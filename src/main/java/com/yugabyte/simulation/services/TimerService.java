@@ -2,14 +2,25 @@ package com.yugabyte.simulation.services;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.yugabyte.simulation.dao.LatencySummary;
+import com.yugabyte.simulation.dao.Percentiles;
+import com.yugabyte.simulation.dao.ResultResolution;
 import com.yugabyte.simulation.dao.TimerResult;
 import com.yugabyte.simulation.workload.WorkloadTypeInstance;
 
@@ -19,88 +30,153 @@ public class TimerService {
 	@Autowired
 	private LoggingFileManager loggingManager;
 	
+	@Value("${timer.histogram.max-latency-ms:60000}")
+	private long histogramMaxLatencyMs;
+	
+	@Value("${timer.histogram.significant-digits:2}")
+	private int histogramSignificantDigits;
+	
+	@Value("${timer.percentiles:50,90,99,99.9,99.99}")
+	private String percentilesToReport;
+	
+	private Percentiles percentiles;
+	
+	@Value("${timer.correct-coordinated-omission:false}")
+	private boolean correctCoordinatedOmission;
+	
+	@Value("${timer.arrival-distribution:closed}")
+	private String arrivalDistribution;
+	
+	@Value("${timer.interval-ms:1000}")
+	private int intervalMs;
+	
+	@Value("${timer.warmup-ms:0}")
+	private long warmupMs;
+	
+	@Value("${timer.warmup-operations:0}")
+	private long warmupOperations;
+	
+	// The suffix of the log file the intervals collated while a workload warms up are written to
+	private static final String WARMUP_LOG_SUFFIX = "_warmup";
+	
+	private final Map<String, Integer> phaseIds = new ConcurrentHashMap<String, Integer>();
+	private final String[] phaseNames = new String[IntervalTimings.MAX_PHASES];
+	private final Map<String, Integer> operationIds = new ConcurrentHashMap<String, Integer>();
+	private final String[] operationNames = new String[IntervalTimings.MAX_OPERATIONS];
+	private final ThreadLocal<TimerImpl> activeTimer = new ThreadLocal<TimerImpl>();
+	
 	private class TimerImpl implements Timer {
-		private final List<SubPartTime> subPartsTimes = new ArrayList<>();
+		// Phases are held in primitive arrays which are re-used between operations so
+		// timing a phase does not allocate.
+		private int[] phaseIdsThisOperation = new int[16];
+		private long[] phaseTimesThisOperation = new long[16];
+		private int phaseCount = 0;
+		private long lastPhaseEndTime;
 		
 		public TimerImpl() {
 		}
 		private long startTime;
+		private long intendedStartTime = -1;
+		private int operationId = -1;
 		
 		@Override
 		public Timer start() {
 			this.startTime = System.nanoTime();
+			this.intendedStartTime = -1;
+			this.operationId = -1;
+			this.lastPhaseEndTime = startTime;
+			this.phaseCount = 0;
+			activeTimer.set(this);
+			return this;
+		}
+		
+		@Override
+		public Timer start(long intendedStartTimeNs) {
+			this.start();
+			this.intendedStartTime = Math.min(intendedStartTimeNs, startTime);
 			return this;
 		}
 
 		@Override
 		public Timer timeSubPortion(String description) {
-			this.subPartsTimes.add(new SubPartTime(description,
-					System.nanoTime() - startTime));
+			return timeSubPortion(registerPhase(description));
+		}
+		
+		@Override
+		public Timer timeSubPortion(int phaseId) {
+			long now = System.nanoTime();
+			if (phaseCount == phaseIdsThisOperation.length) {
+				phaseIdsThisOperation = Arrays.copyOf(phaseIdsThisOperation, phaseCount * 2);
+				phaseTimesThisOperation = Arrays.copyOf(phaseTimesThisOperation, phaseCount * 2);
+			}
+			phaseIdsThisOperation[phaseCount] = phaseId;
+			phaseTimesThisOperation[phaseCount++] = (now - lastPhaseEndTime) / 1000;
+			lastPhaseEndTime = now;
+			return this;
+		}
+		
+		@Override
+		public Timer forOperation(int operationId) {
+			this.operationId = operationId;
 			return this;
 		}
 		
 		@Override
 		public long end(ExecutionStatus status, int workloadOrdinal) {
-			long time = System.nanoTime() - startTime;
-			TimerService.this.submitResult(time/1000, workloadOrdinal, status);
+			return end(Outcome.of(status), workloadOrdinal);
+		}
+		
+		@Override
+		public long end(Outcome outcome, int workloadOrdinal) {
+			long now = System.nanoTime();
+			long time = now - startTime;
+			long correctedTime = intendedStartTime < 0 ? -1 : now - intendedStartTime;
+			accumulator.submitResult(time/1000, correctedTime < 0 ? -1 : correctedTime/1000, workloadOrdinal, outcome,
+					operationId, phaseIdsThisOperation, phaseTimesThisOperation, phaseCount);
+			// A retry runs the task again on the same thread without restarting the timer, so the
+			// timer stays active there and the retry records a fresh set of phases timed from now.
+			// The thread-local is deliberately not touched here: an asynchronous operation ends on
+			// another thread, so the thread which started the timer detaches it instead.
+			phaseCount = 0;
+			lastPhaseEndTime = now;
 			return time;
 		}
+		
+		@Override
+		public Timer detach() {
+			if (activeTimer.get() == this) {
+				activeTimer.remove();
+			}
+			return this;
+		}
 	}
 
 	private final int AGGREGATE_ORDINAL = 0;
 	
 //	private final Map<String, List<TimerResult>> timingResults;
-	private static final int MAX_RESULTS_PER_SECOND = 250000;
-	private static final int MAX_RESULTS_SECONDS = 86400;
-	private class TimingInstancePerSecond {
-		long[] currentSuccesses;
-		long[] currentFailures;
-		int currentSuccessesCount;
-		int currentFailuresCount;
-		
-		public TimingInstancePerSecond() {
-			currentSuccesses = new long[MAX_RESULTS_PER_SECOND];
-			currentFailures = new long[MAX_RESULTS_PER_SECOND];
-			currentSuccessesCount = 0;
-			currentFailuresCount = 0;
-		}
-	}
 	
 	private class ResultsAccumulator {
-		boolean use1stResult = true;
 		final Map<String, Integer> resultsOrdinals;
 		final Map<Integer, String> resultsReverseOrdinals;
 		final Map<String, WorkloadTypeInstance> workloadMap;
-		final List<TimingInstancePerSecond>[] timings;
+		final List<StripedTimingRecorder> recorders;
+		// The coarser resolution buckets currently being accumulated for each workload
+		final Map<String, IntervalRollup[]> rollups;
+		// The measurement windows currently open on each workload
+		final Map<String, List<MeasurementWindow>> measurementWindows;
+		// The workloads which have had a warm-up log opened
+		final Set<String> warmupLogsCreated = ConcurrentHashMap.newKeySet();
+		private IntervalTimings aggregateTimings = null;
 
 		private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
 
-
-
-//		long[][] currentSuccesses;
-//		long[][] currentFailures;
-//		int[] successCount;
-//		int[] failureCount;
-		
-		@SuppressWarnings("unchecked")
 		public ResultsAccumulator() {
-			timings = new ArrayList[2];
-			timings[0] = new ArrayList<TimingInstancePerSecond>();
-			timings[1] = new ArrayList<TimingInstancePerSecond>();
+			recorders = new CopyOnWriteArrayList<StripedTimingRecorder>();
 			resultsOrdinals = new ConcurrentHashMap<>();
 			resultsReverseOrdinals = new ConcurrentHashMap<>();
 			workloadMap = new ConcurrentHashMap<String, WorkloadTypeInstance>();
-
-//			getResultIndexForName(AGGREGATE_METRIC_NAME);
-			
-//			currentSuccesses = new long[2][];
-//			currentSuccesses[0] = new long[MAX_RESULTS_PER_SECOND];
-//			currentSuccesses[1] = new long[MAX_RESULTS_PER_SECOND];
-//			currentFailures = new long[2][];
-//			currentFailures[0] = new long[MAX_RESULTS_PER_SECOND];
-//			currentFailures[1] = new long[MAX_RESULTS_PER_SECOND];
-//			successCount = new int[] {0, 0};
-//			failureCount = new int[] {0, 0};
+			rollups = new ConcurrentHashMap<String, IntervalRollup[]>();
+			measurementWindows = new ConcurrentHashMap<String, List<MeasurementWindow>>();
 		}
 
 		public int getNextAvailableResultIndex() {
@@ -116,62 +192,37 @@ public class TimerService {
 			}
 			else {
 				int result = getNextAvailableResultIndex();
-				resultsOrdinals.put(name, result);
-				resultsReverseOrdinals.put(result, name);
-				if (result >= timings[0].size()) {
-					timings[0].add(new TimingInstancePerSecond());
-					timings[1].add(new TimingInstancePerSecond());
+				if (result >= recorders.size()) {
+					recorders.add(new StripedTimingRecorder(newHistogram()));
 				}
 				else {
-					timings[0].set(result, new TimingInstancePerSecond());
-					timings[1].set(result, new TimingInstancePerSecond());
+					recorders.set(result, new StripedTimingRecorder(newHistogram()));
 				}
+				resultsOrdinals.put(name, result);
+				resultsReverseOrdinals.put(result, name);
 				return result;
 			}
 		}
 		
-		int getCurrentIndex() {
-			return use1stResult ? 0 : 1;
-		}
-		
-		void swapIndex() {
-			this.use1stResult = !use1stResult;
-//			successCount[newIndex] = 0;
-//			failureCount[newIndex] = 0;
+		private LatencyHistogram newHistogram() {
+			return new LatencyHistogram(histogramMaxLatencyMs * 1000, histogramSignificantDigits);
 		}
 		
-		void submitResult(long timeInUs, int workloadOrdinal, ExecutionStatus status) {
-			int index = this.getCurrentIndex();
-			int count;
-			TimingInstancePerSecond timings = this.timings[index].get(workloadOrdinal);
-
-			synchronized(timings) {
-				switch (status) {
-				case SUCCESS:
-					count = timings.currentSuccessesCount; 
-					if (count < MAX_RESULTS_PER_SECOND) {
-						timings.currentSuccesses[count] = timeInUs;
-						timings.currentSuccessesCount++;
-					}
-					break;
-				case ERROR:
-					count = timings.currentFailuresCount; 
-					if (count < MAX_RESULTS_PER_SECOND) {
-						timings.currentFailures[count] = timeInUs;
-						timings.currentFailuresCount++;
-					}
-					break;
-				}
-			}
-			if (workloadOrdinal != AGGREGATE_ORDINAL) {
-				// We need to redo this with the aggregate results
-				submitResult(timeInUs, 0, status);
-			}
+		void submitResult(long timeInUs, long correctedTimeInUs, int workloadOrdinal, Outcome outcome) {
+			// The aggregate results are produced by merging the individual workloads
+			// when the interval is collated, so each sample is only recorded once.
+			recorders.get(workloadOrdinal).record(timeInUs, correctedTimeInUs, outcome);
  		}
 		
-		void submitResult(long timeInUs, String workloadId, ExecutionStatus status) {
+		void submitResult(long timeInUs, long correctedTimeInUs, int workloadOrdinal, Outcome outcome,
+				int operationId, int[] phaseIds, long[] phaseTimesInUs, int phaseCount) {
+			recorders.get(workloadOrdinal).record(timeInUs, correctedTimeInUs, outcome, operationId,
+					phaseIds, phaseTimesInUs, phaseCount);
+		}
+		
+		void submitResult(long timeInUs, String workloadId, Outcome outcome) {
 			Integer index = this.resultsOrdinals.get(workloadId);
-			this.submitResult(timeInUs, index == null? 0 : index, status);
+			this.submitResult(timeInUs, -1, index == null? AGGREGATE_ORDINAL : index, outcome);
 		}
 
 		public synchronized int addTimingWokload(WorkloadTypeInstance workload) {
@@ -183,51 +234,200 @@ public class TimerService {
 
 		public synchronized void removeTimingWorkload(WorkloadTypeInstance workload) {
 			workloadMap.remove(workload.getWorkloadId());
+			rollups.remove(workload.getWorkloadId());
+			measurementWindows.remove(workload.getWorkloadId());
 			loggingManager.closeFile(workload.getWorkloadId());
+			if (warmupLogsCreated.remove(workload.getWorkloadId() + WARMUP_LOG_SUFFIX)) {
+				loggingManager.closeFile(workload.getWorkloadId() + WARMUP_LOG_SUFFIX);
+			}
 			int ordinal = resultsOrdinals.remove(workload.getWorkloadId());
 			resultsReverseOrdinals.remove(ordinal);
 		}
 
-		public synchronized void accumulateIntervalResults(long startTime, long sampleStartTime) {
-			// Need to swap the results over.
+		public synchronized void accumulateIntervalResults(long startTime, long sampleStartTime, long sampleEndTime) {
+			// Each recorder swaps its own buffers over as it is collated, waiting for any
+			// in-flight recordings so every sample lands in exactly one interval.
 			long now = System.currentTimeMillis();
-			int indexToAccumulate = getCurrentIndex();
-			swapIndex();
 			
+			if (aggregateTimings == null) {
+				aggregateTimings = new IntervalTimings(newHistogram());
+			}
+			aggregateTimings.reset();
+			String aggregateWorkloadId = null;
 			for (String workloadId : this.resultsOrdinals.keySet()) {
 				int index = this.resultsOrdinals.get(workloadId);
-				TimingInstancePerSecond timingsToAnalyze = timings[indexToAccumulate].get(index);
-				TimerResult result = new TimerResult(
-						timingsToAnalyze.currentSuccesses,
-						timingsToAnalyze.currentSuccessesCount,
-						timingsToAnalyze.currentFailures,
-						timingsToAnalyze.currentFailuresCount,
-						sampleStartTime
-				);
-				
-				timingsToAnalyze.currentFailuresCount = 0;
-				timingsToAnalyze.currentSuccessesCount = 0;
-
-				Date currentDate = new Date(now);
-				String currentTimeStr = dateFormat.format(currentDate);
-				
-				if (result.getNumFailed() + result.getNumSucceeded() > 0) {
-					System.out.printf("[%s] %,dms: %s: %s",
-							currentTimeStr,
-							now - startTime,
-							workloadId,
-							result.toString());
+				if (index == AGGREGATE_ORDINAL) {
+					aggregateWorkloadId = workloadId;
+					continue;
 				}
-				
+				IntervalTimings timingsToAnalyze = recorders.get(index).collate();
 				WorkloadTypeInstance workload = workloadMap.get(workloadId);
-				if (workload != null) {
-					TimerResult newResult = workload.submitTimingResult(result, MAX_RESULTS_SECONDS);
-					loggingManager.writeLine(workload.getWorkloadId(), workload.formatToCsv(newResult));
+				boolean isWarmup = workload != null && workload.checkWarmupInterval(sampleStartTime, timingsToAnalyze.getTotalCount());
+				if (!isWarmup) {
+					timingsToAnalyze.addInto(aggregateTimings);
 				}
+				processIntervalResult(workloadId, timingsToAnalyze, startTime, sampleStartTime, sampleEndTime, now, isWarmup);
+			}
+			if (aggregateWorkloadId != null) {
+				recorders.get(AGGREGATE_ORDINAL).collate().addInto(aggregateTimings);
+				processIntervalResult(aggregateWorkloadId, aggregateTimings, startTime, sampleStartTime, sampleEndTime, now, false);
+			}
+		}
+		
+		private TimerResult createTimerResult(IntervalTimings timingsToAnalyze, long startTimeMs, long endTimeMs) {
+			Map<String, TimerResult> operationResults = new LinkedHashMap<String, TimerResult>();
+			for (int i = 0; i < IntervalTimings.MAX_OPERATIONS; i++) {
+				IntervalTimings operationTimings = timingsToAnalyze.getOperationTimings(i);
+				if (operationTimings != null && operationTimings.getTotalCount() > 0) {
+					operationResults.put(operationNames[i], new TimerResult(
+							new LatencySummary(operationTimings.getHistogram(), percentiles),
+							null, null, null, null, null,
+							operationTimings.getSuccessCount(),
+							operationTimings.getFailureCount(),
+							startTimeMs,
+							endTimeMs));
+				}
+			}
+			LatencyHistogram correctedHistogram = timingsToAnalyze.getCorrectedHistogram();
+			LatencyHistogram schedulingLagHistogram = timingsToAnalyze.getSchedulingLagHistogram();
+			Map<Outcome, LatencySummary> outcomeLatencies = new EnumMap<Outcome, LatencySummary>(Outcome.class);
+			for (int i = 0; i < Outcome.count(); i++) {
+				Outcome outcome = Outcome.fromOrdinal(i);
+				LatencyHistogram outcomeHistogram = timingsToAnalyze.getOutcomeHistogram(outcome);
+				if (outcomeHistogram != null && outcomeHistogram.getTotalCount() > 0) {
+					outcomeLatencies.put(outcome, new LatencySummary(outcomeHistogram, percentiles));
+				}
+			}
+			Map<String, LatencySummary> phaseLatencies = new LinkedHashMap<String, LatencySummary>();
+			for (int i = 0; i < IntervalTimings.MAX_PHASES; i++) {
+				LatencyHistogram phaseHistogram = timingsToAnalyze.getPhaseHistogram(i);
+				if (phaseHistogram != null && phaseHistogram.getTotalCount() > 0) {
+					phaseLatencies.put(phaseNames[i], new LatencySummary(phaseHistogram, percentiles));
+				}
+			}
+			return new TimerResult(
+					new LatencySummary(timingsToAnalyze.getHistogram(), percentiles),
+					correctedHistogram == null || correctedHistogram.getTotalCount() == 0 ? null : new LatencySummary(correctedHistogram, percentiles),
+					schedulingLagHistogram == null || schedulingLagHistogram.getTotalCount() == 0 ? null : new LatencySummary(schedulingLagHistogram, percentiles),
+					outcomeLatencies,
+					phaseLatencies,
+					operationResults,
+					timingsToAnalyze.getSuccessCount(),
+					timingsToAnalyze.getFailureCount(),
+					startTimeMs,
+					endTimeMs
+			);
+		}
+		
+		public synchronized MeasurementWindow openMeasurementWindow(String workloadId) {
+			MeasurementWindow window = new MeasurementWindow(workloadId, System.currentTimeMillis(), newHistogram());
+			measurementWindows.computeIfAbsent(workloadId, id -> new CopyOnWriteArrayList<MeasurementWindow>()).add(window);
+			return window;
+		}
+		
+		public synchronized TimerResult closeMeasurementWindow(MeasurementWindow window) {
+			List<MeasurementWindow> windows = measurementWindows.get(window.getWorkloadId());
+			if (windows != null) {
+				windows.remove(window);
+			}
+			return createTimerResult(window.close(), window.getStartTimeMs(), window.getEndTimeMs());
+		}
+		
+		private void addToMeasurementWindows(String workloadId, IntervalTimings timingsToAnalyze,
+				long sampleStartTime, long sampleEndTime, boolean isFinalInterval) {
+			List<MeasurementWindow> windows = measurementWindows.get(workloadId);
+			if (windows != null) {
+				for (MeasurementWindow window : windows) {
+					window.add(timingsToAnalyze, sampleStartTime, sampleEndTime, isFinalInterval);
+				}
+			}
+		}
+		
+		private IntervalRollup[] getRollups(String workloadId) {
+			IntervalRollup[] workloadRollups = rollups.get(workloadId);
+			if (workloadRollups == null) {
+				// Only the resolutions coarser than the collation interval need rolling up, the
+				// others are served from the collated intervals themselves.
+				List<IntervalRollup> rollupList = new ArrayList<IntervalRollup>();
+				for (ResultResolution resolution : ResultResolution.values()) {
+					if (resolution.getIntervalMs() > intervalMs) {
+						rollupList.add(new IntervalRollup(resolution, newHistogram()));
+					}
+				}
+				workloadRollups = rollupList.toArray(new IntervalRollup[rollupList.size()]);
+				rollups.put(workloadId, workloadRollups);
+			}
+			return workloadRollups;
+		}
+		
+		/**
+		 * Add the interval into each of the coarser resolutions of the workload, first closing
+		 * any bucket the interval does not belong in. If the workload has finished, all the
+		 * buckets are closed so the final partial buckets are not lost.
+		 */
+		private void rollUpIntervalResult(WorkloadTypeInstance workload, IntervalTimings timingsToAnalyze, 
+				long sampleStartTime, long sampleEndTime, boolean isFinalInterval) {
+			for (IntervalRollup rollup : getRollups(workload.getWorkloadId())) {
+				if (rollup.isBucketClosedBy(sampleStartTime)) {
+					closeRollupBucket(workload, rollup);
+				}
+				rollup.add(timingsToAnalyze, sampleStartTime, sampleEndTime);
+				if (isFinalInterval) {
+					closeRollupBucket(workload, rollup);
+				}
+			}
+		}
+		
+		private void closeRollupBucket(WorkloadTypeInstance workload, IntervalRollup rollup) {
+			if (rollup.isOpen()) {
+				workload.submitTimingResult(createTimerResult(rollup.getBucket(), rollup.getBucketStartMs(), rollup.getBucketEndMs()), rollup.getResolution());
+				rollup.reset();
+			}
+		}
+		
+		private void processIntervalResult(String workloadId, IntervalTimings timingsToAnalyze,
+				long startTime, long sampleStartTime, long sampleEndTime, long now, boolean isWarmup) {
+			WorkloadTypeInstance workload = workloadMap.get(workloadId);
+			if (workload != null && workload.isTerminated() && workload.getEndTime() > sampleStartTime) {
+				// The final interval of a workload is cut short at the time it finished so the
+				// throughput of the partial interval is not understated
+				sampleEndTime = Math.min(sampleEndTime, workload.getEndTime());
+			}
+			TimerResult result = createTimerResult(timingsToAnalyze, sampleStartTime, sampleEndTime);
+			
+			Date currentDate = new Date(now);
+			String currentTimeStr = dateFormat.format(currentDate);
+			
+			if (result.getNumFailed() + result.getNumSucceeded() > 0) {
+				System.out.printf("[%s] %,dms: %s%s: %s",
+						currentTimeStr,
+						now - startTime,
+						workloadId,
+						isWarmup ? " (warm-up)" : "",
+						result.toString());
+			}
+			
+			if (workload != null && isWarmup) {
+				// Warm-up intervals are kept out of the measured results, rollups and measurement windows
+				TimerResult newResult = workload.submitWarmupResult(result);
+				String warmupLogId = workloadId + WARMUP_LOG_SUFFIX;
+				if (!warmupLogsCreated.contains(warmupLogId)) {
+					loggingManager.createFile(warmupLogId, workload.getCsvHeader());
+					warmupLogsCreated.add(warmupLogId);
+				}
+				loggingManager.writeLine(warmupLogId, workload.formatToCsv(newResult));
+				if (workload.isTerminated()) {
+					removeTimingWorkload(workload);
+				}
+			}
+			else if (workload != null) {
+				TimerResult newResult = workload.submitTimingResult(result, ResultResolution.INTERVAL);
+				loggingManager.writeLine(workload.getWorkloadId(), workload.formatToCsv(newResult));
+				rollUpIntervalResult(workload, timingsToAnalyze, sampleStartTime, sampleEndTime, workload.isTerminated());
+				addToMeasurementWindows(workloadId, timingsToAnalyze, sampleStartTime, sampleEndTime, workload.isTerminated());
 				if (workload.isTerminated()) {
 					removeTimingWorkload(workload);
 				}
-
 			}
 		
 //			for (TimerType thisType : accumulators.keySet()) {
@@ -274,20 +474,39 @@ public class TimerService {
 //	private Map<Long, Long> threadStartTimes = new ConcurrentHashMap<Long, Long>();
 //	private WorkloadDesc activeWorkload = null;
 	
+	/**
+	 * Collates the results at the end of every interval. Interval boundaries are aligned
+	 * to the wall clock (for example every 250ms starting on the second) and computed
+	 * from the clock rather than by sleeping a fixed time, so the time taken to collate
+	 * does not make the intervals drift and the results of different simulator instances
+	 * line up.
+	 */
 	private class ResultsCollator implements Runnable {
 		private long startTime;
 		@Override
 		public void run() {
 			this.startTime = System.currentTimeMillis();
+			long sampleStartTime = startTime;
+			long sampleEndTime = startTime - (startTime % intervalMs) + intervalMs;
 			while (true) {
-				long sampleStartTime = System.currentTimeMillis();
 				try {
-					Thread.sleep(1000);
+					long sleepTime;
+					while ((sleepTime = sampleEndTime - System.currentTimeMillis()) > 0) {
+						Thread.sleep(sleepTime);
+					}
 				}
 				catch (InterruptedException ie) {
 					break;
 				}
-				accumulator.accumulateIntervalResults(startTime, sampleStartTime);
+				accumulator.accumulateIntervalResults(startTime, sampleStartTime, sampleEndTime);
+				sampleStartTime = sampleEndTime;
+				sampleEndTime += intervalMs;
+				long now = System.currentTimeMillis();
+				if (now >= sampleEndTime) {
+					// Collating took longer than an interval (or the clock jumped), so extend
+					// this interval to the next boundary rather than collating in a burst.
+					sampleEndTime = now - (now % intervalMs) + intervalMs;
+				}
 			}
 		}
 	}
@@ -302,12 +521,6 @@ public class TimerService {
 //		this.accumulators.put(TimerType.WORKLOAD1, new ResultsAccumulator());
 
 		this.accumulator = new ResultsAccumulator();
-		
-		Thread collator = new Thread(new ResultsCollator());
-		collator.setDaemon(true);
-		collator.setName("Results collator");
-		collator.setPriority(Thread.MAX_PRIORITY);
-		collator.start();
 	}
 
 //	public synchronized TimerService setCurrentWorkload(WorkloadDesc workload) {
@@ -321,6 +534,135 @@ public class TimerService {
 //		}
 //		return this;
 //	}
+	@PostConstruct
+	private void initialize() {
+		this.percentiles = Percentiles.parse(percentilesToReport);
+		if (intervalMs <= 0 || (1000 % intervalMs != 0 && (intervalMs % 1000 != 0 || 60000 % intervalMs != 0))) {
+			throw new IllegalArgumentException("timer.interval-ms must divide evenly into 1 second or be a whole number of seconds dividing evenly into 1 minute, not " + intervalMs);
+		}
+		
+		Thread collator = new Thread(new ResultsCollator());
+		collator.setDaemon(true);
+		collator.setName("Results collator");
+		collator.setPriority(Thread.MAX_PRIORITY);
+		collator.start();
+	}
+	
+	/**
+	 * The latency percentiles which are computed for every interval
+	 */
+	public Percentiles getPercentiles() {
+		return percentiles;
+	}
+	
+	/**
+	 * How throughput workloads issue their operations by default: "closed" for a closed loop,
+	 * or "fixed" or "poisson" for an open loop schedule.
+	 */
+	public String getArrivalDistribution() {
+		return arrivalDistribution;
+	}
+	
+	/**
+	 * The default time each workload warms up for before its results are measured.
+	 */
+	public long getWarmupMs() {
+		return warmupMs;
+	}
+	
+	/**
+	 * The default number of operations each workload warms up with before its results are measured.
+	 */
+	public long getWarmupOperations() {
+		return warmupOperations;
+	}
+	
+	/**
+	 * The length of each results interval in milliseconds
+	 */
+	public int getIntervalMs() {
+		return intervalMs;
+	}
+	
+	/**
+	 * Whether throughput workloads should correct for coordinated omission by default
+	 */
+	public boolean isCorrectCoordinatedOmission() {
+		return correctCoordinatedOmission;
+	}
+	
+	/**
+	 * Register a phase which operations can be broken into, for example "acquire connection"
+	 * or "insert generic2". Registering the same name again returns the same id.
+	 * @return the id to pass to {@link Timer#timeSubPortion(int)} or {@link #markPhase(int)}
+	 */
+	public int registerPhase(String name) {
+		Integer phaseId = phaseIds.get(name);
+		if (phaseId != null) {
+			return phaseId;
+		}
+		synchronized (phaseIds) {
+			phaseId = phaseIds.get(name);
+			if (phaseId == null) {
+				if (phaseIds.size() >= IntervalTimings.MAX_PHASES) {
+					throw new IllegalStateException("Cannot register phase '" + name + "', a maximum of " + IntervalTimings.MAX_PHASES + " phases are supported");
+				}
+				phaseId = phaseIds.size();
+				phaseNames[phaseId] = name;
+				phaseIds.put(name, phaseId);
+			}
+			return phaseId;
+		}
+	}
+	
+	/**
+	 * Mark the end of a phase of the operation currently being timed on this thread. This
+	 * allows workload code which does not have access to the timer to break down the time
+	 * of its operations. Does nothing if no operation is being timed on this thread.
+	 */
+	public void markPhase(int phaseId) {
+		TimerImpl timer = activeTimer.get();
+		if (timer != null) {
+			timer.timeSubPortion(phaseId);
+		}
+	}
+	
+	/**
+	 * Register an operation of a mix, for example "point read" or "insert". Operations are
+	 * timed separately as well as contributing to their workload, giving each its own
+	 * throughput and latencies. Registering the same name again returns the same id.
+	 * @return the id to pass to {@link Timer#forOperation(int)} or {@link #markOperation(int)}
+	 */
+	public int registerOperation(String name) {
+		Integer operationId = operationIds.get(name);
+		if (operationId != null) {
+			return operationId;
+		}
+		synchronized (operationIds) {
+			operationId = operationIds.get(name);
+			if (operationId == null) {
+				if (operationIds.size() >= IntervalTimings.MAX_OPERATIONS) {
+					throw new IllegalStateException("Cannot register operation '" + name + "', a maximum of " + IntervalTimings.MAX_OPERATIONS + " operations are supported");
+				}
+				operationId = operationIds.size();
+				operationNames[operationId] = name;
+				operationIds.put(name, operationId);
+			}
+			return operationId;
+		}
+	}
+	
+	/**
+	 * Record the operation currently being timed on this thread against the passed operation
+	 * of a mix. Does nothing if no operation is being timed on this thread.
+	 */
+	public void markOperation(int operationId) {
+		TimerImpl timer = activeTimer.get();
+		if (timer != null) {
+			timer.forOperation(operationId);
+		}
+	}
+	
 	public Timer getTimer() {
 		return new TimerImpl();
 	}
@@ -367,11 +709,21 @@ public class TimerService {
 //	}
 
 	public void submitResult(long timeInUs, int workloadOrdinal, ExecutionStatus status) {
-		accumulator.submitResult(timeInUs, workloadOrdinal, status);
+		accumulator.submitResult(timeInUs, -1, workloadOrdinal, Outcome.of(status));
+	}
+
+	/**
+	 * Submit a result which has been corrected for coordinated omission.
+	 * @param timeInUs - the time from when the operation actually started
+	 * @param correctedTimeInUs - the time from when the operation was intended to start,
+	 * or a negative number if the operation is not corrected
+	 */
+	public void submitResult(long timeInUs, long correctedTimeInUs, int workloadOrdinal, ExecutionStatus status) {
+		accumulator.submitResult(timeInUs, correctedTimeInUs, workloadOrdinal, Outcome.of(status));
 	}
 
 	public void submitResult(long timeInUs, String workloadId, ExecutionStatus status) {
-		accumulator.submitResult(timeInUs, workloadId, status);
+		accumulator.submitResult(timeInUs, workloadId, Outcome.of(status));
 	}
 	
 	public int startTimingWorkload(WorkloadTypeInstance workload) {
@@ -381,4 +733,20 @@ public class TimerService {
 	public void stopTimingWorkload(WorkloadTypeInstance workload) {
 		accumulator.removeTimingWorkload(workload);
 	}
+	
+	/**
+	 * Start accumulating the timings of the workload into a single window, for example to
+	 * measure one step of a sweep. The window covers every interval which starts from now
+	 * until the window is closed, with the percentiles computed over the whole window.
+	 */
+	public MeasurementWindow openMeasurementWindow(WorkloadTypeInstance workload) {
+		return accumulator.openMeasurementWindow(workload.getWorkloadId());
+	}
+	
+	/**
+	 * Stop accumulating into the window and return the result over all the intervals it covered.
+	 */
+	public TimerResult closeMeasurementWindow(MeasurementWindow window) {
+		return accumulator.closeMeasurementWindow(window);
+	}
 }
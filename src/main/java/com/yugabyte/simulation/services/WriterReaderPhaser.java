@@ -0,0 +1,107 @@
+package com.yugabyte.simulation.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coordinates the hand-off of a double buffer between many writers and a single
+ * reader without the writers ever blocking. Writers wrap each update in
+ * {@link #writerCriticalSectionEnter()} / {@link #writerCriticalSectionExit(long)},
+ * which is a single atomic increment each. The value returned on entry tells the
+ * writer which buffer is active: see {@link #getBufferIndex(long)}.
+ * <p/>
+ * The reader, holding the reader lock, calls {@link #flipPhase()} to make the
+ * other buffer active. This waits only until every writer which entered on the
+ * old phase has exited, after which the retired buffer can be read and reset
+ * safely; no update is ever lost or split across the two buffers.
+ * <p/>
+ * This follows the WriterReaderPhaser described by Gil Tene for HdrHistogram.
+ */
+class WriterReaderPhaser {
+	// Even phases count up from 0, odd phases count up from Long.MIN_VALUE, so the
+	// sign of the start epoch identifies the phase a writer entered in.
+	private final AtomicLong startEpoch = new AtomicLong(0);
+	private final AtomicLong evenEndEpoch = new AtomicLong(0);
+	private final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+	private final ReentrantLock readerLock = new ReentrantLock();
+
+	/**
+	 * Enter a writer critical section.
+	 * @return the value which must be passed to {@link #writerCriticalSectionExit(long)}
+	 */
+	public long writerCriticalSectionEnter() {
+		return startEpoch.getAndIncrement();
+	}
+
+	public void writerCriticalSectionExit(long criticalValueAtEnter) {
+		if (criticalValueAtEnter < 0) {
+			oddEndEpoch.getAndIncrement();
+		}
+		else {
+			evenEndEpoch.getAndIncrement();
+		}
+	}
+
+	/**
+	 * Check whether another writer was still in its critical section when the writer which got
+	 * the passed value entered. This is a hint for spreading writers out and may occasionally
+	 * be wrong while the phase is flipping.
+	 */
+	public boolean isContended(long criticalValueAtEnter) {
+		AtomicLong endEpoch = criticalValueAtEnter < 0 ? oddEndEpoch : evenEndEpoch;
+		return endEpoch.get() != criticalValueAtEnter;
+	}
+
+	/**
+	 * Get the index (0 or 1) of the buffer a writer should update, given the value
+	 * returned when it entered its critical section.
+	 */
+	public static int getBufferIndex(long criticalValueAtEnter) {
+		return criticalValueAtEnter < 0 ? 1 : 0;
+	}
+
+	public void readerLock() {
+		readerLock.lock();
+	}
+
+	public void readerUnlock() {
+		readerLock.unlock();
+	}
+
+	/**
+	 * Get the index of the buffer writers are currently updating. Only stable while
+	 * the reader lock is held, as only the reader changes phase.
+	 */
+	public int getActiveBufferIndex() {
+		return getBufferIndex(startEpoch.get());
+	}
+
+	/**
+	 * Switch the writers over to the other buffer and wait for all writers still in
+	 * the old phase to leave it. Must be called with the reader lock held.
+	 * @return the index of the retired buffer, which no writer is now updating
+	 */
+	public int flipPhase() {
+		if (!readerLock.isHeldByCurrentThread()) {
+			throw new IllegalStateException("flipPhase() can only be called while holding the reader lock");
+		}
+		boolean nextPhaseIsEven = startEpoch.get() < 0;
+		long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+		// Reset the end epoch of the next phase before any writer can enter it
+		if (nextPhaseIsEven) {
+			evenEndEpoch.lazySet(initialStartValue);
+		}
+		else {
+			oddEndEpoch.lazySet(initialStartValue);
+		}
+		long startValueAtFlip = startEpoch.getAndSet(initialStartValue);
+		AtomicLong retiredEndEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+		// Writers only hold the critical section for a single record, so this is a
+		// very short wait.
+		while (retiredEndEpoch.get() != startValueAtFlip) {
+			LockSupport.parkNanos(10_000);
+		}
+		return getBufferIndex(startValueAtFlip);
+	}
+}
@@ -9,8 +9,8 @@ import com.yugabyte.simulation.services.ServiceManager;
 public final class AggregationWorkloadType extends WorkloadType {
 
 	public static final String AGGREGATION_WORKLOAD_NAME = "Aggregation Counter";
-	public static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed\n";
-	private static final String csvFormat = "%d,%d,%d,%d,%d,%d\n";
+	public static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed";
+	private static final String csvFormat = "%d,%d,%d,%d,%d,%d";
 	
 	private static final AggregationWorkloadInstanceType instance = null; 
 	private final class AggregationWorkloadInstanceType extends WorkloadTypeInstance {
@@ -21,6 +21,9 @@ public final class AggregationWorkloadType extends WorkloadType {
 				serviceManager.getTimerService().stopTimingWorkload(this);
 				throw new MultipleAggregationWorkloadException();
 			}
+			// The aggregate is built from the measured intervals of the other workloads, which have already warmed up
+			configureWarmup(0, 0);
+			configureDeadline(0);
 		}
 
 		@Override
@@ -41,12 +44,13 @@ public final class AggregationWorkloadType extends WorkloadType {
 		@Override
 		public String formatToCsv(TimerResult result) {
 			return String.format(csvFormat, result.getStartTimeMs(), result.getMinUs(), result.getAvgUs(),
-					result.getMaxUs(), result.getNumSucceeded(), result.getNumFailed());
+					result.getMaxUs(), result.getNumSucceeded(), result.getNumFailed())
+					+ result.formatPercentilesToCsv() + result.formatOutcomesToCsv() + "\n";
 		}
 		
 		@Override
 		public String getCsvHeader() {
-			return csvHeader;
+			return csvHeader + getTimerService().getPercentiles().getCsvHeader() + TimerResult.getOutcomesCsvHeader() + "\n";
 		}
 	}
 	
@@ -0,0 +1,75 @@
+package com.yugabyte.simulation.workload;
+
+/**
+ * An additive-increase, multiplicative-decrease rate controller. While the workload
+ * runs slower than the desired rate the output is raised by a fixed fraction of the
+ * desired rate each sample; once it runs faster than the tolerance allows, the
+ * output is cut back by a constant factor. This converges more slowly than
+ * {@link PidRateController} but never overshoots by much, which suits databases
+ * that degrade sharply when overloaded.
+ */
+public class AimdRateController implements RateController {
+	public static final double DEFAULT_INCREASE_FRACTION = 0.05;
+	public static final double DEFAULT_DECREASE_FACTOR = 0.9;
+	public static final double DEFAULT_TOLERANCE = 0.02;
+	private static final double MAX_OUTPUT_FACTOR = 4.0;
+	
+	private final double increaseFraction;
+	private final double decreaseFactor;
+	private final double tolerance;
+	private double lastDesiredRate = -1;
+	private volatile double error;
+	private volatile double output;
+	
+	public AimdRateController() {
+		this(DEFAULT_INCREASE_FRACTION, DEFAULT_DECREASE_FACTOR, DEFAULT_TOLERANCE);
+	}
+	
+	/**
+	 * @param increaseFraction - the fraction of the desired rate added to the output each sample while too slow
+	 * @param decreaseFactor - the factor the output is multiplied by each sample while too fast
+	 * @param tolerance - how far, as a fraction of the desired rate, the measured rate may be from it before the output changes
+	 */
+	public AimdRateController(double increaseFraction, double decreaseFactor, double tolerance) {
+		this.increaseFraction = increaseFraction;
+		this.decreaseFactor = decreaseFactor;
+		this.tolerance = tolerance;
+	}
+	
+	@Override
+	public double update(double desiredRate, double measuredRate, double intervalSecs) {
+		if (desiredRate <= 0) {
+			reset();
+			return 0;
+		}
+		if (desiredRate != lastDesiredRate) {
+			// Start from the new rate rather than creeping to it
+			output = desiredRate;
+			lastDesiredRate = desiredRate;
+		}
+		double currentError = (desiredRate - measuredRate) / desiredRate;
+		if (currentError > tolerance) {
+			output = Math.min(desiredRate * MAX_OUTPUT_FACTOR, output + desiredRate * increaseFraction);
+		}
+		else if (currentError < -tolerance) {
+			output = output * decreaseFactor;
+		}
+		this.error = currentError;
+		return output;
+	}
+	
+	@Override
+	public void reset() {
+		lastDesiredRate = -1;
+	}
+	
+	@Override
+	public double getError() {
+		return error;
+	}
+	
+	@Override
+	public double getOutput() {
+		return output;
+	}
+}
@@ -0,0 +1,179 @@
+package com.yugabyte.simulation.workload;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The progress of a fixed target workload, saved to a small local file so a later run
+ * with the same parameters can carry on where it left off. The progress is held as the
+ * ranges of sequence numbers which have been run, along with any named values the workload
+ * needs to re-create its data identically, such as the first key it generated.
+ * <p/>
+ * Checkpoints are only ever used from {@link FixedTargetWorkloadType}.
+ */
+class Checkpoint {
+	private final File file;
+	private final String name;
+	private long target = -1;
+	// The completed ranges of sequence numbers, keyed by their start, with exclusive ends
+	private final TreeMap<Long, Long> completed = new TreeMap<Long, Long>();
+	private final Map<String, Long> values = new LinkedHashMap<String, Long>();
+	private boolean dirty = false;
+
+	private Checkpoint(File file, String name) {
+		this.file = file;
+		this.name = name;
+	}
+
+	/**
+	 * Load the checkpoint with the passed name from the directory, or create an empty one if
+	 * there is no saved checkpoint or it cannot be read.
+	 */
+	static Checkpoint load(File dir, String name) {
+		Checkpoint checkpoint = new Checkpoint(new File(dir, toFileName(name)), name);
+		if (checkpoint.file.exists()) {
+			try {
+				JsonNode json = new ObjectMapper().readTree(checkpoint.file);
+				if (name.equals(json.path("name").asText())) {
+					checkpoint.target = json.path("target").asLong(-1);
+					json.path("values").fields().forEachRemaining(
+							entry -> checkpoint.values.put(entry.getKey(), entry.getValue().asLong()));
+					for (JsonNode range : json.path("completed")) {
+						checkpoint.addCompleted(range.get(0).asLong(), range.get(1).asLong());
+					}
+					checkpoint.dirty = false;
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				System.err.printf("Ignoring unreadable checkpoint %s: %s\n", checkpoint.file, e.getMessage());
+				checkpoint.completed.clear();
+				checkpoint.values.clear();
+				checkpoint.target = -1;
+			}
+		}
+		return checkpoint;
+	}
+
+	private static String toFileName(String name) {
+		return name.replaceAll("[^A-Za-z0-9._-]", "_") + ".checkpoint";
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Prepare the checkpoint for a run towards the passed target. A checkpoint saved with a
+	 * different target is discarded.
+	 */
+	synchronized void start(long target) {
+		if (this.target >= 0 && this.target != target) {
+			System.err.printf("Checkpoint %s was for a target of %,d not %,d, starting again\n", file, this.target, target);
+			completed.clear();
+		}
+		this.target = target;
+		this.dirty = true;
+	}
+
+	synchronized Long getValue(String valueName) {
+		return values.get(valueName);
+	}
+
+	synchronized void setValue(String valueName, long value) {
+		values.put(valueName, value);
+		dirty = true;
+	}
+
+	/**
+	 * Record that the sequence numbers from {@code start} up to but excluding {@code end} have been run.
+	 */
+	synchronized void addCompleted(long start, long end) {
+		if (end <= start) {
+			return;
+		}
+		Map.Entry<Long, Long> before = completed.floorEntry(start);
+		if (before != null && before.getValue() >= start) {
+			start = before.getKey();
+			end = Math.max(end, before.getValue());
+		}
+		Map.Entry<Long, Long> after;
+		while ((after = completed.ceilingEntry(start)) != null && after.getKey() <= end) {
+			end = Math.max(end, after.getValue());
+			completed.remove(after.getKey());
+		}
+		completed.put(start, end);
+		dirty = true;
+	}
+
+	synchronized long getCompletedCount() {
+		long count = 0;
+		for (Map.Entry<Long, Long> range : completed.entrySet()) {
+			count += range.getValue() - range.getKey();
+		}
+		return count;
+	}
+
+	/**
+	 * The ranges of sequence numbers below the target which are yet to be run, in order, as
+	 * pairs of the start and the exclusive end.
+	 */
+	synchronized List<long[]> getMissingRanges() {
+		List<long[]> missing = new ArrayList<long[]>();
+		long position = 0;
+		for (Map.Entry<Long, Long> range : completed.entrySet()) {
+			if (range.getKey() >= target) {
+				break;
+			}
+			if (range.getKey() > position) {
+				missing.add(new long[] {position, range.getKey()});
+			}
+			position = Math.max(position, range.getValue());
+		}
+		if (position < target) {
+			missing.add(new long[] {position, target});
+		}
+		return missing;
+	}
+
+	/**
+	 * Write the checkpoint if it has changed since it was last written. The file is replaced
+	 * atomically so a crash while saving leaves the previous checkpoint intact.
+	 */
+	synchronized void save() throws IOException {
+		if (!dirty) {
+			return;
+		}
+		Map<String, Object> json = new LinkedHashMap<String, Object>();
+		json.put("name", name);
+		json.put("target", target);
+		json.put("values", values);
+		List<long[]> ranges = new ArrayList<long[]>(completed.size());
+		for (Map.Entry<Long, Long> range : completed.entrySet()) {
+			ranges.add(new long[] {range.getKey(), range.getValue()});
+		}
+		json.put("completed", ranges);
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null) {
+			dir.mkdirs();
+		}
+		File temp = new File(file.getPath() + ".tmp");
+		new ObjectMapper().writeValue(temp, json);
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		dirty = false;
+	}
+
+	synchronized void delete() {
+		file.delete();
+		dirty = false;
+	}
+}
@@ -1,10 +1,12 @@
 package com.yugabyte.simulation.workload;
 
 import com.yugabyte.simulation.dao.ParamValue;
+import com.yugabyte.simulation.dao.ResultResolution;
 import com.yugabyte.simulation.dao.TimerResult;
 import com.yugabyte.simulation.dao.WorkloadDesc;
 import com.yugabyte.simulation.dao.WorkloadResult;
 import com.yugabyte.simulation.services.ExecutionStatus;
+import com.yugabyte.simulation.services.Outcome;
 import com.yugabyte.simulation.services.ServiceManager;
 import com.yugabyte.simulation.services.Timer;
 
@@ -19,8 +21,8 @@ public class FixedStepsWorkloadType extends WorkloadType {
 	public static class FixedStepsWorkloadResult extends WorkloadResult {
 		private final int currentStepNumber;
 		private final WorkloadStep[] steps;
-		public FixedStepsWorkloadResult(long fromTime, FixedStepWorkloadInstance instance) {
-			super(fromTime, instance);
+		public FixedStepsWorkloadResult(long fromTime, ResultResolution resolution, FixedStepWorkloadInstance instance) {
+			super(fromTime, resolution, instance);
 			this.currentStepNumber = instance.currentStepNumber;
 			this.steps = instance.workloadSteps;
 		}
@@ -55,6 +57,8 @@ public class FixedStepsWorkloadType extends WorkloadType {
 		
 		public FixedStepWorkloadInstance(ServiceManager serviceManager, WorkloadDesc workload, ParamValue[] params) {
 			super(serviceManager, workload, params);
+			// Each step only runs once, so there is nothing to warm up
+			configureWarmup(0, 0);
 			if (steps != null) {
 				workloadSteps = new WorkloadStep[steps.length];
 				for (int i = 0; i < steps.length; i++) {
@@ -77,19 +81,20 @@ public class FixedStepsWorkloadType extends WorkloadType {
 			return FixedStepsWorkloadType.this;
 		}
 		
-		private static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed,Current Step\n";
-		private static final String csvFormat = "%d,%d,%d,%d,%d,%d,%d\n";
+		private static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed,Current Step";
+		private static final String csvFormat = "%d,%d,%d,%d,%d,%d,%d";
 		
 		@Override
 		public String formatToCsv(TimerResult result) {
 			return String.format(csvFormat, result.getStartTimeMs(), result.getMinUs(), result.getAvgUs(),
 					result.getMaxUs(), result.getNumSucceeded(), result.getNumFailed(), 
-					((FixedStepsTimerResult)result).getCurrentStepNumber());
+					((FixedStepsTimerResult)result).getCurrentStepNumber())
+					+ result.formatPercentilesToCsv() + result.formatOutcomesToCsv() + "\n";
 		}
 		
 		@Override
 		public String getCsvHeader() {
-			return csvHeader;
+			return csvHeader + getTimerService().getPercentiles().getCsvHeader() + TimerResult.getOutcomesCsvHeader() + "\n";
 		}
 		
 		public WorkloadStep getCurrentStep() {
@@ -108,6 +113,24 @@ public class FixedStepsWorkloadType extends WorkloadType {
 			return workloadSteps[workloadSteps.length-1].isComplete();
 		}
 		
+		/**
+		 * Stop before starting the next step once the passed time has elapsed, see
+		 * {@link WorkloadTypeInstance#configureDeadline(long)}. A step already running is
+		 * allowed to finish.
+		 */
+		public FixedStepWorkloadInstance setDuration(long durationMs) {
+			configureDeadline(durationMs <= 0 ? 0 : getStartTime() + durationMs);
+			return this;
+		}
+		
+		/**
+		 * Stop before starting the next step once the passed wall clock time is reached.
+		 */
+		public FixedStepWorkloadInstance setDeadline(long deadline) {
+			configureDeadline(deadline);
+			return this;
+		}
+		
 		public void execute(ExecuteStep runner) {
 			this.workerThread = new Thread(() -> {
 				while (!isComplete() && !isTerminated()) {
@@ -121,7 +144,7 @@ public class FixedStepsWorkloadType extends WorkloadType {
 					}
 					catch (Exception e) {
 						this.setTerminatedByException(e);
-						currentStep.complete(timer.end(ExecutionStatus.ERROR, this.getWorkloadOrdinal()));
+						currentStep.complete(timer.end(Outcome.classify(e), this.getWorkloadOrdinal()));
 						handleException(e);
 						throw e;
 					}
@@ -145,7 +168,7 @@ public class FixedStepsWorkloadType extends WorkloadType {
 					}
 					catch (Exception e) {
 						this.setTerminatedByException(e);
-						currentStep.complete(timer.end(ExecutionStatus.ERROR, this.getWorkloadOrdinal()));
+						currentStep.complete(timer.end(Outcome.classify(e), this.getWorkloadOrdinal()));
 						throw e;
 					}
 				}
@@ -157,13 +180,28 @@ public class FixedStepsWorkloadType extends WorkloadType {
 		
 		// We need to provide the current step number in the workload result
 		@Override
-		public WorkloadResult getWorkloadResult(long afterTime) {
-			return new FixedStepsWorkloadResult(afterTime, this);
+		public WorkloadResult getWorkloadResult(long afterTime, ResultResolution resolution) {
+			return new FixedStepsWorkloadResult(afterTime, resolution, this);
 		}
 		@Override
 		protected TimerResult doAugmentTimingResult(TimerResult result) {
 			return new FixedStepsTimerResult(result, currentStepNumber);
 		}
+		
+		@Override
+		protected int getResultExtensionSize() {
+			return 1;
+		}
+		
+		@Override
+		protected void writeResultExtension(TimerResult result, long[] values) {
+			values[0] = ((FixedStepsTimerResult)result).getCurrentStepNumber();
+		}
+		
+		@Override
+		protected TimerResult readResultExtension(TimerResult result, long[] values) {
+			return new FixedStepsTimerResult(result, (int)values[0]);
+		}
 	}
 
 	public FixedStepsWorkloadType(Step ... steps) {
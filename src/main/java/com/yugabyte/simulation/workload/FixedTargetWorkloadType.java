@@ -1,15 +1,23 @@
 package com.yugabyte.simulation.workload;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 import com.yugabyte.simulation.dao.ParamValue;
 import com.yugabyte.simulation.dao.TimerResult;
 import com.yugabyte.simulation.dao.WorkloadDesc;
 import com.yugabyte.simulation.services.ExecutionStatus;
+import com.yugabyte.simulation.services.Outcome;
 import com.yugabyte.simulation.services.ServiceManager;
 import com.yugabyte.simulation.services.Timer;
 import com.yugabyte.simulation.services.TimerService;
@@ -29,49 +37,153 @@ public class FixedTargetWorkloadType extends WorkloadType {
 		public Object run(Object customData, Object threadData);
 	}
 	
+	/**
+	 * A task which is also passed the sequence number of the operation being run. Every
+	 * operation of the workload gets a distinct sequence number from 0 up to (but excluding)
+	 * the target, so these can be used to generate deterministic, non-overlapping keys
+	 * without the workers sharing a counter.
+	 */
+	public interface SequencedExecuteTask {
+		public Object run(long sequence, Object customData, Object threadData);
+	}
+	
+	/**
+	 * A task which runs a batch of operations at once, for example inserting many rows in one
+	 * round trip. Each call is passed {@code count} consecutive sequence numbers starting at
+	 * {@code firstSequence}, all claimed by the calling worker, and is timed as one operation.
+	 */
+	public interface BatchedExecuteTask {
+		public Object run(long firstSequence, int count, Object customData, Object threadData);
+	}
+	
+	/**
+	 * The default number of operations a worker claims at a time
+	 */
+	public static final int DEFAULT_CLAIM_SIZE = 1000;
+	
+	// How long a rate cap must have been in place before the achieved rate is trusted
+	private static final long MIN_RATE_SAMPLE_MS = 5000;
+
+	/**
+	 * The ranges of sequence numbers a run works through, numbered densely by position so
+	 * the workers can claim blocks of positions from a single counter. A fresh run has one
+	 * range from 0 to the target; a resumed run has just the ranges which are still missing.
+	 */
+	private static class SequenceRanges {
+		private final long[] starts;
+		private final long[] ends;
+		// The position of the start of each range
+		private final long[] positions;
+		private final long size;
+
+		SequenceRanges(List<long[]> ranges) {
+			this.starts = new long[ranges.size()];
+			this.ends = new long[ranges.size()];
+			this.positions = new long[ranges.size()];
+			long position = 0;
+			for (int i = 0; i < ranges.size(); i++) {
+				starts[i] = ranges.get(i)[0];
+				ends[i] = ranges.get(i)[1];
+				positions[i] = position;
+				position += ends[i] - starts[i];
+			}
+			this.size = position;
+		}
+
+		long size() {
+			return size;
+		}
+
+		/**
+		 * Get the index of the range holding the passed position.
+		 */
+		int indexOf(long position) {
+			int index = Arrays.binarySearch(positions, position);
+			return index >= 0 ? index : -index - 2;
+		}
+
+		long toSequence(int index, long position) {
+			return starts[index] + (position - positions[index]);
+		}
+
+		long getEndPosition(int index) {
+			return positions[index] + ends[index] - starts[index];
+		}
+	}
 
 	private class WorkerThread implements Runnable {
-		private final ExecuteTask task;
+		private final BatchedExecuteTask task;
+		private final int batchSize;
 		private final AtomicBoolean terminate;
 		private final Object customData;
 		private final Timer timer;
 		private Object threadData;
-		private final AtomicLong completedCounter;
-		private final AtomicLong startedCounter;
-		private final long target;
+		private final AtomicLong nextBlockStart;
+		private final long claimSize;
+		private final SequenceRanges ranges;
+		private final Checkpoint checkpoint;
 		private final int workloadOrdinal;
 		private final FixedTargetWorkloadInstance instance;
 		private final int invocationDelayMs;
+		private final TokenBucket rateCap;
+		// Only ever written by this worker, read by anyone wanting the progress
+		private volatile long completed = 0;
 
-		public WorkerThread(int threadId, AtomicBoolean terminate, AtomicLong completedCounter, 
-				AtomicLong startedCounter, long target, Object customData, TimerService timerService, 
-				ExecuteTask task,int workloadOrdinal, FixedTargetWorkloadInstance fixedInstance, int invocationDelayMs) {
+		public WorkerThread(int threadId, AtomicBoolean terminate, AtomicLong nextBlockStart, long claimSize,
+				SequenceRanges ranges, Checkpoint checkpoint, Object customData, TimerService timerService, 
+				BatchedExecuteTask task, int batchSize, int workloadOrdinal, FixedTargetWorkloadInstance fixedInstance, int invocationDelayMs,
+				TokenBucket rateCap) {
 			this.terminate = terminate;
 			this.customData = customData;
 			this.threadData = null;
 			this.timer = timerService.getTimer();
 			this.task = task;
-			this.completedCounter = completedCounter;
-			this.startedCounter = startedCounter;
-			this.target = target;
+			this.batchSize = batchSize;
+			this.nextBlockStart = nextBlockStart;
+			this.claimSize = claimSize;
+			this.ranges = ranges;
+			this.checkpoint = checkpoint;
 			this.workloadOrdinal = workloadOrdinal;
 			this.instance = fixedInstance;
 			this.invocationDelayMs = invocationDelayMs;
+			this.rateCap = rateCap;
 		}
 		
-		@Override
-		public void run() {
-			while (!terminate.get() && startedCounter.getAndIncrement() < target) {
+		public long getCompleted() {
+			return completed;
+		}
+		
+		/**
+		 * Run the operations with sequence numbers from {@code first} up to but excluding {@code last}
+		 * in batches, returning the sequence number of the first operation not run.
+		 */
+		private long runSequences(long first, long last) {
+			long sequence = first;
+			// The start of the operations which have succeeded since the last failure, which are
+			// added to the checkpoint together so a failed batch is run again on resume
+			long succeededFrom = first;
+			while (sequence < last && !terminate.get()) {
+				int count = (int)Math.min(batchSize, last - sequence);
+				// Wait for the rate cap before starting the timer so the wait is not counted as latency
+				if (rateCap.isCapped() && !rateCap.acquire(terminate, count)) {
+					if (Thread.currentThread().isInterrupted()) {
+						terminate.set(true);
+					}
+					break;
+				}
 				timer.start();
 				try {
-					this.threadData = task.run(customData, threadData);
+					this.threadData = task.run(sequence, count, customData, threadData);
 					timer.end(ExecutionStatus.SUCCESS, workloadOrdinal);
 				}
 				catch (Exception e) {
-					timer.end(ExecutionStatus.ERROR, workloadOrdinal);
+					timer.end(Outcome.classify(e), workloadOrdinal);
 					instance.handleException(e);
+					addCompleted(succeededFrom, sequence);
+					succeededFrom = sequence + count;
 				}
-				this.completedCounter.incrementAndGet();
+				sequence += count;
+				this.completed = completed + count;
 				if (this.invocationDelayMs > 0) {
 					try {
 						Thread.sleep(invocationDelayMs);
@@ -80,16 +192,38 @@ public class FixedTargetWorkloadType extends WorkloadType {
 					}
 				}
 			}
-			if (!terminate.get()) {
-				synchronized (terminate) {
-					if (!terminate.get()) {
-						// have to do this is a separate thread otherwise
-						// we will deadlock as terminate() will wait for 
-						// this thread to terminate.
-						new Thread( ()-> instance.terminate()).start();
+			addCompleted(succeededFrom, sequence);
+			return sequence;
+		}
+
+		private void addCompleted(long start, long end) {
+			if (checkpoint != null) {
+				checkpoint.addCompleted(start, end);
+			}
+		}
+		
+		@Override
+		public void run() {
+			long blockStart;
+			long total = ranges.size();
+			while (!terminate.get() && (blockStart = nextBlockStart.getAndAdd(claimSize)) < total) {
+				long blockEnd = Math.min(total, blockStart + claimSize);
+				// A block can span the end of one range and the start of the next
+				long position = blockStart;
+				while (position < blockEnd && !terminate.get()) {
+					int index = ranges.indexOf(position);
+					long first = ranges.toSequence(index, position);
+					long last = first + Math.min(blockEnd, ranges.getEndPosition(index)) - position;
+					long sequence = runSequences(first, last);
+					position += sequence - first;
+					if (sequence < last) {
+						break;
 					}
 				}
 			}
+			// Running out of blocks does not stop the other workers, which finish the blocks they
+			// have already claimed; the workload completes when the last of them exits
+			instance.workerFinished();
 		}
 	}
 	
@@ -100,9 +234,20 @@ public class FixedTargetWorkloadType extends WorkloadType {
 		private final long target;
 		private final long throughput;
 		private final double avgLatency;
+		private final long rateCap;
+		private final long batchSize;
+		private final double bytesPerRow;
 
 		public FixedTargetTimerResult(TimerResult orig, double percentageComplete, long timeRemainingInMs, long completed, long target) {
+			this(orig, percentageComplete, timeRemainingInMs, completed, target, 0, 1, 0.0);
+		}
+
+		public FixedTargetTimerResult(TimerResult orig, double percentageComplete, long timeRemainingInMs, long completed, long target,
+				long rateCap, long batchSize, double bytesPerRow) {
 			super(orig);
+			this.rateCap = rateCap;
+			this.batchSize = batchSize;
+			this.bytesPerRow = bytesPerRow;
 			this.percentageComplete = percentageComplete;
 			this.timeRemainingInMs = timeRemainingInMs;
 			this.completed = completed;
@@ -142,24 +287,95 @@ public class FixedTargetWorkloadType extends WorkloadType {
 		public double getAvgLatency() {
 			return avgLatency;
 		}
+
+		/**
+		 * The maximum rate the workload was allowed to run at, in operations per second, or
+		 * zero if it was not capped.
+		 */
+		public long getRateCap() {
+			return rateCap;
+		}
+
+		/**
+		 * The number of operations, such as rows, run by each timed call of the task. The operation
+		 * counts and latencies of the result are per batch, while the progress is per operation.
+		 */
+		public long getBatchSize() {
+			return batchSize;
+		}
+
+		/**
+		 * The rate the batched operations succeeded at in this interval, eg rows per second, estimated
+		 * from the number of batches which succeeded.
+		 */
+		public long getRowsPerSecond() {
+			long durationMs = getEndTimeMs() - getStartTimeMs();
+			long rows = getNumSucceeded() * batchSize;
+			return durationMs > 0 ? rows * 1000 / durationMs : rows;
+		}
+
+		/**
+		 * The average size of the rows loaded so far, for workloads which report the bytes they
+		 * send with {@link FixedTargetWorkloadInstance#addBytesWritten(long)}, otherwise zero.
+		 */
+		public double getBytesPerRow() {
+			return bytesPerRow;
+		}
+
+		/**
+		 * The rate data was loaded at in this interval in megabytes (10^6 bytes) per second,
+		 * estimated from the rows per second and the average size of the rows.
+		 */
+		public double getMegabytesPerSecond() {
+			return getRowsPerSecond() * bytesPerRow / 1_000_000.0;
+		}
+
+		@Override
+		public String toString() {
+			if (bytesPerRow > 0) {
+				return String.format("Rows/s: %,d, MB/s: %,.2f, %s", getRowsPerSecond(), getMegabytesPerSecond(), super.toString());
+			}
+			return batchSize > 1 ? String.format("Rows/s: %,d, %s", getRowsPerSecond(), super.toString()) : super.toString();
+		}
 	}
 	
 	public class FixedTargetWorkloadInstance extends WorkloadTypeInstance {
-		private AtomicLong completedCounter = new AtomicLong(0);
-		private AtomicLong startedCounter = new AtomicLong(0);
+		private AtomicLong nextBlockStart = new AtomicLong(0);
+		private final List<WorkerThread> workers = new CopyOnWriteArrayList<WorkerThread>();
+		private int claimSize = DEFAULT_CLAIM_SIZE;
+		private final TokenBucket rateCap = new TokenBucket(0);
+		// The progress when the rate cap last changed, for estimating the time remaining
+		private volatile long rateCapChangedTime = 0;
+		private volatile long completedAtRateCapChange = 0;
 		private AtomicBoolean terminate = new AtomicBoolean(false);
+		private final AtomicInteger runningWorkers = new AtomicInteger(0);
 		private long startTime = 0;
 		private ExecutorService executor = null;
 		private long target = 0;
 		private Object customData = null;
 		private int invocationDelayMs = 0;
+		// The operations per timed call of the task, zero for the default of batched executions
+		private int batchSize = 0;
+		// The workload and parameters a checkpoint can be named after, if it has them
+		private final WorkloadDesc workload;
+		private final ParamValue[] params;
+		private String checkpointName = null;
+		private Checkpoint checkpoint = null;
+		private ScheduledFuture<?> checkpointFuture = null;
+		// The operations completed by earlier runs this run resumed from
+		private long resumedCompleted = 0;
+		private final LongAdder bytesWritten = new LongAdder();
 
 		public FixedTargetWorkloadInstance(ServiceManager serviceManager, WorkloadDesc workload, ParamValue[] params) {
 			super(serviceManager, workload, params);
+			this.workload = workload;
+			this.params = params;
 		}
 
 		public FixedTargetWorkloadInstance(ServiceManager serviceManager) {
 			super(serviceManager);
+			this.workload = null;
+			this.params = null;
 		}
 		public FixedTargetWorkloadInstance setCustomData(Object customData) {
 			this.customData = customData;
@@ -183,15 +399,16 @@ public class FixedTargetWorkloadType extends WorkloadType {
 			try {
 				this.terminate.set(true);
 				if (this.executor != null) {
-					this.executor.shutdown();
-					this.executor.awaitTermination(1, TimeUnit.DAYS);
+					ThroughputWorkloadType.awaitWorkers(this.executor, getShutdownGraceMs(), this);
 				}
 			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 			}
+			finishCheckpoint();
 		}
 		
-		private static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed,Percentage Complete,Time Remaining Ms,Completed,Target\n";
-		private static final String csvFormat = "%d,%d,%d,%d,%d,%d,%f,%d,%d,%d\n";
+		private static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed,Percentage Complete,Time Remaining Ms,Completed,Target,Rate Cap,Batch Size,Rows Per Second,MB Per Second";
+		private static final String csvFormat = "%d,%d,%d,%d,%d,%d,%f,%d,%d,%d,%d,%d,%d,%f";
 
 		@Override
 		public String formatToCsv(TimerResult result) {
@@ -199,20 +416,71 @@ public class FixedTargetWorkloadType extends WorkloadType {
 			return String.format(csvFormat, fixedResult.getStartTimeMs(), fixedResult.getMinUs(), fixedResult.getAvgUs(),
 					fixedResult.getMaxUs(), fixedResult.getNumSucceeded(), fixedResult.getNumFailed(),
 					fixedResult.getPercentageComplete(), fixedResult.getTimeRemainingInMs(),
-					fixedResult.getCompleted(), fixedResult.getTarget());
+					fixedResult.getCompleted(), fixedResult.getTarget(), fixedResult.getRateCap(),
+					fixedResult.getBatchSize(), fixedResult.getRowsPerSecond(), fixedResult.getMegabytesPerSecond())
+					+ fixedResult.formatPercentilesToCsv() + fixedResult.formatOutcomesToCsv() + "\n";
 		}
 		
 		@Override
 		public String getCsvHeader() {
-			return csvHeader;
+			return csvHeader + getTimerService().getPercentiles().getCsvHeader() + TimerResult.getOutcomesCsvHeader() + "\n";
 		}
 
 		public void execute(int numThreads, int target, ExecuteTask runner) {
+			execute(numThreads, (long)target, (sequence, customData, threadData) -> runner.run(customData, threadData));
+		}
+
+		/**
+		 * Run the task {@code target} times across {@code numThreads} workers, passing each
+		 * operation its sequence number. Rather than sharing a counter per operation, each worker
+		 * claims a block of sequence numbers at a time (see {@link #setClaimSize(int)}) and runs
+		 * them in order, so the only shared state touched is one atomic add per block.
+		 */
+		public void execute(int numThreads, long target, SequencedExecuteTask runner) {
+			this.batchSize = 1;
+			start(numThreads, target, (firstSequence, count, customData, threadData) -> runner.run(firstSequence, customData, threadData));
+		}
+
+		/**
+		 * Run the task over {@code target} operations in batches of {@link #setBatchSize(int)} consecutive
+		 * sequence numbers, each batch being timed as one operation. The results report the rate of the
+		 * operations as rows per second alongside the rate of the batches, and the target, progress and
+		 * rate cap are all counted in operations, not batches.
+		 */
+		public void executeBatched(int numThreads, long target, BatchedExecuteTask runner) {
+			if (this.batchSize <= 0) {
+				this.batchSize = getWorkloadManager().getBatchSize();
+			}
+			start(numThreads, target, runner);
+		}
+
+		private void start(int numThreads, long target, BatchedExecuteTask runner) {
 			this.target = target;
-			this.executor = Executors.newFixedThreadPool(numThreads);
+			SequenceRanges ranges = new SequenceRanges(Collections.singletonList(new long[] {0, target}));
+			Checkpoint checkpoint = getCheckpoint();
+			if (checkpoint != null) {
+				checkpoint.start(target);
+				ranges = new SequenceRanges(checkpoint.getMissingRanges());
+				this.resumedCompleted = target - ranges.size();
+				if (resumedCompleted > 0) {
+					System.out.printf("Resuming %s from checkpoint %s, %,d of %,d operations already completed\n",
+							this.getWorkloadId(), checkpoint.getFile(), resumedCompleted, target);
+				}
+				saveCheckpoint();
+				this.checkpointFuture = getWorkloadManager().scheduleCheckpoint(this::saveCheckpoint);
+			}
+			this.executor = getWorkerThreadService().newExecutor(numThreads);
 			this.startTime = System.currentTimeMillis();
+			this.rateCapChangedTime = this.startTime;
+			this.completedAtRateCapChange = getCompleted();
+			// Keep the blocks small enough that every worker gets a share of a small target, and a
+			// whole number of batches so only the ends of the ranges give partial batches
+			long blockSize = Math.max(1, Math.min(claimSize, ranges.size() / (numThreads * 8L)));
+			blockSize = (blockSize + batchSize - 1) / batchSize * batchSize;
+			runningWorkers.set(numThreads);
 			for (int i = 0; i < numThreads; i++) {
-				WorkerThread worker = new WorkerThread(i, terminate, completedCounter, startedCounter, target, customData, getTimerService(), runner, this.getWorkloadOrdinal(), this, this.invocationDelayMs);
+				WorkerThread worker = new WorkerThread(i, terminate, nextBlockStart, blockSize, ranges, checkpoint, customData, getTimerService(), runner, this.batchSize, this.getWorkloadOrdinal(), this, this.invocationDelayMs, this.rateCap);
+				workers.add(worker);
 				executor.submit(worker);
 			}
 		}
@@ -222,31 +490,281 @@ public class FixedTargetWorkloadType extends WorkloadType {
 			return this;
 		}
 		
-		public double getPercentComplete() {
-			if (terminate.get()) {
-				return 100.0;
+		/**
+		 * Set the number of operations passed to each call of the task by {@link #executeBatched},
+		 * workload.batch-size by default.
+		 */
+		public FixedTargetWorkloadInstance setBatchSize(int batchSize) {
+			if (batchSize <= 0) {
+				throw new IllegalArgumentException("Batch size must be positive, not " + batchSize);
 			}
-			else if (target <= 0) {
-				return 0.0;
+			this.batchSize = batchSize;
+			return this;
+		}
+		
+		public int getBatchSize() {
+			return Math.max(1, batchSize);
+		}
+		
+		/**
+		 * Record the number of bytes a bulk load has sent, so the results can report the rate
+		 * in MB/s as well as rows/s.
+		 */
+		public void addBytesWritten(long bytes) {
+			bytesWritten.add(bytes);
+		}
+		
+		public long getBytesWritten() {
+			return bytesWritten.sum();
+		}
+		
+		private double getBytesPerRow() {
+			long bytes = bytesWritten.sum();
+			long rows = getCompleted() - resumedCompleted;
+			return bytes <= 0 || rows <= 0 ? 0.0 : (double)bytes / rows;
+		}
+		
+		/**
+		 * Save the progress of the workload to a checkpoint so that, if it is terminated or the
+		 * process dies, a later run of the same workload runs only the operations which are missing.
+		 * The checkpoint is named after the workload and the values of the parameters at the passed
+		 * indexes, which should be just those deciding which data is written, such as the number of
+		 * records; the thread count or a rate cap can then be changed between runs. It is saved every
+		 * workload.checkpoint-interval-ms to workload.checkpoint-dir and deleted once every operation
+		 * has succeeded.
+		 * <p/>
+		 * An operation counts as done once it has succeeded, so a failed operation or batch is run
+		 * again when the workload is resumed. For a resumed run to create the same data, the task
+		 * must derive its keys from the sequence number, plus any values fixed with
+		 * {@link #getResumableValue(String, LongSupplier)}. This must be set before {@code execute}.
+		 */
+		public FixedTargetWorkloadInstance setResumable(int ... keyParamIndexes) {
+			if (workload == null) {
+				throw new IllegalStateException("Workload " + getWorkloadId() + " has no description to name a checkpoint after, use setCheckpointName instead");
+			}
+			StringBuilder sb = new StringBuilder();
+			for (int index : keyParamIndexes) {
+				ParamValue param = params[index];
+				switch (param.getType()) {
+				case BOOLEAN: sb.append(param.getBoolValue()); break;
+				case NUMBER: sb.append(param.getIntValue()); break;
+				default: sb.append(param.getStringValue());
+				}
+				sb.append('\0');
+			}
+			return setCheckpointName(String.format("%s_%08x", workload.getWorkloadId(), sb.toString().hashCode()));
+		}
+		
+		/**
+		 * Make the workload resumable as for {@link #setResumable(int...)}, saving its checkpoint
+		 * under the passed name, or null to not checkpoint the workload.
+		 */
+		public FixedTargetWorkloadInstance setCheckpointName(String checkpointName) {
+			if (this.checkpoint != null) {
+				throw new IllegalStateException("The checkpoint of workload " + getWorkloadId() + " is already in use");
+			}
+			this.checkpointName = checkpointName;
+			return this;
+		}
+		
+		/**
+		 * Get a value which must stay the same if the workload is resumed, for example the first key
+		 * of the data being generated. On a fresh run the value is computed by {@code initialValue}
+		 * and saved in the checkpoint; a resumed run gets the value saved by the earlier run. If the
+		 * workload is not resumable the value is just computed.
+		 */
+		public long getResumableValue(String name, LongSupplier initialValue) {
+			Checkpoint checkpoint = getCheckpoint();
+			if (checkpoint == null) {
+				return initialValue.getAsLong();
+			}
+			Long value = checkpoint.getValue(name);
+			if (value == null) {
+				value = initialValue.getAsLong();
+				checkpoint.setValue(name, value);
+			}
+			return value;
+		}
+		
+		private synchronized Checkpoint getCheckpoint() {
+			if (checkpoint == null && checkpointName != null) {
+				checkpoint = Checkpoint.load(getWorkloadManager().getCheckpointDir(), checkpointName);
+			}
+			return checkpoint;
+		}
+		
+		private void saveCheckpoint() {
+			try {
+				checkpoint.save();
+			}
+			catch (IOException | RuntimeException e) {
+				System.err.printf("Could not save checkpoint %s: %s\n", checkpoint.getFile(), e.getMessage());
+			}
+		}
+		
+		private synchronized void finishCheckpoint() {
+			if (checkpointFuture != null) {
+				checkpointFuture.cancel(false);
+				checkpointFuture = null;
+			}
+			if (checkpoint != null) {
+				if (checkpoint.getCompletedCount() >= target) {
+					checkpoint.delete();
+				}
+				else {
+					saveCheckpoint();
+					System.out.printf("Saved checkpoint %s for %s at %,d of %,d operations\n",
+							checkpoint.getFile(), this.getWorkloadId(), checkpoint.getCompletedCount(), target);
+				}
+			}
+		}
+		
+		/**
+		 * Cap the rate of the whole workload at {@code maxRate} operations per second, however
+		 * many workers it has, zero to remove the cap. This can be changed while the workload
+		 * is running.
+		 */
+		public FixedTargetWorkloadInstance setRateCap(int maxRate) {
+			synchronized (rateCap) {
+				this.completedAtRateCapChange = getCompleted();
+				this.rateCapChangedTime = System.currentTimeMillis();
+				this.rateCap.setRate(maxRate);
+			}
+			return this;
+		}
+		
+		public int getRateCap() {
+			return rateCap.getRate();
+		}
+		
+		/**
+		 * Set the number of operations each worker claims at a time, {@link #DEFAULT_CLAIM_SIZE} by
+		 * default. Larger blocks mean less contention between the workers but a ragged finish, as
+		 * the last blocks are worked by fewer threads. This must be set before {@code execute}.
+		 */
+		public FixedTargetWorkloadInstance setClaimSize(int claimSize) {
+			if (claimSize <= 0) {
+				throw new IllegalArgumentException("Claim size must be positive, not " + claimSize);
+			}
+			this.claimSize = claimSize;
+			return this;
+		}
+		
+		/**
+		 * The number of operations completed so far, summed across the workers on demand. This
+		 * includes those completed by any earlier run this one resumed from.
+		 */
+		public long getCompleted() {
+			long completed = resumedCompleted;
+			for (WorkerThread worker : workers) {
+				completed += worker.getCompleted();
+			}
+			return completed;
+		}
+		
+		/**
+		 * Exclude the first part of the workload from the measured results, see
+		 * {@link WorkloadTypeInstance#configureWarmup(long, long)}. The warm-up operations
+		 * still count towards the target.
+		 */
+		public FixedTargetWorkloadInstance setWarmup(long warmupMs, long warmupOperations) {
+			configureWarmup(warmupMs, warmupOperations);
+			return this;
+		}
+		
+		/**
+		 * Stop after the passed time even if the target has not been reached, see
+		 * {@link WorkloadTypeInstance#configureDeadline(long)}
+		 */
+		public FixedTargetWorkloadInstance setDuration(long durationMs) {
+			configureDeadline(durationMs <= 0 ? 0 : getStartTime() + durationMs);
+			return this;
+		}
+		
+		/**
+		 * Stop at the passed wall clock time even if the target has not been reached, see
+		 * {@link WorkloadTypeInstance#configureDeadline(long)}
+		 */
+		public FixedTargetWorkloadInstance setDeadline(long deadline) {
+			configureDeadline(deadline);
+			return this;
+		}
+		
+		private void workerFinished() {
+			if (runningWorkers.decrementAndGet() == 0 && !terminate.get()) {
+				synchronized (terminate) {
+					if (!terminate.get()) {
+						// have to do this is a separate thread otherwise
+						// we will deadlock as terminate() will wait for 
+						// this thread to terminate.
+						new Thread( ()-> this.terminate()).start();
+					}
+				}
+			}
+		}
+		
+		public double getPercentComplete() {
+			if (target <= 0) {
+				return terminate.get() ? 100.0 : 0.0;
 			}
 			else {
-				return Math.min(100.0, completedCounter.get() * 100.0 / target);
+				return Math.min(100.0, getCompleted() * 100.0 / target);
 			}
 		}
 		
 		public long getTimeRemainingEstimateInMs() {
 			long now = System.currentTimeMillis();
 			double percentComplete = getPercentComplete();
-			if (percentComplete >= 100.0) {
+			if (percentComplete >= 100.0 || terminate.get()) {
 				return 0L;
 			}
+			int cap = rateCap.getRate();
+			if (cap > 0) {
+				// Estimate from the cap, unless the workload has been unable to keep up with
+				// it since it was last set
+				long completed = getCompleted();
+				double rate = cap;
+				long sinceChangeMs = now - rateCapChangedTime;
+				if (sinceChangeMs >= MIN_RATE_SAMPLE_MS) {
+					rate = Math.min(rate, (completed - completedAtRateCapChange) * 1000.0 / sinceChangeMs);
+				}
+				return rate <= 0 ? Long.MAX_VALUE : (long)((target - completed) * 1000.0 / rate);
+			}
+			// Only the operations completed by this run say how fast it is going
+			long completed = getCompleted();
+			long completedThisRun = completed - resumedCompleted;
+			if (completedThisRun <= 0) {
+				return Long.MAX_VALUE;
+			}
 			long elapsedTime = now - startTime;
-			return (long)((100.0*elapsedTime/percentComplete) - elapsedTime);
+			return (long)((double)elapsedTime * (target - completed) / completedThisRun);
 		}
 		
 		@Override
 		protected TimerResult doAugmentTimingResult(TimerResult result) {
-			return new FixedTargetTimerResult(result, getPercentComplete(), getTimeRemainingEstimateInMs(), completedCounter.get(), target);
+			return new FixedTargetTimerResult(result, getPercentComplete(), getTimeRemainingEstimateInMs(), getCompleted(), target, getRateCap(), getBatchSize(), getBytesPerRow());
+		}
+		
+		@Override
+		protected int getResultExtensionSize() {
+			return 7;
+		}
+		
+		@Override
+		protected void writeResultExtension(TimerResult result, long[] values) {
+			FixedTargetTimerResult fixedResult = (FixedTargetTimerResult)result;
+			values[0] = Double.doubleToLongBits(fixedResult.getPercentageComplete());
+			values[1] = fixedResult.getTimeRemainingInMs();
+			values[2] = fixedResult.getCompleted();
+			values[3] = fixedResult.getTarget();
+			values[4] = fixedResult.getRateCap();
+			values[5] = fixedResult.getBatchSize();
+			values[6] = Double.doubleToLongBits(fixedResult.getBytesPerRow());
+		}
+		
+		@Override
+		protected TimerResult readResultExtension(TimerResult result, long[] values) {
+			return new FixedTargetTimerResult(result, Double.longBitsToDouble(values[0]), values[1], values[2], values[3], values[4], values[5], Double.longBitsToDouble(values[6]));
 		}
 	}
 	
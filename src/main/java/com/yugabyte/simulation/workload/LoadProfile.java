@@ -0,0 +1,365 @@
+package com.yugabyte.simulation.workload;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * How the desired rate of a throughput workload varies over time. A profile gives the
+ * rate at any time since it started and has a duration, possibly {@link #FOREVER}.
+ * Profiles can be joined one after another with {@link #then(LoadProfile)}, for example
+ * a ramp up, a plateau and a spike:
+ * <pre>
+ * LoadProfile.ramp(0, 1000, 60_000)
+ *     .then(LoadProfile.constant(1000, 600_000))
+ *     .then(LoadProfile.spike(1000, 5000, 10_000, 30_000, 120_000));
+ * </pre>
+ * The same profile can be written as a string and parsed with {@link #parse(String)}:
+ * {@code ramp(0,1000,60s);constant(1000,10m);spike(1000,5000,10s,30s,2m)}
+ */
+public abstract class LoadProfile {
+	public static final long FOREVER = Long.MAX_VALUE;
+
+	/**
+	 * Get the desired rate, in operations per second, at the passed time since this profile started.
+	 */
+	public abstract double getRate(long elapsedMs);
+
+	/**
+	 * The length of this profile in milliseconds, or {@link #FOREVER}.
+	 */
+	public abstract long getDurationMs();
+
+	/**
+	 * Run the next profile once this one finishes. This profile must not last forever.
+	 */
+	public LoadProfile then(LoadProfile next) {
+		return sequence(this, next);
+	}
+
+	private static void checkDuration(long durationMs) {
+		if (durationMs <= 0) {
+			throw new IllegalArgumentException("Load profile duration must be positive, not " + durationMs);
+		}
+	}
+
+	/**
+	 * Run at a fixed rate.
+	 */
+	public static LoadProfile constant(double rate, long durationMs) {
+		checkDuration(durationMs);
+		return new LoadProfile() {
+			@Override
+			public double getRate(long elapsedMs) {
+				return rate;
+			}
+
+			@Override
+			public long getDurationMs() {
+				return durationMs;
+			}
+		};
+	}
+
+	/**
+	 * Change the rate linearly from one rate to another.
+	 */
+	public static LoadProfile ramp(double fromRate, double toRate, long durationMs) {
+		checkDuration(durationMs);
+		return new LoadProfile() {
+			@Override
+			public double getRate(long elapsedMs) {
+				return fromRate + (toRate - fromRate) * Math.min(1.0, (double)elapsedMs / durationMs);
+			}
+
+			@Override
+			public long getDurationMs() {
+				return durationMs;
+			}
+		};
+	}
+
+	/**
+	 * Run at a series of plateaus, starting at startRate and adding increment to the rate at each step.
+	 */
+	public static LoadProfile steps(double startRate, double increment, int numSteps, long stepDurationMs) {
+		checkDuration(stepDurationMs);
+		if (numSteps <= 0) {
+			throw new IllegalArgumentException("Number of steps must be positive, not " + numSteps);
+		}
+		return new LoadProfile() {
+			@Override
+			public double getRate(long elapsedMs) {
+				return startRate + increment * Math.min(numSteps - 1, elapsedMs / stepDurationMs);
+			}
+
+			@Override
+			public long getDurationMs() {
+				return numSteps * stepDurationMs;
+			}
+		};
+	}
+
+	/**
+	 * Vary the rate sinusoidally about a mean, starting at the mean and rising. A daily
+	 * pattern has a period of 24 hours, but it can be compressed to run through a day
+	 * in a shorter time.
+	 */
+	public static LoadProfile sine(double meanRate, double amplitude, long periodMs, long durationMs) {
+		checkDuration(periodMs);
+		checkDuration(durationMs);
+		return new LoadProfile() {
+			@Override
+			public double getRate(long elapsedMs) {
+				return meanRate + amplitude * Math.sin(2 * Math.PI * elapsedMs / periodMs);
+			}
+
+			@Override
+			public long getDurationMs() {
+				return durationMs;
+			}
+		};
+	}
+
+	/**
+	 * Run at a base rate with a single burst to the peak rate, starting spikeStartMs into the profile.
+	 */
+	public static LoadProfile spike(double baseRate, double peakRate, long spikeStartMs, long spikeLengthMs, long durationMs) {
+		checkDuration(spikeLengthMs);
+		checkDuration(durationMs);
+		return new LoadProfile() {
+			@Override
+			public double getRate(long elapsedMs) {
+				return elapsedMs >= spikeStartMs && elapsedMs < spikeStartMs + spikeLengthMs ? peakRate : baseRate;
+			}
+
+			@Override
+			public long getDurationMs() {
+				return durationMs;
+			}
+		};
+	}
+
+	/**
+	 * Replay a recorded rate series. Each rate is held until the time of the next one.
+	 * @param timesMs - the time of each rate since the start, ascending and starting at 0
+	 * @param rates - the rates
+	 * @param durationMs - the length of the whole series
+	 */
+	public static LoadProfile series(long[] timesMs, double[] rates, long durationMs) {
+		if (timesMs.length == 0 || timesMs.length != rates.length) {
+			throw new IllegalArgumentException("A rate series needs the same, non-zero, number of times and rates");
+		}
+		checkDuration(durationMs);
+		long[] times = timesMs.clone();
+		double[] values = rates.clone();
+		return new LoadProfile() {
+			@Override
+			public double getRate(long elapsedMs) {
+				int index = Arrays.binarySearch(times, elapsedMs);
+				if (index < 0) {
+					// Before the first time holds the first rate, otherwise the rate of the previous time
+					index = Math.max(0, -index - 2);
+				}
+				return values[index];
+			}
+
+			@Override
+			public long getDurationMs() {
+				return durationMs;
+			}
+		};
+	}
+
+	/**
+	 * Replay a rate series recorded in a CSV file. Each line holds either just a rate, one
+	 * per second, or a time in seconds since the start and the rate from that time. Blank
+	 * lines, lines starting with # and a header line are ignored.
+	 */
+	public static LoadProfile replay(String fileName) throws IOException {
+		List<Long> times = new ArrayList<Long>();
+		List<Double> rates = new ArrayList<Double>();
+		long lastTimeMs = -1000;
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] parts = line.split(",");
+				try {
+					long timeMs;
+					double rate;
+					if (parts.length == 1) {
+						timeMs = lastTimeMs + 1000;
+						rate = Double.parseDouble(parts[0].trim());
+					}
+					else {
+						timeMs = Math.round(Double.parseDouble(parts[0].trim()) * 1000);
+						rate = Double.parseDouble(parts[1].trim());
+					}
+					if (timeMs <= lastTimeMs) {
+						throw new IllegalArgumentException(String.format("Times in %s must be ascending, line %d", fileName, lineNumber));
+					}
+					times.add(timeMs);
+					rates.add(rate);
+					lastTimeMs = timeMs;
+				}
+				catch (NumberFormatException nfe) {
+					if (!rates.isEmpty()) {
+						throw new IllegalArgumentException(String.format("Invalid rate in %s, line %d: %s", fileName, lineNumber, line));
+					}
+					// Otherwise assume this is a header
+				}
+			}
+		}
+		if (rates.isEmpty()) {
+			throw new IllegalArgumentException("No rates found in " + fileName);
+		}
+		long[] timesMs = new long[times.size()];
+		double[] values = new double[rates.size()];
+		for (int i = 0; i < timesMs.length; i++) {
+			// Shift the series so it starts at the beginning of the profile
+			timesMs[i] = times.get(i) - times.get(0);
+			values[i] = rates.get(i);
+		}
+		// Hold the last rate for as long as the gap before it, or a second if there is only one
+		long lastGapMs = timesMs.length > 1 ? timesMs[timesMs.length-1] - timesMs[timesMs.length-2] : 1000;
+		return series(timesMs, values, timesMs[timesMs.length-1] + lastGapMs);
+	}
+
+	/**
+	 * Run the profiles one after another. Only the last may last forever.
+	 */
+	public static LoadProfile sequence(LoadProfile ... profiles) {
+		if (profiles.length == 0) {
+			throw new IllegalArgumentException("A load profile sequence needs at least one profile");
+		}
+		long[] startTimes = new long[profiles.length];
+		long total = 0;
+		for (int i = 0; i < profiles.length; i++) {
+			if (total == FOREVER) {
+				throw new IllegalArgumentException("Only the last profile in a sequence may last forever");
+			}
+			startTimes[i] = total;
+			long duration = profiles[i].getDurationMs();
+			total = duration == FOREVER ? FOREVER : total + duration;
+		}
+		long durationMs = total;
+		LoadProfile[] segments = profiles.clone();
+		return new LoadProfile() {
+			@Override
+			public double getRate(long elapsedMs) {
+				int index = segments.length - 1;
+				while (index > 0 && startTimes[index] > elapsedMs) {
+					index--;
+				}
+				return segments[index].getRate(elapsedMs - startTimes[index]);
+			}
+
+			@Override
+			public long getDurationMs() {
+				return durationMs;
+			}
+		};
+	}
+
+	/**
+	 * Parse a duration such as "500ms", "30s", "10m" or "2h". A number without a unit is in seconds.
+	 */
+	static long parseDurationMs(String value) {
+		String text = value.trim().toLowerCase();
+		long multiplier = 1000;
+		if (text.endsWith("ms")) {
+			multiplier = 1;
+			text = text.substring(0, text.length() - 2);
+		}
+		else if (text.endsWith("s")) {
+			text = text.substring(0, text.length() - 1);
+		}
+		else if (text.endsWith("m")) {
+			multiplier = 60_000;
+			text = text.substring(0, text.length() - 1);
+		}
+		else if (text.endsWith("h")) {
+			multiplier = 3_600_000;
+			text = text.substring(0, text.length() - 1);
+		}
+		return Math.round(Double.parseDouble(text.trim()) * multiplier);
+	}
+
+	/**
+	 * Parse a profile from a string of segments separated by semicolons, run one after another. The segments are:
+	 * <ul>
+	 * <li>constant(rate[,duration]) - without a duration the rate is held forever</li>
+	 * <li>ramp(fromRate,toRate,duration)</li>
+	 * <li>steps(startRate,increment,numSteps,stepDuration)</li>
+	 * <li>sine(meanRate,amplitude,period,duration)</li>
+	 * <li>spike(baseRate,peakRate,spikeStart,spikeLength,duration)</li>
+	 * <li>replay(fileName)</li>
+	 * </ul>
+	 * Durations are as accepted by {@link #parseDurationMs(String)}, eg "90s" or "24h".
+	 */
+	public static LoadProfile parse(String spec) {
+		String[] segmentSpecs = spec.split(";");
+		List<LoadProfile> segments = new ArrayList<LoadProfile>();
+		for (String segmentSpec : segmentSpecs) {
+			String text = segmentSpec.trim();
+			if (text.isEmpty()) {
+				continue;
+			}
+			int open = text.indexOf('(');
+			if (open <= 0 || !text.endsWith(")")) {
+				throw new IllegalArgumentException("Invalid load profile segment '" + text + "', expected type(args)");
+			}
+			String type = text.substring(0, open).trim().toLowerCase();
+			String[] args = text.substring(open + 1, text.length() - 1).split(",");
+			try {
+				segments.add(parseSegment(type, args));
+			}
+			catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				throw new IllegalArgumentException("Invalid arguments to load profile segment '" + text + "'", e);
+			}
+		}
+		if (segments.isEmpty()) {
+			throw new IllegalArgumentException("Empty load profile '" + spec + "'");
+		}
+		return segments.size() == 1 ? segments.get(0) : sequence(segments.toArray(new LoadProfile[0]));
+	}
+
+	private static LoadProfile parseSegment(String type, String[] args) {
+		switch (type) {
+		case "constant":
+			return args.length == 1 ? constant(Double.parseDouble(args[0].trim()), FOREVER)
+					: constant(Double.parseDouble(args[0].trim()), parseDurationMs(args[1]));
+		case "ramp":
+			return ramp(Double.parseDouble(args[0].trim()), Double.parseDouble(args[1].trim()), parseDurationMs(args[2]));
+		case "steps":
+			return steps(Double.parseDouble(args[0].trim()), Double.parseDouble(args[1].trim()),
+					Integer.parseInt(args[2].trim()), parseDurationMs(args[3]));
+		case "sine":
+			return sine(Double.parseDouble(args[0].trim()), Double.parseDouble(args[1].trim()),
+					parseDurationMs(args[2]), parseDurationMs(args[3]));
+		case "spike":
+			return spike(Double.parseDouble(args[0].trim()), Double.parseDouble(args[1].trim()),
+					parseDurationMs(args[2]), parseDurationMs(args[3]), parseDurationMs(args[4]));
+		case "replay":
+			try {
+				return replay(args[0].trim());
+			}
+			catch (IOException e) {
+				throw new IllegalArgumentException("Unable to read load profile file " + args[0].trim(), e);
+			}
+		default:
+			throw new IllegalArgumentException("Unknown load profile segment type '" + type + "'");
+		}
+	}
+}
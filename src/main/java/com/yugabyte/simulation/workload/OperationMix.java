@@ -0,0 +1,204 @@
+package com.yugabyte.simulation.workload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.yugabyte.simulation.services.TimerService;
+import com.yugabyte.simulation.workload.ThroughputWorkloadType.ExecuteTask;
+
+/**
+ * A weighted mix of named operations, for example 70% point reads, 20% inserts and
+ * 10% updates. Each time the mix is run it picks one operation at random in proportion
+ * to the weights and runs it, so a mix can be passed anywhere a single task is expected:
+ * <pre>
+ * OperationMix mix = new OperationMix(timerService)
+ *     .addOperation("point read", 70, (customData, threadData) -> pointRead())
+ *     .addOperation("insert", 20, (customData, threadData) -> insert())
+ *     .addOperation("update", 10, (customData, threadData) -> update());
+ * throughputInstance.execute(1000, mix);
+ * </pre>
+ * Every operation is registered with the {@link TimerService} and timed against its own
+ * operation id as well as the workload, so the results break down the throughput and
+ * latencies of each operation. The weights can be changed while the workload runs.
+ */
+public class OperationMix implements ExecuteTask {
+	private static class Operation {
+		final String name;
+		final int operationId;
+		final ExecuteTask task;
+
+		Operation(String name, int operationId, ExecuteTask task) {
+			this.name = name;
+			this.operationId = operationId;
+			this.task = task;
+		}
+	}
+
+	/**
+	 * An immutable snapshot of the operations and their weights, replaced as a whole on
+	 * any change so the workers choosing operations never take a lock.
+	 */
+	private static class Selection {
+		final Operation[] operations;
+		final int[] weights;
+		// The running total of the weights, for choosing an operation by binary search
+		final long[] cumulativeWeights;
+
+		Selection(Operation[] operations, int[] weights) {
+			this.operations = operations;
+			this.weights = weights;
+			this.cumulativeWeights = new long[weights.length];
+			long total = 0;
+			for (int i = 0; i < weights.length; i++) {
+				total += weights[i];
+				cumulativeWeights[i] = total;
+			}
+		}
+
+		long getTotalWeight() {
+			return cumulativeWeights.length == 0 ? 0 : cumulativeWeights[cumulativeWeights.length - 1];
+		}
+
+		Operation choose() {
+			long total = getTotalWeight();
+			if (total <= 0) {
+				return null;
+			}
+			long value = ThreadLocalRandom.current().nextLong(total);
+			// Find the first operation whose running total exceeds the value. Operations with
+			// a zero weight share the total of the one before so are never chosen.
+			int low = 0;
+			int high = cumulativeWeights.length - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (cumulativeWeights[mid] > value) {
+					high = mid;
+				}
+				else {
+					low = mid + 1;
+				}
+			}
+			return operations[low];
+		}
+	}
+
+	private final TimerService timerService;
+	private volatile Selection selection = new Selection(new Operation[0], new int[0]);
+
+	public OperationMix(TimerService timerService) {
+		this.timerService = timerService;
+	}
+
+	private int indexOf(Selection current, String name) {
+		for (int i = 0; i < current.operations.length; i++) {
+			if (current.operations[i].name.equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Add an operation to the mix.
+	 * @param weight - the relative frequency of this operation, zero to disable it
+	 */
+	public synchronized OperationMix addOperation(String name, int weight, ExecuteTask task) {
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight of operation '" + name + "' cannot be negative");
+		}
+		Selection current = this.selection;
+		if (indexOf(current, name) >= 0) {
+			throw new IllegalArgumentException("Operation '" + name + "' is already in the mix");
+		}
+		int count = current.operations.length;
+		Operation[] operations = Arrays.copyOf(current.operations, count + 1);
+		int[] weights = Arrays.copyOf(current.weights, count + 1);
+		operations[count] = new Operation(name, timerService.registerOperation(name), task);
+		weights[count] = weight;
+		this.selection = new Selection(operations, weights);
+		return this;
+	}
+
+	/**
+	 * Change the weight of an operation. This takes effect on the next operation chosen,
+	 * so can be used to change the mix while the workload is running.
+	 */
+	public synchronized OperationMix setWeight(String name, int weight) {
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight of operation '" + name + "' cannot be negative");
+		}
+		Selection current = this.selection;
+		int index = indexOf(current, name);
+		if (index < 0) {
+			throw new IllegalArgumentException("Operation '" + name + "' is not in the mix");
+		}
+		int[] weights = current.weights.clone();
+		weights[index] = weight;
+		this.selection = new Selection(current.operations, weights);
+		return this;
+	}
+
+	/**
+	 * Change the weights of several operations at once, keyed by operation name. The
+	 * workers see either all of the new weights or none of them, and the change is
+	 * rejected if it would leave no operation with a non-zero weight.
+	 */
+	public synchronized OperationMix setWeights(Map<String, Integer> newWeights) {
+		Selection current = this.selection;
+		int[] weights = current.weights.clone();
+		for (Map.Entry<String, Integer> entry : newWeights.entrySet()) {
+			String name = entry.getKey();
+			Integer weight = entry.getValue();
+			if (weight == null || weight < 0) {
+				throw new IllegalArgumentException("Weight of operation '" + name + "' cannot be " + (weight == null ? "empty" : "negative"));
+			}
+			int index = indexOf(current, name);
+			if (index < 0) {
+				throw new IllegalArgumentException("Operation '" + name + "' is not in the mix");
+			}
+			weights[index] = weight;
+		}
+		Selection updated = new Selection(current.operations, weights);
+		if (updated.getTotalWeight() <= 0) {
+			throw new IllegalArgumentException("The operation mix must keep at least one operation with a non-zero weight");
+		}
+		this.selection = updated;
+		return this;
+	}
+
+	/**
+	 * The current weight of each operation keyed by name, in the order they were added.
+	 */
+	public Map<String, Integer> getWeights() {
+		Selection current = this.selection;
+		Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+		for (int i = 0; i < current.operations.length; i++) {
+			result.put(current.operations[i].name, current.weights[i]);
+		}
+		return result;
+	}
+
+	public List<String> getOperationNames() {
+		Selection current = this.selection;
+		List<String> names = new ArrayList<String>(current.operations.length);
+		for (Operation operation : current.operations) {
+			names.add(operation.name);
+		}
+		return Collections.unmodifiableList(names);
+	}
+
+	@Override
+	public void run(Object customData, Object threadData) {
+		Operation operation = this.selection.choose();
+		if (operation == null) {
+			throw new IllegalStateException("The operation mix has no operations with a non-zero weight");
+		}
+		timerService.markOperation(operation.operationId);
+		operation.task.run(customData, threadData);
+	}
+}
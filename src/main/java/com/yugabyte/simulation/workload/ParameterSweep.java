@@ -0,0 +1,493 @@
+package com.yugabyte.simulation.workload;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yugabyte.simulation.dao.LatencySummary;
+import com.yugabyte.simulation.dao.Percentiles;
+import com.yugabyte.simulation.dao.TimerResult;
+import com.yugabyte.simulation.services.MeasurementWindow;
+import com.yugabyte.simulation.services.ServiceManager;
+import com.yugabyte.simulation.services.TimerService;
+
+/**
+ * Runs a workload repeatedly in the same JVM across a grid of parameter values, for
+ * example a range of thread counts or target rates, measuring the throughput and latency
+ * of each step. This avoids paying for JVM startup, connection pool warm-up and any
+ * preloading for every data point, as happens when restarting the simulator per point.
+ * <p/>
+ * A sweep is described as a set of dimensions separated by ';', each of which is a
+ * name and a comma separated list of values. The steps are every combination of the
+ * values, with the first dimension varying slowest. A value may also be a range, either
+ * {@code from..to+step} for a linear range or {@code from..to*factor} for a geometric one.
+ * For example {@code "3=8..256*2;pool=16,64"} runs 12 steps.
+ * <p/>
+ * Each step starts the workload, lets it settle and finish any warm-up, and then measures
+ * it for the hold time before terminating it. The measurements are merged histograms over
+ * the whole hold time rather than averages of the interval summaries. Once all the steps have run the
+ * throughput vs latency curve is written as JSON and CSV along with the knee of the
+ * curve, the step with the highest throughput per unit of latency (Kleinrock's power).
+ * Beyond the knee more load adds more latency than throughput as the system saturates.
+ */
+public class ParameterSweep {
+	/** The latency used to find the knee if none is given */
+	public static final String DEFAULT_KNEE_LATENCY = "avg";
+	private static final int POLL_INTERVAL_MS = 100;
+	private static final long TERMINATE_TIMEOUT_MS = 60000;
+
+	/**
+	 * Starts the workload for one step of the sweep.
+	 */
+	public interface StepLauncher {
+		/**
+		 * Start the workload with the passed value for each dimension, keyed by the dimension name.
+		 * @return the workload instance which was started, or null if the step did not start one.
+		 */
+		WorkloadTypeInstance startStep(Map<String, String> values) throws Exception;
+	}
+
+	public static class Dimension {
+		private final String name;
+		private final List<String> values;
+
+		public Dimension(String name, List<String> values) {
+			if (values.isEmpty()) {
+				throw new IllegalArgumentException("Sweep dimension '" + name + "' has no values");
+			}
+			this.name = name;
+			this.values = Collections.unmodifiableList(values);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public List<String> getValues() {
+			return values;
+		}
+	}
+
+	/**
+	 * The measurements of one step of the sweep.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class SweepPoint {
+		private final int step;
+		private final Map<String, String> parameters;
+		private final String workloadId;
+		private final TimerResult result;
+		private final String error;
+		private boolean knee = false;
+
+		SweepPoint(int step, Map<String, String> parameters, String workloadId, TimerResult result, String error) {
+			this.step = step;
+			this.parameters = parameters;
+			this.workloadId = workloadId;
+			this.result = result;
+			this.error = error;
+		}
+
+		public int getStep() {
+			return step;
+		}
+
+		public Map<String, String> getParameters() {
+			return parameters;
+		}
+
+		public String getWorkloadId() {
+			return workloadId;
+		}
+
+		/**
+		 * The reason the step could not be measured, or null if it was.
+		 */
+		public String getError() {
+			return error;
+		}
+
+		public boolean isKnee() {
+			return knee;
+		}
+
+		public long getDurationMs() {
+			return result == null ? 0 : result.getEndTimeMs() - result.getStartTimeMs();
+		}
+
+		public long getNumSucceeded() {
+			return result == null ? 0 : result.getNumSucceeded();
+		}
+
+		public long getNumFailed() {
+			return result == null ? 0 : result.getNumFailed();
+		}
+
+		/**
+		 * The operations per second over the measured part of the step.
+		 */
+		public double getThroughput() {
+			long durationMs = getDurationMs();
+			return durationMs <= 0 ? 0 : (getNumSucceeded() + getNumFailed()) * 1000.0 / durationMs;
+		}
+
+		/**
+		 * The fraction of operations which failed.
+		 */
+		public double getErrorRate() {
+			long total = getNumSucceeded() + getNumFailed();
+			return total == 0 ? 0 : (double)getNumFailed() / total;
+		}
+
+		public LatencySummary getLatency() {
+			return result == null ? null : result.getLatency();
+		}
+
+		public LatencySummary getCorrectedLatency() {
+			return result == null ? null : result.getCorrectedLatency();
+		}
+
+		boolean isMeasured() {
+			return result != null && getNumSucceeded() + getNumFailed() > 0;
+		}
+
+		/**
+		 * Get the latency to judge this point by, either "avg", "max" or a percentile label such as "p99"
+		 */
+		long getLatencyUs(String which) {
+			LatencySummary latency = result.getLatency();
+			if ("avg".equalsIgnoreCase(which)) {
+				return latency.getAvgUs();
+			}
+			if ("max".equalsIgnoreCase(which)) {
+				return latency.getMaxUs();
+			}
+			Long value = latency.getPercentilesUs().get(which.toLowerCase());
+			if (value == null) {
+				throw new IllegalArgumentException("Unknown latency '" + which + "', expected avg, max or one of "
+						+ latency.getPercentilesUs().keySet());
+			}
+			return value;
+		}
+	}
+
+	private final ServiceManager serviceManager;
+	private final List<Dimension> dimensions;
+	private final String workloadName;
+	private long settleMs = 10000;
+	private long holdMs = 60000;
+	private String kneeLatency = DEFAULT_KNEE_LATENCY;
+	private final List<SweepPoint> points = new ArrayList<SweepPoint>();
+
+	public ParameterSweep(ServiceManager serviceManager, String workloadName, List<Dimension> dimensions) {
+		if (dimensions.isEmpty()) {
+			throw new IllegalArgumentException("A sweep needs at least one dimension");
+		}
+		this.serviceManager = serviceManager;
+		this.workloadName = workloadName;
+		this.dimensions = dimensions;
+	}
+
+	/**
+	 * Parse a sweep specification such as {@code "3=8..256*2;pool=16,64"} into its dimensions.
+	 */
+	public static List<Dimension> parse(String spec) {
+		List<Dimension> result = new ArrayList<Dimension>();
+		for (String dimensionSpec : spec.split(";")) {
+			if (dimensionSpec.trim().length() == 0) {
+				continue;
+			}
+			int index = dimensionSpec.indexOf('=');
+			if (index <= 0) {
+				throw new IllegalArgumentException("Sweep dimension '" + dimensionSpec + "' must be of the form name=value,value,...");
+			}
+			String name = dimensionSpec.substring(0, index).trim();
+			List<String> values = new ArrayList<String>();
+			for (String value : dimensionSpec.substring(index+1).split(",")) {
+				value = value.trim();
+				if (value.contains("..")) {
+					expandRange(name, value, values);
+				}
+				else if (value.length() > 0) {
+					values.add(value);
+				}
+			}
+			result.add(new Dimension(name, values));
+		}
+		return result;
+	}
+
+	private static void expandRange(String name, String range, List<String> values) {
+		try {
+			int rangeIndex = range.indexOf("..");
+			long from = Long.parseLong(range.substring(0, rangeIndex).trim());
+			String rest = range.substring(rangeIndex + 2);
+			int opIndex = Math.max(rest.indexOf('+'), rest.indexOf('*'));
+			long to = Long.parseLong((opIndex < 0 ? rest : rest.substring(0, opIndex)).trim());
+			boolean geometric = opIndex >= 0 && rest.charAt(opIndex) == '*';
+			long step = opIndex < 0 ? 1 : Long.parseLong(rest.substring(opIndex + 1).trim());
+			if (from > to || (geometric ? step < 2 || from <= 0 : step < 1)) {
+				throw new IllegalArgumentException("Sweep range '" + range + "' of '" + name + "' does not progress from " + from + " to " + to);
+			}
+			for (long value = from; value <= to; value = geometric ? value * step : value + step) {
+				values.add(Long.toString(value));
+			}
+		}
+		catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("Sweep range '" + range + "' of '" + name + "' must be from..to, from..to+step or from..to*factor", nfe);
+		}
+	}
+
+	public ParameterSweep setSettleMs(long settleMs) {
+		this.settleMs = settleMs;
+		return this;
+	}
+
+	public ParameterSweep setHoldMs(long holdMs) {
+		if (holdMs <= 0) {
+			throw new IllegalArgumentException("The hold time of each step must be positive");
+		}
+		this.holdMs = holdMs;
+		return this;
+	}
+
+	/**
+	 * Set the latency the knee is judged by: "avg" (the default), "max" or a percentile such as "p99".
+	 * A percentile must be one of those configured with timer.percentiles.
+	 */
+	public ParameterSweep setKneeLatency(String kneeLatency) {
+		if (!"avg".equalsIgnoreCase(kneeLatency) && !"max".equalsIgnoreCase(kneeLatency)
+				&& !isConfiguredPercentile(kneeLatency)) {
+			List<String> labels = new ArrayList<String>();
+			Percentiles percentiles = serviceManager.getTimerService().getPercentiles();
+			for (int i = 0; i < percentiles.size(); i++) {
+				labels.add(percentiles.getLabel(i));
+			}
+			throw new IllegalArgumentException("Unknown knee latency '" + kneeLatency + "', expected avg, max or one of " + labels);
+		}
+		this.kneeLatency = kneeLatency.toLowerCase();
+		return this;
+	}
+
+	private boolean isConfiguredPercentile(String label) {
+		Percentiles percentiles = serviceManager.getTimerService().getPercentiles();
+		for (int i = 0; i < percentiles.size(); i++) {
+			if (percentiles.getLabel(i).equalsIgnoreCase(label)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public List<Dimension> getDimensions() {
+		return dimensions;
+	}
+
+	/**
+	 * Get every combination of the dimension values, with the first dimension varying slowest.
+	 */
+	public List<Map<String, String>> getSteps() {
+		List<Map<String, String>> steps = new ArrayList<Map<String, String>>();
+		steps.add(new LinkedHashMap<String, String>());
+		for (Dimension dimension : dimensions) {
+			List<Map<String, String>> expanded = new ArrayList<Map<String, String>>();
+			for (Map<String, String> step : steps) {
+				for (String value : dimension.getValues()) {
+					Map<String, String> newStep = new LinkedHashMap<String, String>(step);
+					newStep.put(dimension.getName(), value);
+					expanded.add(newStep);
+				}
+			}
+			steps = expanded;
+		}
+		return steps;
+	}
+
+	public List<SweepPoint> getPoints() {
+		return Collections.unmodifiableList(points);
+	}
+
+	/**
+	 * Run every step of the sweep in turn. A step which fails is recorded with its error
+	 * and the sweep moves on to the next step.
+	 */
+	public List<SweepPoint> run(StepLauncher launcher) throws InterruptedException {
+		List<Map<String, String>> steps = getSteps();
+		for (int i = 0; i < steps.size(); i++) {
+			Map<String, String> values = steps.get(i);
+			System.out.printf("Sweep step %d of %d: %s\n", i+1, steps.size(), values);
+			SweepPoint point = runStep(i+1, values, launcher);
+			points.add(point);
+			if (point.isMeasured()) {
+				System.out.printf("Sweep step %d of %d: %s: %,.1f ops/s, %s\n", i+1, steps.size(), values,
+						point.getThroughput(), point.getLatency().toString());
+			}
+			else {
+				System.out.printf("Sweep step %d of %d: %s: %s\n", i+1, steps.size(), values,
+						point.getError() == null ? "no operations completed" : point.getError());
+			}
+		}
+		findKnee();
+		return getPoints();
+	}
+
+	private SweepPoint runStep(int stepNumber, Map<String, String> values, StepLauncher launcher) throws InterruptedException {
+		WorkloadTypeInstance instance;
+		try {
+			instance = launcher.startStep(values);
+		}
+		catch (InterruptedException ie) {
+			throw ie;
+		}
+		catch (Exception e) {
+			return new SweepPoint(stepNumber, values, null, null, e.toString());
+		}
+		if (instance == null) {
+			return new SweepPoint(stepNumber, values, null, null, "The step did not start a workload");
+		}
+		TimerService timerService = serviceManager.getTimerService();
+		try {
+			long settleUntil = System.currentTimeMillis() + settleMs;
+			while ((System.currentTimeMillis() < settleUntil || instance.isWarmingUp()) && isRunning(instance)) {
+				Thread.sleep(POLL_INTERVAL_MS);
+			}
+			MeasurementWindow window = timerService.openMeasurementWindow(instance);
+			long holdUntil = System.currentTimeMillis() + holdMs;
+			while (System.currentTimeMillis() < holdUntil && isRunning(instance)) {
+				Thread.sleep(POLL_INTERVAL_MS);
+			}
+			TimerResult result = timerService.closeMeasurementWindow(window);
+			String error = instance.getTerminatingException() == null ? null : instance.getTerminatingException().toString();
+			return new SweepPoint(stepNumber, values, instance.getWorkloadId(), result, error);
+		}
+		finally {
+			stopWorkload(instance);
+		}
+	}
+
+	private boolean isRunning(WorkloadTypeInstance instance) {
+		return !instance.isComplete() && !instance.isTerminated();
+	}
+
+	/**
+	 * Terminate the workload of a step and wait for its final interval to be collated so
+	 * its operations do not overlap those of the next step.
+	 */
+	private void stopWorkload(WorkloadTypeInstance instance) throws InterruptedException {
+		if (isRunning(instance)) {
+			instance.terminate();
+		}
+		long waitUntil = System.currentTimeMillis() + TERMINATE_TIMEOUT_MS;
+		while (System.currentTimeMillis() < waitUntil
+				&& serviceManager.getWorkloadManager().getWorkloadById(instance.getWorkloadId()) != null) {
+			Thread.sleep(POLL_INTERVAL_MS);
+		}
+		// Allow the final interval of the workload to be collated
+		Thread.sleep(2L * serviceManager.getTimerService().getIntervalMs());
+	}
+
+	/**
+	 * Mark the knee of the throughput vs latency curve: the measured point with the highest
+	 * ratio of throughput to latency.
+	 */
+	private void findKnee() {
+		SweepPoint best = null;
+		double bestPower = -1;
+		for (SweepPoint point : points) {
+			if (point.isMeasured()) {
+				double power = point.getThroughput() / Math.max(1, point.getLatencyUs(kneeLatency));
+				if (power > bestPower) {
+					bestPower = power;
+					best = point;
+				}
+			}
+		}
+		if (best != null) {
+			best.knee = true;
+		}
+	}
+
+	/**
+	 * Get the knee of the curve, or null if no step was measured.
+	 */
+	public SweepPoint getKnee() {
+		for (SweepPoint point : points) {
+			if (point.isKnee()) {
+				return point;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Write the results of the sweep into the passed directory as sweep_{time}.json and
+	 * sweep_{time}.csv, returning the path of the JSON file.
+	 */
+	public String writeResults(String directory) throws IOException {
+		File dir = new File(directory);
+		dir.mkdirs();
+		String baseName = "sweep_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+
+		Map<String, Object> json = new LinkedHashMap<String, Object>();
+		json.put("workload", workloadName);
+		json.put("settleMs", settleMs);
+		json.put("holdMs", holdMs);
+		json.put("kneeLatency", kneeLatency);
+		json.put("dimensions", dimensions);
+		json.put("knee", getKnee());
+		json.put("points", points);
+		File jsonFile = new File(dir, baseName + ".json");
+		new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(jsonFile, json);
+
+		Percentiles percentiles = serviceManager.getTimerService().getPercentiles();
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(dir, baseName + ".csv")))) {
+			StringBuilder header = new StringBuilder("Step");
+			for (Dimension dimension : dimensions) {
+				header.append(',').append(dimension.getName());
+			}
+			header.append(",Duration Ms,Succeeded,Failed,Ops/s,Error Rate,Min Time Us,Average Time Us,Max Time Us")
+					.append(percentiles.getCsvHeader())
+					.append(",Knee,Error\n");
+			writer.write(header.toString());
+			for (SweepPoint point : points) {
+				StringBuilder line = new StringBuilder().append(point.getStep());
+				for (Dimension dimension : dimensions) {
+					line.append(',').append(point.getParameters().get(dimension.getName()));
+				}
+				line.append(',').append(point.getDurationMs())
+						.append(',').append(point.getNumSucceeded())
+						.append(',').append(point.getNumFailed())
+						.append(',').append(String.format("%.1f", point.getThroughput()))
+						.append(',').append(String.format("%.5f", point.getErrorRate()));
+				if (point.isMeasured()) {
+					LatencySummary latency = point.getLatency();
+					line.append(',').append(latency.getMinUs())
+							.append(',').append(latency.getAvgUs())
+							.append(',').append(latency.getMaxUs())
+							.append(latency.formatPercentilesToCsv());
+				}
+				else {
+					line.append(",,,");
+					for (int i = 0; i < percentiles.size(); i++) {
+						line.append(',');
+					}
+				}
+				line.append(',').append(point.isKnee())
+						.append(',').append(point.getError() == null ? "" : '"' + point.getError().replace('"', '\'') + '"')
+						.append('\n');
+				writer.write(line.toString());
+			}
+		}
+		return jsonFile.getPath();
+	}
+}
@@ -0,0 +1,71 @@
+package com.yugabyte.simulation.workload;
+
+/**
+ * A proportional-integral-derivative rate controller. The desired rate is fed
+ * forward to the output so a new rate is reached within a sample or two, and the
+ * PID terms, computed on the error relative to the desired rate, trim out the
+ * difference between the rate the workers aim for and what they achieve.
+ */
+public class PidRateController implements RateController {
+	public static final double DEFAULT_PROPORTIONAL_GAIN = 0.5;
+	public static final double DEFAULT_INTEGRAL_GAIN = 1.0;
+	public static final double DEFAULT_DERIVATIVE_GAIN = 0.0;
+	// Stops the integral winding up while the workload cannot reach the rate, eg at max threads
+	private static final double MAX_INTEGRAL = 2.0;
+	// Never aim for more than this multiple of the desired rate
+	private static final double MAX_OUTPUT_FACTOR = 4.0;
+	
+	private final double proportionalGain;
+	private final double integralGain;
+	private final double derivativeGain;
+	private double integral;
+	private double lastError;
+	private boolean hasLastError;
+	private volatile double error;
+	private volatile double output;
+	
+	public PidRateController() {
+		this(DEFAULT_PROPORTIONAL_GAIN, DEFAULT_INTEGRAL_GAIN, DEFAULT_DERIVATIVE_GAIN);
+	}
+	
+	public PidRateController(double proportionalGain, double integralGain, double derivativeGain) {
+		this.proportionalGain = proportionalGain;
+		this.integralGain = integralGain;
+		this.derivativeGain = derivativeGain;
+	}
+	
+	@Override
+	public double update(double desiredRate, double measuredRate, double intervalSecs) {
+		if (desiredRate <= 0) {
+			reset();
+			return 0;
+		}
+		double currentError = (desiredRate - measuredRate) / desiredRate;
+		integral = Math.max(-MAX_INTEGRAL, Math.min(MAX_INTEGRAL, integral + currentError * intervalSecs));
+		double derivative = hasLastError && intervalSecs > 0 ? (currentError - lastError) / intervalSecs : 0;
+		lastError = currentError;
+		hasLastError = true;
+		
+		double adjustment = proportionalGain * currentError + integralGain * integral + derivativeGain * derivative;
+		this.error = currentError;
+		this.output = desiredRate * Math.max(0, Math.min(MAX_OUTPUT_FACTOR, 1 + adjustment));
+		return this.output;
+	}
+	
+	@Override
+	public void reset() {
+		integral = 0;
+		lastError = 0;
+		hasLastError = false;
+	}
+	
+	@Override
+	public double getError() {
+		return error;
+	}
+	
+	@Override
+	public double getOutput() {
+		return output;
+	}
+}
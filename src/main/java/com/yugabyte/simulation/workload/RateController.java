@@ -0,0 +1,37 @@
+package com.yugabyte.simulation.workload;
+
+/**
+ * Decides the rate the workers of a closed loop throughput workload should aim for so
+ * the measured rate converges on the desired rate. The controller is sampled every
+ * few hundred milliseconds with the desired and measured rates, and its output is
+ * turned into a number of worker threads and a delay between their operations from
+ * the measured time each operation takes.
+ * <p/>
+ * Controllers are only called from the thread managing the workload, so need not be thread safe,
+ * but their state is read by the results collator so should be held in volatile fields.
+ */
+public interface RateController {
+	/**
+	 * Take a sample and compute the new output.
+	 * @param desiredRate - the rate the workload should run at, in operations per second
+	 * @param measuredRate - the rate the workload ran at since the last sample
+	 * @param intervalSecs - the time since the last sample
+	 * @return the rate the workers should aim for, in operations per second
+	 */
+	public double update(double desiredRate, double measuredRate, double intervalSecs);
+	
+	/**
+	 * Clear any accumulated state, for example when the desired rate changes.
+	 */
+	public void reset();
+	
+	/**
+	 * The error at the last sample as a fraction of the desired rate: positive when running too slowly.
+	 */
+	public double getError();
+	
+	/**
+	 * The output at the last sample, the rate the workers are aiming for.
+	 */
+	public double getOutput();
+}
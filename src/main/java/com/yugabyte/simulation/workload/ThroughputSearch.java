@@ -0,0 +1,470 @@
+package com.yugabyte.simulation.workload;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yugabyte.simulation.dao.LatencySummary;
+import com.yugabyte.simulation.dao.TimerResult;
+import com.yugabyte.simulation.services.MeasurementWindow;
+import com.yugabyte.simulation.services.TimerService;
+import com.yugabyte.simulation.workload.ThroughputWorkloadType.ThroughputWorkloadInstance;
+
+/**
+ * Finds the highest target rate a running throughput workload sustains while a latency
+ * percentile and the error rate stay within a service level objective, for example p99
+ * under 20ms with under 1% errors.
+ * <p/>
+ * The search changes the desired rate of the workload and probes each rate in turn: the
+ * workload is given a warm-up time at the new rate and is then measured. Starting from
+ * the workload's current rate, the rate is doubled until a probe fails, unless a maximum
+ * rate is given, and then the range between the highest passing and lowest failing rate
+ * is halved until it is within the requested precision.
+ * <p/>
+ * A probe passes when, over the measurement window:
+ * <ul>
+ * <li>the achieved rate is within the rate tolerance of the target, so the workload is
+ * actually sustaining the rate rather than falling behind</li>
+ * <li>the latency percentile is within the objective</li>
+ * <li>the error rate is within the objective</li>
+ * <li>the results are stable: both halves of the window sustain the rate, and the latency
+ * percentile of the second half has not grown by more than the allowed drift over the
+ * first. Growing latency means a queue is building so the result of a longer run would
+ * differ. An unstable probe is repeated before it is counted as a failure.</li>
+ * </ul>
+ */
+public class ThroughputSearch {
+	private static final int POLL_INTERVAL_MS = 100;
+	private static final int MAX_PROBES = 64;
+
+	public enum Verdict {
+		PASS,
+		LATENCY_TOO_HIGH,
+		ERROR_RATE_TOO_HIGH,
+		RATE_NOT_SUSTAINED,
+		UNSTABLE,
+		WORKLOAD_ENDED
+	}
+
+	/**
+	 * The measurements of a single rate probed by the search.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class Probe {
+		private final int probe;
+		private final int targetRate;
+		private final Verdict verdict;
+		private final TimerResult result;
+		private final long firstHalfLatencyUs;
+		private final long secondHalfLatencyUs;
+		private final double firstHalfRate;
+		private final double secondHalfRate;
+
+		Probe(int probe, int targetRate, Verdict verdict, TimerResult result, long firstHalfLatencyUs,
+				long secondHalfLatencyUs, double firstHalfRate, double secondHalfRate) {
+			this.probe = probe;
+			this.targetRate = targetRate;
+			this.verdict = verdict;
+			this.result = result;
+			this.firstHalfLatencyUs = firstHalfLatencyUs;
+			this.secondHalfLatencyUs = secondHalfLatencyUs;
+			this.firstHalfRate = firstHalfRate;
+			this.secondHalfRate = secondHalfRate;
+		}
+
+		public int getProbe() {
+			return probe;
+		}
+
+		public int getTargetRate() {
+			return targetRate;
+		}
+
+		public Verdict getVerdict() {
+			return verdict;
+		}
+
+		public boolean isPassed() {
+			return verdict == Verdict.PASS;
+		}
+
+		public long getNumSucceeded() {
+			return result.getNumSucceeded();
+		}
+
+		public long getNumFailed() {
+			return result.getNumFailed();
+		}
+
+		public double getAchievedRate() {
+			return getRate(result);
+		}
+
+		public double getErrorRate() {
+			return getErrorRate(result);
+		}
+
+		public LatencySummary getLatency() {
+			return result.getNumSucceeded() + result.getNumFailed() == 0 ? null : result.getLatency();
+		}
+
+		public LatencySummary getCorrectedLatency() {
+			return result.getCorrectedLatency();
+		}
+
+		public long getFirstHalfLatencyUs() {
+			return firstHalfLatencyUs;
+		}
+
+		public long getSecondHalfLatencyUs() {
+			return secondHalfLatencyUs;
+		}
+
+		public double getFirstHalfRate() {
+			return firstHalfRate;
+		}
+
+		public double getSecondHalfRate() {
+			return secondHalfRate;
+		}
+
+		@JsonIgnore
+		public TimerResult getResult() {
+			return result;
+		}
+
+		private static double getRate(TimerResult result) {
+			long durationMs = result.getEndTimeMs() - result.getStartTimeMs();
+			return durationMs <= 0 ? 0 : (result.getNumSucceeded() + result.getNumFailed()) * 1000.0 / durationMs;
+		}
+
+		private static double getErrorRate(TimerResult result) {
+			long total = result.getNumSucceeded() + result.getNumFailed();
+			return total == 0 ? 0 : (double)result.getNumFailed() / total;
+		}
+	}
+
+	private final ThroughputWorkloadInstance workload;
+	private final TimerService timerService;
+	private final String latencyPercentile;
+	private final long maxLatencyUs;
+	private double maxErrorRate = 0.01;
+	private int minRate = 1;
+	private int maxRate = 0;
+	private long warmupMs = 20000;
+	private long measureMs = 60000;
+	private double precision = 0.02;
+	private double rateTolerance = 0.05;
+	private double maxLatencyDrift = 0.25;
+	private int unstableRetries = 1;
+	private final List<Probe> probes = new ArrayList<Probe>();
+	private int maxSustainableRate = 0;
+
+	/**
+	 * Create a search for the passed workload, which must already be executing.
+	 * @param latencyPercentile - the label of the percentile the objective applies to, eg "p99".
+	 * This must be one of the percentiles configured with timer.percentiles.
+	 * @param maxLatencyUs - the highest acceptable latency at that percentile
+	 */
+	public ThroughputSearch(ThroughputWorkloadInstance workload, TimerService timerService, String latencyPercentile, long maxLatencyUs) {
+		if (!isConfiguredPercentile(timerService, latencyPercentile)) {
+			throw new IllegalArgumentException("Percentile '" + latencyPercentile + "' is not one of the percentiles configured with timer.percentiles");
+		}
+		this.workload = workload;
+		this.timerService = timerService;
+		this.latencyPercentile = latencyPercentile.toLowerCase();
+		this.maxLatencyUs = maxLatencyUs;
+	}
+
+	/**
+	 * Create a search for an objective such as "p99<20ms". The latency may be given in us, ms or s.
+	 */
+	public static ThroughputSearch forObjective(ThroughputWorkloadInstance workload, TimerService timerService, String objective) {
+		int index = objective.indexOf('<');
+		if (index <= 0) {
+			throw new IllegalArgumentException("Latency objective '" + objective + "' must be of the form p99<20ms");
+		}
+		String latency = objective.substring(index + 1).trim().toLowerCase();
+		long latencyUs;
+		try {
+			if (latency.endsWith("us")) {
+				latencyUs = Math.round(Double.parseDouble(latency.substring(0, latency.length() - 2).trim()));
+			}
+			else if (latency.endsWith("ms") || latency.endsWith("s")) {
+				latencyUs = LoadProfile.parseDurationMs(latency) * 1000;
+			}
+			else {
+				throw new IllegalArgumentException("Latency objective '" + objective + "' must have units of us, ms or s");
+			}
+		}
+		catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("Latency objective '" + objective + "' must be of the form p99<20ms", nfe);
+		}
+		return new ThroughputSearch(workload, timerService, objective.substring(0, index).trim(), latencyUs);
+	}
+
+	private static boolean isConfiguredPercentile(TimerService timerService, String label) {
+		for (int i = 0; i < timerService.getPercentiles().size(); i++) {
+			if (timerService.getPercentiles().getLabel(i).equalsIgnoreCase(label)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public ThroughputSearch setMaxErrorRate(double maxErrorRate) {
+		this.maxErrorRate = maxErrorRate;
+		return this;
+	}
+
+	/**
+	 * The lowest rate to search, the search gives up if this rate fails.
+	 */
+	public ThroughputSearch setMinRate(int minRate) {
+		this.minRate = Math.max(1, minRate);
+		return this;
+	}
+
+	/**
+	 * The highest rate to search, or 0 to search upwards without limit.
+	 */
+	public ThroughputSearch setMaxRate(int maxRate) {
+		this.maxRate = maxRate;
+		return this;
+	}
+
+	public ThroughputSearch setWarmupMs(long warmupMs) {
+		this.warmupMs = warmupMs;
+		return this;
+	}
+
+	public ThroughputSearch setMeasureMs(long measureMs) {
+		if (measureMs < 2L * timerService.getIntervalMs()) {
+			throw new IllegalArgumentException("The measurement window must cover at least two result intervals");
+		}
+		this.measureMs = measureMs;
+		return this;
+	}
+
+	/**
+	 * Stop searching once the gap between the highest passing and lowest failing rate is
+	 * within this fraction of the failing rate.
+	 */
+	public ThroughputSearch setPrecision(double precision) {
+		this.precision = precision;
+		return this;
+	}
+
+	/**
+	 * How far below the target rate the achieved rate may be, as a fraction of the target,
+	 * before the rate is considered not sustained.
+	 */
+	public ThroughputSearch setRateTolerance(double rateTolerance) {
+		this.rateTolerance = rateTolerance;
+		return this;
+	}
+
+	/**
+	 * How much the latency percentile may grow from the first to the second half of the
+	 * measurement window, as a fraction, before the probe is considered unstable.
+	 */
+	public ThroughputSearch setMaxLatencyDrift(double maxLatencyDrift) {
+		this.maxLatencyDrift = maxLatencyDrift;
+		return this;
+	}
+
+	public ThroughputSearch setUnstableRetries(int unstableRetries) {
+		this.unstableRetries = unstableRetries;
+		return this;
+	}
+
+	public List<Probe> getProbes() {
+		return Collections.unmodifiableList(probes);
+	}
+
+	/**
+	 * The highest rate which passed, or 0 if no rate passed.
+	 */
+	public int getMaxSustainableRate() {
+		return maxSustainableRate;
+	}
+
+	/**
+	 * Run the search, returning the highest rate which passed or 0 if even the minimum rate failed.
+	 * The workload is left running at that rate.
+	 */
+	public int run() throws InterruptedException {
+		int highestPass = 0;
+		int lowestFail = maxRate > 0 ? maxRate + 1 : -1;
+		int rate = Math.max(minRate, workload.getDesiredRate());
+		if (maxRate > 0) {
+			rate = Math.min(rate, maxRate);
+		}
+		// Intervals collated during the workload's own warm-up are never measured
+		while (workload.isWarmingUp() && !workload.isTerminated()) {
+			Thread.sleep(POLL_INTERVAL_MS);
+		}
+		while (probes.size() < MAX_PROBES) {
+			Probe probe = probeWithRetries(rate);
+			if (probe.getVerdict() == Verdict.WORKLOAD_ENDED) {
+				break;
+			}
+			if (probe.isPassed()) {
+				highestPass = rate;
+			}
+			else {
+				lowestFail = rate;
+			}
+			if (lowestFail < 0) {
+				rate = (int)Math.min(Integer.MAX_VALUE, rate * 2L);
+				continue;
+			}
+			if (lowestFail <= minRate) {
+				break;
+			}
+			if (lowestFail - highestPass <= Math.max(1, precision * lowestFail)) {
+				break;
+			}
+			rate = Math.max(minRate, (highestPass + lowestFail) / 2);
+		}
+		this.maxSustainableRate = highestPass;
+		if (highestPass > 0 && !workload.isTerminated()) {
+			workload.setDesiredRate(highestPass);
+		}
+		return highestPass;
+	}
+
+	private Probe probeWithRetries(int rate) throws InterruptedException {
+		Probe probe = probe(rate);
+		for (int i = 0; i < unstableRetries && probe.getVerdict() == Verdict.UNSTABLE; i++) {
+			probe = probe(rate);
+		}
+		return probe;
+	}
+
+	private boolean sleepWhileRunning(long timeMs) throws InterruptedException {
+		long until = System.currentTimeMillis() + timeMs;
+		while (System.currentTimeMillis() < until) {
+			if (workload.isTerminated()) {
+				return false;
+			}
+			Thread.sleep(Math.min(POLL_INTERVAL_MS, Math.max(1, until - System.currentTimeMillis())));
+		}
+		return !workload.isTerminated();
+	}
+
+	private long getLatencyUs(TimerResult result) {
+		if (result.getNumSucceeded() + result.getNumFailed() == 0) {
+			return 0;
+		}
+		Long value = result.getPercentilesUs().get(latencyPercentile);
+		return value == null ? 0 : value;
+	}
+
+	/**
+	 * Probe a single rate: warm up at the rate then measure it over two halves.
+	 */
+	private Probe probe(int rate) throws InterruptedException {
+		System.out.printf("Throughput search probe %d: warming up at %,d ops/s for %,dms\n", probes.size()+1, rate, warmupMs);
+		workload.setDesiredRate(rate);
+		boolean running = sleepWhileRunning(warmupMs);
+
+		MeasurementWindow whole = null;
+		MeasurementWindow firstHalf = null;
+		MeasurementWindow secondHalf = null;
+		if (running) {
+			whole = timerService.openMeasurementWindow(workload);
+			firstHalf = timerService.openMeasurementWindow(workload);
+			running = sleepWhileRunning(measureMs / 2);
+		}
+		if (running) {
+			secondHalf = timerService.openMeasurementWindow(workload);
+			running = sleepWhileRunning(measureMs - measureMs / 2);
+		}
+		TimerResult wholeResult = whole == null ? null : timerService.closeMeasurementWindow(whole);
+		TimerResult firstResult = firstHalf == null ? null : timerService.closeMeasurementWindow(firstHalf);
+		TimerResult secondResult = secondHalf == null ? null : timerService.closeMeasurementWindow(secondHalf);
+		if (!running) {
+			Probe probe = new Probe(probes.size()+1, rate, Verdict.WORKLOAD_ENDED,
+					wholeResult == null ? new TimerResult(null, null, null, null, null, null, 0, 0, 0, 0) : wholeResult, 0, 0, 0, 0);
+			probes.add(probe);
+			System.out.printf("Throughput search probe %d: workload ended\n", probe.getProbe());
+			return probe;
+		}
+
+		double firstRate = Probe.getRate(firstResult);
+		double secondRate = Probe.getRate(secondResult);
+		long firstLatencyUs = getLatencyUs(firstResult);
+		long secondLatencyUs = getLatencyUs(secondResult);
+		double minAcceptedRate = rate * (1 - rateTolerance);
+
+		Verdict verdict;
+		if (Probe.getRate(wholeResult) < minAcceptedRate || firstRate < minAcceptedRate || secondRate < minAcceptedRate) {
+			verdict = Verdict.RATE_NOT_SUSTAINED;
+		}
+		else if (getLatencyUs(wholeResult) > maxLatencyUs) {
+			verdict = Verdict.LATENCY_TOO_HIGH;
+		}
+		else if (Probe.getErrorRate(wholeResult) > maxErrorRate) {
+			verdict = Verdict.ERROR_RATE_TOO_HIGH;
+		}
+		else if (secondLatencyUs > firstLatencyUs * (1 + maxLatencyDrift) && secondLatencyUs > maxLatencyUs / 2) {
+			// Small latencies are allowed to vary, only growth towards the objective is a concern
+			verdict = Verdict.UNSTABLE;
+		}
+		else {
+			verdict = Verdict.PASS;
+		}
+		Probe probe = new Probe(probes.size()+1, rate, verdict, wholeResult, firstLatencyUs, secondLatencyUs, firstRate, secondRate);
+		probes.add(probe);
+		System.out.printf("Throughput search probe %d: %,d ops/s: %s, achieved %,.1f ops/s, %s %,dus (%,dus then %,dus), errors %.3f%%\n",
+				probe.getProbe(), rate, verdict, probe.getAchievedRate(), latencyPercentile, getLatencyUs(wholeResult),
+				firstLatencyUs, secondLatencyUs, probe.getErrorRate() * 100);
+		return probe;
+	}
+
+	/**
+	 * Write the probes and the result of the search into the passed directory as
+	 * throughput_search_{time}.json and throughput_search_{time}.csv, returning the path
+	 * of the JSON file.
+	 */
+	public String writeResults(String directory, String workloadName) throws IOException {
+		File dir = new File(directory);
+		dir.mkdirs();
+		String baseName = "throughput_search_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+
+		Map<String, Object> json = new LinkedHashMap<String, Object>();
+		json.put("workload", workloadName);
+		json.put("latencyPercentile", latencyPercentile);
+		json.put("maxLatencyUs", maxLatencyUs);
+		json.put("maxErrorRate", maxErrorRate);
+		json.put("warmupMs", warmupMs);
+		json.put("measureMs", measureMs);
+		json.put("maxSustainableRate", maxSustainableRate);
+		json.put("probes", probes);
+		File jsonFile = new File(dir, baseName + ".json");
+		new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(jsonFile, json);
+
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(dir, baseName + ".csv")))) {
+			writer.write("Probe,Target Rate,Verdict,Achieved Rate,Succeeded,Failed,Error Rate,Latency Us,First Half Latency Us,Second Half Latency Us,First Half Rate,Second Half Rate\n");
+			for (Probe probe : probes) {
+				writer.write(String.format("%d,%d,%s,%.1f,%d,%d,%.5f,%d,%d,%d,%.1f,%.1f\n",
+						probe.getProbe(), probe.getTargetRate(), probe.getVerdict(), probe.getAchievedRate(),
+						probe.getNumSucceeded(), probe.getNumFailed(), probe.getErrorRate(), getLatencyUs(probe.getResult()),
+						probe.getFirstHalfLatencyUs(), probe.getSecondHalfLatencyUs(), probe.getFirstHalfRate(), probe.getSecondHalfRate()));
+			}
+		}
+		return jsonFile.getPath();
+	}
+}
@@ -2,13 +2,18 @@ package com.yugabyte.simulation.workload;
 
 import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,10 +22,13 @@ import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.dao.TransientDataAccessException;
 import org.springframework.jdbc.BadSqlGrammarException;
 
+import com.yugabyte.simulation.dao.LatencySummary;
 import com.yugabyte.simulation.dao.ParamValue;
+import com.yugabyte.simulation.dao.Percentiles;
 import com.yugabyte.simulation.dao.TimerResult;
 import com.yugabyte.simulation.dao.WorkloadDesc;
 import com.yugabyte.simulation.services.ExecutionStatus;
+import com.yugabyte.simulation.services.Outcome;
 import com.yugabyte.simulation.services.ServiceManager;
 import com.yugabyte.simulation.services.Timer;
 import com.yugabyte.simulation.services.TimerService;
@@ -30,12 +38,134 @@ public class ThroughputWorkloadType extends WorkloadType {
 	public interface ExecuteTask {
 		public void run(Object customData, Object threadData);
 	}
+	
+	/**
+	 * A task which starts an operation without blocking and returns a stage which completes
+	 * when the operation does, for example a YCQL <code>executeAsync</code>. The operation
+	 * is timed until the stage completes, and fails with the exception the stage completes with.
+	 */
+	public interface AsyncExecuteTask {
+		public CompletionStage<?> run(Object customData, Object threadData);
+	}
 
 	public static interface CallbackHandler {
 		public void invoke(Object customData, Object threadData);
 	}
+	
+	/**
+	 * How the operations of a throughput workload are issued. In a closed loop each worker
+	 * issues its next operation a delay after its last one, so when the database slows down
+	 * the offered load drops. The open loop distributions issue operations on a schedule
+	 * independent of how long they take, so the offered load stays constant.
+	 */
+	public enum ArrivalDistribution {
+		/** Workers pace themselves, adjusting their delay and count to reach the target rate */
+		CLOSED_LOOP,
+		/** Open loop, operations arrive at exactly 1/rate intervals */
+		FIXED,
+		/** Open loop, operations arrive as a Poisson process with the target mean rate */
+		POISSON;
+		
+		/**
+		 * Parse a distribution from its name, ignoring case. "closed" is accepted for CLOSED_LOOP,
+		 * and a null or empty value returns CLOSED_LOOP.
+		 */
+		public static ArrivalDistribution parse(String value) {
+			if (value == null || value.trim().length() == 0 || "closed".equalsIgnoreCase(value.trim())) {
+				return CLOSED_LOOP;
+			}
+			return ArrivalDistribution.valueOf(value.trim().toUpperCase());
+		}
+	}
+	
+	/**
+	 * Generates the load of a throughput workload at a desired rate.
+	 */
+	private static interface LoadGenerator extends Runnable {
+		public int getDesiredRate();
+		public void setDesiredRate(int desiredRate);
+		public double getCurrentRate();
+		public int getCurrentThreadCount();
+		/** The error of the rate controller as a fraction of the desired rate, positive when running too slowly */
+		public double getControllerError();
+		/** The rate the workers are currently aiming for */
+		public double getControllerOutput();
+		/**
+		 * Stop starting new operations and wait up to graceMs for those in flight to complete.
+		 */
+		public void terminate(long graceMs) throws InterruptedException;
+	}
+	
+	/**
+	 * A throughput result which also records how the load generator was driving the
+	 * workload at the end of the interval.
+	 */
+	public static class ThroughputTimerResult extends TimerResult {
+		private final long targetRate;
+		private final double controllerError;
+		private final double controllerOutput;
+		private final long threads;
+		
+		public ThroughputTimerResult(TimerResult orig, long targetRate, double controllerError, double controllerOutput, long threads) {
+			super(orig);
+			this.targetRate = targetRate;
+			this.controllerError = controllerError;
+			this.controllerOutput = controllerOutput;
+			this.threads = threads;
+		}
+		
+		public long getTargetRate() {
+			return targetRate;
+		}
+		
+		public double getControllerError() {
+			return controllerError;
+		}
+		
+		public double getControllerOutput() {
+			return controllerOutput;
+		}
+		
+		public long getThreads() {
+			return threads;
+		}
+	}
+	
+	private static Object createThreadData(Class<?> threadDataClass) {
+		if (threadDataClass == null) {
+			return null;
+		}
+		try {
+			return threadDataClass.getConstructor().newInstance();
+		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+				| InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			System.err.printf("Error creating an instance of class %s for thread specific data", threadDataClass.getName());
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		}
+	}
 
-	private static class ThreadManager implements Runnable {
+	/**
+	 * Wait up to graceMs for the workers of a terminating workload to finish their current
+	 * operations, then interrupt any which have not.
+	 */
+	static void awaitWorkers(ExecutorService executor, long graceMs, WorkloadTypeInstance instance) throws InterruptedException {
+		executor.shutdown();
+		if (!executor.awaitTermination(graceMs, TimeUnit.MILLISECONDS)) {
+			System.out.printf("%s: workers still running after %,dms, interrupting them\n", instance.getWorkloadId(), graceMs);
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Runs a closed loop workload at the desired rate. Every sample interval a {@link RateController}
+	 * compares the measured rate with the desired one and decides the rate the workers should aim for.
+	 * This is turned into a number of workers and a delay between each worker's operations using the
+	 * measured time an operation takes, with some headroom so the workers are not saturated. Workers
+	 * are started when more are needed and retire when there are too many, so lowering the rate
+	 * releases the threads, and any connections they hold, rather than leaving them idle.
+	 */
+	private static class ThreadManager implements LoadGenerator {
 		private volatile int desiredRate;
 		private volatile double currentRate;
 		private ExecutorService executor;
@@ -43,301 +173,689 @@ public class ThroughputWorkloadType extends WorkloadType {
 		private final Object customData;
 		private final AtomicBoolean terminate = new AtomicBoolean(false);
 		private static final int DEFAULT_PROCESSING_TIME_MS = 10;
-		private static final int PASS_INTERVAL_MSECS = 3000;
-		private static final int WARMUP_INTERVALS = 5;
-		private static final double UPPER_TOLERANCE = 1.1;
-		private static final double AIMING_TOLERANCE = 1.07;
-		private final AtomicInteger threadDelay;
+		private static final int SAMPLE_INTERVAL_MSECS = 250;
+		// Aim for workers to be busy for at most 1/HEADROOM of the time so they can absorb jitter
+		private static final double HEADROOM = 1.25;
+		// Only retire workers once this fraction of them is enough, to avoid churning threads on noise
+		private static final double SHRINK_THRESHOLD = 0.8;
+		// Weight given to the latest sample when smoothing the reported rate and the operation time
+		private static final double SMOOTHING = 0.5;
+		private final AtomicLong threadDelayUs = new AtomicLong();
 		private final int maxThreads;
-		private int currentThreads = 0;
+		private final AtomicInteger liveWorkers = new AtomicInteger();
+		private volatile int targetWorkers = 0;
+		private double operationTimeUs = DEFAULT_PROCESSING_TIME_MS * 1000.0;
 		private final TimerService timerService;
-		private final AtomicLong idleTimeCounter;
-		private final AtomicInteger transactionCounter;
+		private final AtomicLong busyTimeCounter = new AtomicLong();
+		private final AtomicInteger transactionCounter = new AtomicInteger();
 		private final CallbackHandler initializationHandler;
 		private final CallbackHandler terminationHandler;
 		private final Class<?> threadDataClass;
 		private final int workloadOrdinal;
 		private final ThroughputWorkloadInstance instance;
+		private final boolean correctCoordinatedOmission;
+		private final RateController rateController;
 	    private static final Logger LOGGER = LoggerFactory.getLogger(ThroughputWorkloadType.class);
 		
 		public ThreadManager(int desiredRate, int maxThreads, ExecutorService executor, 
 				ExecuteTask runner, Object customData, TimerService timerservice, 
 				CallbackHandler initializationHandler, CallbackHandler terminationHandler, 
-				Class<?> threadDaClass, int workloadOrdinal, ThroughputWorkloadInstance instance) {
+				Class<?> threadDaClass, int workloadOrdinal, ThroughputWorkloadInstance instance,
+				boolean correctCoordinatedOmission, RateController rateController) {
 			super();
 			this.desiredRate = desiredRate;
 			this.executor = executor;
 			this.runner = runner;
 			this.customData = customData;
 			this.maxThreads = maxThreads;
-			this.currentThreads = 0;
-			this.threadDelay = new AtomicInteger();
 			this.timerService = timerservice;
-			this.idleTimeCounter = new AtomicLong(0);
-			this.transactionCounter = new AtomicInteger(0);
 			this.initializationHandler = initializationHandler;
 			this.terminationHandler = terminationHandler;
 			this.threadDataClass = threadDaClass;
 			this.workloadOrdinal = workloadOrdinal;
 			this.instance = instance;
+			this.correctCoordinatedOmission = correctCoordinatedOmission;
+			this.rateController = rateController;
 		}
 
+		@Override
 		public int getDesiredRate() {
 			return desiredRate;
 		}
 		
+		@Override
 		public void setDesiredRate(int desiredRate) {
 			this.desiredRate = desiredRate;
 		}
 		
-		public void terminate() throws InterruptedException {
+		@Override
+		public void terminate(long graceMs) throws InterruptedException {
 			this.terminate.set(true);
-			this.executor.shutdown();
-			executor.awaitTermination(1, TimeUnit.DAYS);
+			awaitWorkers(executor, graceMs, instance);
 		}
 		
+		@Override
 		public double getCurrentRate() {
 			return currentRate;
 		}
 		
+		@Override
 		public int getCurrentThreadCount() {
-			return this.currentThreads;
+			return this.liveWorkers.get();
 		}
-		private int getNeededThreads(int avgDelay) {
-			return Math.max(1, Math.min(this.maxThreads, this.desiredRate * avgDelay/ 1000));
+		
+		@Override
+		public double getControllerError() {
+			return rateController.getError();
 		}
 		
-		private void createAndSubmitThread() {
-			if (this.currentThreads < this.maxThreads) {
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug(String.format("Creating and Submitting a new thread, %d -> %d, rate = %f\n", this.getCurrentThreadCount(), this.getCurrentThreadCount()+1, this.getCurrentRate()));
-				}
-				if (!this.terminate.get()) {
-					Object threadData = null;
-					if (this.threadDataClass != null) {
-						try {
-							threadData = this.threadDataClass.getConstructor().newInstance();
-						} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
-								| InvocationTargetException | NoSuchMethodException | SecurityException e) {
-							System.err.printf("Error creating an instance of class %s for thread specific data", this.threadDataClass.getName());
-							e.printStackTrace();
-							throw new RuntimeException(e);
-						}
-					}
-					this.executor.submit(new WorkerThread(threadDelay, idleTimeCounter, transactionCounter, terminate, runner, customData, timerService, initializationHandler, terminationHandler, threadData, workloadOrdinal, this.instance));
-					this.currentThreads++;
-				}
+		@Override
+		public double getControllerOutput() {
+			return rateController.getOutput();
+		}
+		
+		long getThreadDelayUs() {
+			return threadDelayUs.get();
+		}
+		
+		void operationCompleted(long timeInNs) {
+			transactionCounter.incrementAndGet();
+			if (timeInNs > 0) {
+				busyTimeCounter.addAndGet(timeInNs);
 			}
-			else {
-				LOGGER.warn("Cannot create a new worker thread: current threads = " + this.currentThreads + ", max allowed = " + this.maxThreads);
+		}
+		
+		/**
+		 * Called by a worker between operations. If there are more workers than needed the
+		 * calling worker is removed from the live count and should exit.
+		 */
+		boolean retireIfSurplus() {
+			int live;
+			while ((live = liveWorkers.get()) > targetWorkers) {
+				if (liveWorkers.compareAndSet(live, live - 1)) {
+					return true;
+				}
 			}
+			return false;
+		}
+		
+		void workerExited() {
+			liveWorkers.decrementAndGet();
 		}
 		
-		private void setThreadDelay(int delay) {
+		private void createAndSubmitThread() {
 			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("Setting thread delay to " + threadDelay);
+				LOGGER.debug(String.format("Creating and Submitting a new thread, %d -> %d, rate = %f\n", this.getCurrentThreadCount(), this.getCurrentThreadCount()+1, this.getCurrentRate()));
 			}
-			this.threadDelay.set(delay);
+			Object threadData = createThreadData(this.threadDataClass);
+			this.liveWorkers.incrementAndGet();
+			this.executor.submit(new WorkerThread(this, runner, customData, timerService, initializationHandler, terminationHandler, threadData, workloadOrdinal, this.instance, this.correctCoordinatedOmission));
 		}
 		
-		@Override
-		public void run() {
-			// Create the initial threads
-			int warmupIntervals = WARMUP_INTERVALS;
-			int defaultNumberOfThreads = getNeededThreads(DEFAULT_PROCESSING_TIME_MS);
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("Default threads = " + defaultNumberOfThreads);
+		/**
+		 * Size the workers and their delay to run at the passed rate.
+		 */
+		private void applyOutput(double rate) {
+			if (rate <= 0) {
+				this.targetWorkers = 0;
+				return;
 			}
-			this.setThreadDelay(DEFAULT_PROCESSING_TIME_MS);
-			for (int i = 0; i < defaultNumberOfThreads; i++) {
+			int needed = (int)Math.ceil(rate * operationTimeUs * HEADROOM / 1_000_000);
+			needed = Math.max(1, Math.min(this.maxThreads, needed));
+			int workers = this.targetWorkers;
+			if (needed > workers || needed < workers * SHRINK_THRESHOLD) {
+				workers = needed;
+			}
+			if (workers >= this.maxThreads && needed >= this.maxThreads && LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Running at max threads (" + this.maxThreads + "), desired rate may not be reached");
+			}
+			this.threadDelayUs.set((long)(workers * 1_000_000 / rate));
+			this.targetWorkers = workers;
+			while (this.liveWorkers.get() < workers && !this.terminate.get()) {
 				this.createAndSubmitThread();
 			}
+		}
+		
+		@Override
+		public void run() {
+			int controlledRate = desiredRate;
+			rateController.reset();
+			applyOutput(controlledRate);
+			long lastSampleNs = System.nanoTime();
 			
 			while (!this.terminate.get()) {
 				try {
-					Thread.sleep(PASS_INTERVAL_MSECS);
+					Thread.sleep(SAMPLE_INTERVAL_MSECS);
 				} catch (InterruptedException e) {
 					this.terminate.set(true);
 				}
-				long idleTimeThisPass = idleTimeCounter.getAndSet(0);
+				long now = System.nanoTime();
+				double intervalSecs = (now - lastSampleNs) / 1e9;
+				lastSampleNs = now;
 				int transactionsThisPass = transactionCounter.getAndSet(0);
-				double tps = transactionsThisPass * (1000.0/PASS_INTERVAL_MSECS);
-				double idleTimePerSecond = idleTimeThisPass * (1000.0/PASS_INTERVAL_MSECS);
-				this.currentRate = tps;
+				long busyTimeThisPassNs = busyTimeCounter.getAndSet(0);
+				double tps = transactionsThisPass / intervalSecs;
+				this.currentRate = SMOOTHING * tps + (1 - SMOOTHING) * this.currentRate;
+				if (transactionsThisPass > 0) {
+					operationTimeUs = SMOOTHING * (busyTimeThisPassNs / 1000.0 / transactionsThisPass) + (1 - SMOOTHING) * operationTimeUs;
+				}
+				// The controller is only used from this thread, so a change of rate made on another
+				// thread is picked up here, clearing the state accumulated against the old rate
+				int rate = desiredRate;
+				if (rate != controlledRate) {
+					rateController.reset();
+					controlledRate = rate;
+				}
+				double output = rateController.update(rate, tps, intervalSecs);
+				applyOutput(output);
 				
 				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug(String.format("tps = %f, desired rate = %d (%f), threads = %d, current rate = %f, idleTimePerSecondPerThread = %f\n", 
-						tps, desiredRate, desiredRate *AIMING_TOLERANCE, currentThreads, getCurrentRate(), idleTimePerSecond / this.currentThreads));
+					LOGGER.debug(String.format("tps = %f, desired rate = %d, output = %f, error = %f, threads = %d/%d, delay = %dus, operation time = %fus\n", 
+						tps, rate, output, rateController.getError(), liveWorkers.get(), targetWorkers, threadDelayUs.get(), operationTimeUs));
 				}
-				
-				if (warmupIntervals > 0) {
-					warmupIntervals--;
-					System.out.printf("Warming up, %d remaining\n", warmupIntervals);
+			}
+		}
+	}
+	
+	/**
+	 * Issues operations open loop: each operation has an arrival time on a fixed or Poisson
+	 * schedule at the desired rate, and a pool of workers claims the arrivals in order, waits
+	 * until each is due and runs it. How long the operations take does not change when the
+	 * next one arrives, so the offered load stays constant even if the database slows down.
+	 * If all the workers are busy, arrivals queue up and start late; this is recorded as the
+	 * scheduling lag of the operations, and their latency is measured from when they were
+	 * due to start.
+	 */
+	private static class OpenLoopScheduler implements LoadGenerator {
+		protected static final long NO_ARRIVAL = Long.MIN_VALUE;
+		// Workers do not claim an arrival more than this far ahead, so rate changes take effect promptly
+		private static final long CLAIM_AHEAD_NS = 5_000_000;
+		private static final int RATE_INTERVAL_MSECS = 1000;
+		// Park until this close to an arrival, then spin for precision
+		private static final long SPIN_THRESHOLD_NS = 50_000;
+		
+		private volatile int desiredRate;
+		private volatile double currentRate;
+		private final ArrivalDistribution distribution;
+		private final AtomicLong nextArrivalNs = new AtomicLong();
+		protected final AtomicBoolean terminate = new AtomicBoolean(false);
+		protected final AtomicInteger transactionCounter = new AtomicInteger(0);
+		private final ExecutorService executor;
+		private final int numWorkers;
+		private final ExecuteTask runner;
+		protected final Object customData;
+		private final TimerService timerService;
+		protected final CallbackHandler initializationHandler;
+		protected final CallbackHandler terminationHandler;
+		protected final Class<?> threadDataClass;
+		protected final int workloadOrdinal;
+		protected final ThroughputWorkloadInstance instance;
+		
+		public OpenLoopScheduler(int desiredRate, ArrivalDistribution distribution, int numWorkers, ExecutorService executor, 
+				ExecuteTask runner, Object customData, TimerService timerService, 
+				CallbackHandler initializationHandler, CallbackHandler terminationHandler, 
+				Class<?> threadDataClass, int workloadOrdinal, ThroughputWorkloadInstance instance) {
+			this.desiredRate = desiredRate;
+			this.distribution = distribution;
+			this.numWorkers = numWorkers;
+			this.executor = executor;
+			this.runner = runner;
+			this.customData = customData;
+			this.timerService = timerService;
+			this.initializationHandler = initializationHandler;
+			this.terminationHandler = terminationHandler;
+			this.threadDataClass = threadDataClass;
+			this.workloadOrdinal = workloadOrdinal;
+			this.instance = instance;
+		}
+		
+		@Override
+		public int getDesiredRate() {
+			return desiredRate;
+		}
+		
+		@Override
+		public void setDesiredRate(int desiredRate) {
+			long now = System.nanoTime();
+			if (this.desiredRate <= 0) {
+				// Nothing was scheduled while stopped, so start the schedule afresh
+				nextArrivalNs.set(now);
+			}
+			else if (desiredRate > 0 && desiredRate != this.desiredRate) {
+				// Rescale the wait for the next arrival to the new rate, keeping any backlog of
+				// late arrivals. If a worker claims the arrival first the new rate applies from
+				// the one after.
+				long next = nextArrivalNs.get();
+				if (next > now) {
+					nextArrivalNs.compareAndSet(next, now + (long)((next - now) * (double)this.desiredRate / desiredRate));
 				}
-				else {
-					if (tps > desiredRate * UPPER_TOLERANCE) {
-						// Going too fast, slow down
-						// Allow to be within 5% tolerance
-						if (LOGGER.isDebugEnabled()) {
-							LOGGER.debug(String.format("Running too fast, %d / %d = %d\n", this.desiredRate, this.currentThreads, this.desiredRate/this.currentThreads));
+			}
+			this.desiredRate = desiredRate;
+		}
+		
+		@Override
+		public double getCurrentRate() {
+			return currentRate;
+		}
+		
+		@Override
+		public int getCurrentThreadCount() {
+			return numWorkers;
+		}
+		
+		@Override
+		public double getControllerError() {
+			int rate = desiredRate;
+			return rate <= 0 ? 0.0 : (rate - currentRate) / rate;
+		}
+		
+		@Override
+		public double getControllerOutput() {
+			return desiredRate;
+		}
+		
+		@Override
+		public void terminate(long graceMs) throws InterruptedException {
+			this.terminate.set(true);
+			awaitWorkers(executor, graceMs, instance);
+		}
+		
+		/**
+		 * Wait, without holding a claim, until the next arrival is nearly due.
+		 * @return false if the workload was terminated while waiting
+		 */
+		protected boolean awaitNextArrival() {
+			long wait;
+			while ((wait = nextArrivalNs.get() - System.nanoTime() - CLAIM_AHEAD_NS) > 0) {
+				LockSupport.parkNanos(Math.min(wait, 100_000_000L));
+				if (terminate.get()) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * Claim the next arrival on the schedule.
+		 * @return the time the arrival is due in System.nanoTime() terms, or NO_ARRIVAL if the rate is zero.
+		 */
+		protected long claimNextArrival() {
+			int rate = desiredRate;
+			if (rate <= 0) {
+				return NO_ARRIVAL;
+			}
+			double meanGapNs = 1_000_000_000.0 / rate;
+			while (true) {
+				long arrival = nextArrivalNs.get();
+				long gapNs = (long)(distribution == ArrivalDistribution.POISSON ?
+						-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanGapNs : meanGapNs);
+				if (nextArrivalNs.compareAndSet(arrival, arrival + gapNs)) {
+					return arrival;
+				}
+			}
+		}
+		
+		/**
+		 * Park until the deadline, spinning for the last few microseconds for precision.
+		 * @return false if the workload was terminated while waiting
+		 */
+		protected boolean parkUntil(long deadlineNs) {
+			long remaining;
+			while ((remaining = deadlineNs - System.nanoTime()) > SPIN_THRESHOLD_NS) {
+				LockSupport.parkNanos(Math.min(remaining - SPIN_THRESHOLD_NS, 100_000_000L));
+				if (terminate.get()) {
+					return false;
+				}
+			}
+			while (System.nanoTime() < deadlineNs) {
+				Thread.yield();
+			}
+			return true;
+		}
+		
+		protected Runnable createWorker() {
+			return new OpenLoopWorker();
+		}
+		
+		private class OpenLoopWorker implements Runnable {
+			private final Timer timer = timerService.getTimer();
+			private final Object threadData = createThreadData(threadDataClass);
+			
+			@Override
+			public void run() {
+				if (initializationHandler != null) {
+					initializationHandler.invoke(customData, threadData);
+				}
+				try {
+					while (!terminate.get() && awaitNextArrival()) {
+						long arrivalNs = claimNextArrival();
+						if (arrivalNs == NO_ARRIVAL) {
+							sleep(100);
+							continue;
 						}
-						// Don't drop the delay all at once as this can lead to oscillation
-						// of the throughput.
-						int predictedThreadDelay = 1000 * this.currentThreads / this.desiredRate;
-						if (predictedThreadDelay >= threadDelay.get()) {
-							// This really should be the case
-							this.setThreadDelay((predictedThreadDelay + threadDelay.get())/2);
+						if (!parkUntil(arrivalNs)) {
+							break;
+						}
+						timer.start(arrivalNs);
+						long timeInNs = executeTask(runner, customData, threadData, timer, workloadOrdinal, instance);
+						transactionCounter.incrementAndGet();
+						if (timeInNs < 0) {
+							break;
 						}
 					}
-					else if (tps < desiredRate) {
-						// we're going too slowly, see if there's any capacity to increase it
-						int optimalThreadDelay = Math.floorDiv(1000 * this.currentThreads, (int)(this.desiredRate * AIMING_TOLERANCE));
-						int availableTimePerThreadPerSecond = (int)(idleTimePerSecond / this.currentThreads);
+				}
+				finally {
+					if (terminationHandler != null) {
+						terminationHandler.invoke(customData, threadData);
+					}
+				}
+			}
+		}
+		
+		@Override
+		public void run() {
+			nextArrivalNs.set(System.nanoTime());
+			for (int i = 0; i < numWorkers; i++) {
+				executor.submit(createWorker());
+			}
+			while (!this.terminate.get()) {
+				try {
+					Thread.sleep(RATE_INTERVAL_MSECS);
+				} catch (InterruptedException e) {
+					this.terminate.set(true);
+				}
+				this.currentRate = transactionCounter.getAndSet(0) * (1000.0/RATE_INTERVAL_MSECS);
+			}
+		}
+	}
 	
-						if (LOGGER.isDebugEnabled()) {
-							LOGGER.debug(String.format("Running too slow, optimal thread delay = %d, current threadDelay = %d, idleTimePerSecondPerThread = %d\n",
-								optimalThreadDelay, threadDelay.get(), availableTimePerThreadPerSecond));
+	/**
+	 * Issues asynchronous operations open loop from a few event loop threads. Each event loop
+	 * claims arrivals from the schedule like {@link OpenLoopScheduler} but, rather than
+	 * blocking on the operation, starts it and moves on to the next arrival, so a handful of
+	 * threads can keep thousands of operations in flight. The number in flight is capped; once
+	 * the cap is reached arrivals wait for an operation to complete, which shows up as
+	 * scheduling lag. Each in-flight operation has its own timer which ends when the operation
+	 * completes, on whichever thread completes it.
+	 * <p/>
+	 * Operations are not retried, as a retry would need to be chained onto the returned stage.
+	 */
+	private static class AsyncPipeline extends OpenLoopScheduler {
+		private final AsyncExecuteTask asyncRunner;
+		private final int maxInFlight;
+		private final Semaphore inFlight;
+		private final Queue<Timer> timers = new ConcurrentLinkedQueue<Timer>();
+		
+		public AsyncPipeline(int desiredRate, ArrivalDistribution distribution, int eventLoopThreads, int maxInFlight,
+				ExecutorService executor, AsyncExecuteTask asyncRunner, Object customData, TimerService timerService, 
+				CallbackHandler initializationHandler, CallbackHandler terminationHandler, 
+				Class<?> threadDataClass, int workloadOrdinal, ThroughputWorkloadInstance instance) {
+			super(desiredRate, distribution, eventLoopThreads, executor, null, customData, timerService,
+					initializationHandler, terminationHandler, threadDataClass, workloadOrdinal, instance);
+			this.asyncRunner = asyncRunner;
+			this.maxInFlight = maxInFlight;
+			this.inFlight = new Semaphore(maxInFlight);
+			for (int i = 0; i < maxInFlight; i++) {
+				timers.add(timerService.getTimer());
+			}
+		}
+		
+		@Override
+		public void terminate(long graceMs) throws InterruptedException {
+			long startNs = System.nanoTime();
+			super.terminate(graceMs);
+			// Wait for the operations still in flight so their results are recorded
+			long remainingMs = Math.max(0, graceMs - (System.nanoTime() - startNs) / 1_000_000);
+			if (inFlight.tryAcquire(maxInFlight, remainingMs, TimeUnit.MILLISECONDS)) {
+				inFlight.release(maxInFlight);
+			}
+			else {
+				System.out.printf("%s: abandoned %d operations still in flight after %,dms\n",
+						instance.getWorkloadId(), maxInFlight - inFlight.availablePermits(), graceMs);
+			}
+		}
+		
+		@Override
+		protected Runnable createWorker() {
+			return new EventLoop();
+		}
+		
+		private void complete(Timer timer, Throwable error) {
+			try {
+				if (error == null) {
+					timer.end(ExecutionStatus.SUCCESS, workloadOrdinal);
+				}
+				else {
+					Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+					timer.end(Outcome.classify(cause), workloadOrdinal);
+					if (cause instanceof Exception) {
+						instance.handleException((Exception)cause);
+					}
+				}
+			}
+			finally {
+				transactionCounter.incrementAndGet();
+				timers.offer(timer);
+				inFlight.release();
+			}
+		}
+		
+		private class EventLoop implements Runnable {
+			private final Object threadData = createThreadData(threadDataClass);
+			
+			private boolean acquireInFlightSlot() throws InterruptedException {
+				while (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+					if (terminate.get()) {
+						return false;
+					}
+				}
+				return true;
+			}
+			
+			@Override
+			public void run() {
+				if (initializationHandler != null) {
+					initializationHandler.invoke(customData, threadData);
+				}
+				try {
+					while (!terminate.get() && awaitNextArrival()) {
+						long arrivalNs = claimNextArrival();
+						if (arrivalNs == NO_ARRIVAL) {
+							sleep(100);
+							continue;
+						}
+						if (!parkUntil(arrivalNs) || !acquireInFlightSlot()) {
+							break;
+						}
+						Timer timer = timers.poll();
+						timer.start(arrivalNs);
+						CompletionStage<?> stage;
+						try {
+							stage = asyncRunner.run(customData, threadData);
+						}
+						catch (Exception e) {
+							complete(timer, e);
+							continue;
+						}
+						finally {
+							// The operation completes on another thread, so stop this thread's phases going to it
+							timer.detach();
+						}
+						if (stage == null) {
+							complete(timer, null);
+						}
+						else {
+							stage.whenComplete((result, error) -> complete(timer, error));
 						}
-						
-						if (optimalThreadDelay <= threadDelay.get() && availableTimePerThreadPerSecond >= 100) {
-							// There's at least 100ms spare per thread per second, try lowering the thread delay
-							if (threadDelay.get() - availableTimePerThreadPerSecond < optimalThreadDelay) {
-								this.setThreadDelay(optimalThreadDelay);
-							}
-							else {
-								this.setThreadDelay(this.threadDelay.get() - availableTimePerThreadPerSecond);
-							}
+					}
+				}
+				catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				finally {
+					if (terminationHandler != null) {
+						terminationHandler.invoke(customData, threadData);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Run the task once, retrying transient failures with an exponential back off. The timer
+	 * must already have been started.
+	 * @return the time the final attempt took in nanoseconds, or -1 if the task failed with an
+	 * error which cannot be recovered from, so the worker should stop.
+	 */
+	private static long executeTask(ExecuteTask task, Object customData, Object threadData, Timer timer,
+			int workloadOrdinal, ThroughputWorkloadInstance instance) {
+			int retriesCounter = 0;
+			int backOff = 0;
+			long timeInNs;
+			do {
+				try {
+					task.run(customData, threadData);
+					timeInNs = timer.end(ExecutionStatus.SUCCESS,workloadOrdinal);
+				}
+				catch (BadSqlGrammarException badSqlException) {
+					timeInNs = timer.end(Outcome.classify(badSqlException), workloadOrdinal);
+					// This is an error which cannot be recovered so break out.
+					System.err.printf("Invalid SQL statement \"%s\". The error was %s\n", 
+							badSqlException.getSql(), badSqlException.getMessage());
+					badSqlException.printStackTrace();
+					return -1;
+				}
+				catch (NonTransientDataAccessException ntdae) {
+					timeInNs = timer.end(Outcome.classify(ntdae), workloadOrdinal);
+					System.err.printf("Non transient data exception caught. Type: %s, message: %s\n",
+							ntdae.getClass(), ntdae.getMessage());
+					ntdae.printStackTrace();
+					return -1;
+				}
+				catch (TransientDataAccessException tdae) {
+					timeInNs = timer.end(Outcome.classify(tdae), workloadOrdinal);
+					System.err.printf("Transient data exception caught. Type: %s, message: %s\n",
+							tdae.getClass(), tdae.getMessage());
+					if (++retriesCounter <= MAX_RETRIES) {
+						if (backOff == 0) {
+							backOff = 10;
 						}
 						else {
-							// We need to increase the threads
-							this.createAndSubmitThread();
-							this.setThreadDelay(Math.floorDiv(1000 * this.currentThreads, (int)(this.desiredRate * AIMING_TOLERANCE)));						
+							backOff *= 2;
 						}
+						sleep(backOff);
+					}
+					else {
+						retriesCounter = 0;
+						instance.handleException(tdae);
 					}
 				}
+				catch (DataAccessException dae) {
+					timeInNs = timer.end(Outcome.classify(dae), workloadOrdinal);
+					instance.handleException(dae);
+				}
+				catch (Exception e) {
+					timeInNs = timer.end(Outcome.classify(e), workloadOrdinal);
+					instance.handleException(e);
+				}
+			} while (retriesCounter > 0);
+		return timeInNs;
+	}
+	
+	private static void sleep(int milliseconds) {
+		if (milliseconds <= 1 ) {
+			return;
+		}
+		try {
+			Thread.sleep(milliseconds);
+		} catch (InterruptedException e) {
+			throw new RuntimeException("Interrupted", e);
+		}
+	}
+	
+	private static void sleepNanos(long nanoseconds) {
+		long deadline = System.nanoTime() + nanoseconds;
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(remaining);
+			if (Thread.interrupted()) {
+				throw new RuntimeException("Interrupted");
 			}
 		}
 	}
 	
 	private static class WorkerThread implements Runnable {
-		private final AtomicInteger threadDelay;
+		private final ThreadManager manager;
 		private final ExecuteTask task;
-		private final AtomicBoolean terminate;
 		private final Object customData;
 		private final Timer timer;
 		private Object threadData;
-		private final AtomicLong idleTimeCounter;
-		private final AtomicInteger transactionCounter;
 		private final CallbackHandler initializationHandler;
 		private final CallbackHandler terminationHandler;
 		private final int workloadOrdinal;
 		private final ThroughputWorkloadInstance instance;
-	    private static final Logger LOGGER = LoggerFactory.getLogger(ThroughputWorkloadType.class);
+		private final boolean correctCoordinatedOmission;
 		
-		public WorkerThread(AtomicInteger threadDelay, AtomicLong idleTimeCounter,
-				AtomicInteger transactionCounter, AtomicBoolean terminate, 
+		public WorkerThread(ThreadManager manager, 
 				ExecuteTask task, Object customData, TimerService timerService, 
 				CallbackHandler initializationHandler, CallbackHandler terminationHandler, 
-				Object threadData, int workloadOrdinal, ThroughputWorkloadInstance instance) {
-			this.threadDelay = threadDelay;
+				Object threadData, int workloadOrdinal, ThroughputWorkloadInstance instance,
+				boolean correctCoordinatedOmission) {
+			this.manager = manager;
 			this.task = task;
-			this.terminate = terminate;
 			this.customData = customData;
 			this.threadData = threadData;
 			this.timer = timerService.getTimer();
-			this.idleTimeCounter =  idleTimeCounter;
-			this.transactionCounter = transactionCounter;
 			this.initializationHandler = initializationHandler;
 			this.terminationHandler = terminationHandler;
 			this.workloadOrdinal = workloadOrdinal;
 			this.instance = instance;
-		}
-		
-		private void sleep(int milliseconds) {
-			if (milliseconds <= 1 ) {
-				return;
-			}
-			try {
-				Thread.sleep(milliseconds);
-			} catch (InterruptedException e) {
-				throw new RuntimeException("Interrupted", e);
-			}
+			this.correctCoordinatedOmission = correctCoordinatedOmission;
 		}
 		
 		@Override
 		public void run() {
+			boolean retired = false;
 			if (this.initializationHandler != null) {
 				this.initializationHandler.invoke(customData, threadData);
 			}
 			try {
-				sleep(ThreadLocalRandom.current().nextInt(threadDelay.get()));
-				while (!terminate.get()) {
-					timer.start();
-					int retriesCounter = 0;
-					int backOff = 0;
-					long timeInNs;
-					boolean breakOuter = false;
-					do {
-						try {
-							task.run(customData, threadData);
-							timeInNs = timer.end(ExecutionStatus.SUCCESS,this.workloadOrdinal);
-						}
-						catch (BadSqlGrammarException badSqlException) {
-							timeInNs = timer.end(ExecutionStatus.ERROR, this.workloadOrdinal);
-							// This is an error which cannot be recovered so break out.
-							System.err.printf("Invalid SQL statement \"%s\". The error was %s\n", 
-									badSqlException.getSql(), badSqlException.getMessage());
-							badSqlException.printStackTrace();
-							breakOuter = true;
-							break;
-						}
-						catch (NonTransientDataAccessException ntdae) {
-							timeInNs = timer.end(ExecutionStatus.ERROR, this.workloadOrdinal);
-							System.err.printf("Non transient data exception caught. Type: %s, message: %s\n",
-									ntdae.getClass(), ntdae.getMessage());
-							ntdae.printStackTrace();
-							breakOuter = true;
-							break;
-						}
-						catch (TransientDataAccessException tdae) {
-							timeInNs = timer.end(ExecutionStatus.ERROR, this.workloadOrdinal);
-							System.err.printf("Transient data exception caught. Type: %s, message: %s\n",
-									tdae.getClass(), tdae.getMessage());
-							if (++retriesCounter <= MAX_RETRIES) {
-								if (backOff == 0) {
-									backOff = 10;
-								}
-								else {
-									backOff *= 2;
-								}
-								sleep(backOff);
-							}
-							else {
-								retriesCounter = 0;
-								instance.handleException(tdae);
-							}
-						}
-						catch (DataAccessException dae) {
-							timeInNs = timer.end(ExecutionStatus.ERROR, this.workloadOrdinal);
-							instance.handleException(dae);
-						}
-						catch (Exception e) {
-							timeInNs = timer.end(ExecutionStatus.ERROR, this.workloadOrdinal);
-							instance.handleException(e);
-						}
-					} while (retriesCounter > 0);
-					this.transactionCounter.incrementAndGet();
-					if (breakOuter) {
+				// Spread the workers' operations out over the delay
+				sleepNanos(ThreadLocalRandom.current().nextLong(manager.getThreadDelayUs() + 1) * 1000);
+				long intendedStartTimeNs = System.nanoTime();
+				while (!manager.terminate.get() && !(retired = manager.retireIfSurplus())) {
+					if (correctCoordinatedOmission) {
+						timer.start(intendedStartTimeNs);
+					}
+					else {
+						timer.start();
+					}
+					long timeInNs = executeTask(task, customData, threadData, timer, workloadOrdinal, instance);
+					manager.operationCompleted(timeInNs);
+					if (timeInNs < 0) {
 						break;
 					}
-					int idleTime = threadDelay.get() - (int)(timeInNs / 1000000);
-					if (idleTime > 0) {
-						this.idleTimeCounter.addAndGet(idleTime);
-						sleep(idleTime);
+					long idleTimeNs;
+					if (correctCoordinatedOmission) {
+						// Schedule the next operation from when this one should have started, not
+						// from when it finished. If the database stalls, the operations which
+						// should have been sent during the stall are then late, and the time they
+						// spent waiting is included in their corrected latency.
+						intendedStartTimeNs += manager.getThreadDelayUs() * 1000;
+						idleTimeNs = intendedStartTimeNs - System.nanoTime();
+					}
+					else {
+						idleTimeNs = manager.getThreadDelayUs() * 1000 - timeInNs;
+					}
+					if (idleTimeNs > 0) {
+						sleepNanos(idleTimeNs);
 					}
 				}
 			}
 			finally {
+				if (!retired) {
+					manager.workerExited();
+				}
 				if (this.terminationHandler != null) {
 					this.terminationHandler.invoke(customData, threadData);
 				}
@@ -345,23 +863,69 @@ public class ThroughputWorkloadType extends WorkloadType {
 		}
 	}
 	public static final int MAX_RETRIES = 6;
+	public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+	public static final String LOAD_PROFILE_PROPERTY = "load-profile";
+	private static final long PROFILE_TICK_MS = 100;
+	// The profile for instances created by the current thread, see withLoadProfile()
+	private static final ThreadLocal<LoadProfile> defaultLoadProfile = new ThreadLocal<LoadProfile>();
+	
+	/**
+	 * Run the invocation with the passed load profile as the default of any throughput workload
+	 * instances it creates on this thread. This applies the load-profile system property to the
+	 * workload started with -DworkloadType alone, not to workloads started from the UI or by a
+	 * sweep or throughput search, which set their own rates.
+	 */
+	public static void withLoadProfile(LoadProfile loadProfile, Runnable invocation) {
+		LoadProfile previous = defaultLoadProfile.get();
+		defaultLoadProfile.set(loadProfile);
+		try {
+			invocation.run();
+		}
+		finally {
+			defaultLoadProfile.set(previous);
+		}
+	}
+	
 	public class ThroughputWorkloadInstance extends WorkloadTypeInstance {
-		private final ExecutorService executor = Executors.newCachedThreadPool();
+		private ExecutorService executor;
 		private Object customData = null;
-		private ThreadManager threadManager;
+		private LoadGenerator threadManager;
 		private Thread threadManagerThread;
+		private ArrivalDistribution arrivalDistribution;
 		private int maxThreads = 1;
 		private CallbackHandler threadTerminationHandler = null;
 		private CallbackHandler threadInitializationHandler = null;
 		private Class<?> threadDataClass;
+		private boolean correctCoordinatedOmission;
+		private RateController rateController = new PidRateController();
+		private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+		private int eventLoopThreads = 1;
+		private LoadProfile loadProfile;
+		private volatile boolean profileTerminated = false;
 		
 		public ThroughputWorkloadInstance(ServiceManager serviceManager, WorkloadDesc workload, ParamValue[] params) {
 			super(serviceManager, workload, params);
+			this.correctCoordinatedOmission = getTimerService().isCorrectCoordinatedOmission();
+			this.arrivalDistribution = ArrivalDistribution.parse(getTimerService().getArrivalDistribution());
+			this.loadProfile = defaultLoadProfile.get();
+			setConfiguredRateController();
 		}
 
 		public ThroughputWorkloadInstance(ServiceManager serviceManager) {
 			super(serviceManager);
+			this.correctCoordinatedOmission = getTimerService().isCorrectCoordinatedOmission();
+			this.arrivalDistribution = ArrivalDistribution.parse(getTimerService().getArrivalDistribution());
+			this.loadProfile = defaultLoadProfile.get();
+			setConfiguredRateController();
 		}
+		
+		private void setConfiguredRateController() {
+			RateController configured = getWorkloadManager().createRateController();
+			if (configured != null) {
+				this.rateController = configured;
+			}
+		}
+		
 		public ThroughputWorkloadInstance setCustomData(Object customData) {
 			this.customData = customData;
 			return this;
@@ -384,6 +948,116 @@ public class ThroughputWorkloadType extends WorkloadType {
 			this.threadDataClass = threadDataClass;
 			return this;
 		}
+		/**
+		 * When set, each operation is given an intended start time derived from the target rate
+		 * and its latency is also measured from that time. This corrects for coordinated omission
+		 * where a slow database causes operations to be issued late, hiding the true latency. The
+		 * corrected latencies are reported alongside the normal ones.
+		 */
+		public ThroughputWorkloadInstance setCorrectCoordinatedOmission(boolean correctCoordinatedOmission) {
+			this.correctCoordinatedOmission = correctCoordinatedOmission;
+			return this;
+		}
+		
+		public boolean isCorrectCoordinatedOmission() {
+			return correctCoordinatedOmission;
+		}
+		
+		/**
+		 * Set how operations are issued. With an open loop distribution (FIXED or POISSON) the
+		 * max threads workers are all started up front and operations are issued on a schedule
+		 * at the target rate however slow they are; their latencies are always corrected for
+		 * coordinated omission and the scheduling lag is reported.
+		 */
+		public ThroughputWorkloadInstance setArrivalDistribution(ArrivalDistribution arrivalDistribution) {
+			this.arrivalDistribution = arrivalDistribution;
+			return this;
+		}
+		
+		public ArrivalDistribution getArrivalDistribution() {
+			return arrivalDistribution;
+		}
+		
+		/**
+		 * Set the controller which adjusts a closed loop workload to run at the desired rate.
+		 * Defaults to the one chosen by workload.rate-controller, a {@link PidRateController} unless
+		 * this is aimd. The controller is not used for open loop workloads.
+		 */
+		public ThroughputWorkloadInstance setRateController(RateController rateController) {
+			this.rateController = rateController;
+			return this;
+		}
+		
+		public RateController getRateController() {
+			return rateController;
+		}
+		
+		/**
+		 * Set the maximum number of operations an asynchronous workload started with
+		 * {@link #executeAsync(int, AsyncExecuteTask)} keeps in flight at once.
+		 */
+		public ThroughputWorkloadInstance setMaxInFlight(int maxInFlight) {
+			this.maxInFlight = maxInFlight;
+			return this;
+		}
+		
+		public int getMaxInFlight() {
+			return maxInFlight;
+		}
+		
+		/**
+		 * Set the number of threads which start the operations of an asynchronous workload.
+		 * One is usually plenty as the threads never block on the operations.
+		 */
+		public ThroughputWorkloadInstance setEventLoopThreads(int eventLoopThreads) {
+			this.eventLoopThreads = eventLoopThreads;
+			return this;
+		}
+		
+		public int getEventLoopThreads() {
+			return eventLoopThreads;
+		}
+		
+		/**
+		 * Drive the desired rate from a load profile instead of the fixed rate passed to
+		 * {@link #execute(int, ExecuteTask)}. The rate is updated every {@value #PROFILE_TICK_MS}ms
+		 * on a timeline starting when the workload starts executing, and the workload terminates
+		 * when the profile ends. Defaults to the profile passed to {@link ThroughputWorkloadType#withLoadProfile(LoadProfile, Runnable)}, if any.
+		 */
+		public ThroughputWorkloadInstance setLoadProfile(LoadProfile loadProfile) {
+			this.loadProfile = loadProfile;
+			return this;
+		}
+		
+		public LoadProfile getLoadProfile() {
+			return loadProfile;
+		}
+		
+		/**
+		 * Exclude the first part of the workload from the measured results while the connection
+		 * pool fills and the rate controller adds threads, see {@link WorkloadTypeInstance#configureWarmup(long, long)}
+		 */
+		public ThroughputWorkloadInstance setWarmup(long warmupMs, long warmupOperations) {
+			configureWarmup(warmupMs, warmupOperations);
+			return this;
+		}
+		
+		/**
+		 * Terminate the workload after it has run for the passed time, see {@link WorkloadTypeInstance#configureDeadline(long)}
+		 */
+		public ThroughputWorkloadInstance setDuration(long durationMs) {
+			configureDeadline(durationMs <= 0 ? 0 : getStartTime() + durationMs);
+			return this;
+		}
+		
+		/**
+		 * Terminate the workload at the passed wall clock time, see {@link WorkloadTypeInstance#configureDeadline(long)}
+		 */
+		public ThroughputWorkloadInstance setDeadline(long deadline) {
+			configureDeadline(deadline);
+			return this;
+		}
+		
 		public ThroughputWorkloadInstance onThreadTermination(CallbackHandler handler) {
 			this.threadTerminationHandler = handler;
 			return this;
@@ -409,39 +1083,152 @@ public class ThroughputWorkloadType extends WorkloadType {
 		
 		@Override
 		public void doTerminate() {
+			this.profileTerminated = true;
 			try {
-				this.threadManager.terminate();
+				this.threadManager.terminate(getShutdownGraceMs());
 			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 			}
 		}
 		
-		private static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed\n";
-		private static final String csvFormat = "%d,%d,%d,%d,%d,%d\n";
+		private static final String csvHeader = "Start Time,Min Time Us,Average Time Us,Max Time Us,Num Succeeded,Num Failed,Target Rate,Controller Error,Controller Output,Threads";
+		private static final String csvFormat = "%d,%d,%d,%d,%d,%d,%d,%f,%f,%d";
 		
 		@Override
 		public String formatToCsv(TimerResult result) {
+			ThroughputTimerResult throughputResult = (ThroughputTimerResult)result;
 			return String.format(csvFormat, result.getStartTimeMs(), result.getMinUs(), result.getAvgUs(),
-					result.getMaxUs(), result.getNumSucceeded(), result.getNumFailed());
+					result.getMaxUs(), result.getNumSucceeded(), result.getNumFailed(),
+					throughputResult.getTargetRate(), throughputResult.getControllerError(),
+					throughputResult.getControllerOutput(), throughputResult.getThreads())
+					+ result.formatPercentilesToCsv()
+					+ LatencySummary.formatToCsv(result.getCorrectedLatency(), result.getPercentiles())
+					+ result.formatOutcomesToCsv()
+					+ LatencySummary.formatToCsv(result.getSchedulingLag(), result.getPercentiles()) + "\n";
 		}
 		
 		@Override
 		public String getCsvHeader() {
-			return csvHeader;
+			Percentiles percentiles = getTimerService().getPercentiles();
+			return csvHeader + percentiles.getCsvHeader() + LatencySummary.getCsvHeader("Corrected", percentiles)
+					+ TimerResult.getOutcomesCsvHeader() + LatencySummary.getCsvHeader("Scheduling Lag", percentiles) + "\n";
 		}
 		
 		public double getCurrentRate() {
 			return this.threadManager == null ? 0.0 : this.threadManager.getCurrentRate();
 		}
 		
+		public int getCurrentThreadCount() {
+			return this.threadManager == null ? 0 : this.threadManager.getCurrentThreadCount();
+		}
+		
+		@Override
+		protected TimerResult doAugmentTimingResult(TimerResult result) {
+			LoadGenerator generator = this.threadManager;
+			if (generator == null) {
+				return new ThroughputTimerResult(result, 0, 0.0, 0.0, 0);
+			}
+			return new ThroughputTimerResult(result, generator.getDesiredRate(), generator.getControllerError(),
+					generator.getControllerOutput(), generator.getCurrentThreadCount());
+		}
+		
+		@Override
+		protected int getResultExtensionSize() {
+			return 4;
+		}
+		
+		@Override
+		protected void writeResultExtension(TimerResult result, long[] values) {
+			ThroughputTimerResult throughputResult = (ThroughputTimerResult)result;
+			values[0] = throughputResult.getTargetRate();
+			values[1] = Double.doubleToLongBits(throughputResult.getControllerError());
+			values[2] = Double.doubleToLongBits(throughputResult.getControllerOutput());
+			values[3] = throughputResult.getThreads();
+		}
+		
+		@Override
+		protected TimerResult readResultExtension(TimerResult result, long[] values) {
+			return new ThroughputTimerResult(result, values[0], Double.longBitsToDouble(values[1]),
+					Double.longBitsToDouble(values[2]), values[3]);
+		}
+		
+		private int getInitialRate(int throughputRate) {
+			LoadProfile profile = this.loadProfile;
+			return profile == null ? throughputRate : (int)Math.round(Math.max(0, profile.getRate(0)));
+		}
+		
 		public ThroughputWorkloadInstance execute(int throughputRate, ExecuteTask runner) {
-			this.threadManager = new ThreadManager(throughputRate, maxThreads, executor, runner, this.customData, getTimerService(), this.threadInitializationHandler, this.threadTerminationHandler, this.threadDataClass, this.getWorkloadOrdinal(), this);
+			throughputRate = getInitialRate(throughputRate);
+			if (runner instanceof OperationMix) {
+				setOperationMix((OperationMix)runner);
+			}
+			this.executor = getWorkerThreadService().newExecutor();
+			if (this.arrivalDistribution == null || this.arrivalDistribution == ArrivalDistribution.CLOSED_LOOP) {
+				this.threadManager = new ThreadManager(throughputRate, maxThreads, executor, runner, this.customData, getTimerService(), this.threadInitializationHandler, this.threadTerminationHandler, this.threadDataClass, this.getWorkloadOrdinal(), this, this.correctCoordinatedOmission, this.rateController);
+			}
+			else {
+				this.threadManager = new OpenLoopScheduler(throughputRate, arrivalDistribution, maxThreads, executor, runner, this.customData, getTimerService(), this.threadInitializationHandler, this.threadTerminationHandler, this.threadDataClass, this.getWorkloadOrdinal(), this);
+			}
+			return start();
+		}
+		
+		/**
+		 * Run an asynchronous task at the desired rate with at most {@link #setMaxInFlight(int)} operations
+		 * in flight, started from {@link #setEventLoopThreads(int)} threads. Operations are always issued
+		 * open loop; a closed loop arrival distribution issues them at fixed intervals.
+		 */
+		public ThroughputWorkloadInstance executeAsync(int throughputRate, AsyncExecuteTask runner) {
+			throughputRate = getInitialRate(throughputRate);
+			this.executor = getWorkerThreadService().newExecutor();
+			ArrivalDistribution distribution = this.arrivalDistribution == ArrivalDistribution.POISSON ?
+					ArrivalDistribution.POISSON : ArrivalDistribution.FIXED;
+			this.threadManager = new AsyncPipeline(throughputRate, distribution, eventLoopThreads, maxInFlight, executor, runner, this.customData, getTimerService(), this.threadInitializationHandler, this.threadTerminationHandler, this.threadDataClass, this.getWorkloadOrdinal(), this);
+			return start();
+		}
+		
+		private ThroughputWorkloadInstance start() {
+			LoadProfile profile = this.loadProfile;
 			this.threadManagerThread = new Thread(threadManager, "Thread Manager for " + this.getWorkloadId());
 			this.threadManagerThread.setDaemon(true);
 			this.threadManagerThread.setPriority(Thread.MAX_PRIORITY);
 			this.threadManagerThread.start();
+			if (profile != null) {
+				Thread profileThread = new Thread(() -> runLoadProfile(profile), "Load Profile for " + this.getWorkloadId());
+				profileThread.setDaemon(true);
+				profileThread.setPriority(Thread.MAX_PRIORITY);
+				profileThread.start();
+			}
 			return this;
 		}
 		
+		private void runLoadProfile(LoadProfile profile) {
+			long startNs = System.nanoTime();
+			long durationMs = profile.getDurationMs();
+			int lastRate = getDesiredRate();
+			for (long tick = 1; !this.profileTerminated; tick++) {
+				// Sleep to absolute tick times so the timeline does not drift
+				long tickNs = startNs + tick * PROFILE_TICK_MS * 1_000_000L;
+				long remaining;
+				while ((remaining = tickNs - System.nanoTime()) > 0 && !this.profileTerminated) {
+					LockSupport.parkNanos(remaining);
+				}
+				long elapsedMs = (System.nanoTime() - startNs) / 1_000_000;
+				if (this.profileTerminated) {
+					break;
+				}
+				if (durationMs != LoadProfile.FOREVER && elapsedMs >= durationMs) {
+					System.out.printf("Load profile finished after %,dms, terminating %s\n", elapsedMs, this.getWorkloadId());
+					this.terminate();
+					break;
+				}
+				int rate = (int)Math.round(Math.max(0, profile.getRate(elapsedMs)));
+				if (rate != lastRate) {
+					setDesiredRate(rate);
+					lastRate = rate;
+				}
+			}
+		}
+		
 		public int getDesiredRate() {
 			return this.threadManager.getDesiredRate();
 		}
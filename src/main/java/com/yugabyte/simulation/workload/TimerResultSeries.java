@@ -0,0 +1,362 @@
+package com.yugabyte.simulation.workload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.yugabyte.simulation.dao.LatencySummary;
+import com.yugabyte.simulation.dao.Percentiles;
+import com.yugabyte.simulation.dao.TimerResult;
+import com.yugabyte.simulation.services.Outcome;
+
+/**
+ * A bounded series of interval results held as a ring buffer of primitive columns
+ * rather than a list of objects. Appending and evicting the oldest result are O(1),
+ * and {@link TimerResult} objects are only created for the results which are read.
+ * <p/>
+ * The columns grow by doubling up to the maximum number of results, so the memory
+ * used is bounded by the maximum and short workloads do not pay for it. Column groups
+ * for data which is only sometimes present (corrected latencies, scheduling lag, outcomes,
+ * phases and the operations of a mix) are only allocated once that data is first seen.
+ */
+class TimerResultSeries {
+	private static final int INITIAL_CAPACITY = 256;
+
+	/**
+	 * The columns holding a {@link LatencySummary} for each result. A count of zero
+	 * marks a result which did not have this summary.
+	 */
+	private static class SummaryColumns {
+		long[] count;
+		long[] minUs;
+		long[] avgUs;
+		long[] maxUs;
+		long[][] percentileUs;
+
+		SummaryColumns(int capacity, int numPercentiles) {
+			count = new long[capacity];
+			minUs = new long[capacity];
+			avgUs = new long[capacity];
+			maxUs = new long[capacity];
+			percentileUs = new long[numPercentiles][capacity];
+		}
+
+		void grow(int capacity) {
+			count = Arrays.copyOf(count, capacity);
+			minUs = Arrays.copyOf(minUs, capacity);
+			avgUs = Arrays.copyOf(avgUs, capacity);
+			maxUs = Arrays.copyOf(maxUs, capacity);
+			for (int i = 0; i < percentileUs.length; i++) {
+				percentileUs[i] = Arrays.copyOf(percentileUs[i], capacity);
+			}
+		}
+
+		void set(int slot, LatencySummary summary) {
+			count[slot] = summary.getCount();
+			minUs[slot] = summary.getMinUs();
+			avgUs[slot] = summary.getAvgUs();
+			maxUs[slot] = summary.getMaxUs();
+			for (int i = 0; i < percentileUs.length; i++) {
+				percentileUs[i][slot] = summary.getPercentileUs(i);
+			}
+		}
+
+		void clear(int slot) {
+			count[slot] = 0;
+		}
+
+		boolean isPresent(int slot) {
+			return count[slot] > 0;
+		}
+
+		LatencySummary get(int slot, Percentiles percentiles) {
+			long[] values = new long[percentileUs.length];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = percentileUs[i][slot];
+			}
+			return new LatencySummary(count[slot], minUs[slot], avgUs[slot], maxUs[slot], percentiles, values);
+		}
+	}
+
+	/**
+	 * The columns holding the result of one operation of a mix. A latency count of
+	 * zero marks a result which did not include this operation.
+	 */
+	private static class OperationColumns {
+		long[] numSucceeded;
+		long[] numFailed;
+		final SummaryColumns latency;
+
+		OperationColumns(int capacity, int numPercentiles) {
+			numSucceeded = new long[capacity];
+			numFailed = new long[capacity];
+			latency = new SummaryColumns(capacity, numPercentiles);
+		}
+
+		void grow(int capacity) {
+			numSucceeded = Arrays.copyOf(numSucceeded, capacity);
+			numFailed = Arrays.copyOf(numFailed, capacity);
+			latency.grow(capacity);
+		}
+
+		void set(int slot, TimerResult result) {
+			numSucceeded[slot] = result.getNumSucceeded();
+			numFailed[slot] = result.getNumFailed();
+			latency.set(slot, result.getLatency());
+		}
+
+		TimerResult get(int slot, Percentiles percentiles, long startTimeMs, long endTimeMs) {
+			return new TimerResult(latency.get(slot, percentiles), null, null, null, null, null,
+					numSucceeded[slot], numFailed[slot], startTimeMs, endTimeMs);
+		}
+	}
+
+	private final int maxResults;
+	private final WorkloadTypeInstance owner;
+	private final int extensionSize;
+	private Percentiles percentiles;
+	private int capacity = 0;
+	// The slot of the oldest result and the number of results held
+	private int head = 0;
+	private int size = 0;
+
+	private long[] startTimeMs;
+	private long[] endTimeMs;
+	private long[] numSucceeded;
+	private long[] numFailed;
+	private SummaryColumns latency;
+	private SummaryColumns correctedLatency;
+	private SummaryColumns schedulingLag;
+	private final SummaryColumns[] outcomes = new SummaryColumns[Outcome.count()];
+	private final Map<String, SummaryColumns> phases = new LinkedHashMap<String, SummaryColumns>();
+	private final Map<String, OperationColumns> operations = new LinkedHashMap<String, OperationColumns>();
+	private long[][] extensionColumns;
+	private final long[] extensionValues;
+
+	/**
+	 * @param maxResults - the number of results to retain, after which the oldest is discarded
+	 * @param owner - the workload the results belong to, which stores and restores any
+	 * workload specific values of its results
+	 */
+	public TimerResultSeries(int maxResults, WorkloadTypeInstance owner) {
+		this.maxResults = maxResults;
+		this.owner = owner;
+		this.extensionSize = owner.getResultExtensionSize();
+		this.extensionValues = new long[extensionSize];
+	}
+
+	private void allocate(int newCapacity, Percentiles percentiles) {
+		this.percentiles = percentiles;
+		this.capacity = newCapacity;
+		startTimeMs = new long[newCapacity];
+		endTimeMs = new long[newCapacity];
+		numSucceeded = new long[newCapacity];
+		numFailed = new long[newCapacity];
+		latency = new SummaryColumns(newCapacity, percentiles.size());
+		extensionColumns = new long[extensionSize][newCapacity];
+	}
+
+	// Only called before the ring has wrapped, so the results are in slots 0 to size-1
+	private void grow() {
+		int newCapacity = (int)Math.min((long)capacity * 2, maxResults);
+		startTimeMs = Arrays.copyOf(startTimeMs, newCapacity);
+		endTimeMs = Arrays.copyOf(endTimeMs, newCapacity);
+		numSucceeded = Arrays.copyOf(numSucceeded, newCapacity);
+		numFailed = Arrays.copyOf(numFailed, newCapacity);
+		latency.grow(newCapacity);
+		if (correctedLatency != null) {
+			correctedLatency.grow(newCapacity);
+		}
+		if (schedulingLag != null) {
+			schedulingLag.grow(newCapacity);
+		}
+		for (SummaryColumns outcome : outcomes) {
+			if (outcome != null) {
+				outcome.grow(newCapacity);
+			}
+		}
+		for (SummaryColumns phase : phases.values()) {
+			phase.grow(newCapacity);
+		}
+		for (OperationColumns operation : operations.values()) {
+			operation.grow(newCapacity);
+		}
+		for (int i = 0; i < extensionSize; i++) {
+			extensionColumns[i] = Arrays.copyOf(extensionColumns[i], newCapacity);
+		}
+		capacity = newCapacity;
+	}
+
+	public synchronized void add(TimerResult result) {
+		if (capacity == 0) {
+			allocate(Math.min(INITIAL_CAPACITY, maxResults), result.getPercentiles());
+		}
+		int slot;
+		if (size < capacity) {
+			slot = size++;
+		}
+		else if (capacity < maxResults) {
+			grow();
+			slot = size++;
+		}
+		else {
+			// Full, overwrite the oldest result
+			slot = head;
+			head = (head + 1) % capacity;
+		}
+		startTimeMs[slot] = result.getStartTimeMs();
+		endTimeMs[slot] = result.getEndTimeMs();
+		numSucceeded[slot] = result.getNumSucceeded();
+		numFailed[slot] = result.getNumFailed();
+		latency.set(slot, result.getLatency());
+
+		LatencySummary corrected = result.getCorrectedLatency();
+		if (corrected != null) {
+			if (correctedLatency == null) {
+				correctedLatency = new SummaryColumns(capacity, percentiles.size());
+			}
+			correctedLatency.set(slot, corrected);
+		}
+		else if (correctedLatency != null) {
+			correctedLatency.clear(slot);
+		}
+
+		LatencySummary lag = result.getSchedulingLag();
+		if (lag != null) {
+			if (schedulingLag == null) {
+				schedulingLag = new SummaryColumns(capacity, percentiles.size());
+			}
+			schedulingLag.set(slot, lag);
+		}
+		else if (schedulingLag != null) {
+			schedulingLag.clear(slot);
+		}
+
+		Map<Outcome, LatencySummary> resultOutcomes = result.getOutcomes();
+		for (int i = 0; i < outcomes.length; i++) {
+			LatencySummary summary = resultOutcomes.get(Outcome.fromOrdinal(i));
+			if (summary != null) {
+				if (outcomes[i] == null) {
+					outcomes[i] = new SummaryColumns(capacity, percentiles.size());
+				}
+				outcomes[i].set(slot, summary);
+			}
+			else if (outcomes[i] != null) {
+				outcomes[i].clear(slot);
+			}
+		}
+
+		Map<String, LatencySummary> resultPhases = result.getPhaseLatencies();
+		for (Map.Entry<String, SummaryColumns> phase : phases.entrySet()) {
+			if (!resultPhases.containsKey(phase.getKey())) {
+				phase.getValue().clear(slot);
+			}
+		}
+		for (Map.Entry<String, LatencySummary> phase : resultPhases.entrySet()) {
+			SummaryColumns columns = phases.get(phase.getKey());
+			if (columns == null) {
+				columns = new SummaryColumns(capacity, percentiles.size());
+				phases.put(phase.getKey(), columns);
+			}
+			columns.set(slot, phase.getValue());
+		}
+
+		Map<String, TimerResult> resultOperations = result.getOperations();
+		for (Map.Entry<String, OperationColumns> operation : operations.entrySet()) {
+			if (!resultOperations.containsKey(operation.getKey())) {
+				operation.getValue().latency.clear(slot);
+			}
+		}
+		for (Map.Entry<String, TimerResult> operation : resultOperations.entrySet()) {
+			OperationColumns columns = operations.get(operation.getKey());
+			if (columns == null) {
+				columns = new OperationColumns(capacity, percentiles.size());
+				operations.put(operation.getKey(), columns);
+			}
+			columns.set(slot, operation.getValue());
+		}
+
+		if (extensionSize > 0) {
+			owner.writeResultExtension(result, extensionValues);
+			for (int i = 0; i < extensionSize; i++) {
+				extensionColumns[i][slot] = extensionValues[i];
+			}
+		}
+	}
+
+	private int slotOf(int index) {
+		return (head + index) % capacity;
+	}
+
+	private TimerResult get(int index) {
+		int slot = slotOf(index);
+		LatencySummary corrected = correctedLatency != null && correctedLatency.isPresent(slot) ?
+				correctedLatency.get(slot, percentiles) : null;
+		LatencySummary lag = schedulingLag != null && schedulingLag.isPresent(slot) ?
+				schedulingLag.get(slot, percentiles) : null;
+		Map<Outcome, LatencySummary> resultOutcomes = new EnumMap<Outcome, LatencySummary>(Outcome.class);
+		for (int i = 0; i < outcomes.length; i++) {
+			if (outcomes[i] != null && outcomes[i].isPresent(slot)) {
+				resultOutcomes.put(Outcome.fromOrdinal(i), outcomes[i].get(slot, percentiles));
+			}
+		}
+		Map<String, LatencySummary> resultPhases = new LinkedHashMap<String, LatencySummary>();
+		for (Map.Entry<String, SummaryColumns> phase : phases.entrySet()) {
+			if (phase.getValue().isPresent(slot)) {
+				resultPhases.put(phase.getKey(), phase.getValue().get(slot, percentiles));
+			}
+		}
+		Map<String, TimerResult> resultOperations = new LinkedHashMap<String, TimerResult>();
+		for (Map.Entry<String, OperationColumns> operation : operations.entrySet()) {
+			if (operation.getValue().latency.isPresent(slot)) {
+				resultOperations.put(operation.getKey(), operation.getValue().get(slot, percentiles, startTimeMs[slot], endTimeMs[slot]));
+			}
+		}
+		TimerResult result = new TimerResult(latency.get(slot, percentiles), corrected, lag, resultOutcomes, resultPhases,
+				resultOperations, numSucceeded[slot], numFailed[slot], startTimeMs[slot], endTimeMs[slot]);
+		if (extensionSize > 0) {
+			long[] values = new long[extensionSize];
+			for (int i = 0; i < extensionSize; i++) {
+				values[i] = extensionColumns[i][slot];
+			}
+			result = owner.readResultExtension(result, values);
+		}
+		return result;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Get the results which started after the passed time, oldest first. A time of zero
+	 * or less returns all the results.
+	 */
+	public synchronized List<TimerResult> getResultsAfter(long fromTime) {
+		int start = 0;
+		if (fromTime > 0) {
+			// Binary search for the first result which started after fromTime
+			int low = 0;
+			int high = size - 1;
+			start = size;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (startTimeMs[slotOf(mid)] <= fromTime) {
+					low = mid + 1;
+				}
+				else {
+					start = mid;
+					high = mid - 1;
+				}
+			}
+		}
+		List<TimerResult> results = new ArrayList<TimerResult>(size - start);
+		for (int i = start; i < size; i++) {
+			results.add(get(i));
+		}
+		return results;
+	}
+}
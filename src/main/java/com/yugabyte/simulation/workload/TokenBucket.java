@@ -0,0 +1,96 @@
+package com.yugabyte.simulation.workload;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A token bucket shared by all the workers of a workload to cap the rate they run at,
+ * regardless of how many workers there are. Each operation takes a token before it starts,
+ * and tokens are added at the capped rate up to a small burst so a stalled workload cannot
+ * later run far above the cap to catch up.
+ * <p/>
+ * Rather than a count of tokens the bucket holds the time the next token becomes free, so
+ * taking a token is a single atomic update. The rate can be changed at any time; workers
+ * waiting for a token are woken to take one at the new rate.
+ */
+public class TokenBucket {
+	// How much time's worth of tokens the bucket can hold
+	private static final long BURST_NS = 50_000_000L;
+	// Waiting workers wake at least this often to check for a new rate or termination
+	private static final long MAX_PARK_NS = 10_000_000L;
+
+	private final AtomicLong nextFreeNs = new AtomicLong(System.nanoTime());
+	private volatile int rate;
+	private volatile long intervalNs;
+	private volatile int generation = 0;
+
+	/**
+	 * @param rate - the maximum rate in operations per second, zero or less for no cap
+	 */
+	public TokenBucket(int rate) {
+		setRate(rate);
+	}
+
+	/**
+	 * Change the maximum rate, zero or less to remove the cap.
+	 */
+	public synchronized void setRate(int rate) {
+		this.rate = Math.max(0, rate);
+		this.intervalNs = rate > 0 ? Math.max(1, 1_000_000_000L / rate) : 0;
+		// Tokens already promised at the old rate are forgotten
+		this.nextFreeNs.set(System.nanoTime());
+		this.generation++;
+	}
+
+	public int getRate() {
+		return rate;
+	}
+
+	public boolean isCapped() {
+		return rate > 0;
+	}
+
+	/**
+	 * Wait for a token to become available.
+	 * @param terminate - stop waiting when this becomes true
+	 * @return true if a token was taken, false if the wait was terminated or interrupted
+	 */
+	public boolean acquire(AtomicBoolean terminate) {
+		return acquire(terminate, 1);
+	}
+
+	/**
+	 * Wait for the passed number of tokens to become available, for example one per row of a batch.
+	 * @param terminate - stop waiting when this becomes true
+	 * @return true if the tokens were taken, false if the wait was terminated or interrupted
+	 */
+	public boolean acquire(AtomicBoolean terminate, int tokens) {
+		while (true) {
+			int currentGeneration = this.generation;
+			long interval = this.intervalNs * tokens;
+			if (interval <= 0) {
+				return !terminate.get();
+			}
+			long now = System.nanoTime();
+			long burstStart = now - Math.max(interval, BURST_NS);
+			long previous = nextFreeNs.getAndUpdate(next -> Math.max(next, burstStart) + interval);
+			long slot = Math.max(previous, burstStart);
+			boolean rateChanged = false;
+			while (now < slot) {
+				if (terminate.get() || Thread.currentThread().isInterrupted()) {
+					return false;
+				}
+				if (this.generation != currentGeneration) {
+					rateChanged = true;
+					break;
+				}
+				LockSupport.parkNanos(Math.min(slot - now, MAX_PARK_NS));
+				now = System.nanoTime();
+			}
+			if (!rateChanged) {
+				return !terminate.get();
+			}
+		}
+	}
+}
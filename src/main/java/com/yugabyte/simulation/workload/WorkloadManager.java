@@ -1,14 +1,27 @@
 package com.yugabyte.simulation.workload;
 
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.yugabyte.simulation.dao.ResultResolution;
 import com.yugabyte.simulation.dao.WorkloadResult;
 import com.yugabyte.simulation.services.TimerService;
 
@@ -18,12 +31,178 @@ public class WorkloadManager {
 	@Autowired
 	private TimerService timerService;
 	
+	@Value("${workload.duration:}")
+	private String defaultDuration;
+	
+	@Value("${workload.deadline:}")
+	private String defaultDeadline;
+	
+	@Value("${workload.shutdown-grace-ms:30000}")
+	private long shutdownGraceMs;
+	
+	@Value("${workload.checkpoint-dir:}")
+	private String checkpointDir;
+	
+	@Value("${workload.checkpoint-interval-ms:10000}")
+	private long checkpointIntervalMs;
+	
+	@Value("${workload.batch-size:100}")
+	private int batchSize;
+	
+	@Value("${workload.seed-method:insert}")
+	private String seedMethod;
+	
+	@Value("${workload.copy-rows-per-commit:10000}")
+	private int copyRowsPerCommit;
+	
+	@Value("${workload.rate-controller:pid}")
+	private String rateController;
+	
+	private long defaultDurationMs = 0;
+	private long defaultDeadlineMs = 0;
+	
 	private List<WorkloadTypeInstance> activeWorkloads;
 	private List<WorkloadTypeInstance> completedWorkloads;
+	private final ScheduledExecutorService deadlineScheduler;
 	
 	public WorkloadManager() {
 		this.activeWorkloads = new ArrayList<WorkloadTypeInstance>();
 		this.completedWorkloads = new ArrayList<WorkloadTypeInstance>();
+		this.deadlineScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Workload deadlines");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	@PostConstruct
+	private void initialize() {
+		if (seedMethod != null && !seedMethod.trim().isEmpty() && !"insert".equalsIgnoreCase(seedMethod.trim()) && !isSeedWithCopy()) {
+			throw new IllegalArgumentException("workload.seed-method must be insert or copy, not '" + seedMethod + "'");
+		}
+		createRateController();
+		if (defaultDuration != null && defaultDuration.trim().length() > 0) {
+			this.defaultDurationMs = LoadProfile.parseDurationMs(defaultDuration);
+		}
+		if (defaultDeadline != null && defaultDeadline.trim().length() > 0) {
+			this.defaultDeadlineMs = parseDeadline(defaultDeadline);
+		}
+	}
+	
+	/**
+	 * Parse a deadline given as either milliseconds since the epoch, an ISO instant such as
+	 * 2024-01-31T18:00:00Z, or an ISO local date and time such as 2024-01-31T18:00:00 in
+	 * the local time zone.
+	 */
+	public static long parseDeadline(String deadline) {
+		String text = deadline.trim();
+		if (text.matches("\\d+")) {
+			return Long.parseLong(text);
+		}
+		try {
+			return Instant.parse(text).toEpochMilli();
+		}
+		catch (DateTimeParseException e) {
+			try {
+				return LocalDateTime.parse(text).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+			}
+			catch (DateTimeParseException e2) {
+				throw new IllegalArgumentException("Deadline '" + deadline + "' must be epoch milliseconds or an ISO date and time, eg 2024-01-31T18:00:00", e2);
+			}
+		}
+	}
+	
+	/**
+	 * Get the deadline a workload starting at the passed time gets by default from
+	 * workload.duration and workload.deadline, whichever is earlier, or 0 for none.
+	 */
+	long getDefaultDeadline(long startTime) {
+		long deadline = defaultDurationMs > 0 ? startTime + defaultDurationMs : 0;
+		if (defaultDeadlineMs > 0 && (deadline == 0 || defaultDeadlineMs < deadline)) {
+			deadline = defaultDeadlineMs;
+		}
+		return deadline;
+	}
+	
+	/**
+	 * How long a terminating workload waits for its in-flight operations before abandoning them.
+	 */
+	long getShutdownGraceMs() {
+		return shutdownGraceMs;
+	}
+	
+	/**
+	 * The number of operations, such as inserted rows, batched workloads run per call by default.
+	 */
+	int getBatchSize() {
+		return Math.max(1, batchSize);
+	}
+	
+	/**
+	 * Should seed data steps bulk load their data with COPY rather than batched inserts? This
+	 * is set by workload.seed-method, either insert or copy.
+	 */
+	public boolean isSeedWithCopy() {
+		return "copy".equalsIgnoreCase(seedMethod == null ? null : seedMethod.trim());
+	}
+	
+	/**
+	 * The number of rows each COPY of a bulk load streams before it commits.
+	 */
+	public int getCopyRowsPerCommit() {
+		return Math.max(1, copyRowsPerCommit);
+	}
+	
+	/**
+	 * Create the controller a closed loop throughput workload uses to reach its rate, set by
+	 * workload.rate-controller: pid, or aimd for databases that degrade sharply when overloaded.
+	 */
+	RateController createRateController() {
+		String name = rateController == null ? "" : rateController.trim();
+		if (name.isEmpty() || "pid".equalsIgnoreCase(name)) {
+			return new PidRateController();
+		}
+		else if ("aimd".equalsIgnoreCase(name)) {
+			return new AimdRateController();
+		}
+		throw new IllegalArgumentException("workload.rate-controller must be pid or aimd, not '" + rateController + "'");
+	}
+	
+	/**
+	 * The directory resumable workloads save their checkpoints in, from workload.checkpoint-dir
+	 * or the temporary directory if this is not set.
+	 */
+	File getCheckpointDir() {
+		return new File(checkpointDir == null || checkpointDir.trim().length() == 0 ?
+				System.getProperty("java.io.tmpdir") : checkpointDir.trim());
+	}
+	
+	/**
+	 * Run the passed task every workload.checkpoint-interval-ms to save a checkpoint, or never
+	 * if the interval is 0 or less, in which case checkpoints are only saved on termination.
+	 */
+	ScheduledFuture<?> scheduleCheckpoint(Runnable saveCheckpoint) {
+		if (checkpointIntervalMs <= 0) {
+			return null;
+		}
+		return deadlineScheduler.scheduleWithFixedDelay(saveCheckpoint, checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Terminate the workload at the passed wall clock time. The workload is terminated on its
+	 * own thread so workloads sharing a deadline shut down together.
+	 */
+	ScheduledFuture<?> scheduleDeadline(WorkloadTypeInstance instance, long deadlineMs) {
+		return deadlineScheduler.schedule(() -> {
+			if (!instance.isComplete() && !instance.isTerminated()) {
+				Thread thread = new Thread(() -> {
+					System.out.printf("%s reached its deadline, terminating\n", instance.getWorkloadId());
+					instance.terminate();
+				}, "Deadline for " + instance.getWorkloadId());
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}, Math.max(0, deadlineMs - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
 	}
 
 	private void addToWorkloadList(WorkloadTypeInstance instance, List<WorkloadTypeInstance> list) {
@@ -78,17 +257,71 @@ public class WorkloadManager {
 	
 	public synchronized void terminateWorkload(String workloadId) {
 		WorkloadTypeInstance workload = getWorkloadById(workloadId);
-		timerService.stopTimingWorkload(workload);
 		if (workload != null) {
+			// The timer service stops timing the workload once it has collated its final, partial,
+			// interval so the operations completed while it shut down are not lost
 			workload.terminate();
 		}
 	}
 
+	/**
+	 * Change the rate of a running workload: the desired rate of a throughput workload or the
+	 * rate cap of a fixed target workload, where zero removes the cap.
+	 */
+	public synchronized void setWorkloadRate(String workloadId, int rate) {
+		WorkloadTypeInstance workload = getWorkloadById(workloadId);
+		if (workload == null) {
+			throw new IllegalArgumentException("No active workload with id " + workloadId);
+		}
+		if (rate < 0) {
+			throw new IllegalArgumentException("Rate cannot be negative, not " + rate);
+		}
+		if (workload instanceof ThroughputWorkloadType.ThroughputWorkloadInstance) {
+			((ThroughputWorkloadType.ThroughputWorkloadInstance)workload).setDesiredRate(rate);
+		}
+		else if (workload instanceof FixedTargetWorkloadType.FixedTargetWorkloadInstance) {
+			((FixedTargetWorkloadType.FixedTargetWorkloadInstance)workload).setRateCap(rate);
+		}
+		else {
+			throw new IllegalArgumentException("The rate of workload " + workloadId + " cannot be changed");
+		}
+	}
+
+	/**
+	 * Change the weights of some or all of the operations in the mix of a running workload,
+	 * keyed by operation name. The new weights apply from the next operation chosen.
+	 */
+	public synchronized Map<String, Integer> setWorkloadMix(String workloadId, Map<String, Integer> weights) {
+		OperationMix mix = findOperationMix(workloadId);
+		mix.setWeights(weights);
+		return mix.getWeights();
+	}
+
+	private OperationMix findOperationMix(String workloadId) {
+		WorkloadTypeInstance workload = getWorkloadById(workloadId);
+		if (workload == null) {
+			throw new IllegalArgumentException("No active workload with id " + workloadId);
+		}
+		OperationMix mix = workload.getOperationMix();
+		if (mix == null) {
+			throw new IllegalArgumentException("Workload " + workloadId + " does not run a mix of operations");
+		}
+		return mix;
+	}
+
+	public synchronized Map<String, Integer> getWorkloadMix(String workloadId) {
+		return findOperationMix(workloadId).getWeights();
+	}
+
 	public synchronized Map<String, WorkloadResult> getResults(long afterTime) {
+		return getResults(afterTime, ResultResolution.INTERVAL);
+	}
+	
+	public synchronized Map<String, WorkloadResult> getResults(long afterTime, ResultResolution resolution) {
 		this.updateStatus();
 		Map<String, WorkloadResult> results = new HashMap<String, WorkloadResult>();
 		for (WorkloadTypeInstance instance : this.activeWorkloads) {
-			results.put(instance.getWorkloadId(), instance.getWorkloadResult(afterTime) );
+			results.put(instance.getWorkloadId(), instance.getWorkloadResult(afterTime, resolution) );
 		}
 		return results;
 	}
@@ -3,6 +3,7 @@ package com.yugabyte.simulation.workload;
 
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.CqlSessionBuilder;
+import com.yugabyte.simulation.services.WorkerThreadService;
 import com.yugabyte.simulation.util.SSLContextUtility;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
@@ -15,6 +16,18 @@ public abstract class WorkloadSimulationBase {
 	@Autowired
 	private Environment env;
 
+	@Autowired
+	private WorkerThreadService workerThreadService;
+
+	/**
+	 * The most threads a workload parameter should allow, which is far higher when workers
+	 * run on virtual threads. Pass as {@code this::getMaxThreads} to a {@link com.yugabyte.simulation.dao.WorkloadParamDesc}
+	 * so it is looked up once the workload has been wired.
+	 */
+	protected int getMaxThreads() {
+		return workerThreadService.getMaxThreads();
+	}
+
 	public static class Workload {
 		private final String workloadId;
 		private final long startTime;
@@ -1,20 +1,24 @@
 package com.yugabyte.simulation.workload;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.yugabyte.simulation.dao.ParamValue;
+import com.yugabyte.simulation.dao.ResultResolution;
 import com.yugabyte.simulation.dao.TimerResult;
 import com.yugabyte.simulation.dao.WorkloadDesc;
 import com.yugabyte.simulation.dao.WorkloadResult;
 import com.yugabyte.simulation.services.LoggingFileManager;
 import com.yugabyte.simulation.services.ServiceManager;
 import com.yugabyte.simulation.services.TimerService;
+import com.yugabyte.simulation.services.WorkerThreadService;
 
 public abstract class WorkloadTypeInstance {
 	private volatile WorkloadStatusType status;
@@ -30,7 +34,16 @@ public abstract class WorkloadTypeInstance {
 	private final int workloadOrdinal;
 	private final ServiceManager serviceManager;
 	
-	private final List<TimerResult> timingResults;
+	private final Map<ResultResolution, TimerResultSeries> timingResults;
+	// The intervals collated while the workload was warming up, which are kept out of timingResults
+	private final TimerResultSeries warmupResults;
+	private volatile long warmupMs;
+	private volatile long warmupOperations;
+	private long warmupOperationsCompleted = 0;
+	private volatile long warmupEndTime = -1;
+	private volatile long deadline = 0;
+	private ScheduledFuture<?> deadlineFuture = null;
+	private volatile OperationMix operationMix = null;
     private static final Logger LOGGER = LoggerFactory.getLogger(WorkloadTypeInstance.class);
 
 	public WorkloadTypeInstance(ServiceManager serviceManager) {
@@ -40,7 +53,14 @@ public abstract class WorkloadTypeInstance {
 		this.status = WorkloadStatusType.SUBMITTED;
 		this.doInitialize();
 		this.status = WorkloadStatusType.EXECUTING;
-		this.timingResults = new ArrayList<TimerResult>();
+		this.timingResults = new EnumMap<ResultResolution, TimerResultSeries>(ResultResolution.class);
+		for (ResultResolution resolution : ResultResolution.values()) {
+			this.timingResults.put(resolution, new TimerResultSeries(resolution.getMaxResults(), this));
+		}
+		this.warmupResults = new TimerResultSeries(ResultResolution.INTERVAL.getMaxResults(), this);
+		this.warmupMs = getTimerService().getWarmupMs();
+		this.warmupOperations = getTimerService().getWarmupOperations();
+		configureDeadline(serviceManager.getWorkloadManager().getDefaultDeadline(startTime));
 		this.workloadOrdinal = getTimerService().startTimingWorkload(this);
 		this.serviceManager.getWorkloadManager().registerWorkloadInstance(this);
 	}
@@ -56,6 +76,29 @@ public abstract class WorkloadTypeInstance {
 		return result;
 	}
 	
+	/**
+	 * The number of workload specific values added to each result by {@link #doAugmentTimingResult(TimerResult)}.
+	 * These values are stored alongside the result and passed back to {@link #readResultExtension(TimerResult, long[])}
+	 * to re-create the augmented result when it is read.
+	 */
+	protected int getResultExtensionSize() {
+		return 0;
+	}
+	
+	/**
+	 * Store the workload specific values of an augmented result into the passed array. Doubles
+	 * should be stored using {@link Double#doubleToLongBits(double)}
+	 */
+	protected void writeResultExtension(TimerResult result, long[] values) {
+	}
+	
+	/**
+	 * Re-create an augmented result from a stored result and its workload specific values.
+	 */
+	protected TimerResult readResultExtension(TimerResult result, long[] values) {
+		return result;
+	}
+	
 	protected String createWorkloadId() {
 		return getType().getTypeName() + "_" + this.startTime;
 	}
@@ -66,8 +109,61 @@ public abstract class WorkloadTypeInstance {
 	public final void terminate() {
 		this.status = WorkloadStatusType.TERMINATING;
 		this.doTerminate();
-		this.status = WorkloadStatusType.TERMINATED;
+		// The end time is set before the status so the final interval can be cut short at it
 		this.endTime = System.currentTimeMillis();
+		this.status = WorkloadStatusType.TERMINATED;
+		synchronized (this) {
+			if (deadlineFuture != null) {
+				deadlineFuture.cancel(false);
+				deadlineFuture = null;
+			}
+		}
+	}
+	
+	/**
+	 * Terminate the workload at the passed wall clock time, or never if the time is 0 or
+	 * less. When the deadline passes the workload stops starting new operations and waits up
+	 * to workload.shutdown-grace-ms for those in flight, then the final partial interval is
+	 * collated and the workload finishes. The default is taken from workload.duration and
+	 * workload.deadline.
+	 */
+	protected synchronized void configureDeadline(long deadline) {
+		if (deadlineFuture != null) {
+			deadlineFuture.cancel(false);
+			deadlineFuture = null;
+		}
+		this.deadline = Math.max(0, deadline);
+		if (this.deadline > 0) {
+			deadlineFuture = serviceManager.getWorkloadManager().scheduleDeadline(this, this.deadline);
+		}
+	}
+	
+	/**
+	 * The wall clock time the workload will be terminated at, or 0 if it runs until it
+	 * completes or is terminated.
+	 */
+	/**
+	 * Set the mix of operations this workload runs, so its weights can be changed while it
+	 * runs through {@link WorkloadManager#setWorkloadMix(String, Map)}.
+	 */
+	public void setOperationMix(OperationMix operationMix) {
+		this.operationMix = operationMix;
+	}
+
+	public OperationMix getOperationMix() {
+		return operationMix;
+	}
+
+	public long getDeadline() {
+		return deadline;
+	}
+	
+	/**
+	 * How long to wait for in-flight operations to complete when terminating before
+	 * abandoning them.
+	 */
+	protected long getShutdownGraceMs() {
+		return serviceManager.getWorkloadManager().getShutdownGraceMs();
 	}
 	
 	
@@ -101,29 +197,105 @@ public abstract class WorkloadTypeInstance {
 	}
 	
 	public List<TimerResult> getTimingResults() {
-		return timingResults;
+		return timingResults.get(ResultResolution.INTERVAL).getResultsAfter(0);
 	}
 	
 	public abstract String formatToCsv(TimerResult result);
 	public abstract String getCsvHeader();
 	
-	public TimerResult submitTimingResult(TimerResult result, int maxLength) {
-		synchronized (timingResults) {
-			TimerResult newResult = doAugmentTimingResult(result);
-			timingResults.add(newResult);
-			if (timingResults.size() > maxLength) {
-				timingResults.remove(0);
+	public TimerResult submitTimingResult(TimerResult result, ResultResolution resolution) {
+		TimerResult newResult = doAugmentTimingResult(result);
+		timingResults.get(resolution).add(newResult);
+		return newResult;
+	}
+	
+	/**
+	 * Submit the result of an interval collated while the workload was warming up. These
+	 * are kept apart from the measured results so they do not skew the charts or summaries.
+	 */
+	public TimerResult submitWarmupResult(TimerResult result) {
+		TimerResult newResult = doAugmentTimingResult(result);
+		warmupResults.add(newResult);
+		return newResult;
+	}
+	
+	/**
+	 * Set how long the workload warms up for before its results are measured, while the
+	 * connection pool fills, caches are populated and the load generators settle. Results
+	 * collated during the warm-up are kept in a separate series and are excluded from the
+	 * measured results, the aggregate results and any measurement windows. If both a time
+	 * and a number of operations are given, the warm-up lasts until both have passed. The
+	 * defaults are timer.warmup-ms and timer.warmup-operations. This should be set before
+	 * the workload starts executing.
+	 * @param warmupMs - the time from the start of the workload to warm up for, or 0 for none
+	 * @param warmupOperations - the number of operations to warm up with, or 0 for none
+	 */
+	protected synchronized void configureWarmup(long warmupMs, long warmupOperations) {
+		this.warmupMs = Math.max(0, warmupMs);
+		this.warmupOperations = Math.max(0, warmupOperations);
+		// Any intervals collated before now were before the workload started executing
+		this.warmupEndTime = -1;
+	}
+	
+	public long getWarmupMs() {
+		return warmupMs;
+	}
+	
+	public long getWarmupOperations() {
+		return warmupOperations;
+	}
+	
+	/**
+	 * Is the workload still warming up? The warm-up ends at an interval boundary.
+	 */
+	public boolean isWarmingUp() {
+		return warmupEndTime < 0 && (warmupMs > 0 || warmupOperations > 0);
+	}
+	
+	/**
+	 * The time the warm-up ended and the measured results started, or -1 if still warming up.
+	 */
+	public long getWarmupEndTime() {
+		return warmupEndTime;
+	}
+	
+	/**
+	 * Determine whether the interval starting at the passed time belongs to the warm-up. This
+	 * is called by the timer service once for each interval as it is collated, in order.
+	 * @param operations - the number of operations completed in the interval
+	 */
+	public synchronized boolean checkWarmupInterval(long intervalStartMs, long operations) {
+		if (warmupEndTime >= 0) {
+			return false;
+		}
+		boolean timeRemaining = warmupMs > 0 && intervalStartMs < startTime + warmupMs;
+		boolean operationsRemaining = warmupOperations > 0 && warmupOperationsCompleted < warmupOperations;
+		if (!timeRemaining && !operationsRemaining) {
+			warmupEndTime = intervalStartMs;
+			if (warmupMs > 0 || warmupOperations > 0) {
+				System.out.printf("%s warmed up after %,dms and %,d operations, measuring from now\n",
+						this.getWorkloadId(), intervalStartMs - startTime, warmupOperationsCompleted);
 			}
-			return newResult;
+			return false;
 		}
+		warmupOperationsCompleted += operations;
+		return true;
 	}
 	protected TimerService getTimerService() {
 		return serviceManager.getTimerService();
 	}
 	
+	protected WorkerThreadService getWorkerThreadService() {
+		return serviceManager.getWorkerThreadService();
+	}
+	
 	protected LoggingFileManager getLoggingManager() {
 		return serviceManager.getLoggingFileManager();
 	}
+	
+	protected WorkloadManager getWorkloadManager() {
+		return serviceManager.getWorkloadManager();
+	}
 	protected int getWorkloadOrdinal() {
 		return this.workloadOrdinal;
 	}
@@ -145,42 +317,38 @@ public abstract class WorkloadTypeInstance {
 	}
 	
 	public List<TimerResult> getResults(long fromTime) {
-		synchronized (timingResults) {
-			if (fromTime <= 0) {
-				return this.timingResults;
-			}
-			else {
-				// Return a sub-array containing the correct elements which
-				// are greater than fromTime. Do a binary search for this.
-				// Binary search for the right element
-				int length = timingResults.size();
-				int start = 0;
-				int end = length-1;
-				int index = -1;
-				while (start <= end) {
-					int mid = (start + end)/2;
-					// Move to the right side if the target is greater
-					if (timingResults.get(mid).getStartTimeMs() <= fromTime) {
-						start = mid + 1;
-					}
-					else {
-						// Move left side
-						index = mid;
-						end = mid - 1;
-					}
-				}
-				if (index >= 0) {
-					return timingResults.subList(index, length);
-				}
-				else {
-					return new ArrayList<TimerResult>();
-				}
-			}
+		return getResults(fromTime, ResultResolution.INTERVAL);
+	}
+	
+	public List<TimerResult> getResults(long fromTime, ResultResolution resolution) {
+		return timingResults.get(getStoredResolution(resolution)).getResultsAfter(fromTime);
+	}
+	
+	/**
+	 * Get the results of the intervals collated while warming up, after the passed time.
+	 */
+	public List<TimerResult> getWarmupResults(long fromTime) {
+		return warmupResults.getResultsAfter(fromTime);
+	}
+	
+	/**
+	 * Get the resolution the results for the requested resolution are stored at. Resolutions
+	 * which are no coarser than the collation interval are not rolled up, the collated
+	 * intervals are used instead.
+	 */
+	public ResultResolution getStoredResolution(ResultResolution resolution) {
+		if (resolution.getIntervalMs() <= getTimerService().getIntervalMs()) {
+			return ResultResolution.INTERVAL;
 		}
+		return resolution;
 	}
 	
 	public WorkloadResult getWorkloadResult(long afterTime) {
-		return new WorkloadResult(afterTime, this);
+		return getWorkloadResult(afterTime, ResultResolution.INTERVAL);
+	}
+	
+	public WorkloadResult getWorkloadResult(long afterTime, ResultResolution resolution) {
+		return new WorkloadResult(afterTime, resolution, this);
 	}
 	
 	public String getDescription() {
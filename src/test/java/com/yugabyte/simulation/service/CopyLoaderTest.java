@@ -0,0 +1,153 @@
+package com.yugabyte.simulation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.yugabyte.PGConnection;
+import com.yugabyte.copy.CopyIn;
+import com.yugabyte.copy.CopyManager;
+
+class CopyLoaderTest {
+	private static final String COPY_SQL = "copy words(id, word_name) from stdin";
+
+	private JdbcTemplate jdbcTemplate;
+	private CopyIn copyIn;
+	private ByteArrayOutputStream sent;
+	private TimeZone defaultTimeZone;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() throws SQLException {
+		defaultTimeZone = TimeZone.getDefault();
+		TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+		sent = new ByteArrayOutputStream();
+		copyIn = mock(CopyIn.class);
+		doAnswer(invocation -> {
+			sent.write((byte[])invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+			return null;
+		}).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+		CopyManager copyManager = mock(CopyManager.class);
+		when(copyManager.copyIn(COPY_SQL)).thenReturn(copyIn);
+		PGConnection pgConnection = mock(PGConnection.class);
+		when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+		Connection connection = mock(Connection.class);
+		when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+		jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+				.thenAnswer(invocation -> ((ConnectionCallback<?>)invocation.getArgument(0)).doInConnection(connection));
+	}
+
+	@AfterEach
+	void restoreTimeZone() {
+		TimeZone.setDefault(defaultTimeZone);
+	}
+
+	private String copy(CopyLoader.RowWriter writer, long firstSequence, int count) throws SQLException {
+		clearInvocations(copyIn);
+		sent.reset();
+		long bytes = new CopyLoader(jdbcTemplate, COPY_SQL, writer).copy(new CopyLoader.CopyRow(), firstSequence, count);
+		verify(copyIn).endCopy();
+		assertEquals(sent.size(), bytes);
+		return sent.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void specialCharactersAreEscaped() throws SQLException {
+		String text = copy((sequence, row) -> row.append("a\\b\tc\nd\re"), 0, 1);
+		assertEquals("a\\\\b\\tc\\nd\\re\n", text);
+	}
+
+	@Test
+	void textIsEncodedAsUtf8() throws SQLException {
+		String value = "café € 😀";
+		assertEquals(value + "\n", copy((sequence, row) -> row.append(value), 0, 1));
+	}
+
+	@Test
+	void columnsAreTabSeparatedAndNullsWritten() throws SQLException {
+		UUID uuid = UUID.fromString("0123abcd-4567-89ef-0a1b-c2d3e4f56789");
+		Date date = new Date(1_700_000_000_123L);
+		String text = copy((sequence, row) -> row.append(sequence).append(-42L).append(Long.MIN_VALUE)
+				.append(1.5).append(true).append(false).append(uuid).append(date)
+				.append((String)null).append((UUID)null).appendNull(), 7, 2);
+		String columns = "\t-42\t" + Long.MIN_VALUE + "\t1.5\tt\tf\t0123abcd-4567-89ef-0a1b-c2d3e4f56789\t"
+				+ "2023-11-14 22:13:20.123+00\t\\N\t\\N\t\\N\n";
+		assertEquals("7" + columns + "8" + columns, text);
+	}
+
+	@Test
+	void rowsLargerThanTheBufferAreStreamed() throws SQLException {
+		String word = "0123456789abcdef";
+		int rows = 3 * CopyLoader.BUFFER_SIZE / (word.length() + 1) + 1;
+		String text = copy((sequence, row) -> row.append(word), 0, rows);
+		verify(copyIn, atLeast(4)).writeToCopy(any(byte[].class), eq(0), anyInt());
+		assertEquals((long)rows * (word.length() + 1), text.length());
+		assertEquals((word + "\n").repeat(rows), text);
+	}
+
+	private String copyDouble(double value) throws SQLException {
+		return copy((sequence, row) -> row.append(value), 0, 1).trim();
+	}
+
+	@Test
+	void doublesAreWrittenAsTheShortestDecimalWhichReadsBack() throws SQLException {
+		assertEquals("1.5", copyDouble(1.5));
+		assertEquals("0.1", copyDouble(0.1));
+		assertEquals("-42.25", copyDouble(-42.25));
+		assertEquals("123.456", copyDouble(123.456));
+		assertEquals("0.30000000000000004", copyDouble(0.1 + 0.2));
+		assertEquals("100", copyDouble(100.0));
+		assertEquals("0", copyDouble(0.0));
+		assertEquals("-0", copyDouble(-0.0));
+		assertEquals("NaN", copyDouble(Double.NaN));
+		assertEquals("-Infinity", copyDouble(Double.NEGATIVE_INFINITY));
+		// Too small to format exactly in 64 bits
+		assertEquals("1.0E-10", copyDouble(1e-10));
+
+		Random random = new Random(42);
+		for (int i = 0; i < 2_000; i++) {
+			double value = random.nextDouble() * Math.pow(10, random.nextInt(12) - 1);
+			String text = copyDouble(value);
+			assertEquals(value, Double.parseDouble(text), text);
+			// Values below about 0.03 with all their bits set fall back to Double.toString()
+			assertTrue(text.contains("E") || text.replaceAll("^[0.]+|\\.", "").length() <= 17, text);
+		}
+	}
+
+	@Test
+	void datesHaveAnExplicitOffset() throws SQLException {
+		Date date = new Date(1_700_000_000_123L);
+		assertEquals("1969-12-31 23:59:59.999+00", copy((sequence, row) -> row.append(new Date(-1)), 0, 1).trim());
+
+		TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+		assertEquals("2023-11-15 03:43:20.123+05:30", copy((sequence, row) -> row.append(date), 0, 1).trim());
+
+		TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+		assertEquals("2023-11-14 17:13:20.123-05", copy((sequence, row) -> row.append(date), 0, 1).trim());
+		assertEquals("2024-02-29 12:00:00.000-05", copy((sequence, row) -> row.append(new Date(1_709_226_000_000L)), 0, 1).trim());
+	}
+}
@@ -0,0 +1,117 @@
+package com.yugabyte.simulation.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.yugabyte.simulation.dao.ResultResolution;
+
+class IntervalRollupTest {
+	private final LatencyHistogram template = new LatencyHistogram(3_600_000_000L, 3);
+
+	private IntervalTimings interval(long ... latenciesUs) {
+		IntervalTimings timings = new IntervalTimings(template.copyConfiguration());
+		for (long latency : latenciesUs) {
+			timings.record(latency, Outcome.SUCCESS);
+		}
+		return timings;
+	}
+
+	/**
+	 * Roll up the passed 1 second intervals starting at the passed time, as the timer service
+	 * does, returning the buckets closed along the way.
+	 */
+	private List<long[]> rollUp(IntervalRollup rollup, long startMs, IntervalTimings ... intervals) {
+		List<long[]> closed = new ArrayList<long[]>();
+		for (int i = 0; i < intervals.length; i++) {
+			long intervalStartMs = startMs + i * 1000L;
+			if (rollup.isBucketClosedBy(intervalStartMs)) {
+				closed.add(new long[] {rollup.getBucketStartMs(), rollup.getBucketEndMs(), rollup.getBucket().getTotalCount()});
+				rollup.reset();
+			}
+			rollup.add(intervals[i], intervalStartMs, intervalStartMs + 1000);
+		}
+		return closed;
+	}
+
+	@Test
+	void intervalsAreGroupedIntoAlignedBuckets() {
+		IntervalRollup rollup = new IntervalRollup(ResultResolution.TEN_SECONDS, template);
+		assertFalse(rollup.isOpen());
+		IntervalTimings[] intervals = new IntervalTimings[25];
+		for (int i = 0; i < intervals.length; i++) {
+			intervals[i] = interval(100 + i);
+		}
+		// Start part way through a bucket, so the first one is short
+		List<long[]> closed = rollUp(rollup, 1_000_007_000L, intervals);
+
+		assertEquals(3, closed.size());
+		assertEquals(1_000_000_000L, closed.get(0)[0]);
+		assertEquals(1_000_010_000L, closed.get(0)[1]);
+		assertEquals(3, closed.get(0)[2]);
+		for (int i = 1; i < closed.size(); i++) {
+			assertEquals(1_000_000_000L + i * 10_000L, closed.get(i)[0]);
+			assertEquals(1_000_010_000L + i * 10_000L, closed.get(i)[1]);
+			assertEquals(10, closed.get(i)[2]);
+		}
+
+		// The open bucket ends with the last interval added, as when a workload finishes early
+		assertTrue(rollup.isOpen());
+		assertFalse(rollup.isBucketClosedBy(1_000_039_000L));
+		assertTrue(rollup.isBucketClosedBy(1_000_040_000L));
+		assertEquals(1_000_030_000L, rollup.getBucketStartMs());
+		assertEquals(1_000_032_000L, rollup.getBucketEndMs());
+		assertEquals(2, rollup.getBucket().getTotalCount());
+		assertEquals(123, rollup.getBucket().getHistogram().getMinValue());
+		assertEquals(124, rollup.getBucket().getHistogram().getMaxValue());
+	}
+
+	@Test
+	void percentilesAreThoseOfAllTheIntervals() {
+		IntervalRollup rollup = new IntervalRollup(ResultResolution.MINUTE, template);
+		LatencyHistogram all = template.copyConfiguration();
+		Random random = new Random(7);
+		IntervalTimings[] intervals = new IntervalTimings[60];
+		for (int i = 0; i < intervals.length; i++) {
+			// Each interval is slower than the last, so averaging their percentiles would be wrong
+			long[] latencies = new long[1000];
+			for (int j = 0; j < latencies.length; j++) {
+				latencies[j] = 1000 + i * 100 + random.nextInt(5000);
+				all.recordValue(latencies[j]);
+			}
+			intervals[i] = interval(latencies);
+		}
+		assertTrue(rollUp(rollup, 0, intervals).isEmpty());
+
+		LatencyHistogram merged = rollup.getBucket().getHistogram();
+		assertEquals(60_000, merged.getTotalCount());
+		for (double percentile : new double[] {50, 90, 99, 99.9}) {
+			assertEquals(all.getValueAtPercentile(percentile), merged.getValueAtPercentile(percentile), "p" + percentile);
+		}
+		assertEquals(all.getMaxValue(), merged.getMaxValue());
+	}
+
+	@Test
+	void resetEmptiesTheBucket() {
+		IntervalRollup rollup = new IntervalRollup(ResultResolution.SECOND, template);
+		IntervalTimings failures = new IntervalTimings(template.copyConfiguration());
+		failures.record(500, Outcome.SERIALIZATION_FAILURE);
+		rollup.add(failures, 5_000, 6_000);
+		assertEquals(1, rollup.getBucket().getOutcomeCount(Outcome.SERIALIZATION_FAILURE));
+		assertTrue(rollup.isBucketClosedBy(6_000));
+		assertFalse(rollup.isBucketClosedBy(5_500));
+
+		rollup.reset();
+		assertFalse(rollup.isOpen());
+		assertFalse(rollup.isBucketClosedBy(6_000));
+		assertEquals(0, rollup.getBucket().getTotalCount());
+		// The interval added is left as it was
+		assertEquals(1, failures.getFailureCount());
+	}
+}
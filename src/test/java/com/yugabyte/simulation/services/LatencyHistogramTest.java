@@ -0,0 +1,108 @@
+package com.yugabyte.simulation.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+	private static final long HIGHEST = 3_600_000_000L;
+
+	private static void assertWithinPrecision(long expected, long actual) {
+		// 3 significant digits puts every value within 0.1% of the one recorded
+		assertEquals(expected, actual, Math.max(1, expected / 1000));
+	}
+
+	@Test
+	void emptyHistogramIsAllZero() {
+		LatencyHistogram histogram = new LatencyHistogram(HIGHEST, 3);
+		assertEquals(0, histogram.getTotalCount());
+		assertEquals(0, histogram.getMinValue());
+		assertEquals(0, histogram.getMaxValue());
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+
+	@Test
+	void percentilesOfUniformValues() {
+		LatencyHistogram histogram = new LatencyHistogram(HIGHEST, 3);
+		for (long value = 1; value <= 10_000; value++) {
+			histogram.recordValue(value);
+		}
+		assertEquals(10_000, histogram.getTotalCount());
+		assertEquals(50_005_000, histogram.getTotalValue());
+		assertEquals(1, histogram.getMinValue());
+		assertEquals(10_000, histogram.getMaxValue());
+		assertEquals(5_000, histogram.getMean());
+		assertWithinPrecision(5_000, histogram.getValueAtPercentile(50));
+		assertWithinPrecision(9_900, histogram.getValueAtPercentile(99));
+		assertEquals(10_000, histogram.getValueAtPercentile(100));
+
+		double[] percentiles = {50, 90, 99, 99.9};
+		long[] results = new long[percentiles.length];
+		histogram.getValuesAtPercentiles(percentiles, results);
+		for (int i = 0; i < percentiles.length; i++) {
+			assertEquals(histogram.getValueAtPercentile(percentiles[i]), results[i], "p" + percentiles[i]);
+		}
+	}
+
+	@Test
+	void percentileNeverExceedsTheMaximum() {
+		LatencyHistogram histogram = new LatencyHistogram(HIGHEST, 2);
+		histogram.recordValue(123_456);
+		assertEquals(123_456, histogram.getValueAtPercentile(50));
+		assertEquals(123_456, histogram.getValueAtPercentile(99.99));
+	}
+
+	@Test
+	void outOfRangeValuesAreClamped() {
+		LatencyHistogram histogram = new LatencyHistogram(1_000, 3);
+		histogram.recordValue(-5);
+		histogram.recordValue(5_000);
+		assertEquals(2, histogram.getTotalCount());
+		assertEquals(0, histogram.getMinValue());
+		assertEquals(5_000, histogram.getMaxValue());
+		assertEquals(5_000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	void addIntoKeepsTheSourceAndDrainIntoResetsIt() {
+		LatencyHistogram first = new LatencyHistogram(HIGHEST, 3);
+		LatencyHistogram second = first.copyConfiguration();
+		LatencyHistogram total = first.copyConfiguration();
+		first.recordValue(100);
+		first.recordValue(200);
+		second.recordValue(50);
+		second.recordValue(1_000_000);
+
+		first.addInto(total);
+		assertEquals(2, first.getTotalCount());
+		second.drainInto(total);
+		assertEquals(0, second.getTotalCount());
+		assertEquals(0, second.getMaxValue());
+
+		assertEquals(4, total.getTotalCount());
+		assertEquals(1_000_350, total.getTotalValue());
+		assertEquals(50, total.getMinValue());
+		assertEquals(1_000_000, total.getMaxValue());
+
+		total.reset();
+		assertEquals(0, total.getTotalCount());
+		assertEquals(0, total.getMinValue());
+		assertEquals(0, total.getMaxValue());
+	}
+
+	@Test
+	void mergingDifferentConfigurationsIsRejected() {
+		LatencyHistogram histogram = new LatencyHistogram(HIGHEST, 3);
+		assertThrows(IllegalArgumentException.class, () -> histogram.addInto(new LatencyHistogram(HIGHEST, 2)));
+		assertThrows(IllegalArgumentException.class, () -> histogram.drainInto(new LatencyHistogram(1_000, 3)));
+	}
+
+	@Test
+	void invalidConfigurationsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(HIGHEST, 0));
+		assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(HIGHEST, 6));
+		assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(1, 3));
+	}
+}
@@ -0,0 +1,79 @@
+package com.yugabyte.simulation.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+class OutcomeTest {
+	private static RuntimeException wrapped(SQLException cause) {
+		return new UncategorizedSQLException("select 1", "select 1", cause);
+	}
+
+	@Test
+	void sqlStatesAreClassified() {
+		assertEquals(Outcome.SERIALIZATION_FAILURE, Outcome.classify(new SQLException("conflict", "40001")));
+		assertEquals(Outcome.SERIALIZATION_FAILURE, Outcome.classify(new SQLException("deadlock", "40P01")));
+		assertEquals(Outcome.STATEMENT_TIMEOUT, Outcome.classify(new SQLException("cancelled", "57014")));
+		assertEquals(Outcome.CONNECTION_FAILURE, Outcome.classify(new SQLException("admin shutdown", "57P01")));
+		assertEquals(Outcome.CONNECTION_FAILURE, Outcome.classify(new SQLException("cannot connect now", "57P03")));
+		assertEquals(Outcome.CONNECTION_FAILURE, Outcome.classify(new SQLException("connection failure", "08006")));
+		assertEquals(Outcome.OTHER_ERROR, Outcome.classify(new SQLException("duplicate key", "23505")));
+		assertEquals(Outcome.OTHER_ERROR, Outcome.classify(new SQLException("no state")));
+	}
+
+	@Test
+	void theCausesOfAnExceptionAreSearched() {
+		// Spring translates the SQLException, the SQLState is found on its cause
+		assertEquals(Outcome.SERIALIZATION_FAILURE,
+				Outcome.classify(new CannotAcquireLockException("conflict", new SQLException("conflict", "40001"))));
+		assertEquals(Outcome.CONNECTION_FAILURE,
+				Outcome.classify(new IllegalStateException(wrapped(new SQLException("connection lost", "08003")))));
+		assertEquals(Outcome.OTHER_ERROR,
+				Outcome.classify(new DataIntegrityViolationException("duplicate", new SQLException("duplicate key", "23505"))));
+		assertEquals(Outcome.OTHER_ERROR, Outcome.classify(new IllegalArgumentException("bad parameter")));
+	}
+
+	@Test
+	void timeoutsAreToldApart() {
+		assertEquals(Outcome.POOL_TIMEOUT, Outcome.classify(new CannotGetJdbcConnectionException("pool exhausted",
+				new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms"))));
+		assertEquals(Outcome.STATEMENT_TIMEOUT, Outcome.classify(wrapped(new SQLTimeoutException("query timed out"))));
+		// A connection which could not be made, rather than waited for
+		assertEquals(Outcome.CONNECTION_FAILURE,
+				Outcome.classify(new CannotGetJdbcConnectionException("refused", new SQLException("refused", "08001"))));
+		assertEquals(Outcome.CONNECTION_FAILURE,
+				Outcome.classify(new CannotGetJdbcConnectionException("refused", new SQLException("no state"))));
+	}
+
+	@Test
+	void deepOrCircularCausesEnd() {
+		Throwable exception = new SQLException("connection lost", "08006");
+		for (int i = 0; i < 20; i++) {
+			exception = new RuntimeException(exception);
+		}
+		// Only the first few causes are searched
+		assertEquals(Outcome.OTHER_ERROR, Outcome.classify(exception));
+
+		RuntimeException first = new RuntimeException("first");
+		RuntimeException second = new RuntimeException("second", first);
+		first.initCause(second);
+		assertEquals(Outcome.OTHER_ERROR, Outcome.classify(second));
+	}
+
+	@Test
+	void onlySuccessIsASuccessfulStatus() {
+		for (int i = 0; i < Outcome.count(); i++) {
+			Outcome outcome = Outcome.fromOrdinal(i);
+			assertEquals(outcome == Outcome.SUCCESS ? ExecutionStatus.SUCCESS : ExecutionStatus.ERROR, outcome.getStatus());
+		}
+		assertEquals(Outcome.OTHER_ERROR, Outcome.of(ExecutionStatus.ERROR));
+	}
+}
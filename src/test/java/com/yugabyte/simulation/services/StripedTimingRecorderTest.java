@@ -0,0 +1,129 @@
+package com.yugabyte.simulation.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class StripedTimingRecorderTest {
+	private final StripedTimingRecorder recorder = new StripedTimingRecorder(new LatencyHistogram(3_600_000_000L, 3));
+
+	@Test
+	void collateReturnsTheIntervalAndStartsANewOne() {
+		recorder.record(100, -1, Outcome.SUCCESS);
+		recorder.record(300, -1, Outcome.SUCCESS);
+		recorder.record(5_000, -1, Outcome.CONNECTION_FAILURE);
+
+		IntervalTimings timings = recorder.collate();
+		assertEquals(3, timings.getTotalCount());
+		assertEquals(2, timings.getSuccessCount());
+		assertEquals(1, timings.getFailureCount());
+		assertEquals(1, timings.getOutcomeCount(Outcome.CONNECTION_FAILURE));
+		assertEquals(100, timings.getHistogram().getMinValue());
+		assertEquals(5_000, timings.getHistogram().getMaxValue());
+
+		assertEquals(0, recorder.collate().getTotalCount());
+	}
+
+	@Test
+	void correctedTimesAndPhasesAreKeptSeparately() {
+		int[] phaseIds = {0, 1};
+		recorder.record(200, 700, Outcome.SUCCESS, -1, phaseIds, new long[] {50, 150}, 2);
+		recorder.record(400, 400, Outcome.SUCCESS, -1, phaseIds, new long[] {100, 0}, 1);
+
+		IntervalTimings timings = recorder.collate();
+		assertEquals(2, timings.getTotalCount());
+		assertEquals(700, timings.getCorrectedHistogram().getMaxValue());
+		assertEquals(400, timings.getHistogram().getMaxValue());
+		assertEquals(2, timings.getPhaseHistogram(0).getTotalCount());
+		assertEquals(150, timings.getPhaseHistogram(0).getTotalValue());
+		assertEquals(1, timings.getPhaseHistogram(1).getTotalCount());
+	}
+
+	@Test
+	void aSingleThreadKeepsASingleStripe() {
+		StripedTimingRecorder recorder = new StripedTimingRecorder(new LatencyHistogram(3_600_000_000L, 3), 8);
+		for (int i = 0; i < 100_000; i++) {
+			recorder.record(i, -1, Outcome.SUCCESS);
+		}
+		assertEquals(1, recorder.getStripeCount());
+		assertEquals(100_000, recorder.collate().getTotalCount());
+	}
+
+	private static long randomLatencyUs(Random random) {
+		// Spread evenly over the powers of two from 200us to 50ms
+		return (long)(200 * Math.pow(250, random.nextDouble()));
+	}
+
+	@Test
+	void aWorkloadFitsInTensOfKilobytes() {
+		// The default precision and range of timer.histogram
+		StripedTimingRecorder recorder = new StripedTimingRecorder(new LatencyHistogram(60_000_000L, 2), 8);
+		Random random = new Random(42);
+		for (int interval = 0; interval < 5; interval++) {
+			for (int i = 0; i < 100_000; i++) {
+				recorder.record(randomLatencyUs(random), -1, i % 100 == 0 ? Outcome.OTHER_ERROR : Outcome.SUCCESS);
+			}
+			recorder.collate().getHistogram();
+		}
+		int footprint = recorder.getEstimatedFootprintInBytes();
+		assertTrue(footprint < 56 * 1024, "footprint " + footprint);
+
+		StripedTimingRecorder corrected = new StripedTimingRecorder(new LatencyHistogram(60_000_000L, 2), 8);
+		for (int interval = 0; interval < 5; interval++) {
+			for (int i = 0; i < 100_000; i++) {
+				long latency = randomLatencyUs(random);
+				corrected.record(latency, latency + random.nextInt(1000), Outcome.SUCCESS);
+			}
+			corrected.collate().getHistogram();
+		}
+		footprint = corrected.getEstimatedFootprintInBytes();
+		assertTrue(footprint < 56 * 1024, "footprint " + footprint);
+	}
+
+	@Test
+	void noRecordingIsLostWhileCollating() throws InterruptedException {
+		// Allow the stripes to grow while recording, as they would on a machine with 8 cores
+		StripedTimingRecorder recorder = new StripedTimingRecorder(new LatencyHistogram(3_600_000_000L, 3), 8);
+		int threads = 16;
+		int perThread = 200_000;
+		AtomicBoolean done = new AtomicBoolean(false);
+		List<Thread> writers = new ArrayList<Thread>();
+		for (int i = 0; i < threads; i++) {
+			Thread writer = new Thread(() -> {
+				for (int j = 0; j < perThread; j++) {
+					recorder.record(1 + j % 1000, -1, Outcome.SUCCESS);
+				}
+			});
+			writers.add(writer);
+			writer.start();
+		}
+		long total = 0;
+		Thread finisher = new Thread(() -> {
+			for (Thread writer : writers) {
+				try {
+					writer.join();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			done.set(true);
+		});
+		finisher.start();
+		while (!done.get()) {
+			total += recorder.collate().getTotalCount();
+			Thread.sleep(1);
+		}
+		total += recorder.collate().getTotalCount();
+		// A stripe added just before the last collation is picked up by the next one
+		total += recorder.collate().getTotalCount();
+		assertEquals((long)threads * perThread, total);
+		assertTrue(recorder.getStripeCount() <= 8);
+	}
+}
@@ -0,0 +1,97 @@
+package com.yugabyte.simulation.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class WriterReaderPhaserTest {
+
+	@Test
+	void flipPhaseNeedsTheReaderLock() {
+		WriterReaderPhaser phaser = new WriterReaderPhaser();
+		assertThrows(IllegalStateException.class, phaser::flipPhase);
+	}
+
+	@Test
+	void flipRetiresTheBufferWritersWereUsing() {
+		WriterReaderPhaser phaser = new WriterReaderPhaser();
+		long criticalValue = phaser.writerCriticalSectionEnter();
+		int writerIndex = WriterReaderPhaser.getBufferIndex(criticalValue);
+		assertEquals(phaser.getActiveBufferIndex(), writerIndex);
+		phaser.writerCriticalSectionExit(criticalValue);
+
+		phaser.readerLock();
+		try {
+			assertEquals(writerIndex, phaser.flipPhase());
+			assertNotEquals(writerIndex, phaser.getActiveBufferIndex());
+			assertEquals(1 - writerIndex, phaser.flipPhase());
+			assertEquals(writerIndex, phaser.getActiveBufferIndex());
+		}
+		finally {
+			phaser.readerUnlock();
+		}
+	}
+
+	@Test
+	void writersSeeOthersInTheirCriticalSection() {
+		WriterReaderPhaser phaser = new WriterReaderPhaser();
+		long first = phaser.writerCriticalSectionEnter();
+		assertFalse(phaser.isContended(first));
+		long second = phaser.writerCriticalSectionEnter();
+		assertTrue(phaser.isContended(second));
+		phaser.writerCriticalSectionExit(first);
+		phaser.writerCriticalSectionExit(second);
+		long third = phaser.writerCriticalSectionEnter();
+		assertFalse(phaser.isContended(third));
+		phaser.writerCriticalSectionExit(third);
+
+		phaser.readerLock();
+		try {
+			phaser.flipPhase();
+		}
+		finally {
+			phaser.readerUnlock();
+		}
+		long afterFlip = phaser.writerCriticalSectionEnter();
+		assertFalse(phaser.isContended(afterFlip));
+		assertTrue(phaser.isContended(phaser.writerCriticalSectionEnter()));
+	}
+
+	@Test
+	void flipWaitsForWritersInTheRetiredBuffer() throws InterruptedException {
+		WriterReaderPhaser phaser = new WriterReaderPhaser();
+		long criticalValue = phaser.writerCriticalSectionEnter();
+		AtomicInteger retired = new AtomicInteger(-1);
+		CountDownLatch flipped = new CountDownLatch(1);
+		Thread reader = new Thread(() -> {
+			phaser.readerLock();
+			try {
+				retired.set(phaser.flipPhase());
+			}
+			finally {
+				phaser.readerUnlock();
+			}
+			flipped.countDown();
+		});
+		reader.start();
+		assertFalse(flipped.await(100, TimeUnit.MILLISECONDS), "flip did not wait for the writer");
+
+		// A writer arriving during the flip uses the new buffer and does not hold it up
+		long lateValue = phaser.writerCriticalSectionEnter();
+		assertNotEquals(WriterReaderPhaser.getBufferIndex(criticalValue), WriterReaderPhaser.getBufferIndex(lateValue));
+
+		phaser.writerCriticalSectionExit(criticalValue);
+		reader.join(10_000);
+		assertEquals(0, flipped.getCount());
+		assertEquals(WriterReaderPhaser.getBufferIndex(criticalValue), retired.get());
+		phaser.writerCriticalSectionExit(lateValue);
+	}
+}
@@ -0,0 +1,95 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+	@TempDir
+	File dir;
+
+	private static void assertRanges(List<long[]> ranges, long[] ... expected) {
+		assertEquals(expected.length, ranges.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], ranges.get(i), "range " + i);
+		}
+	}
+
+	@Test
+	void overlappingAndAdjacentRangesAreMerged() {
+		Checkpoint checkpoint = Checkpoint.load(dir, "merge");
+		checkpoint.start(100);
+		checkpoint.addCompleted(10, 20);
+		checkpoint.addCompleted(30, 40);
+		checkpoint.addCompleted(50, 60);
+		checkpoint.addCompleted(20, 25);
+		checkpoint.addCompleted(15, 18);
+		checkpoint.addCompleted(5, 5);
+		assertEquals(35, checkpoint.getCompletedCount());
+		assertRanges(checkpoint.getMissingRanges(),
+				new long[] {0, 10}, new long[] {25, 30}, new long[] {40, 50}, new long[] {60, 100});
+
+		// One range swallowing several
+		checkpoint.addCompleted(28, 55);
+		assertEquals(47, checkpoint.getCompletedCount());
+		assertRanges(checkpoint.getMissingRanges(), new long[] {0, 10}, new long[] {25, 28}, new long[] {60, 100});
+
+		checkpoint.addCompleted(0, 100);
+		assertEquals(100, checkpoint.getCompletedCount());
+		assertTrue(checkpoint.getMissingRanges().isEmpty());
+	}
+
+	@Test
+	void progressIsSavedAndReloaded() throws IOException {
+		Checkpoint checkpoint = Checkpoint.load(dir, "seed words/100");
+		checkpoint.start(1000);
+		checkpoint.setValue("firstKey", 12345);
+		checkpoint.addCompleted(0, 400);
+		checkpoint.addCompleted(500, 600);
+		checkpoint.save();
+		assertTrue(checkpoint.getFile().exists());
+		assertEquals(dir, checkpoint.getFile().getParentFile());
+
+		Checkpoint reloaded = Checkpoint.load(dir, "seed words/100");
+		reloaded.start(1000);
+		assertEquals(12345L, reloaded.getValue("firstKey"));
+		assertNull(reloaded.getValue("lastKey"));
+		assertEquals(500, reloaded.getCompletedCount());
+		assertRanges(reloaded.getMissingRanges(), new long[] {400, 500}, new long[] {600, 1000});
+
+		reloaded.delete();
+		assertFalse(reloaded.getFile().exists());
+	}
+
+	@Test
+	void aDifferentTargetStartsAgain() throws IOException {
+		Checkpoint checkpoint = Checkpoint.load(dir, "target");
+		checkpoint.start(1000);
+		checkpoint.addCompleted(0, 400);
+		checkpoint.save();
+
+		Checkpoint reloaded = Checkpoint.load(dir, "target");
+		reloaded.start(2000);
+		assertEquals(0, reloaded.getCompletedCount());
+		assertRanges(reloaded.getMissingRanges(), new long[] {0, 2000});
+	}
+
+	@Test
+	void anUnreadableCheckpointIsIgnored() throws IOException {
+		Checkpoint checkpoint = Checkpoint.load(dir, "corrupt");
+		Files.writeString(checkpoint.getFile().toPath(), "{\"name\": \"corrupt\", \"completed\": [[0");
+		Checkpoint reloaded = Checkpoint.load(dir, "corrupt");
+		reloaded.start(10);
+		assertEquals(0, reloaded.getCompletedCount());
+	}
+}
@@ -0,0 +1,139 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.yugabyte.simulation.services.ServiceManager;
+import com.yugabyte.simulation.services.Timer;
+import com.yugabyte.simulation.services.TimerService;
+import com.yugabyte.simulation.services.WorkerThreadService;
+import com.yugabyte.simulation.workload.FixedTargetWorkloadType.FixedTargetWorkloadInstance;
+
+class FixedTargetWorkloadTypeTest {
+	private ServiceManager serviceManager;
+	@TempDir
+	File checkpointDir;
+
+	@BeforeEach
+	void setUp() {
+		TimerService timerService = mock(TimerService.class);
+		when(timerService.getTimer()).thenAnswer(invocation -> mock(Timer.class));
+		WorkloadManager workloadManager = mock(WorkloadManager.class);
+		when(workloadManager.getDefaultDeadline(anyLong())).thenReturn(0L);
+		when(workloadManager.getShutdownGraceMs()).thenReturn(10_000L);
+		when(workloadManager.getCheckpointDir()).thenReturn(checkpointDir);
+		serviceManager = mock(ServiceManager.class);
+		when(serviceManager.getTimerService()).thenReturn(timerService);
+		when(serviceManager.getWorkloadManager()).thenReturn(workloadManager);
+		when(serviceManager.getWorkerThreadService()).thenReturn(new WorkerThreadService());
+		when(timerService.startTimingWorkload(any())).thenReturn(0);
+	}
+
+	private void awaitTermination(FixedTargetWorkloadInstance instance) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30_000;
+		while (!instance.isTerminated() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(instance.isTerminated(), "workload did not finish");
+	}
+
+	private void assertEachRunOnce(AtomicIntegerArray runs) {
+		for (int i = 0; i < runs.length(); i++) {
+			assertEquals(1, runs.get(i), "sequence " + i);
+		}
+	}
+
+	@Test
+	void everySequenceRunsExactlyOnce() throws InterruptedException {
+		int target = 100_003;
+		AtomicIntegerArray runs = new AtomicIntegerArray(target);
+		FixedTargetWorkloadInstance instance = new FixedTargetWorkloadType().createInstance(serviceManager)
+				.setClaimSize(997);
+		instance.execute(16, (long)target, (sequence, customData, threadData) -> {
+			runs.incrementAndGet((int)sequence);
+			return null;
+		});
+		awaitTermination(instance);
+		assertEachRunOnce(runs);
+		assertEquals(target, instance.getCompleted());
+		assertEquals(100.0, instance.getPercentComplete());
+	}
+
+	@Test
+	void everySequenceRunsExactlyOnceInBatches() throws InterruptedException {
+		int target = 10_007;
+		AtomicIntegerArray runs = new AtomicIntegerArray(target);
+		FixedTargetWorkloadInstance instance = new FixedTargetWorkloadType().createInstance(serviceManager)
+				.setBatchSize(13);
+		instance.executeBatched(7, target, (firstSequence, count, customData, threadData) -> {
+			assertTrue(count <= 13);
+			for (long sequence = firstSequence; sequence < firstSequence + count; sequence++) {
+				runs.incrementAndGet((int)sequence);
+			}
+			return null;
+		});
+		awaitTermination(instance);
+		assertEachRunOnce(runs);
+		assertEquals(target, instance.getCompleted());
+	}
+
+	@Test
+	void slowWorkersFinishTheirBlocks() throws InterruptedException {
+		// One worker runs out of blocks long before the others finish theirs
+		int target = 64;
+		AtomicIntegerArray runs = new AtomicIntegerArray(target);
+		FixedTargetWorkloadInstance instance = new FixedTargetWorkloadType().createInstance(serviceManager);
+		instance.execute(4, (long)target, (sequence, customData, threadData) -> {
+			runs.incrementAndGet((int)sequence);
+			if (sequence % 2 == 0) {
+				try {
+					Thread.sleep(5);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return null;
+		});
+		awaitTermination(instance);
+		assertEachRunOnce(runs);
+	}
+
+	@Test
+	void failedBatchesAreLeftOutOfTheCheckpoint() throws InterruptedException {
+		int target = 1000;
+		FixedTargetWorkloadInstance instance = new FixedTargetWorkloadType().createInstance(serviceManager)
+				.setBatchSize(10)
+				.setCheckpointName("failures");
+		instance.executeBatched(4, target, (firstSequence, count, customData, threadData) -> {
+			if (firstSequence == 100 || firstSequence == 990) {
+				throw new IllegalStateException("batch " + firstSequence + " failed");
+			}
+			return null;
+		});
+		awaitTermination(instance);
+		assertEquals(target, instance.getCompleted());
+
+		Checkpoint checkpoint = Checkpoint.load(checkpointDir, "failures");
+		checkpoint.start(target);
+		assertEquals(980, checkpoint.getCompletedCount());
+		List<long[]> missing = checkpoint.getMissingRanges();
+		assertEquals(2, missing.size());
+		assertEquals(100, missing.get(0)[0]);
+		assertEquals(110, missing.get(0)[1]);
+		assertEquals(990, missing.get(1)[0]);
+		assertEquals(1000, missing.get(1)[1]);
+	}
+}
@@ -0,0 +1,67 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class LoadProfileTest {
+
+	@Test
+	void durationsAcceptUnits() {
+		assertEquals(500, LoadProfile.parseDurationMs("500ms"));
+		assertEquals(30_000, LoadProfile.parseDurationMs("30s"));
+		assertEquals(90_000, LoadProfile.parseDurationMs("1.5m"));
+		assertEquals(7_200_000, LoadProfile.parseDurationMs("2H"));
+		assertEquals(45_000, LoadProfile.parseDurationMs(" 45 "));
+	}
+
+	@Test
+	void constantWithoutADurationLastsForever() {
+		LoadProfile profile = LoadProfile.parse("constant(250)");
+		assertEquals(LoadProfile.FOREVER, profile.getDurationMs());
+		assertEquals(250, profile.getRate(0));
+		assertEquals(250, profile.getRate(365L * 24 * 3_600_000));
+	}
+
+	@Test
+	void segmentsRunOneAfterAnother() {
+		LoadProfile profile = LoadProfile.parse("ramp(0,1000,10s); constant(1000,1m); spike(1000,5000,10s,5s,30s); steps(100,50,3,10s)");
+		assertEquals(10_000 + 60_000 + 30_000 + 30_000, profile.getDurationMs());
+		assertEquals(0, profile.getRate(0));
+		assertEquals(500, profile.getRate(5_000), 1e-9);
+		assertEquals(1000, profile.getRate(10_000));
+		assertEquals(1000, profile.getRate(69_999));
+		assertEquals(1000, profile.getRate(79_999));
+		assertEquals(5000, profile.getRate(80_000));
+		assertEquals(5000, profile.getRate(84_999));
+		assertEquals(1000, profile.getRate(85_000));
+		assertEquals(100, profile.getRate(100_000));
+		assertEquals(150, profile.getRate(110_000));
+		assertEquals(200, profile.getRate(125_000));
+		// The last step is held after the profile ends
+		assertEquals(200, profile.getRate(200_000));
+	}
+
+	@Test
+	void sineStartsAtTheMeanAndRises() {
+		LoadProfile profile = LoadProfile.parse("sine(1000,200,4m,8m)");
+		assertEquals(480_000, profile.getDurationMs());
+		assertEquals(1000, profile.getRate(0), 1e-9);
+		assertEquals(1200, profile.getRate(60_000), 1e-9);
+		assertEquals(800, profile.getRate(180_000), 1e-9);
+	}
+
+	@Test
+	void invalidProfilesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse(""));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse(" ; "));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("constant"));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("square(1,2)"));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("ramp(0,100)"));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("constant(fast)"));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("constant(100,0s)"));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("replay(/no/such/profile.csv)"));
+		assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("constant(100);constant(200,10s)"));
+	}
+}
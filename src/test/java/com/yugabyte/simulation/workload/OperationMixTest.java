@@ -0,0 +1,103 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.yugabyte.simulation.services.TimerService;
+
+class OperationMixTest {
+	private TimerService timerService;
+	private Map<String, Integer> runs;
+
+	@BeforeEach
+	void setUp() {
+		timerService = mock(TimerService.class);
+		when(timerService.registerOperation("read")).thenReturn(0);
+		when(timerService.registerOperation("write")).thenReturn(1);
+		when(timerService.registerOperation("scan")).thenReturn(2);
+		runs = new HashMap<String, Integer>();
+	}
+
+	private OperationMix createMix(int readWeight, int writeWeight, int scanWeight) {
+		return new OperationMix(timerService)
+				.addOperation("read", readWeight, (customData, threadData) -> runs.merge("read", 1, Integer::sum))
+				.addOperation("write", writeWeight, (customData, threadData) -> runs.merge("write", 1, Integer::sum))
+				.addOperation("scan", scanWeight, (customData, threadData) -> runs.merge("scan", 1, Integer::sum));
+	}
+
+	@Test
+	void operationsRunInProportionToTheirWeights() {
+		OperationMix mix = createMix(70, 30, 0);
+		int total = 100_000;
+		for (int i = 0; i < total; i++) {
+			mix.run(null, null);
+		}
+		assertEquals(0, runs.getOrDefault("scan", 0));
+		assertEquals(0.7, runs.get("read") / (double)total, 0.02);
+		assertEquals(0.3, runs.get("write") / (double)total, 0.02);
+	}
+
+	@Test
+	void runMarksTheOperationChosen() {
+		OperationMix mix = createMix(0, 1, 0);
+		mix.run(null, null);
+		verify(timerService).markOperation(1);
+	}
+
+	@Test
+	void weightsCanBeChanged() {
+		OperationMix mix = createMix(1, 1, 1);
+		assertEquals(Arrays.asList("read", "write", "scan"), mix.getOperationNames());
+		Map<String, Integer> weights = new LinkedHashMap<String, Integer>();
+		weights.put("read", 0);
+		weights.put("write", 0);
+		mix.setWeights(weights);
+		assertEquals(Arrays.asList(0, 0, 1), Arrays.asList(mix.getWeights().values().toArray()));
+		for (int i = 0; i < 100; i++) {
+			mix.run(null, null);
+		}
+		assertEquals(100, runs.get("scan"));
+		assertTrue(!runs.containsKey("read") && !runs.containsKey("write"));
+	}
+
+	@Test
+	void invalidMixesAreRejected() {
+		OperationMix mix = createMix(1, 0, 0);
+		assertThrows(IllegalArgumentException.class, () -> mix.addOperation("read", 1, (customData, threadData) -> {}));
+		assertThrows(IllegalArgumentException.class, () -> mix.addOperation("update", -1, (customData, threadData) -> {}));
+		assertThrows(IllegalArgumentException.class, () -> mix.setWeight("update", 1));
+		assertThrows(IllegalArgumentException.class, () -> mix.setWeight("read", -1));
+
+		mix.setWeight("read", 0);
+		assertThrows(IllegalStateException.class, () -> mix.run(null, null));
+	}
+
+	@Test
+	void aRejectedChangeOfWeightsChangesNone() {
+		OperationMix mix = createMix(70, 20, 10);
+		Map<String, Integer> weights = new LinkedHashMap<String, Integer>();
+		weights.put("read", 50);
+		weights.put("update", 50);
+		assertThrows(IllegalArgumentException.class, () -> mix.setWeights(weights));
+		assertEquals(Arrays.asList(70, 20, 10), Arrays.asList(mix.getWeights().values().toArray()));
+
+		Map<String, Integer> none = new LinkedHashMap<String, Integer>();
+		none.put("read", 0);
+		none.put("write", 0);
+		none.put("scan", 0);
+		assertThrows(IllegalArgumentException.class, () -> mix.setWeights(none));
+		assertEquals(Arrays.asList(70, 20, 10), Arrays.asList(mix.getWeights().values().toArray()));
+	}
+}
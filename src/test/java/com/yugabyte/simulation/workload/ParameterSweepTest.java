@@ -0,0 +1,71 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.yugabyte.simulation.dao.Percentiles;
+import com.yugabyte.simulation.services.ServiceManager;
+import com.yugabyte.simulation.services.TimerService;
+import com.yugabyte.simulation.workload.ParameterSweep.Dimension;
+
+class ParameterSweepTest {
+
+	@Test
+	void rangesAndListsAreExpanded() {
+		List<Dimension> dimensions = ParameterSweep.parse("3=8..256*2; pool=16,64 ;rate=100..400+150,1000; single=1..3");
+		assertEquals(4, dimensions.size());
+		assertEquals("3", dimensions.get(0).getName());
+		assertEquals(Arrays.asList("8", "16", "32", "64", "128", "256"), dimensions.get(0).getValues());
+		assertEquals("pool", dimensions.get(1).getName());
+		assertEquals(Arrays.asList("16", "64"), dimensions.get(1).getValues());
+		assertEquals(Arrays.asList("100", "250", "400", "1000"), dimensions.get(2).getValues());
+		assertEquals(Arrays.asList("1", "2", "3"), dimensions.get(3).getValues());
+	}
+
+	@Test
+	void invalidSpecificationsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> ParameterSweep.parse("threads"));
+		assertThrows(IllegalArgumentException.class, () -> ParameterSweep.parse("=1,2"));
+		assertThrows(IllegalArgumentException.class, () -> ParameterSweep.parse("threads=8..x"));
+		assertThrows(IllegalArgumentException.class, () -> ParameterSweep.parse("threads=256..8"));
+		assertThrows(IllegalArgumentException.class, () -> ParameterSweep.parse("threads=8..256*1"));
+		assertThrows(IllegalArgumentException.class, () -> ParameterSweep.parse("threads=0..256*2"));
+		assertThrows(IllegalArgumentException.class, () -> ParameterSweep.parse("threads=8..256+0"));
+		assertThrows(IllegalArgumentException.class,
+				() -> new ParameterSweep(mock(ServiceManager.class), "workload", Collections.emptyList()));
+	}
+
+	@Test
+	void stepsCoverEveryCombinationFirstDimensionSlowest() {
+		ParameterSweep sweep = new ParameterSweep(mock(ServiceManager.class), "workload",
+				ParameterSweep.parse("3=8..256*2;pool=16,64"));
+		List<Map<String, String>> steps = sweep.getSteps();
+		assertEquals(12, steps.size());
+		assertEquals(Map.of("3", "8", "pool", "16"), steps.get(0));
+		assertEquals(Map.of("3", "8", "pool", "64"), steps.get(1));
+		assertEquals(Map.of("3", "16", "pool", "16"), steps.get(2));
+		assertEquals(Map.of("3", "256", "pool", "64"), steps.get(11));
+		assertEquals(Arrays.asList("3", "pool"), Arrays.asList(steps.get(5).keySet().toArray()));
+	}
+
+	@Test
+	void kneeLatencyMustBeMeasured() {
+		TimerService timerService = mock(TimerService.class);
+		when(timerService.getPercentiles()).thenReturn(new Percentiles(50, 99, 99.9));
+		ServiceManager serviceManager = mock(ServiceManager.class);
+		when(serviceManager.getTimerService()).thenReturn(timerService);
+		ParameterSweep sweep = new ParameterSweep(serviceManager, "workload", ParameterSweep.parse("pool=16"));
+		sweep.setKneeLatency("MAX");
+		sweep.setKneeLatency("P99.9");
+		assertThrows(IllegalArgumentException.class, () -> sweep.setKneeLatency("p95"));
+	}
+}
@@ -0,0 +1,73 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RateControllerTest {
+	private static final double SAMPLE_SECS = 0.25;
+	// The workers only achieve this fraction of the rate they aim for
+	private static final double EFFICIENCY = 0.8;
+
+	private double measuredRate;
+
+	/**
+	 * Sample the controller as the thread manager would, returning the highest rate measured.
+	 */
+	private double run(RateController controller, double desiredRate, int samples) {
+		double highest = 0;
+		for (int i = 0; i < samples; i++) {
+			double output = controller.update(desiredRate, measuredRate, SAMPLE_SECS);
+			measuredRate = output * EFFICIENCY;
+			highest = Math.max(highest, measuredRate);
+		}
+		return highest;
+	}
+
+	private void assertConvergesAndScalesDown(RateController controller) {
+		run(controller, 1000, 60);
+		assertEquals(1000, measuredRate, 20);
+		assertEquals(1000 / EFFICIENCY, controller.getOutput(), 25);
+
+		// The thread manager resets the controller when the rate changes
+		controller.reset();
+		double output = controller.update(100, measuredRate, SAMPLE_SECS);
+		assertTrue(output <= 100, "output " + output + " did not drop with the rate");
+		measuredRate = output * EFFICIENCY;
+		run(controller, 100, 60);
+		assertEquals(100, measuredRate, 2);
+		assertEquals(0, controller.getError(), 0.02);
+	}
+
+	@Test
+	void pidConvergesAndScalesDown() {
+		assertConvergesAndScalesDown(new PidRateController());
+	}
+
+	@Test
+	void aimdConvergesAndScalesDown() {
+		assertConvergesAndScalesDown(new AimdRateController());
+	}
+
+	@Test
+	void aimdDoesNotOvershoot() {
+		double highest = run(new AimdRateController(), 1000, 60);
+		assertTrue(highest <= 1000 * (1 + AimdRateController.DEFAULT_TOLERANCE), "highest rate " + highest);
+	}
+
+	@Test
+	void theControllerIsChosenByName() {
+		WorkloadManager workloadManager = new WorkloadManager();
+		assertInstanceOf(PidRateController.class, workloadManager.createRateController());
+		ReflectionTestUtils.setField(workloadManager, "rateController", "AIMD");
+		assertInstanceOf(AimdRateController.class, workloadManager.createRateController());
+		ReflectionTestUtils.setField(workloadManager, "rateController", "pid");
+		assertInstanceOf(PidRateController.class, workloadManager.createRateController());
+		ReflectionTestUtils.setField(workloadManager, "rateController", "bang-bang");
+		assertThrows(IllegalArgumentException.class, workloadManager::createRateController);
+	}
+}
@@ -0,0 +1,191 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.yugabyte.simulation.dao.LatencySummary;
+import com.yugabyte.simulation.dao.Percentiles;
+import com.yugabyte.simulation.dao.TimerResult;
+import com.yugabyte.simulation.services.MeasurementWindow;
+import com.yugabyte.simulation.services.TimerService;
+import com.yugabyte.simulation.workload.ThroughputSearch.Verdict;
+import com.yugabyte.simulation.workload.ThroughputWorkloadType.ThroughputWorkloadInstance;
+
+class ThroughputSearchTest {
+	private static final long WINDOW_MS = 10_000;
+	private static final int WHOLE = 0;
+	private static final int FIRST_HALF = 1;
+	private static final int SECOND_HALF = 2;
+
+	/**
+	 * How the system under test behaves when asked for a rate, over the whole measurement
+	 * window or one of its halves.
+	 */
+	private interface Plant {
+		double[] measure(int targetRate, int part);
+	}
+
+	private final Percentiles percentiles = new Percentiles(50, 99);
+	private ThroughputWorkloadInstance workload;
+	private TimerService timerService;
+	private int desiredRate;
+	private Plant plant;
+
+	private static double[] behaviour(double achievedRate, long p99Us, double errorRate) {
+		return new double[] {achievedRate, p99Us, errorRate};
+	}
+
+	private TimerResult result(double[] behaviour) {
+		long total = Math.round(behaviour[0] * WINDOW_MS / 1000);
+		long failed = Math.round(total * behaviour[2]);
+		long p99Us = (long)behaviour[1];
+		LatencySummary latency = new LatencySummary(total, p99Us / 4, p99Us / 2, p99Us, percentiles, new long[] {p99Us / 2, p99Us});
+		return new TimerResult(latency, null, null, null, null, null, total - failed, failed, 0, WINDOW_MS);
+	}
+
+	@BeforeEach
+	void setUp() {
+		workload = mock(ThroughputWorkloadInstance.class);
+		when(workload.getDesiredRate()).thenAnswer(invocation -> desiredRate);
+		doAnswer(invocation -> desiredRate = invocation.getArgument(0)).when(workload).setDesiredRate(anyInt());
+
+		// The search opens the whole window then each half in turn
+		Map<MeasurementWindow, Integer> parts = new IdentityHashMap<MeasurementWindow, Integer>();
+		timerService = mock(TimerService.class);
+		when(timerService.getPercentiles()).thenReturn(percentiles);
+		when(timerService.getIntervalMs()).thenReturn(1);
+		when(timerService.openMeasurementWindow(any(WorkloadTypeInstance.class))).thenAnswer(invocation -> {
+			MeasurementWindow window = mock(MeasurementWindow.class);
+			parts.put(window, parts.size() % 3);
+			return window;
+		});
+		when(timerService.closeMeasurementWindow(any(MeasurementWindow.class)))
+				.thenAnswer(invocation -> result(plant.measure(desiredRate, parts.get(invocation.getArgument(0)))));
+	}
+
+	private ThroughputSearch search(String objective) {
+		return ThroughputSearch.forObjective(workload, timerService, objective).setWarmupMs(0).setMeasureMs(2);
+	}
+
+	@Test
+	void findsTheHighestRateWithinTheLatencyObjective() throws InterruptedException {
+		// Latency climbs well before the system saturates at 1,000 ops/s
+		plant = (rate, part) -> behaviour(Math.min(rate, 1000), rate <= 600 ? 5_000 : 30_000, 0);
+		desiredRate = 100;
+		ThroughputSearch search = search("p99<20ms");
+
+		assertEquals(600, search.run());
+		assertEquals(600, search.getMaxSustainableRate());
+		assertEquals(600, desiredRate);
+		int[] doubling = {100, 200, 400, 800};
+		for (int i = 0; i < doubling.length; i++) {
+			assertEquals(doubling[i], search.getProbes().get(i).getTargetRate());
+		}
+		assertEquals(Verdict.LATENCY_TOO_HIGH, search.getProbes().get(3).getVerdict());
+		for (ThroughputSearch.Probe probe : search.getProbes()) {
+			assertEquals(probe.getTargetRate() <= 600, probe.isPassed(), "probe at " + probe.getTargetRate());
+		}
+		// Bisected down to within the 2% precision
+		int lowestFail = search.getProbes().stream().filter(probe -> !probe.isPassed())
+				.mapToInt(ThroughputSearch.Probe::getTargetRate).min().getAsInt();
+		assertTrue(lowestFail - 600 <= 0.02 * lowestFail, "lowest failing rate " + lowestFail);
+	}
+
+	@Test
+	void errorsAndUnsustainedRatesFail() throws InterruptedException {
+		// Saturates at 300 ops/s, with errors once above 250 ops/s
+		plant = (rate, part) -> behaviour(Math.min(rate, 300), 1_000, rate > 250 ? 0.05 : 0);
+		desiredRate = 1000;
+		ThroughputSearch search = search("p99<20ms").setMaxRate(1000);
+
+		int rate = search.run();
+		assertTrue(rate <= 250 && rate >= 245, "rate " + rate);
+		assertEquals(1000, search.getProbes().get(0).getTargetRate());
+		for (ThroughputSearch.Probe probe : search.getProbes()) {
+			// Within the default 5% rate tolerance of 300 ops/s counts as sustained
+			Verdict expected = probe.getTargetRate() * 0.95 > 300 ? Verdict.RATE_NOT_SUSTAINED
+					: probe.getTargetRate() > 250 ? Verdict.ERROR_RATE_TOO_HIGH : Verdict.PASS;
+			assertEquals(expected, probe.getVerdict(), "probe at " + probe.getTargetRate());
+		}
+	}
+
+	@Test
+	void aRateFallingBehindInOneHalfIsNotSustained() throws InterruptedException {
+		// Keeps up on average, but only by running fast then falling behind
+		plant = (rate, part) -> behaviour(part == FIRST_HALF ? rate * 1.1 : part == SECOND_HALF ? rate * 0.9 : rate, 1_000, 0);
+		desiredRate = 100;
+		ThroughputSearch search = search("p99<20ms").setMinRate(100).setMaxRate(100);
+
+		assertEquals(0, search.run());
+		assertEquals(1, search.getProbes().size());
+		assertEquals(Verdict.RATE_NOT_SUSTAINED, search.getProbes().get(0).getVerdict());
+	}
+
+	@Test
+	void anUnstableProbeIsRepeated() throws InterruptedException {
+		// Latency grows through the first probe only, as if a queue from an earlier rate was draining
+		int[] probes = {0};
+		plant = (rate, part) -> {
+			if (part == WHOLE) {
+				probes[0]++;
+			}
+			return behaviour(rate, part == SECOND_HALF && probes[0] == 1 ? 15_000 : 5_000, 0);
+		};
+		desiredRate = 100;
+		ThroughputSearch search = search("p99<20ms").setMaxRate(100);
+
+		assertEquals(100, search.run());
+		assertEquals(2, search.getProbes().size());
+		assertEquals(Verdict.UNSTABLE, search.getProbes().get(0).getVerdict());
+		assertEquals(5_000, search.getProbes().get(0).getFirstHalfLatencyUs());
+		assertEquals(15_000, search.getProbes().get(0).getSecondHalfLatencyUs());
+		assertEquals(Verdict.PASS, search.getProbes().get(1).getVerdict());
+
+		// Growth which persists fails the rate once the retries are used up
+		probes[0] = 0;
+		plant = (rate, part) -> behaviour(rate, part == SECOND_HALF ? 15_000 : 5_000, 0);
+		ThroughputSearch unstable = search("p99<20ms").setMinRate(100).setMaxRate(100).setUnstableRetries(2);
+		assertEquals(0, unstable.run());
+		assertEquals(3, unstable.getProbes().size());
+		assertTrue(unstable.getProbes().stream().allMatch(probe -> probe.getVerdict() == Verdict.UNSTABLE));
+	}
+
+	@Test
+	void theSearchStopsWhenTheWorkloadEnds() throws InterruptedException {
+		plant = (rate, part) -> behaviour(rate, 1_000, 0);
+		desiredRate = 100;
+		when(workload.isTerminated()).thenAnswer(invocation -> desiredRate >= 400);
+		ThroughputSearch search = search("p99<20ms");
+
+		assertEquals(200, search.run());
+		assertEquals(3, search.getProbes().size());
+		assertEquals(Verdict.WORKLOAD_ENDED, search.getProbes().get(2).getVerdict());
+		// An ended workload is not set back to the rate found
+		verify(workload, times(1)).setDesiredRate(200);
+	}
+
+	@Test
+	void objectivesMustNameAConfiguredPercentileAndUnits() {
+		search("p99 < 1.5s");
+		search("P50<800us");
+		assertThrows(IllegalArgumentException.class, () -> search("p99.9<20ms"));
+		assertThrows(IllegalArgumentException.class, () -> search("p99<20"));
+		assertThrows(IllegalArgumentException.class, () -> search("20ms"));
+		assertThrows(IllegalArgumentException.class, () -> search("p99<fast ms"));
+		assertThrows(IllegalArgumentException.class, () -> search("p99<20ms").setMeasureMs(1));
+	}
+}
@@ -0,0 +1,120 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.yugabyte.simulation.services.ExecutionStatus;
+import com.yugabyte.simulation.services.Outcome;
+import com.yugabyte.simulation.services.ServiceManager;
+import com.yugabyte.simulation.services.Timer;
+import com.yugabyte.simulation.services.TimerService;
+import com.yugabyte.simulation.services.WorkerThreadService;
+import com.yugabyte.simulation.workload.ThroughputWorkloadType.ThroughputWorkloadInstance;
+
+class ThroughputWorkloadTypeTest {
+	private ServiceManager serviceManager;
+	private WorkloadManager workloadManager;
+
+	/**
+	 * Measures the time of each operation, which the thread manager sizes the workers from.
+	 */
+	private static class ClockTimer implements Timer {
+		private long startNs;
+
+		public Timer start() {
+			startNs = System.nanoTime();
+			return this;
+		}
+		public Timer start(long intendedStartTimeNs) {
+			return start();
+		}
+		public Timer timeSubPortion(String description) {
+			return this;
+		}
+		public Timer timeSubPortion(int phaseId) {
+			return this;
+		}
+		public Timer forOperation(int operationId) {
+			return this;
+		}
+		public Timer detach() {
+			return this;
+		}
+		public long end(ExecutionStatus status, int workloadOrdinal) {
+			return System.nanoTime() - startNs;
+		}
+		public long end(Outcome outcome, int workloadOrdinal) {
+			return System.nanoTime() - startNs;
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		TimerService timerService = mock(TimerService.class);
+		when(timerService.getTimer()).thenAnswer(invocation -> new ClockTimer());
+		when(timerService.getArrivalDistribution()).thenReturn("closed");
+		when(timerService.startTimingWorkload(any())).thenReturn(0);
+		workloadManager = mock(WorkloadManager.class);
+		when(workloadManager.getDefaultDeadline(anyLong())).thenReturn(0L);
+		when(workloadManager.getShutdownGraceMs()).thenReturn(10_000L);
+		serviceManager = mock(ServiceManager.class);
+		when(serviceManager.getTimerService()).thenReturn(timerService);
+		when(serviceManager.getWorkloadManager()).thenReturn(workloadManager);
+		when(serviceManager.getWorkerThreadService()).thenReturn(new WorkerThreadService());
+	}
+
+	private static void awaitCondition(String description, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 20_000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertTrue(condition.getAsBoolean(), description);
+	}
+
+	private void assertReachesTheRateAndReleasesThreads(RateController controller) throws InterruptedException {
+		when(workloadManager.createRateController()).thenReturn(controller);
+		ThroughputWorkloadInstance instance = new ThroughputWorkloadType().createInstance(serviceManager)
+				.setMaxThreads(32);
+		assertEquals(controller, instance.getRateController());
+		// Each operation takes 10ms, so 200 ops/s needs 2 or more workers
+		instance.execute(200, (customData, threadData) -> {
+			try {
+				Thread.sleep(10);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			awaitCondition("rate did not converge on 200 ops/s", () -> Math.abs(instance.getCurrentRate() - 200) < 20);
+			assertTrue(instance.getCurrentThreadCount() >= 2, "threads " + instance.getCurrentThreadCount());
+
+			instance.setDesiredRate(20);
+			awaitCondition("threads were not released", () -> instance.getCurrentThreadCount() == 1);
+			awaitCondition("rate did not converge on 20 ops/s", () -> Math.abs(instance.getCurrentRate() - 20) < 6);
+			assertTrue(instance.getCurrentThreadCount() <= 1, "threads " + instance.getCurrentThreadCount());
+		}
+		finally {
+			instance.terminate();
+		}
+	}
+
+	@Test
+	void pidReachesTheRateAndReleasesThreads() throws InterruptedException {
+		assertReachesTheRateAndReleasesThreads(new PidRateController());
+	}
+
+	@Test
+	void aimdReachesTheRateAndReleasesThreads() throws InterruptedException {
+		assertReachesTheRateAndReleasesThreads(new AimdRateController());
+	}
+}
@@ -0,0 +1,69 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.yugabyte.simulation.dao.Percentiles;
+import com.yugabyte.simulation.dao.TimerResult;
+import com.yugabyte.simulation.services.LatencyHistogram;
+
+class TimerResultSeriesTest {
+	private final Percentiles percentiles = new Percentiles(50, 99);
+
+	private TimerResult result(long startTimeMs, long latencyUs) {
+		LatencyHistogram histogram = new LatencyHistogram(3_600_000_000L, 3);
+		histogram.recordValue(latencyUs);
+		return new TimerResult(histogram, percentiles, latencyUs, 0, startTimeMs);
+	}
+
+	@Test
+	void resultsAreReadBackOldestFirst() {
+		TimerResultSeries series = new TimerResultSeries(1000, mock(WorkloadTypeInstance.class));
+		for (int i = 1; i <= 600; i++) {
+			series.add(result(i * 1000L, i));
+		}
+		assertEquals(600, series.size());
+		List<TimerResult> results = series.getResultsAfter(0);
+		assertEquals(600, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			TimerResult result = results.get(i);
+			assertEquals((i + 1) * 1000L, result.getStartTimeMs());
+			assertEquals(i + 1, result.getNumSucceeded());
+			assertEquals(i + 1, result.getMaxUs());
+			assertEquals(i + 1, result.getPercentileUs(1));
+		}
+	}
+
+	@Test
+	void oldestResultsAreDiscardedWhenFull() {
+		TimerResultSeries series = new TimerResultSeries(300, mock(WorkloadTypeInstance.class));
+		for (int i = 1; i <= 1000; i++) {
+			series.add(result(i * 1000L, i));
+		}
+		assertEquals(300, series.size());
+		List<TimerResult> results = series.getResultsAfter(0);
+		assertEquals(701_000L, results.get(0).getStartTimeMs());
+		assertEquals(1_000_000L, results.get(results.size() - 1).getStartTimeMs());
+	}
+
+	@Test
+	void resultsAfterATimeAreFoundAcrossTheWrap() {
+		TimerResultSeries series = new TimerResultSeries(300, mock(WorkloadTypeInstance.class));
+		for (int i = 1; i <= 1000; i++) {
+			series.add(result(i * 1000L, i));
+		}
+		List<TimerResult> results = series.getResultsAfter(990_000L);
+		assertEquals(10, results.size());
+		assertEquals(991_000L, results.get(0).getStartTimeMs());
+
+		// Times between results, before the oldest and after the newest
+		assertEquals(11, series.getResultsAfter(989_500L).size());
+		assertEquals(300, series.getResultsAfter(5_000L).size());
+		assertTrue(series.getResultsAfter(1_000_000L).isEmpty());
+	}
+}
@@ -0,0 +1,98 @@
+package com.yugabyte.simulation.workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	private static Thread acquireInBackground(TokenBucket bucket, AtomicBoolean terminate, AtomicBoolean result) {
+		Thread thread = new Thread(() -> result.set(bucket.acquire(terminate)));
+		thread.start();
+		return thread;
+	}
+
+	@Test
+	void uncappedBucketNeverWaits() {
+		TokenBucket bucket = new TokenBucket(0);
+		assertFalse(bucket.isCapped());
+		AtomicBoolean terminate = new AtomicBoolean(false);
+		for (int i = 0; i < 1_000_000; i++) {
+			assertTrue(bucket.acquire(terminate));
+		}
+		terminate.set(true);
+		assertFalse(bucket.acquire(terminate));
+	}
+
+	@Test
+	void rateIsCappedAfterTheBurst() {
+		TokenBucket bucket = new TokenBucket(1000);
+		assertTrue(bucket.isCapped());
+		AtomicBoolean terminate = new AtomicBoolean(false);
+		long start = System.nanoTime();
+		// The first 50ms worth of tokens are free, the other 200 are paced at 1ms each
+		for (int i = 0; i < 250; i++) {
+			assertTrue(bucket.acquire(terminate));
+		}
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+		assertTrue(elapsedMs >= 180, "took " + elapsedMs + "ms");
+		assertTrue(elapsedMs < 2_000, "took " + elapsedMs + "ms");
+	}
+
+	@Test
+	void batchesTakeOneTokenPerRow() {
+		TokenBucket bucket = new TokenBucket(1000);
+		AtomicBoolean terminate = new AtomicBoolean(false);
+		long start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			assertTrue(bucket.acquire(terminate, 25));
+		}
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+		assertTrue(elapsedMs >= 180, "took " + elapsedMs + "ms");
+	}
+
+	@Test
+	void waitersAreReleasedByANewRate() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(1);
+		AtomicBoolean terminate = new AtomicBoolean(false);
+		assertTrue(bucket.acquire(terminate));
+		AtomicBoolean result = new AtomicBoolean(false);
+		Thread waiter = acquireInBackground(bucket, terminate, result);
+		waiter.join(100);
+		assertTrue(waiter.isAlive());
+
+		bucket.setRate(0);
+		assertEquals(0, bucket.getRate());
+		waiter.join(5_000);
+		assertFalse(waiter.isAlive());
+		assertTrue(result.get());
+	}
+
+	@Test
+	void waitersStopOnTerminationOrInterrupt() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(1);
+		AtomicBoolean terminate = new AtomicBoolean(false);
+		assertTrue(bucket.acquire(terminate));
+
+		AtomicBoolean result = new AtomicBoolean(true);
+		Thread waiter = acquireInBackground(bucket, terminate, result);
+		waiter.join(50);
+		terminate.set(true);
+		waiter.join(5_000);
+		assertFalse(waiter.isAlive());
+		assertFalse(result.get());
+
+		terminate.set(false);
+		result.set(true);
+		waiter = acquireInBackground(bucket, terminate, result);
+		waiter.join(50);
+		waiter.interrupt();
+		waiter.join(5_000);
+		assertFalse(waiter.isAlive());
+		assertFalse(result.get());
+	}
+}